@@ -0,0 +1,27 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "backpressure-config")
+public class BackpressureConfigData {
+    private Boolean enabled;
+    private Long sampleIntervalMs;
+    // any one of these thresholds crossed counts as pressure
+    private Double minBufferAvailableRatio;
+    private Double maxQueueFillRatio;
+    private Long maxSpoolRecords;
+    private Long maxSendLatencyMs;
+    // source rate is multiplied by decrease-factor on pressure and grows by increase-step without it
+    private Double decreaseFactor;
+    private Double increaseStep;
+    // sources pause at the minimum rate under pressure and resume once the rate is back at resume-rate-factor
+    private Double minRateFactor;
+    private Double resumeRateFactor;
+    // sources stay paused at least this long, and run at least this long after a resume before the next pause,
+    // every pause and resume closes and opens the twitter stream connections
+    private Long pauseHoldMs;
+}
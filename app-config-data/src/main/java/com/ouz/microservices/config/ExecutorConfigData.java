@@ -0,0 +1,16 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "executor-config")
+public class ExecutorConfigData {
+    // PLATFORM or VIRTUAL, VIRTUAL falls back to PLATFORM on a jdk without virtual threads
+    private String mode;
+    // task queue of each platform pool, a full queue runs the task on the submitting thread
+    private Integer queueCapacity;
+    private Long shutdownTimeoutMs;
+}
@@ -4,7 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Configuration
@@ -13,8 +15,15 @@ public class KafkaConfigData {
     private String bootstrapServers;
     private String schemaRegistryUrlKey;
     private String schemaRegistryUrl;
+    // subject -> id and id -> schema entries kept by the producer side registry client
+    private Integer schemaRegistryCacheCapacity;
+    private Long schemaRegistryRequestTimeoutMs;
     private String topicName;
     private List<String> topicNameToCreate;
     private Integer numOfPartitions;
     private Short replicationFactor;
+    // one deadline for creating and describing all topics of topicNameToCreate
+    private Long topicProvisioningTimeoutMs;
+    // compression.type per topic, set on the topic at creation and on the producer sending to it
+    private Map<String, String> topicCompressionTypes = new HashMap<>();
 }
@@ -0,0 +1,36 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "kafka-producer-config")
+public class KafkaProducerConfigData {
+    private String keySerializerClass;
+    private String valueSerializerClass;
+    private String compressionType;
+    private String acks;
+    private Integer batchSize;
+    private Integer batchSizeBoostFactor;
+    private Integer lingerMs;
+    private Integer requestTimeoutMs;
+    private Integer retryCount;
+    private Integer maxInFlightRequestsPerConnection;
+    private Long bufferMemory;
+    private Long maxBlockMs;
+    // prefix values with the confluent wire header (magic byte + schema id), schema registered at startup
+    private Boolean schemaRegistryWireFormat;
+    private String defaultPartitionStrategy;
+    private Map<String, String> topicPartitionStrategies = new HashMap<>();
+    // sequence numbers per partition, retries neither duplicate nor reorder records with up to 5 in flight
+    private Boolean enableIdempotence;
+    // set to send tweets in transactions, committed every transactionMaxRecords records or transactionMaxMs
+    private String transactionIdPrefix;
+    private Integer transactionMaxRecords = 500;
+    private Long transactionMaxMs = 100L;
+}
@@ -0,0 +1,17 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "keyword-aggregation-config")
+public class KeywordAggregationConfigData {
+    private Boolean enabled;
+    // has to be listed in kafka-config.topic-name-to-create as well
+    private String topicName;
+    private Long windowMs;
+    // a window is merged this long after it ended, so threads counting right at the boundary are done
+    private Long closeGraceMs;
+}
@@ -0,0 +1,16 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "startup-readiness-config")
+public class StartupReadinessConfigData {
+    private Boolean enabled;
+    // shared by the schema registry, broker and topic checks, they run in parallel
+    private Long timeoutMs;
+    // false starts streaming after the timeout anyway, the checks go on and the spool takes the tweets
+    private Boolean failOnTimeout;
+}
@@ -0,0 +1,21 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tweet-arena-config")
+public class TweetArenaConfigData {
+    // queue tweets serialized in off-heap slabs instead of as TwitterAvroModel objects on the heap
+    private Boolean enabled;
+    // all slabs are allocated at startup, the arena holds slab-count * slab-size-bytes
+    private Integer slabCount;
+    private Integer slabSizeBytes;
+    // smallest block size class, classes double up to the slab size
+    private Integer minBlockSizeBytes;
+    // BLOCK overflow policy waits for a free block only while the arena is at least this full, below it the
+    // allocation failed on fragmentation and the tweet is dropped instead of stalling the stream thread
+    private Integer blockMinOccupancyPercent;
+}
@@ -0,0 +1,19 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tweet-corpus-config")
+public class TweetCorpusConfigData {
+    private Boolean recordEnabled;
+    private String recordFile;
+    private Integer recordBufferSize;
+    private Boolean replayEnabled;
+    private String replayFile;
+    // 1.0 original speed, 2.0 twice as fast, 0 as fast as possible
+    private Double replaySpeed;
+    private Boolean replayLoop;
+}
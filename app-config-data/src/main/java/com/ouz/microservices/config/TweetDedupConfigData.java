@@ -0,0 +1,17 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tweet-dedup-config")
+public class TweetDedupConfigData {
+    private Boolean enabled;
+    // an id is remembered for at least window-ms and at most twice that
+    private Long windowMs;
+    // tweets per window the filter is sized for, memory is fixed from this and the false positive rate
+    private Long expectedTweetsPerWindow;
+    private Double falsePositiveRate;
+}
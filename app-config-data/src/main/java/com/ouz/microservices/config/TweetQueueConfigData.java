@@ -0,0 +1,21 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tweet-queue-config")
+public class TweetQueueConfigData {
+    // rounded up to the next power of two
+    private Integer capacity;
+    // BLOCK, DROP_NEWEST, DROP_OLDEST or SAMPLE
+    private String overflowPolicy;
+    private Integer consumerThreads;
+    // SAMPLE policy: above the high water mark only one of every sample-rate tweets is accepted
+    private Integer sampleRate;
+    private Integer sampleHighWaterMarkPercent;
+    private Long consumerIdleParkNanos;
+    private Long shutdownTimeoutMs;
+}
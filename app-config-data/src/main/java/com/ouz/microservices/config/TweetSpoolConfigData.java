@@ -0,0 +1,21 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tweet-spool-config")
+public class TweetSpoolConfigData {
+    private Boolean enabled;
+    private String directory;
+    // bytes per memory-mapped segment file, disk usage is bounded by segment-size * max-segments
+    private Integer segmentSize;
+    private Integer maxSegments;
+    // drain is paced so a recovering cluster is not flooded, should be above the ingest rate to catch up
+    private Long drainTweetsPerSecond;
+    private Integer drainBatchSize;
+    private Long drainAckTimeoutMs;
+    private Long drainRetryBackoffMs;
+}
@@ -21,4 +21,7 @@ public class Twitter2KafkaServiceConfigData {
     private Long mockSleepMs;
     private Integer mockMinTweetLength;
     private Integer mockMaxTweetLength;
+    // load mode: target rate > 0 replaces the sleep based mock with paced generator threads
+    private Long mockTargetTweetsPerSecond;
+    private Integer mockThreadCount;
 }
@@ -0,0 +1,35 @@
+package com.ouz.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "twitter-stream-config")
+public class TwitterStreamConfigData {
+    // keywords are split round robin over this many stream connections, capped at the keyword count.
+    // Twitter allows one filter connection per account, more than one shard needs shard-credentials
+    private Integer shardCount;
+    // one account per shard, shard i connects with entry i. Empty for one shard on the twitter4j.properties account
+    private List<ShardCredentials> shardCredentials = new ArrayList<>();
+    // FilterQuery language filter of every shard, empty for all languages
+    private List<String> languages;
+    // a connected shard without a status for this long is reconnected
+    private Long stallTimeoutMs;
+    private Long healthCheckIntervalMs;
+    // doubles on every reconnect of a shard without a status in between
+    private Long reconnectBackoffMs;
+    private Long maxReconnectBackoffMs;
+
+    @Data
+    public static class ShardCredentials {
+        private String consumerKey;
+        private String consumerSecret;
+        private String accessToken;
+        private String accessTokenSecret;
+    }
+}
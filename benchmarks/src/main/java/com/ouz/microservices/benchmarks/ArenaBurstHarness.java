@@ -0,0 +1,198 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.TweetArenaConfigData;
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.config.TweetSpoolConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.kafka.producer.service.impl.SerializedTwitterKafkaProducer;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaBlock;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.arena.TweetArena;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * heap held by a burst of queued tweets, TweetRingBuffer of TwitterAvroModel against ArenaTweetQueue.
+ * Every burst size is published without a consumer, like a trending spike the dispatcher can not keep up with,
+ * and the heap used after a full gc is compared to the empty queue. Each tweet is transformed from its status
+ * again, as in the listener, so the heap mode keeps one model per queued tweet.
+ * The arena is warmed up by one burst first: carving a slab creates the ArenaBlock objects of its blocks once,
+ * a heap cost bounded by the arena capacity, not by the burst.
+ * The arena tweets are then sent from their blocks to an embedded broker and the arena must be empty after
+ * the last ack.
+ *
+ * Not a jmh benchmark, run it with the main class (the arena is 64 slabs of 1 MiB, as in application.yml):
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.ouz.microservices.benchmarks.ArenaBurstHarness
+ */
+public class ArenaBurstHarness {
+
+    private static final int[] BURST_SIZES = {10_000, 100_000, 400_000};
+    private static final String TOPIC = "arena-burst";
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+    private final Status[] statusPool;
+
+    ArenaBurstHarness() throws TwitterException {
+        this.statusPool = TweetFixtures.statusPool();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ArenaBurstHarness harness = new ArenaBurstHarness();
+        System.out.printf("%-6s %8s %12s %12s %12s%n", "queue", "burst", "heap delta", "arena used", "payload");
+        for (int burstSize : BURST_SIZES) {
+            System.out.println(harness.heapBurst(burstSize));
+        }
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue();
+        // carves every slab once, the block metadata is kept for the lifetime of the arena
+        System.out.println(harness.arenaBurst(arenaTweetQueue, BURST_SIZES[BURST_SIZES.length - 1]) + " (warm up)");
+        for (int burstSize : BURST_SIZES) {
+            System.out.println(harness.arenaBurst(arenaTweetQueue, burstSize));
+        }
+
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1);
+        broker.afterPropertiesSet();
+        try {
+            broker.addTopics(new NewTopic(TOPIC, 3, (short) 1));
+            System.out.println(harness.sendFromArena(arenaTweetQueue, broker, BURST_SIZES[1]));
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    String heapBurst(int burstSize) {
+        TweetRingBuffer<TwitterAvroModel> ringBuffer =
+                new TweetRingBuffer<>(BURST_SIZES[BURST_SIZES.length - 1], OverflowPolicy.DROP_NEWEST, 1, 100);
+        long heapBefore = heapAfterGc();
+        for (int i = 0; i < burstSize; i++) {
+            ringBuffer.publish(transformer.getTwitterAvroModelFromStatus(statusPool[i % statusPool.length]));
+        }
+        long heapDelta = heapAfterGc() - heapBefore;
+        String line = String.format("%-6s %8d %10.1fMB %12s %12s", "heap", ringBuffer.size(), heapDelta / 1e6, "-", "-");
+        while (ringBuffer.poll() != null) {
+            // empty it, the ring buffer itself is preallocated
+        }
+        return line;
+    }
+
+    String arenaBurst(ArenaTweetQueue arenaTweetQueue, int burstSize) {
+        long heapBefore = heapAfterGc();
+        int queued = 0;
+        for (int i = 0; i < burstSize; i++) {
+            if (arenaTweetQueue.publish(transformer.getTwitterAvroModelFromStatus(statusPool[i % statusPool.length]))) {
+                queued++;
+            }
+        }
+        long heapDelta = heapAfterGc() - heapBefore;
+        TweetArena tweetArena = arenaTweetQueue.getTweetArena();
+        String line = String.format("%-6s %8d %10.1fMB %10.1fMB %10.1fMB%s", "arena", queued, heapDelta / 1e6,
+                tweetArena.getUsedBytes() / 1e6, tweetArena.getPayloadBytes() / 1e6,
+                queued < burstSize ? " dropped=" + (burstSize - queued) : "");
+        ArenaBlock block;
+        while ((block = arenaTweetQueue.poll()) != null) {
+            arenaTweetQueue.release(block);
+        }
+        return line;
+    }
+
+    String sendFromArena(ArenaTweetQueue arenaTweetQueue, EmbeddedKafkaBroker broker, int burstSize)
+            throws InterruptedException {
+        for (int i = 0; i < burstSize; i++) {
+            arenaTweetQueue.publish(transformer.getTwitterAvroModelFromStatus(statusPool[i % statusPool.length]));
+        }
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, LongSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteBufferSerializer.class);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384 * 100);
+        DefaultKafkaProducerFactory<Long, ByteBuffer> producerFactory = new DefaultKafkaProducerFactory<>(config);
+        KafkaTemplate<Long, ByteBuffer> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        SerializedTwitterKafkaProducer producer = new SerializedTwitterKafkaProducer(kafkaTemplate,
+                new SimpleMeterRegistry());
+        CountDownLatch acked = new CountDownLatch(burstSize);
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        ArenaBlock block;
+        while ((block = arenaTweetQueue.poll()) != null) {
+            ArenaBlock sentBlock = block;
+            producer.send(TOPIC, block.getKey(), block.getTweetId(), block.payload(), new KafkaSendCallback<>() {
+                @Override
+                public void onSuccess(String topicName, Long key, ByteBuffer message) {
+                    arenaTweetQueue.release(sentBlock);
+                    acked.countDown();
+                }
+
+                @Override
+                public void onFailure(String topicName, Long key, ByteBuffer message, Throwable throwable) {
+                    errors.incrementAndGet();
+                    arenaTweetQueue.release(sentBlock);
+                    acked.countDown();
+                }
+            });
+        }
+        if (!acked.await(2, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("arena tweets are not acked in 2 minutes");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        producer.close();
+        producerFactory.destroy();
+        return String.format("sent %d tweets from the arena in %.0f ms, %d errors, arena used after the acks %d bytes",
+                burstSize, elapsedNanos / 1e6, errors.get(), arenaTweetQueue.getTweetArena().getUsedBytes());
+    }
+
+    private long heapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private static ArenaTweetQueue arenaTweetQueue() {
+        TweetArenaConfigData arenaConfigData = new TweetArenaConfigData();
+        arenaConfigData.setEnabled(true);
+        arenaConfigData.setSlabCount(64);
+        arenaConfigData.setSlabSizeBytes(1024 * 1024);
+        arenaConfigData.setMinBlockSizeBytes(128);
+        arenaConfigData.setBlockMinOccupancyPercent(50);
+        TweetQueueConfigData queueConfigData = new TweetQueueConfigData();
+        queueConfigData.setOverflowPolicy("DROP_NEWEST");
+        queueConfigData.setSampleRate(10);
+        queueConfigData.setSampleHighWaterMarkPercent(80);
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicName(TOPIC);
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setSchemaRegistryWireFormat(false);
+        TweetSpoolConfigData spoolConfigData = new TweetSpoolConfigData();
+        spoolConfigData.setEnabled(false);
+        return new ArenaTweetQueue(arenaConfigData, queueConfigData, kafkaConfigData, producerConfigData, null,
+                new TweetSpooler(spoolConfigData, null, null, new SimpleMeterRegistry(), null),
+                new SimpleMeterRegistry());
+    }
+}
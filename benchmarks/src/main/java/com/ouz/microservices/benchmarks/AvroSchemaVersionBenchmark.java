@@ -0,0 +1,146 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordIdList;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordMatcher;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * encoding cost of the v1 tweet schema (schema-history/twitter-v1.avsc) against v2 (twitter.avsc) for the
+ * same tweets, keyword ids from the matcher and a spread of languages. v1 and v2 generic records go through
+ * GenericDatumWriter, so only the schema differs. v2Specific is the generated class the producer sends,
+ * it has no custom coder any more because of the timestamp-millis conversion. The average encoded size of
+ * both versions is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroSchemaVersionBenchmark {
+
+    private static final TweetLanguage[] LANGUAGES =
+            {TweetLanguage.EN, TweetLanguage.EN, TweetLanguage.ES, TweetLanguage.TR, TweetLanguage.UND};
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private BinaryEncoder encoder;
+
+    private TwitterAvroModel[] v2Models;
+    private GenericRecord[] v2Records;
+    private GenericRecord[] v1Records;
+    private DatumWriter<TwitterAvroModel> v2SpecificWriter;
+    private DatumWriter<GenericRecord> v2GenericWriter;
+    private DatumWriter<GenericRecord> v1GenericWriter;
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException, IOException {
+        Schema v1 = v1Schema();
+        Schema v2 = TwitterAvroModel.getClassSchema();
+        GenericData v2GenericData = new GenericData();
+        v2GenericData.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+        v1GenericWriter = new GenericDatumWriter<>(v1);
+        v2GenericWriter = new GenericDatumWriter<>(v2, v2GenericData);
+        v2SpecificWriter = new SpecificDatumWriter<>(v2);
+
+        TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+        KeywordMatcher keywordMatcher = new KeywordMatcher(List.of(TweetFixtures.KEYWORDS));
+        Status[] statusPool = TweetFixtures.statusPool();
+        v2Models = new TwitterAvroModel[TweetFixtures.POOL_SIZE];
+        v2Records = new GenericRecord[TweetFixtures.POOL_SIZE];
+        v1Records = new GenericRecord[TweetFixtures.POOL_SIZE];
+        long v1Bytes = 0;
+        long v2Bytes = 0;
+        for (int i = 0; i < TweetFixtures.POOL_SIZE; i++) {
+            TwitterAvroModel model = transformer.getTwitterAvroModelFromStatus(statusPool[i]);
+            model.setKeywordIds(KeywordIdList.of(keywordMatcher.match(model.getText())));
+            model.setLang(LANGUAGES[i % LANGUAGES.length]);
+            v2Models[i] = model;
+
+            GenericRecord v2Record = new GenericData.Record(v2);
+            v2Record.put("userId", model.getUserId());
+            v2Record.put("id", model.getId());
+            v2Record.put("text", model.getText());
+            v2Record.put("createdAt", model.getCreatedAt());
+            v2Record.put("keywordIds", model.getKeywordIds());
+            v2Record.put("lang", new GenericData.EnumSymbol(v2.getField("lang").schema(), model.getLang().name()));
+            v2Records[i] = v2Record;
+
+            GenericRecord v1Record = new GenericData.Record(v1);
+            v1Record.put("userId", model.getUserId());
+            v1Record.put("id", model.getId());
+            v1Record.put("text", model.getText());
+            v1Record.put("createdAt", model.getCreatedAt().toEpochMilli());
+            v1Records[i] = v1Record;
+
+            v1Bytes += encode(v1GenericWriter, v1Record);
+            v2Bytes += encode(v2SpecificWriter, model);
+        }
+        System.out.printf("%nencoded bytes per tweet: v1 %.1f, v2 %.1f%n",
+                (double) v1Bytes / TweetFixtures.POOL_SIZE, (double) v2Bytes / TweetFixtures.POOL_SIZE);
+    }
+
+    @Benchmark
+    public int v1Generic() throws IOException {
+        return encode(v1GenericWriter, v1Records[next()]);
+    }
+
+    @Benchmark
+    public int v2Generic() throws IOException {
+        return encode(v2GenericWriter, v2Records[next()]);
+    }
+
+    @Benchmark
+    public int v2Specific() throws IOException {
+        return encode(v2SpecificWriter, v2Models[next()]);
+    }
+
+    private int next() {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        return index;
+    }
+
+    private <T> int encode(DatumWriter<T> datumWriter, T datum) throws IOException {
+        out.reset();
+        encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+        datumWriter.write(datum, encoder);
+        encoder.flush();
+        return out.size();
+    }
+
+    private static Schema v1Schema() throws IOException {
+        try (InputStream schema = AvroSchemaVersionBenchmark.class
+                .getResourceAsStream("/schema-history/twitter-v1.avsc")) {
+            return new Schema.Parser().parse(schema);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * avro binary serialization of TwitterAvroModel through the producer value serializer, compared with the
+ * stock serializer shape (new ByteArrayOutputStream and BinaryEncoder per record, toByteArray copy) that
+ * KafkaAvroSerializer and the previous AvroSerializer use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroSerializationBenchmark {
+
+    private static final String TOPIC = "twitter-topic";
+
+    private final AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+    private final SpecificDatumWriter<TwitterAvroModel> datumWriter =
+            new SpecificDatumWriter<>(TwitterAvroModel.getClassSchema());
+    private TwitterAvroModel[] modelPool;
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException {
+        TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+        Status[] statusPool = TweetFixtures.statusPool();
+        modelPool = new TwitterAvroModel[TweetFixtures.POOL_SIZE];
+        for (int i = 0; i < TweetFixtures.POOL_SIZE; i++) {
+            modelPool[i] = transformer.getTwitterAvroModelFromStatus(statusPool[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        return avroSerializer.serialize(TOPIC, modelPool[index]);
+    }
+
+    @Benchmark
+    public byte[] serializeWithByteArrayOutputStream() throws IOException {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        datumWriter.write(modelPool[index], encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,27 @@
+package com.ouz.microservices.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * entry point of benchmarks.jar. Runs the jmh command line with the gc profiler always attached,
+ * so every result reports throughput together with gc.alloc.rate.norm (bytes allocated per operation).
+ *
+ * java -jar benchmarks/target/benchmarks.jar                     all benchmarks
+ * java -jar benchmarks/target/benchmarks.jar StatusParsing       only matching benchmarks
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
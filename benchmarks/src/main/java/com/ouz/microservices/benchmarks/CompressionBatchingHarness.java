@@ -0,0 +1,252 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.corpus.TweetCorpusReader;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import twitter4j.Status;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * sweeps compression.type x batch.size x linger.ms against an embedded broker with a real KafkaProducer and
+ * the service value serializer, and prints one line per combination:
+ * compression ratio (wire bytes / serialized bytes and the producer compression-rate-avg), producer cpu per
+ * record (sending thread + kafka-producer-network-thread) and send-to-ack latency percentiles.
+ *
+ * Records are sent at a fixed rate, at full speed every combination only measures queueing in the accumulator.
+ * Not a jmh benchmark, run it with the main class:
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.ouz.microservices.benchmarks.CompressionBatchingHarness
+ *      [records=20000] [rate=20000] [corpus=/path/to/tweets.corpus]
+ *
+ * Without a corpus file the mock tweet pool of the other benchmarks is used.
+ */
+public class CompressionBatchingHarness {
+
+    private static final String[] COMPRESSION_TYPES = {"none", "gzip", "snappy", "lz4", "zstd"};
+    private static final int[] BATCH_SIZES = {16384, 65536, 262144};
+    private static final int[] LINGER_MS = {0, 5, 20};
+    private static final int PARTITIONS = 3;
+    private static final int WARMUP_RECORDS = 5000;
+
+    private final EmbeddedKafkaBroker broker;
+    private final TwitterAvroModel[] modelPool;
+    private final long[] serializedSizes;
+    private final int records;
+    private final int rate;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private int topicIndex;
+
+    CompressionBatchingHarness(EmbeddedKafkaBroker broker, TwitterAvroModel[] modelPool, int records, int rate) {
+        this.broker = broker;
+        this.modelPool = modelPool;
+        this.records = records;
+        this.rate = rate;
+        this.serializedSizes = new long[modelPool.length];
+        try (AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>()) {
+            for (int i = 0; i < modelPool.length; i++) {
+                serializedSizes[i] = avroSerializer.serialize("", modelPool[i]).length;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+        }
+        int records = Integer.parseInt(options.getOrDefault("records", "20000"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "20000"));
+        TwitterAvroModel[] modelPool = options.containsKey("corpus") ?
+                corpusModels(Path.of(options.get("corpus"))) : toModels(TweetFixtures.statusPool());
+
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1);
+        broker.afterPropertiesSet();
+        try {
+            CompressionBatchingHarness harness = new CompressionBatchingHarness(broker, modelPool, records, rate);
+            harness.warmup();
+            System.out.printf("%d records at %d/s, %d tweets in pool%n", records, rate, modelPool.length);
+            System.out.printf("%-7s %8s %6s %8s %8s %10s %10s %9s %9s %9s%n", "codec", "batch", "linger",
+                    "wire", "rateAvg", "batchAvg", "cpu/rec", "p50", "p99", "max");
+            for (String compressionType : COMPRESSION_TYPES) {
+                for (int batchSize : BATCH_SIZES) {
+                    for (int lingerMs : LINGER_MS) {
+                        System.out.println(harness.run(compressionType, batchSize, lingerMs, records).format());
+                    }
+                }
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private void warmup() throws InterruptedException {
+        for (String compressionType : COMPRESSION_TYPES) {
+            run(compressionType, BATCH_SIZES[0], LINGER_MS[0], WARMUP_RECORDS);
+        }
+    }
+
+    Result run(String compressionType, int batchSize, int lingerMs, int recordCount) throws InterruptedException {
+        String topic = "compression-harness-" + topicIndex++;
+        broker.addTopics(new NewTopic(topic, PARTITIONS, (short) 1));
+        long[] latencies = new long[recordCount];
+        CountDownLatch acked = new CountDownLatch(recordCount);
+        AtomicInteger errors = new AtomicInteger();
+        long serializedBytes = 0;
+
+        try (KafkaProducer<Long, TwitterAvroModel> producer = new KafkaProducer<>(
+                producerConfig(topic, compressionType, batchSize, lingerMs),
+                new LongSerializer(), new AvroSerializer<>())) {
+            // the network thread is started in the constructor
+            long networkThreadId = networkThreadId(topic);
+            long networkCpuStart = threadMXBean.getThreadCpuTime(networkThreadId);
+            long sendCpuStart = threadMXBean.getCurrentThreadCpuTime();
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long nextSend = System.nanoTime();
+            for (int i = 0; i < recordCount; i++) {
+                long now = System.nanoTime();
+                if (now < nextSend) {
+                    LockSupport.parkNanos(nextSend - now);
+                }
+                nextSend += intervalNanos;
+                int poolIndex = i % modelPool.length;
+                TwitterAvroModel model = modelPool[poolIndex];
+                serializedBytes += serializedSizes[poolIndex];
+                int recordIndex = i;
+                long sendTime = System.nanoTime();
+                producer.send(new ProducerRecord<>(topic, model.getUserId(), model), (metadata, exception) -> {
+                    latencies[recordIndex] = System.nanoTime() - sendTime;
+                    if (exception != null) {
+                        errors.incrementAndGet();
+                    }
+                    acked.countDown();
+                });
+            }
+            long sendCpu = threadMXBean.getCurrentThreadCpuTime() - sendCpuStart;
+            if (!acked.await(2, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("records of " + topic + " are not acked in 2 minutes");
+            }
+            long networkCpu = threadMXBean.getThreadCpuTime(networkThreadId) - networkCpuStart;
+            Map<MetricName, ? extends Metric> metrics = producer.metrics();
+            Arrays.sort(latencies);
+            return new Result(compressionType, batchSize, lingerMs,
+                    metric(metrics, "outgoing-byte-total") / serializedBytes,
+                    metric(metrics, "compression-rate-avg"),
+                    metric(metrics, "batch-size-avg"),
+                    (sendCpu + networkCpu) / recordCount,
+                    latencies[recordCount / 2],
+                    latencies[(int) (recordCount * 0.99)],
+                    latencies[recordCount - 1],
+                    errors.get());
+        }
+    }
+
+    private Map<String, Object> producerConfig(String clientId, String compressionType, int batchSize, int lingerMs) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        return config;
+    }
+
+    private static long networkThreadId(String clientId) {
+        String name = "kafka-producer-network-thread | " + clientId;
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("no thread " + name))
+                .getId();
+    }
+
+    private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+        return metrics.entrySet().stream()
+                .filter(entry -> entry.getKey().name().equals(name) &&
+                        entry.getKey().group().equals("producer-metrics"))
+                .mapToDouble(entry -> ((Number) entry.getValue().metricValue()).doubleValue())
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    private static TwitterAvroModel[] corpusModels(Path corpusFile) throws IOException {
+        List<Status> statuses = new ArrayList<>();
+        try (TweetCorpusReader reader = new TweetCorpusReader(corpusFile)) {
+            Status status;
+            while ((status = reader.next()) != null) {
+                statuses.add(status);
+            }
+        }
+        if (statuses.isEmpty()) {
+            throw new IllegalArgumentException("corpus " + corpusFile + " has no tweets");
+        }
+        return toModels(statuses.toArray(new Status[0]));
+    }
+
+    private static TwitterAvroModel[] toModels(Status[] statuses) {
+        TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+        return Arrays.stream(statuses)
+                .map(transformer::getTwitterAvroModelFromStatus)
+                .toArray(TwitterAvroModel[]::new);
+    }
+
+    static final class Result {
+        final String compressionType;
+        final int batchSize;
+        final int lingerMs;
+        final double wireRatio;
+        final double compressionRateAvg;
+        final double batchSizeAvg;
+        final long cpuNanosPerRecord;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long maxNanos;
+        final int errors;
+
+        Result(String compressionType, int batchSize, int lingerMs, double wireRatio, double compressionRateAvg,
+               double batchSizeAvg, long cpuNanosPerRecord, long p50Nanos, long p99Nanos, long maxNanos,
+               int errors) {
+            this.compressionType = compressionType;
+            this.batchSize = batchSize;
+            this.lingerMs = lingerMs;
+            this.wireRatio = wireRatio;
+            this.compressionRateAvg = compressionRateAvg;
+            this.batchSizeAvg = batchSizeAvg;
+            this.cpuNanosPerRecord = cpuNanosPerRecord;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.errors = errors;
+        }
+
+        String format() {
+            return String.format("%-7s %8d %6d %8.3f %8.3f %10.0f %8.2fus %7.2fms %7.2fms %7.2fms%s",
+                    compressionType, batchSize, lingerMs, wireRatio, compressionRateAvg, batchSizeAvg,
+                    cpuNanosPerRecord / 1e3, p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6,
+                    errors == 0 ? "" : " errors=" + errors);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.kafka.producer.transaction.TransactionBatcher;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * throughput cost of each delivery guarantee against an embedded broker: acks=1, acks=all, acks=all with
+ * max.in.flight=1 (ordering without idempotence), the idempotent producer with 5 in flight, and
+ * TransactionBatcher with one transaction per record and with batches of growing size. Records are sent
+ * at full speed from one thread, throughput is records / time until the last record is acked (or committed),
+ * latency is send() to callback, which includes the wait for the commit in transactional modes.
+ *
+ * Not a jmh benchmark, run it with the main class:
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.ouz.microservices.benchmarks.DeliveryGuaranteeHarness
+ *      [records=50000] [rounds=3]
+ *
+ * A transaction per record is run with records / 20, it is too slow for the full count.
+ */
+public class DeliveryGuaranteeHarness {
+
+    private static final int PARTITIONS = 3;
+    private static final int WARMUP_RECORDS = 10000;
+
+    private final EmbeddedKafkaBroker broker;
+    private final TwitterAvroModel[] modelPool;
+    private int topicIndex;
+
+    DeliveryGuaranteeHarness(EmbeddedKafkaBroker broker, TwitterAvroModel[] modelPool) {
+        this.broker = broker;
+        this.modelPool = modelPool;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+        }
+        int records = Integer.parseInt(options.getOrDefault("records", "50000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+        TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+        TwitterAvroModel[] modelPool = Arrays.stream(TweetFixtures.statusPool())
+                .map(transformer::getTwitterAvroModelFromStatus)
+                .toArray(TwitterAvroModel[]::new);
+
+        // a single broker can not hold the default replication factor of the transaction state log
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1).brokerProperties(Map.of(
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+        try {
+            DeliveryGuaranteeHarness harness = new DeliveryGuaranteeHarness(broker, modelPool);
+            List<Mode> modes = modes();
+            for (Mode mode : modes) {
+                harness.run(mode, Math.min(WARMUP_RECORDS, mode.recordCount(records)));
+            }
+            System.out.printf("%d records per run, best of %d rounds%n", records, rounds);
+            System.out.printf("%-22s %8s %12s %9s %9s %9s%n", "mode", "records", "records/s", "p50", "p99", "max");
+            for (Mode mode : modes) {
+                Result best = null;
+                for (int round = 0; round < rounds; round++) {
+                    Result result = harness.run(mode, mode.recordCount(records));
+                    if (best == null || result.recordsPerSecond > best.recordsPerSecond) {
+                        best = result;
+                    }
+                }
+                System.out.println(best.format());
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static List<Mode> modes() {
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("acks=1", Map.of(ProducerConfig.ACKS_CONFIG, "1",
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false), 0));
+        modes.add(new Mode("acks=all", Map.of(ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false), 0));
+        modes.add(new Mode("acks=all inflight=1", Map.of(ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false,
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1), 0));
+        modes.add(new Mode("idempotent inflight=5", Map.of(ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true), 0));
+        for (int transactionRecords : new int[]{1, 100, 500, 2000}) {
+            modes.add(new Mode("transactional " + transactionRecords, Map.of(ProducerConfig.ACKS_CONFIG, "all",
+                    ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true), transactionRecords));
+        }
+        return modes;
+    }
+
+    Result run(Mode mode, int recordCount) throws InterruptedException {
+        String topic = "delivery-harness-" + topicIndex++;
+        broker.addTopics(new NewTopic(topic, PARTITIONS, (short) 1));
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.CLIENT_ID_CONFIG, topic);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384 * 100);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.RETRIES_CONFIG, 5);
+        config.putAll(mode.config);
+
+        long[] latencies = new long[recordCount];
+        CountDownLatch acked = new CountDownLatch(recordCount);
+        AtomicInteger errors = new AtomicInteger();
+        Sender sender;
+        AutoCloseable closeable;
+        if (mode.transactionRecords > 0) {
+            DefaultKafkaProducerFactory<Long, TwitterAvroModel> producerFactory =
+                    new DefaultKafkaProducerFactory<>(config, new LongSerializer(), new AvroSerializer<>());
+            producerFactory.setTransactionIdPrefix(topic + "-tx-");
+            TransactionBatcher<Long, TwitterAvroModel> transactionBatcher = new TransactionBatcher<>(
+                    producerFactory, mode.transactionRecords, 100, new SimpleMeterRegistry());
+            sender = transactionBatcher::send;
+            closeable = transactionBatcher::destroy;
+        } else {
+            KafkaProducer<Long, TwitterAvroModel> producer =
+                    new KafkaProducer<>(config, new LongSerializer(), new AvroSerializer<>());
+            sender = producer::send;
+            closeable = producer;
+        }
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < recordCount; i++) {
+                TwitterAvroModel model = modelPool[i % modelPool.length];
+                int recordIndex = i;
+                long sendTime = System.nanoTime();
+                sender.send(new ProducerRecord<>(topic, model.getUserId(), model), (metadata, exception) -> {
+                    latencies[recordIndex] = System.nanoTime() - sendTime;
+                    if (exception != null) {
+                        errors.incrementAndGet();
+                    }
+                    acked.countDown();
+                });
+            }
+            if (!acked.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("records of " + topic + " are not acked in 5 minutes");
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(mode.name, recordCount, recordCount * 1e9 / elapsed,
+                    latencies[recordCount / 2],
+                    latencies[(int) (recordCount * 0.99)],
+                    latencies[recordCount - 1],
+                    errors.get());
+        } finally {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private interface Sender {
+        void send(ProducerRecord<Long, TwitterAvroModel> record, Callback callback);
+    }
+
+    static final class Mode {
+        final String name;
+        final Map<String, Object> config;
+        // 0 for a non transactional producer
+        final int transactionRecords;
+
+        Mode(String name, Map<String, Object> config, int transactionRecords) {
+            this.name = name;
+            this.config = config;
+            this.transactionRecords = transactionRecords;
+        }
+
+        int recordCount(int records) {
+            return transactionRecords == 1 ? Math.max(1, records / 20) : records;
+        }
+    }
+
+    static final class Result {
+        final String mode;
+        final int records;
+        final double recordsPerSecond;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long maxNanos;
+        final int errors;
+
+        Result(String mode, int records, double recordsPerSecond, long p50Nanos, long p99Nanos, long maxNanos,
+               int errors) {
+            this.mode = mode;
+            this.records = records;
+            this.recordsPerSecond = recordsPerSecond;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.errors = errors;
+        }
+
+        String format() {
+            return String.format("%-22s %8d %12.0f %7.2fms %7.2fms %7.2fms%s",
+                    mode, records, recordsPerSecond, p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6,
+                    errors == 0 ? "" : " errors=" + errors);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.config.ExecutorConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * one burst of mock tweets through a TwitterExecutors pool: every task transforms and serializes a status,
+ * then blocks for sendLatencyMicros like a send waiting on max.block.ms or a synchronous ack.
+ * PLATFORM runs the burst on poolThreads threads, VIRTUAL on a virtual thread per tweet. On a jdk without
+ * virtual threads VIRTUAL falls back to PLATFORM and both rows measure the same pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final String TOPIC = "twitter-topic";
+    private static final int BURST_SIZE = 1000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"0", "1000"})
+    public long sendLatencyMicros;
+
+    @Param({"8"})
+    public int poolThreads;
+
+    private final TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+    private final AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+    private TwitterExecutors twitterExecutors;
+    private ExecutorService pool;
+    private Status[] statusPool;
+
+    @Setup
+    public void setup() throws TwitterException {
+        ExecutorConfigData executorConfigData = new ExecutorConfigData();
+        executorConfigData.setMode(mode);
+        executorConfigData.setQueueCapacity(BURST_SIZE);
+        executorConfigData.setShutdownTimeoutMs(5000L);
+        twitterExecutors = new TwitterExecutors(executorConfigData, new SimpleMeterRegistry());
+        pool = twitterExecutors.newPool("mock-load", poolThreads);
+        statusPool = TweetFixtures.statusPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        twitterExecutors.shutdownAll();
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BURST_SIZE);
+        long sendLatencyNanos = TimeUnit.MICROSECONDS.toNanos(sendLatencyMicros);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            Status status = statusPool[i & (TweetFixtures.POOL_SIZE - 1)];
+            pool.execute(() -> {
+                avroSerializer.serialize(TOPIC, transformer.getTwitterAvroModelFromStatus(status));
+                if (sendLatencyNanos > 0) {
+                    LockSupport.parkNanos(sendLatencyNanos);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.twitter2kafka.service.runner.impl.MockKafkaStreamRunner;
+import com.ouz.microservices.twitter2kafka.service.runner.mock.MockTweetFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * json based mock tweet (String.replace formatting) against the direct Status build of the load generator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockTweetGenerationBenchmark {
+
+    private MockKafkaStreamRunner mockRunner;
+    private MockTweetFactory mockTweetFactory;
+
+    @Setup
+    public void setup() {
+        mockRunner = TweetFixtures.mockRunner();
+        mockTweetFactory = TweetFixtures.mockTweetFactory();
+    }
+
+    @Benchmark
+    public String formattedTextAsJson() {
+        return mockRunner.getFormattedTextAsJson(TweetFixtures.KEYWORDS,
+                TweetFixtures.MIN_TWEET_LENGTH, TweetFixtures.MAX_TWEET_LENGTH);
+    }
+
+    @Benchmark
+    public Status directStatus() {
+        return mockTweetFactory.createStatus();
+    }
+}
@@ -0,0 +1,85 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KeywordAggregationConfigData;
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.config.TweetDedupConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.aggregate.KeywordWindowAggregator;
+import com.ouz.microservices.twitter2kafka.service.corpus.TweetCorpusRecorder;
+import com.ouz.microservices.twitter2kafka.service.dedup.TweetDeduplicator;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
+import com.ouz.microservices.twitter2kafka.service.listener.TwitterKafkaStatusListener;
+import com.ouz.microservices.twitter2kafka.service.metrics.TwitterPipelineMetrics;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * full onStatus path up to the bytes the kafka producer would append to its batch:
+ * listener (transform + ring buffer publish), dispatcher side poll and value serialization.
+ * Runs on one thread, broker and network are left out on purpose.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OnStatusBenchmark {
+
+    private static final String TOPIC = "twitter-topic";
+
+    private final AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+    private TweetRingBuffer<TwitterAvroModel> ringBuffer;
+    private TwitterKafkaStatusListener listener;
+    private Status[] statusPool;
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException {
+        statusPool = TweetFixtures.statusPool();
+        ringBuffer = new TweetRingBuffer<>(1024, OverflowPolicy.DROP_NEWEST, 1, 100);
+        TweetCorpusConfigData corpusConfigData = new TweetCorpusConfigData();
+        corpusConfigData.setRecordEnabled(false);
+        Twitter2KafkaServiceConfigData serviceConfigData = TweetFixtures.serviceConfigData();
+        serviceConfigData.setEnableMockTweets(true);
+        KeywordRegistry keywordRegistry = new KeywordRegistry(serviceConfigData);
+        TwitterPipelineMetrics pipelineMetrics = new TwitterPipelineMetrics(new SimpleMeterRegistry(),
+                serviceConfigData, corpusConfigData, ringBuffer, Optional.empty());
+        listener = new TwitterKafkaStatusListener(new TwitterStatusToAvroTransformer(), ringBuffer,
+                new TweetCorpusRecorder(corpusConfigData), pipelineMetrics,
+                keywordRegistry,
+                // the status pool repeats ids, deduplication would drop every tweet after the first round
+                new TweetDeduplicator(new TweetDedupConfigData()),
+                new KeywordWindowAggregator(new KeywordAggregationConfigData(), keywordRegistry,
+                        new KafkaConfigData(), null, null),
+                Optional.empty());
+    }
+
+    @Benchmark
+    public byte[] onStatus() {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        listener.onStatus(statusPool[index]);
+        TwitterAvroModel twitterAvroModel = ringBuffer.poll();
+        return avroSerializer.serialize(TOPIC, twitterAvroModel);
+    }
+}
@@ -0,0 +1,239 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.RetryConfigData;
+import com.ouz.microservices.config.StartupReadinessConfigData;
+import com.ouz.microservices.kafka.admin.client.KafkaAdminClient;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.twitter2kafka.service.readiness.StartupReadiness;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.CreateTopicsOptions;
+import org.apache.kafka.clients.admin.CreateTopicsResult;
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * cold start until schema registry, brokers and topics are usable, against an in-process stub registry and
+ * an in-memory admin client. The registry answers 503 until registryReadyAfterMs, every answer takes
+ * registryLatencyMs, and created topics show up after topicLatencyMs, like a cluster that is still starting.
+ *
+ * sequentialSleepPolling is the previous startup: blocking registry calls with Thread.sleep between them,
+ * then createTopics and a listTopics poll loop. parallelReactive is StartupReadiness. Retry settings are the
+ * application.yml ones divided by 10 to keep one invocation short.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupReadinessBenchmark {
+
+    private static final List<String> TOPICS = List.of("twitter-topic");
+
+    @Param({"0", "500"})
+    public long registryReadyAfterMs;
+
+    @Param({"150"})
+    public long registryLatencyMs;
+
+    @Param({"300"})
+    public long topicLatencyMs;
+
+    private HttpServer stubRegistry;
+    private volatile long startNanos;
+    private KafkaConfigData kafkaConfigData;
+    private RetryConfigData retryConfigData;
+    private WebClient webClient;
+    private DelayedMockAdminClient adminClient;
+
+    @Setup(Level.Trial)
+    public void startStubRegistry() throws IOException {
+        stubRegistry = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubRegistry.setExecutor(Executors.newCachedThreadPool());
+        stubRegistry.createContext("/", exchange -> {
+            sleep(registryLatencyMs);
+            boolean up = System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(registryReadyAfterMs);
+            exchange.sendResponseHeaders(up ? 200 : 503, -1);
+            exchange.close();
+        });
+        stubRegistry.start();
+
+        kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setSchemaRegistryUrl("http://127.0.0.1:" + stubRegistry.getAddress().getPort() + "/subjects");
+        kafkaConfigData.setTopicName(TOPICS.get(0));
+        kafkaConfigData.setTopicNameToCreate(TOPICS);
+        kafkaConfigData.setNumOfPartitions(3);
+        kafkaConfigData.setReplicationFactor((short) 1);
+        kafkaConfigData.setTopicProvisioningTimeoutMs(10_000L);
+
+        retryConfigData = new RetryConfigData();
+        retryConfigData.setInitialIntervalMs(100L);
+        retryConfigData.setMaxIntervalMs(1000L);
+        retryConfigData.setMultiplier(2.0);
+        retryConfigData.setMaxAttempts(10);
+        retryConfigData.setSleepTimeMs(200L);
+
+        webClient = WebClient.builder().build();
+    }
+
+    @Setup(Level.Invocation)
+    public void coldStart() {
+        adminClient = new DelayedMockAdminClient(topicLatencyMs);
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeAdminClient() {
+        adminClient.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStubRegistry() {
+        stubRegistry.stop(0);
+    }
+
+    @Benchmark
+    public void parallelReactive() {
+        StartupReadinessConfigData readinessConfigData = new StartupReadinessConfigData();
+        readinessConfigData.setEnabled(true);
+        readinessConfigData.setTimeoutMs(30_000L);
+        readinessConfigData.setFailOnTimeout(true);
+        KafkaAdminClient kafkaAdminClient = new KafkaAdminClient(kafkaConfigData, retryConfigData, adminClient,
+                webClient, new SimpleMeterRegistry());
+        // wire format off, the previous startup did not register schemas either
+        new StartupReadiness(kafkaAdminClient, readinessConfigData, retryConfigData,
+                new SchemaRegistryClient(kafkaConfigData.getSchemaRegistryUrl(), 16, Duration.ofSeconds(5)),
+                kafkaConfigData, new KafkaProducerConfigData()).awaitReady();
+    }
+
+    @Benchmark
+    public void sequentialSleepPolling() throws Exception {
+        long sleepTimeMs = retryConfigData.getSleepTimeMs();
+        while (!registryAnswers2xx()) {
+            sleep(sleepTimeMs);
+            sleepTimeMs *= retryConfigData.getMultiplier().intValue();
+        }
+        retryTemplate().execute(context -> adminClient.createTopics(TOPICS.stream()
+                .map(topic -> new NewTopic(topic, kafkaConfigData.getNumOfPartitions(),
+                        kafkaConfigData.getReplicationFactor()))
+                .collect(Collectors.toList())));
+        sleepTimeMs = retryConfigData.getSleepTimeMs();
+        Collection<TopicListing> topics = adminClient.listTopics().listings().get();
+        for (String topic : TOPICS) {
+            while (topics.stream().noneMatch(listing -> listing.name().equalsIgnoreCase(topic))) {
+                sleep(sleepTimeMs);
+                sleepTimeMs *= retryConfigData.getMultiplier().intValue();
+                topics = adminClient.listTopics().listings().get();
+            }
+        }
+    }
+
+    private boolean registryAnswers2xx() {
+        try {
+            return webClient.method(HttpMethod.GET)
+                    .uri(kafkaConfigData.getSchemaRegistryUrl())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .map(ResponseEntity::getStatusCode)
+                    .block()
+                    .is2xxSuccessful();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private RetryTemplate retryTemplate() {
+        RetryTemplate retryTemplate = new RetryTemplate();
+        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+        backOffPolicy.setInitialInterval(retryConfigData.getInitialIntervalMs());
+        backOffPolicy.setMaxInterval(retryConfigData.getMaxIntervalMs());
+        backOffPolicy.setMultiplier(retryConfigData.getMultiplier());
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(retryConfigData.getMaxAttempts()));
+        return retryTemplate;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * MockAdminClient whose topics are created topicLatencyMs after the createTopics call.
+     */
+    static class DelayedMockAdminClient extends MockAdminClient {
+
+        private static final List<Node> BROKERS = List.of(new Node(0, "localhost", 19092),
+                new Node(1, "localhost", 29092), new Node(2, "localhost", 39092));
+
+        private final long topicLatencyMs;
+
+        DelayedMockAdminClient(long topicLatencyMs) {
+            super(BROKERS, BROKERS.get(0));
+            this.topicLatencyMs = topicLatencyMs;
+        }
+
+        @Override
+        public CreateTopicsResult createTopics(Collection<NewTopic> newTopics, CreateTopicsOptions options) {
+            Map<String, KafkaFuture<CreateTopicsResult.TopicMetadataAndConfig>> futures = new HashMap<>();
+            Map<String, KafkaFutureImpl<CreateTopicsResult.TopicMetadataAndConfig>> pending = new HashMap<>();
+            for (NewTopic newTopic : newTopics) {
+                KafkaFutureImpl<CreateTopicsResult.TopicMetadataAndConfig> future = new KafkaFutureImpl<>();
+                futures.put(newTopic.name(), future);
+                pending.put(newTopic.name(), future);
+            }
+            CompletableFuture.delayedExecutor(topicLatencyMs, TimeUnit.MILLISECONDS).execute(() ->
+                    super.createTopics(newTopics, options).values().forEach((topic, created) ->
+                            created.whenComplete((ignored, throwable) -> {
+                                if (throwable != null) {
+                                    pending.get(topic).completeExceptionally(throwable);
+                                } else {
+                                    pending.get(topic).complete(null);
+                                }
+                            })));
+            return new CreateTopicsResult(futures) {
+            };
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ouz.microservices.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TwitterObjectFactory.createStatus, the json parse the legacy mock runner does for every tweet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusParsingBenchmark {
+
+    private String[] jsonPool;
+    private int index;
+
+    @Setup
+    public void setup() {
+        jsonPool = TweetFixtures.jsonPool();
+    }
+
+    @Benchmark
+    public Status createStatus() throws TwitterException {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        return TwitterObjectFactory.createStatus(jsonPool[index]);
+    }
+}
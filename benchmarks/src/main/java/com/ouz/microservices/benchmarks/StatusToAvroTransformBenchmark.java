@@ -0,0 +1,60 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status -> TwitterAvroModel mapping, transformer against the generated builder it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusToAvroTransformBenchmark {
+
+    private final TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+    private Status[] statusPool;
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException {
+        statusPool = TweetFixtures.statusPool();
+    }
+
+    @Benchmark
+    public TwitterAvroModel transformer() {
+        return transformer.getTwitterAvroModelFromStatus(nextStatus());
+    }
+
+    @Benchmark
+    public TwitterAvroModel generatedBuilder() {
+        Status status = nextStatus();
+        return TwitterAvroModel.newBuilder()
+                .setUserId(status.getUser().getId())
+                .setId(status.getId())
+                .setText(status.getText())
+                .setCreatedAt(status.getCreatedAt().toInstant())
+                .build();
+    }
+
+    private Status nextStatus() {
+        index = (index + 1) & (TweetFixtures.POOL_SIZE - 1);
+        return statusPool[index];
+    }
+}
@@ -0,0 +1,62 @@
+package com.ouz.microservices.benchmarks;
+
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.twitter2kafka.service.runner.impl.MockKafkaStreamRunner;
+import com.ouz.microservices.twitter2kafka.service.runner.mock.MockTweetFactory;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * same keywords and tweet lengths as application.yml, so the numbers match what the service sees.
+ */
+final class TweetFixtures {
+
+    static final String[] KEYWORDS = new String[]{"Java", "Microservices", "Spring", "Kafka", "Elasticsearch"};
+    static final int MIN_TWEET_LENGTH = 5;
+    static final int MAX_TWEET_LENGTH = 15;
+
+    // fixed pool, benchmarks cycle through it so branch and cache behaviour is not a single tweet
+    static final int POOL_SIZE = 1024;
+
+    private TweetFixtures() {
+    }
+
+    static Twitter2KafkaServiceConfigData serviceConfigData() {
+        Twitter2KafkaServiceConfigData configData = new Twitter2KafkaServiceConfigData();
+        configData.setTwitterKeywords(List.of(KEYWORDS));
+        configData.setMockMinTweetLength(MIN_TWEET_LENGTH);
+        configData.setMockMaxTweetLength(MAX_TWEET_LENGTH);
+        return configData;
+    }
+
+    static MockKafkaStreamRunner mockRunner() {
+        // listener and executors are not needed, only the json formatting is used
+        return new MockKafkaStreamRunner(serviceConfigData(), null, null, null);
+    }
+
+    static String[] jsonPool() {
+        MockKafkaStreamRunner mockRunner = mockRunner();
+        String[] pool = new String[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = mockRunner.getFormattedTextAsJson(KEYWORDS, MIN_TWEET_LENGTH, MAX_TWEET_LENGTH);
+        }
+        return pool;
+    }
+
+    static Status[] statusPool() throws TwitterException {
+        String[] jsonPool = jsonPool();
+        Status[] pool = new Status[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = TwitterObjectFactory.createStatus(jsonPool[i]);
+        }
+        return pool;
+    }
+
+    static MockTweetFactory mockTweetFactory() {
+        return new MockTweetFactory(KEYWORDS, MIN_TWEET_LENGTH, MAX_TWEET_LENGTH, new SplittableRandom(42));
+    }
+}
@@ -3,24 +3,38 @@ package com.ouz.microservices.kafka.admin.client;
 import com.ouz.microservices.config.KafkaConfigData;
 import com.ouz.microservices.config.RetryConfigData;
 import com.ouz.microservices.kafka.admin.exception.KafkaClientException;
+import com.ouz.microservices.kafka.admin.jfr.AdminRetryEvent;
+import com.ouz.microservices.kafka.admin.jfr.SchemaRegistryProbeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.CreateTopicsResult;
 import org.apache.kafka.clients.admin.NewTopic;
-import org.apache.kafka.clients.admin.TopicListing;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.TopicExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.retry.RetryContext;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -32,44 +46,60 @@ public class KafkaAdminClient {
     private final RetryConfigData retryConfigData;
     private final AdminClient adminClient;
     private final WebClient webClient;
-    private final RetryTemplate retryTemplate;
+    private final MeterRegistry meterRegistry;
 
     public KafkaAdminClient(KafkaConfigData kafkaConfigData, RetryConfigData retryConfigData,
-                            AdminClient adminClient, WebClient webClient, RetryTemplate retryTemplate) {
+                            AdminClient adminClient, WebClient webClient, MeterRegistry meterRegistry) {
         this.kafkaConfigData = kafkaConfigData;
         this.retryConfigData = retryConfigData;
         this.adminClient = adminClient;
         this.webClient = webClient;
-        this.retryTemplate = retryTemplate;
+        this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * creates the topics of topicNameToCreate and waits until all of them can be described.
+     */
     public void createTopic(){
-        CreateTopicsResult createTopicsResult;
-
         try {
-            createTopicsResult = retryTemplate.execute(this::doCreateTopic);
-        }catch(Throwable t){
-            throw new KafkaClientException("Reached the max number of retry to creating kafka topic(s).",t);
+            provisionTopics().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaClientException("Interrupted while creating kafka topic(s)!", e);
+        } catch (ExecutionException e) {
+            throw new KafkaClientException("Could not create kafka topic(s) " + getTopicNamesToCreate(), e.getCause());
         }
-        checkTopicCreated();
     }
 
-    public void checkTopicCreated() {
-        Collection<TopicListing> topicList = getTopics();
-        int retryCount=1;
-        Integer maxAttempts = retryConfigData.getMaxAttempts();
-        Long intervalMs = retryConfigData.getInitialIntervalMs();
-        Long sleepTimeMs = retryConfigData.getSleepTimeMs();
-        Double multiplier = retryConfigData.getMultiplier();
-
-        for(String topicName : kafkaConfigData.getTopicNameToCreate()){
-            while(!isTopicCreated(topicList,topicName)){
-                checkMaxRetry(retryCount++,maxAttempts);
-                sleep(sleepTimeMs);
-                sleepTimeMs *= multiplier.intValue();
-                topicList = getTopics();
-            }
-        }
+    /**
+     * createTopics is issued once for all topics and every topic continues on its own future: a topic that
+     * already exists counts as created, a retriable failure (no controller yet, request timeout) retries
+     * just that topic with back off, then describeTopics is polled for that topic only until it shows up.
+     * All topics progress concurrently and share one deadline, topicProvisioningTimeoutMs.
+     * Nothing blocks, the returned future completes on the admin client and delayed executor threads.
+     */
+    public CompletableFuture<Void> provisionTopics(){
+        List<String> topicNames = getTopicNamesToCreate();
+        long timeoutMs = kafkaConfigData.getTopicProvisioningTimeoutMs();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        LOG.info("Create {} topic(s) {}",topicNames.size(),topicNames);
+
+        Map<String, KafkaFuture<Void>> createFutures = adminClient.createTopics(newTopics(topicNames)).values();
+        CompletableFuture<?>[] provisioned = createFutures.entrySet().stream()
+                .map(entry -> whenCreated(entry.getKey(), entry.getValue(), 1, deadlineNanos)
+                        .thenCompose(topicName -> whenDescribed(topicName, 1, deadlineNanos)))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(provisioned)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        errorCounter("create-topic").increment();
+                        LOG.warn("Could not create kafka topic(s) {} within {} ms: {}",topicNames,timeoutMs,
+                                unwrap(throwable).toString());
+                    } else {
+                        LOG.info("Kafka topic(s) {} are ready",topicNames);
+                    }
+                });
     }
 
     /**
@@ -77,94 +107,183 @@ public class KafkaAdminClient {
      * in a single docker-compose file. Therefore we want to up kafka and schema registry and running
      * when we run docker-compose command.
      * To check schema registry up and running we should rest call for schema registry server address.
+     * Blocking variant for callers outside reactor, retries maxAttempts times with back off.
      */
     public void checkSchemaRegistry() {
-        // schema registry rest call needs fluent and non-blocking request.
-        // So, spring-boot-webflux is the choice for what I want.
-        int retryCount=1;
-        Integer maxAttempts = retryConfigData.getMaxAttempts();
-        Long sleepTimeMs = retryConfigData.getSleepTimeMs();
-        Double multiplier = retryConfigData.getMultiplier();
-
-        while(!getSchemaRegistryStatus().is2xxSuccessful()){
-            checkMaxRetry(retryCount,maxAttempts);
-            sleep(sleepTimeMs);
-            sleepTimeMs *= multiplier.intValue(); // exponantial increasing
+        // retries of one check run one after the other, before and after retry bracket the back off
+        AtomicReference<AdminRetryEvent> retryEvent = new AtomicReference<>();
+        try {
+            probeSchemaRegistry()
+                    .retryWhen(Retry.backoff(retryConfigData.getMaxAttempts(),
+                                    Duration.ofMillis(retryConfigData.getInitialIntervalMs()))
+                            .maxBackoff(Duration.ofMillis(retryConfigData.getMaxIntervalMs()))
+                            .doBeforeRetry(signal -> {
+                                retryCounter("schema-registry").increment();
+                                AdminRetryEvent event = new AdminRetryEvent("schema-registry", null,
+                                        signal.totalRetries() + 1, signal.failure());
+                                event.begin();
+                                retryEvent.set(event);
+                            })
+                            .doAfterRetry(signal -> retryEvent.get().commit()))
+                    .block();
+        } catch (Exception e) {
+            errorCounter("max-retry").increment();
+            throw new KafkaClientException("Reached max retry limit for schema registry check", e);
         }
     }
 
-    private HttpStatus getSchemaRegistryStatus(){
-        try {
+    /**
+     * one request to the schema registry, completes empty on a 2xx answer and fails otherwise.
+     * The request is only sent on subscribe, so every resubscription of a retry sends a new one, and every
+     * request is a flight recorder SchemaRegistryProbeEvent.
+     */
+    public Mono<Void> probeSchemaRegistry() {
+        String schemaRegistryUrl = kafkaConfigData.getSchemaRegistryUrl();
+        return Mono.defer(() -> {
+            SchemaRegistryProbeEvent probeEvent = new SchemaRegistryProbeEvent(schemaRegistryUrl);
+            probeEvent.begin();
+            // schema registry rest call needs fluent and non-blocking request.
+            // So, spring-boot-webflux is the choice for what I want.
             return webClient
                     .method(HttpMethod.GET)
-                    .uri(kafkaConfigData.getSchemaRegistryUrl())
+                    .uri(schemaRegistryUrl)
                     .retrieve()
                     .toBodilessEntity()
-                    .map(ResponseEntity::getStatusCode).block();
-        } catch (Exception t) {
-            return HttpStatus.SERVICE_UNAVAILABLE;
-        }
+                    .doOnSuccess(entity -> {
+                        probeEvent.setStatus(entity.getStatusCodeValue());
+                        probeEvent.commit();
+                    })
+                    .doOnError(throwable -> {
+                        if (throwable instanceof WebClientResponseException) {
+                            probeEvent.setStatus(((WebClientResponseException) throwable).getRawStatusCode());
+                        }
+                        probeEvent.setError(throwable.toString());
+                        probeEvent.commit();
+                    })
+                    .doOnCancel(() -> {
+                        probeEvent.setError("cancelled");
+                        probeEvent.commit();
+                    })
+                    .then();
+        });
     }
 
-    private boolean isTopicCreated(Collection<TopicListing> topicListings, String topicName){
-        if(topicListings == null)
-            return false;
-        return topicListings.stream().anyMatch(t->t.name().equalsIgnoreCase(topicName));
+    /**
+     * one describeCluster call, emits the number of brokers and fails when no broker answered.
+     */
+    public Mono<Integer> probeBrokers() {
+        return Mono.defer(() -> Mono.fromCompletionStage(adminClient.describeCluster().nodes().toCompletionStage()))
+                .map(Collection::size)
+                .filter(nodeCount -> nodeCount > 0)
+                .switchIfEmpty(Mono.error(() -> new KafkaClientException("Kafka cluster has no brokers")));
     }
 
-    private void checkMaxRetry(int retryCount,Integer maxAttempts){
-        if(retryCount > maxAttempts){
-            throw new KafkaClientException("Reached max retry limit for reading kafka topic(s)");
-        }
+    private CompletableFuture<String> whenCreated(String topicName, KafkaFuture<Void> createFuture, int attempt,
+                                                  long deadlineNanos) {
+        return createFuture.toCompletionStage().toCompletableFuture()
+                .handle((ignored, throwable) -> {
+                    Throwable cause = unwrap(throwable);
+                    if (cause == null || cause instanceof TopicExistsException) {
+                        return CompletableFuture.completedFuture(topicName);
+                    }
+                    if (!(cause instanceof RetriableException) || remainingMs(deadlineNanos) <= 0) {
+                        return CompletableFuture.<String>failedFuture(cause);
+                    }
+                    retryCounter("create-topic").increment();
+                    LOG.info("Create topic {} failed with {}, attempt {}",topicName,cause.getMessage(),attempt);
+                    AdminRetryEvent retryEvent = new AdminRetryEvent("create-topic", topicName, attempt, cause);
+                    return retryLater(attempt, deadlineNanos, retryEvent, () -> whenCreated(topicName,
+                            adminClient.createTopics(newTopics(List.of(topicName))).values().get(topicName),
+                            attempt + 1, deadlineNanos));
+                })
+                .thenCompose(Function.identity());
     }
 
-    private void sleep(Long milis){
-        try{
-            Thread.sleep(milis);
-        }catch(InterruptedException ex){
-            throw new KafkaClientException("Error while sleeping for creating new kafka topic(s)! ");
-        }
+    /**
+     * a created topic may not be known to every broker yet, describe until its metadata is there.
+     */
+    private CompletableFuture<String> whenDescribed(String topicName, int attempt, long deadlineNanos) {
+        return adminClient.describeTopics(List.of(topicName)).values().get(topicName)
+                .toCompletionStage().toCompletableFuture()
+                .handle((description, throwable) -> {
+                    Throwable cause = unwrap(throwable);
+                    if (cause == null) {
+                        LOG.debug("Topic {} has {} partition(s)",topicName,description.partitions().size());
+                        return CompletableFuture.completedFuture(topicName);
+                    }
+                    if (!(cause instanceof RetriableException) || remainingMs(deadlineNanos) <= 0) {
+                        return CompletableFuture.<String>failedFuture(cause);
+                    }
+                    retryCounter("describe-topic").increment();
+                    AdminRetryEvent retryEvent = new AdminRetryEvent("describe-topic", topicName, attempt, cause);
+                    return retryLater(attempt, deadlineNanos, retryEvent,
+                            () -> whenDescribed(topicName, attempt + 1, deadlineNanos));
+                })
+                .thenCompose(Function.identity());
     }
 
-    private CreateTopicsResult doCreateTopic(RetryContext retryContext) {
-        List<String> topicNames = kafkaConfigData.getTopicNameToCreate();
-        LOG.info("Create {} topic(s), attempt {} ",topicNames.size(),retryContext.getRetryCount());
-        List<NewTopic> topicsList = topicNames.stream()
-                .map(topic-> new NewTopic(
-                    topic.trim(),
-                    kafkaConfigData.getNumOfPartitions(),
-                    kafkaConfigData.getReplicationFactor()))
-                .collect(Collectors.toList());
-
-        return adminClient.createTopics(topicsList);
+    /**
+     * back off grows from initialIntervalMs by multiplier up to maxIntervalMs, never past the deadline.
+     * Nothing sleeps, the retry is scheduled on the delayed executor. retryEvent spans the delay.
+     */
+    private CompletableFuture<String> retryLater(int attempt, long deadlineNanos, AdminRetryEvent retryEvent,
+                                                 Supplier<CompletableFuture<String>> retry) {
+        double backOffMs = retryConfigData.getInitialIntervalMs() * Math.pow(retryConfigData.getMultiplier(), attempt - 1);
+        long delayMs = Math.min(Math.min((long) backOffMs, retryConfigData.getMaxIntervalMs()), remainingMs(deadlineNanos));
+        Executor delayed = CompletableFuture.delayedExecutor(Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        retryEvent.begin();
+        return CompletableFuture.supplyAsync(() -> {
+            retryEvent.commit();
+            return retry.get();
+        }, delayed).thenCompose(Function.identity());
     }
 
     /**
-     * topicListing object is another kafka class for getting topics list from cluster.
+     * a topic with a compression type of its own gets it as topic config, the broker then stores batches of
+     * a producer using the same codec as they arrive instead of recompressing them.
      */
-    private Collection<TopicListing> getTopics(){
-        Collection<TopicListing> topicListings;
+    private List<NewTopic> newTopics(List<String> topicNames) {
+        return topicNames.stream()
+                .map(topic-> {
+                    NewTopic newTopic = new NewTopic(
+                            topic,
+                            kafkaConfigData.getNumOfPartitions(),
+                            kafkaConfigData.getReplicationFactor());
+                    String compressionType = kafkaConfigData.getTopicCompressionTypes().get(topic);
+                    return compressionType == null ? newTopic :
+                            newTopic.configs(Map.of(TopicConfig.COMPRESSION_TYPE_CONFIG, compressionType));
+                })
+                .collect(Collectors.toList());
+    }
 
-        try{
-            topicListings = retryTemplate.execute(this::doGetTopics);
-        }catch(Throwable t){
-            throw new KafkaClientException("Reached the max number of retry to reading kafka topic(s).",t);
-        }
-        return topicListings;
+    private List<String> getTopicNamesToCreate() {
+        return kafkaConfigData.getTopicNameToCreate().stream()
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static long remainingMs(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
     }
 
-    private Collection<TopicListing> doGetTopics(RetryContext retryContext) throws ExecutionException, InterruptedException {
-        LOG.info("Reading kafka topic {}, attempt {}",
-                kafkaConfigData.getTopicNameToCreate().toArray(),
-                retryContext.getRetryCount());
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
 
-        // adminClient gets list of topics
-       Collection<TopicListing> topics = adminClient.listTopics().listings().get();
+    /**
+     * retry and error counts per admin operation, registered once and looked up by micrometer afterwards.
+     */
+    private Counter retryCounter(String operation){
+        return Counter.builder("kafka.admin.retries").tag("operation",operation).register(meterRegistry);
+    }
 
-       if(topics != null){
-           topics.forEach(t-> LOG.debug("Created topic with name {}",t.name()));
-       }
-       return topics;
+    private Counter errorCounter(String operation){
+        return Counter.builder("kafka.admin.errors").tag("operation",operation).register(meterRegistry);
     }
 
 }
@@ -10,10 +10,12 @@ public class KafkaClientException extends RuntimeException{
     private final Logger LOG = LoggerFactory.getLogger(KafkaClientException.class);
 
     public KafkaClientException(String msg) {
+        super(msg);
         LOG.info("Exception is created : {}",msg);
     }
 
     public KafkaClientException(String msg, Throwable t) {
+        super(msg, t);
         LOG.info("Exception is created : {},  Throwable message : {}",msg,t);
     }
 }
@@ -0,0 +1,44 @@
+package com.ouz.microservices.kafka.admin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * one retry of a KafkaAdminClient operation, the flight recorder view of kafka.admin.retries, or of a startup
+ * readiness check probing through the admin client. The event spans the back off, it begins when the retry
+ * is scheduled and is committed when the retry starts.
+ */
+@Name(AdminRetryEvent.NAME)
+@Label("Kafka Admin Retry")
+@Category({"Twitter to Kafka", "Kafka Admin"})
+@Description("Back off before a retried admin operation")
+@StackTrace(false)
+public class AdminRetryEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.kafka.AdminRetry";
+
+    @Label("Operation")
+    @Description("create-topic, describe-topic, schema-registry or the name of a startup readiness check")
+    private final String operation;
+
+    @Label("Topic")
+    private final String topic;
+
+    @Label("Attempt")
+    @Description("Attempt that failed, the retry is the next one")
+    private final long attempt;
+
+    @Label("Cause")
+    private final String cause;
+
+    public AdminRetryEvent(String operation, String topic, long attempt, Throwable cause) {
+        this.operation = operation;
+        this.topic = topic;
+        this.attempt = attempt;
+        this.cause = String.valueOf(cause);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ouz.microservices.kafka.admin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * one schema registry request of KafkaAdminClient, from subscribe until the answer or the failure.
+ * Committed on the web client thread.
+ */
+@Name(SchemaRegistryProbeEvent.NAME)
+@Label("Schema Registry Probe")
+@Category({"Twitter to Kafka", "Kafka Admin"})
+@Description("Request checking the schema registry is up")
+@StackTrace(false)
+public class SchemaRegistryProbeEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.kafka.SchemaRegistryProbe";
+
+    @Label("Url")
+    private final String url;
+
+    @Label("Status")
+    @Description("Http status of the answer, 0 when there was none")
+    private int status;
+
+    @Label("Error")
+    @Description("Failure of the request, null for a 2xx answer")
+    private String error;
+
+    public SchemaRegistryProbeEvent(String url) {
+        this.url = url;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ouz.microservices.kafka.admin.client;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.RetryConfigData;
+import com.ouz.microservices.kafka.admin.exception.KafkaClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KafkaAdminClientTest {
+
+    private static final Node BROKER = new Node(0, "localhost", 19092);
+
+    private final MockAdminClient adminClient = new MockAdminClient(List.of(BROKER), BROKER);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    public void closeAdminClient() {
+        adminClient.close();
+    }
+
+    @Test
+    public void topicThatAlreadyExistsCountsAsCreated() throws Exception {
+        adminClient.createTopics(List.of(new NewTopic("twitter-topic", 3, (short) 1))).all().get();
+
+        kafkaAdminClient(1, 10_000L).provisionTopics().get(5, TimeUnit.SECONDS);
+
+        assertEquals(Set.of("twitter-topic", "twitter-keyword-count-topic"), adminClient.listTopics().names().get());
+        assertEquals(0, retries("create-topic"));
+    }
+
+    @Test
+    public void retriableCreateFailureIsRetried() throws Exception {
+        // the createTopics of both topics times out, each topic is created again on its own
+        adminClient.timeoutNextRequest(1);
+
+        kafkaAdminClient(1, 10_000L).provisionTopics().get(5, TimeUnit.SECONDS);
+
+        assertEquals(Set.of("twitter-topic", "twitter-keyword-count-topic"), adminClient.listTopics().names().get());
+        assertEquals(2, retries("create-topic"));
+    }
+
+    @Test
+    public void nonRetriableCreateFailureFailsFast() {
+        // one broker can not hold three replicas, waiting for the 10 s deadline would not help
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> kafkaAdminClient(3, 10_000L).provisionTopics().get(2, TimeUnit.SECONDS));
+
+        assertInstanceOf(InvalidReplicationFactorException.class, e.getCause());
+        assertEquals(0, retries("create-topic"));
+        assertEquals(1, meterRegistry.counter("kafka.admin.errors", "operation", "create-topic").count());
+    }
+
+    @Test
+    public void topicsShareOneDeadline() {
+        adminClient.timeoutNextRequest(Integer.MAX_VALUE);
+        KafkaAdminClient kafkaAdminClient = kafkaAdminClient(1, 300L);
+
+        long startNanos = System.nanoTime();
+        assertThrows(KafkaClientException.class, kafkaAdminClient::createTopic);
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(retries("create-topic") >= 2);
+    }
+
+    private KafkaAdminClient kafkaAdminClient(int replicationFactor, long provisioningTimeoutMs) {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicNameToCreate(List.of("twitter-topic", "twitter-keyword-count-topic"));
+        kafkaConfigData.setNumOfPartitions(3);
+        kafkaConfigData.setReplicationFactor((short) replicationFactor);
+        kafkaConfigData.setTopicProvisioningTimeoutMs(provisioningTimeoutMs);
+        RetryConfigData retryConfigData = new RetryConfigData();
+        retryConfigData.setInitialIntervalMs(10L);
+        retryConfigData.setMaxIntervalMs(50L);
+        retryConfigData.setMultiplier(2.0);
+        retryConfigData.setMaxAttempts(3);
+        return new KafkaAdminClient(kafkaConfigData, retryConfigData, adminClient, null, meterRegistry);
+    }
+
+    private double retries(String operation) {
+        return meterRegistry.counter("kafka.admin.retries", "operation", operation).count();
+    }
+}
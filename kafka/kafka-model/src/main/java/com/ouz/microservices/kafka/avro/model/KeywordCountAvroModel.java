@@ -0,0 +1,630 @@
+/**
+ * Autogenerated by Avro
+ *
+ * DO NOT EDIT DIRECTLY
+ */
+package com.ouz.microservices.kafka.avro.model;
+
+import org.apache.avro.generic.GenericArray;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.util.Utf8;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.message.SchemaStore;
+
+/** tweets matching one keyword within a tumbling window, window bounds are epoch millis */
+@org.apache.avro.specific.AvroGenerated
+public class KeywordCountAvroModel extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
+  private static final long serialVersionUID = -1497104116928317868L;
+
+
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"KeywordCountAvroModel\",\"namespace\":\"com.ouz.microservices.kafka.avro.model\",\"doc\":\"tweets matching one keyword within a tumbling window, window bounds are epoch millis\",\"fields\":[{\"name\":\"keywordId\",\"type\":\"int\"},{\"name\":\"keyword\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"}},{\"name\":\"windowStart\",\"type\":\"long\"},{\"name\":\"windowEnd\",\"type\":\"long\"},{\"name\":\"count\",\"type\":\"long\"}]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+
+  private static final SpecificData MODEL$ = new SpecificData();
+
+  private static final BinaryMessageEncoder<KeywordCountAvroModel> ENCODER =
+      new BinaryMessageEncoder<KeywordCountAvroModel>(MODEL$, SCHEMA$);
+
+  private static final BinaryMessageDecoder<KeywordCountAvroModel> DECODER =
+      new BinaryMessageDecoder<KeywordCountAvroModel>(MODEL$, SCHEMA$);
+
+  /**
+   * Return the BinaryMessageEncoder instance used by this class.
+   * @return the message encoder used by this class
+   */
+  public static BinaryMessageEncoder<KeywordCountAvroModel> getEncoder() {
+    return ENCODER;
+  }
+
+  /**
+   * Return the BinaryMessageDecoder instance used by this class.
+   * @return the message decoder used by this class
+   */
+  public static BinaryMessageDecoder<KeywordCountAvroModel> getDecoder() {
+    return DECODER;
+  }
+
+  /**
+   * Create a new BinaryMessageDecoder instance for this class that uses the specified {@link SchemaStore}.
+   * @param resolver a {@link SchemaStore} used to find schemas by fingerprint
+   * @return a BinaryMessageDecoder instance for this class backed by the given SchemaStore
+   */
+  public static BinaryMessageDecoder<KeywordCountAvroModel> createDecoder(SchemaStore resolver) {
+    return new BinaryMessageDecoder<KeywordCountAvroModel>(MODEL$, SCHEMA$, resolver);
+  }
+
+  /**
+   * Serializes this KeywordCountAvroModel to a ByteBuffer.
+   * @return a buffer holding the serialized data for this instance
+   * @throws java.io.IOException if this instance could not be serialized
+   */
+  public java.nio.ByteBuffer toByteBuffer() throws java.io.IOException {
+    return ENCODER.encode(this);
+  }
+
+  /**
+   * Deserializes a KeywordCountAvroModel from a ByteBuffer.
+   * @param b a byte buffer holding serialized data for an instance of this class
+   * @return a KeywordCountAvroModel instance decoded from the given buffer
+   * @throws java.io.IOException if the given bytes could not be deserialized into an instance of this class
+   */
+  public static KeywordCountAvroModel fromByteBuffer(
+      java.nio.ByteBuffer b) throws java.io.IOException {
+    return DECODER.decode(b);
+  }
+
+  private int keywordId;
+  private java.lang.String keyword;
+  private long windowStart;
+  private long windowEnd;
+  private long count;
+
+  /**
+   * Default constructor.  Note that this does not initialize fields
+   * to their default values from the schema.  If that is desired then
+   * one should use <code>newBuilder()</code>.
+   */
+  public KeywordCountAvroModel() {}
+
+  /**
+   * All-args constructor.
+   * @param keywordId The new value for keywordId
+   * @param keyword The new value for keyword
+   * @param windowStart The new value for windowStart
+   * @param windowEnd The new value for windowEnd
+   * @param count The new value for count
+   */
+  public KeywordCountAvroModel(java.lang.Integer keywordId, java.lang.String keyword, java.lang.Long windowStart, java.lang.Long windowEnd, java.lang.Long count) {
+    this.keywordId = keywordId;
+    this.keyword = keyword;
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    this.count = count;
+  }
+
+  public org.apache.avro.specific.SpecificData getSpecificData() { return MODEL$; }
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+  // Used by DatumWriter.  Applications should not call.
+  public java.lang.Object get(int field$) {
+    switch (field$) {
+    case 0: return keywordId;
+    case 1: return keyword;
+    case 2: return windowStart;
+    case 3: return windowEnd;
+    case 4: return count;
+    default: throw new IndexOutOfBoundsException("Invalid index: " + field$);
+    }
+  }
+
+  // Used by DatumReader.  Applications should not call.
+  @SuppressWarnings(value="unchecked")
+  public void put(int field$, java.lang.Object value$) {
+    switch (field$) {
+    case 0: keywordId = (java.lang.Integer)value$; break;
+    case 1: keyword = value$ != null ? value$.toString() : null; break;
+    case 2: windowStart = (java.lang.Long)value$; break;
+    case 3: windowEnd = (java.lang.Long)value$; break;
+    case 4: count = (java.lang.Long)value$; break;
+    default: throw new IndexOutOfBoundsException("Invalid index: " + field$);
+    }
+  }
+
+  /**
+   * Gets the value of the 'keywordId' field.
+   * @return The value of the 'keywordId' field.
+   */
+  public int getKeywordId() {
+    return keywordId;
+  }
+
+
+  /**
+   * Sets the value of the 'keywordId' field.
+   * @param value the value to set.
+   */
+  public void setKeywordId(int value) {
+    this.keywordId = value;
+  }
+
+  /**
+   * Gets the value of the 'keyword' field.
+   * @return The value of the 'keyword' field.
+   */
+  public java.lang.String getKeyword() {
+    return keyword;
+  }
+
+
+  /**
+   * Sets the value of the 'keyword' field.
+   * @param value the value to set.
+   */
+  public void setKeyword(java.lang.String value) {
+    this.keyword = value;
+  }
+
+  /**
+   * Gets the value of the 'windowStart' field.
+   * @return The value of the 'windowStart' field.
+   */
+  public long getWindowStart() {
+    return windowStart;
+  }
+
+
+  /**
+   * Sets the value of the 'windowStart' field.
+   * @param value the value to set.
+   */
+  public void setWindowStart(long value) {
+    this.windowStart = value;
+  }
+
+  /**
+   * Gets the value of the 'windowEnd' field.
+   * @return The value of the 'windowEnd' field.
+   */
+  public long getWindowEnd() {
+    return windowEnd;
+  }
+
+
+  /**
+   * Sets the value of the 'windowEnd' field.
+   * @param value the value to set.
+   */
+  public void setWindowEnd(long value) {
+    this.windowEnd = value;
+  }
+
+  /**
+   * Gets the value of the 'count' field.
+   * @return The value of the 'count' field.
+   */
+  public long getCount() {
+    return count;
+  }
+
+
+  /**
+   * Sets the value of the 'count' field.
+   * @param value the value to set.
+   */
+  public void setCount(long value) {
+    this.count = value;
+  }
+
+  /**
+   * Creates a new KeywordCountAvroModel RecordBuilder.
+   * @return A new KeywordCountAvroModel RecordBuilder
+   */
+  public static com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder newBuilder() {
+    return new com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder();
+  }
+
+  /**
+   * Creates a new KeywordCountAvroModel RecordBuilder by copying an existing Builder.
+   * @param other The existing builder to copy.
+   * @return A new KeywordCountAvroModel RecordBuilder
+   */
+  public static com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder newBuilder(com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder other) {
+    if (other == null) {
+      return new com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder();
+    } else {
+      return new com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder(other);
+    }
+  }
+
+  /**
+   * Creates a new KeywordCountAvroModel RecordBuilder by copying an existing KeywordCountAvroModel instance.
+   * @param other The existing instance to copy.
+   * @return A new KeywordCountAvroModel RecordBuilder
+   */
+  public static com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder newBuilder(com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel other) {
+    if (other == null) {
+      return new com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder();
+    } else {
+      return new com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder(other);
+    }
+  }
+
+  /**
+   * RecordBuilder for KeywordCountAvroModel instances.
+   */
+  @org.apache.avro.specific.AvroGenerated
+  public static class Builder extends org.apache.avro.specific.SpecificRecordBuilderBase<KeywordCountAvroModel>
+    implements org.apache.avro.data.RecordBuilder<KeywordCountAvroModel> {
+
+    private int keywordId;
+    private java.lang.String keyword;
+    private long windowStart;
+    private long windowEnd;
+    private long count;
+
+    /** Creates a new Builder */
+    private Builder() {
+      super(SCHEMA$, MODEL$);
+    }
+
+    /**
+     * Creates a Builder by copying an existing Builder.
+     * @param other The existing Builder to copy.
+     */
+    private Builder(com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder other) {
+      super(other);
+      if (isValidValue(fields()[0], other.keywordId)) {
+        this.keywordId = data().deepCopy(fields()[0].schema(), other.keywordId);
+        fieldSetFlags()[0] = other.fieldSetFlags()[0];
+      }
+      if (isValidValue(fields()[1], other.keyword)) {
+        this.keyword = data().deepCopy(fields()[1].schema(), other.keyword);
+        fieldSetFlags()[1] = other.fieldSetFlags()[1];
+      }
+      if (isValidValue(fields()[2], other.windowStart)) {
+        this.windowStart = data().deepCopy(fields()[2].schema(), other.windowStart);
+        fieldSetFlags()[2] = other.fieldSetFlags()[2];
+      }
+      if (isValidValue(fields()[3], other.windowEnd)) {
+        this.windowEnd = data().deepCopy(fields()[3].schema(), other.windowEnd);
+        fieldSetFlags()[3] = other.fieldSetFlags()[3];
+      }
+      if (isValidValue(fields()[4], other.count)) {
+        this.count = data().deepCopy(fields()[4].schema(), other.count);
+        fieldSetFlags()[4] = other.fieldSetFlags()[4];
+      }
+    }
+
+    /**
+     * Creates a Builder by copying an existing KeywordCountAvroModel instance
+     * @param other The existing instance to copy.
+     */
+    private Builder(com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel other) {
+      super(SCHEMA$, MODEL$);
+      if (isValidValue(fields()[0], other.keywordId)) {
+        this.keywordId = data().deepCopy(fields()[0].schema(), other.keywordId);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.keyword)) {
+        this.keyword = data().deepCopy(fields()[1].schema(), other.keyword);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.windowStart)) {
+        this.windowStart = data().deepCopy(fields()[2].schema(), other.windowStart);
+        fieldSetFlags()[2] = true;
+      }
+      if (isValidValue(fields()[3], other.windowEnd)) {
+        this.windowEnd = data().deepCopy(fields()[3].schema(), other.windowEnd);
+        fieldSetFlags()[3] = true;
+      }
+      if (isValidValue(fields()[4], other.count)) {
+        this.count = data().deepCopy(fields()[4].schema(), other.count);
+        fieldSetFlags()[4] = true;
+      }
+    }
+
+    /**
+      * Gets the value of the 'keywordId' field.
+      * @return The value.
+      */
+    public int getKeywordId() {
+      return keywordId;
+    }
+
+
+    /**
+      * Sets the value of the 'keywordId' field.
+      * @param value The value of 'keywordId'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder setKeywordId(int value) {
+      validate(fields()[0], value);
+      this.keywordId = value;
+      fieldSetFlags()[0] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'keywordId' field has been set.
+      * @return True if the 'keywordId' field has been set, false otherwise.
+      */
+    public boolean hasKeywordId() {
+      return fieldSetFlags()[0];
+    }
+
+
+    /**
+      * Clears the value of the 'keywordId' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder clearKeywordId() {
+      fieldSetFlags()[0] = false;
+      return this;
+    }
+
+    /**
+      * Gets the value of the 'keyword' field.
+      * @return The value.
+      */
+    public java.lang.String getKeyword() {
+      return keyword;
+    }
+
+
+    /**
+      * Sets the value of the 'keyword' field.
+      * @param value The value of 'keyword'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder setKeyword(java.lang.String value) {
+      validate(fields()[1], value);
+      this.keyword = value;
+      fieldSetFlags()[1] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'keyword' field has been set.
+      * @return True if the 'keyword' field has been set, false otherwise.
+      */
+    public boolean hasKeyword() {
+      return fieldSetFlags()[1];
+    }
+
+
+    /**
+      * Clears the value of the 'keyword' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder clearKeyword() {
+      keyword = null;
+      fieldSetFlags()[1] = false;
+      return this;
+    }
+
+    /**
+      * Gets the value of the 'windowStart' field.
+      * @return The value.
+      */
+    public long getWindowStart() {
+      return windowStart;
+    }
+
+
+    /**
+      * Sets the value of the 'windowStart' field.
+      * @param value The value of 'windowStart'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder setWindowStart(long value) {
+      validate(fields()[2], value);
+      this.windowStart = value;
+      fieldSetFlags()[2] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'windowStart' field has been set.
+      * @return True if the 'windowStart' field has been set, false otherwise.
+      */
+    public boolean hasWindowStart() {
+      return fieldSetFlags()[2];
+    }
+
+
+    /**
+      * Clears the value of the 'windowStart' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder clearWindowStart() {
+      fieldSetFlags()[2] = false;
+      return this;
+    }
+
+    /**
+      * Gets the value of the 'windowEnd' field.
+      * @return The value.
+      */
+    public long getWindowEnd() {
+      return windowEnd;
+    }
+
+
+    /**
+      * Sets the value of the 'windowEnd' field.
+      * @param value The value of 'windowEnd'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder setWindowEnd(long value) {
+      validate(fields()[3], value);
+      this.windowEnd = value;
+      fieldSetFlags()[3] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'windowEnd' field has been set.
+      * @return True if the 'windowEnd' field has been set, false otherwise.
+      */
+    public boolean hasWindowEnd() {
+      return fieldSetFlags()[3];
+    }
+
+
+    /**
+      * Clears the value of the 'windowEnd' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder clearWindowEnd() {
+      fieldSetFlags()[3] = false;
+      return this;
+    }
+
+    /**
+      * Gets the value of the 'count' field.
+      * @return The value.
+      */
+    public long getCount() {
+      return count;
+    }
+
+
+    /**
+      * Sets the value of the 'count' field.
+      * @param value The value of 'count'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder setCount(long value) {
+      validate(fields()[4], value);
+      this.count = value;
+      fieldSetFlags()[4] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'count' field has been set.
+      * @return True if the 'count' field has been set, false otherwise.
+      */
+    public boolean hasCount() {
+      return fieldSetFlags()[4];
+    }
+
+
+    /**
+      * Clears the value of the 'count' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel.Builder clearCount() {
+      fieldSetFlags()[4] = false;
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public KeywordCountAvroModel build() {
+      try {
+        KeywordCountAvroModel record = new KeywordCountAvroModel();
+        record.keywordId = fieldSetFlags()[0] ? this.keywordId : (java.lang.Integer) defaultValue(fields()[0]);
+        record.keyword = fieldSetFlags()[1] ? this.keyword : (java.lang.String) defaultValue(fields()[1]);
+        record.windowStart = fieldSetFlags()[2] ? this.windowStart : (java.lang.Long) defaultValue(fields()[2]);
+        record.windowEnd = fieldSetFlags()[3] ? this.windowEnd : (java.lang.Long) defaultValue(fields()[3]);
+        record.count = fieldSetFlags()[4] ? this.count : (java.lang.Long) defaultValue(fields()[4]);
+        return record;
+      } catch (org.apache.avro.AvroMissingFieldException e) {
+        throw e;
+      } catch (java.lang.Exception e) {
+        throw new org.apache.avro.AvroRuntimeException(e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final org.apache.avro.io.DatumWriter<KeywordCountAvroModel>
+    WRITER$ = (org.apache.avro.io.DatumWriter<KeywordCountAvroModel>)MODEL$.createDatumWriter(SCHEMA$);
+
+  @Override public void writeExternal(java.io.ObjectOutput out)
+    throws java.io.IOException {
+    WRITER$.write(this, SpecificData.getEncoder(out));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final org.apache.avro.io.DatumReader<KeywordCountAvroModel>
+    READER$ = (org.apache.avro.io.DatumReader<KeywordCountAvroModel>)MODEL$.createDatumReader(SCHEMA$);
+
+  @Override public void readExternal(java.io.ObjectInput in)
+    throws java.io.IOException {
+    READER$.read(this, SpecificData.getDecoder(in));
+  }
+
+  @Override protected boolean hasCustomCoders() { return true; }
+
+  @Override public void customEncode(org.apache.avro.io.Encoder out)
+    throws java.io.IOException
+  {
+    out.writeInt(this.keywordId);
+
+    out.writeString(this.keyword);
+
+    out.writeLong(this.windowStart);
+
+    out.writeLong(this.windowEnd);
+
+    out.writeLong(this.count);
+
+  }
+
+  @Override public void customDecode(org.apache.avro.io.ResolvingDecoder in)
+    throws java.io.IOException
+  {
+    org.apache.avro.Schema.Field[] fieldOrder = in.readFieldOrderIfDiff();
+    if (fieldOrder == null) {
+      this.keywordId = in.readInt();
+
+      this.keyword = in.readString();
+
+      this.windowStart = in.readLong();
+
+      this.windowEnd = in.readLong();
+
+      this.count = in.readLong();
+
+    } else {
+      for (int i = 0; i < 5; i++) {
+        switch (fieldOrder[i].pos()) {
+        case 0:
+          this.keywordId = in.readInt();
+          break;
+
+        case 1:
+          this.keyword = in.readString();
+          break;
+
+        case 2:
+          this.windowStart = in.readLong();
+          break;
+
+        case 3:
+          this.windowEnd = in.readLong();
+          break;
+
+        case 4:
+          this.count = in.readLong();
+          break;
+
+        default:
+          throw new java.io.IOException("Corrupt ResolvingDecoder.");
+        }
+      }
+    }
+  }
+}
+
+
+
+
+
+
+
+
+
+
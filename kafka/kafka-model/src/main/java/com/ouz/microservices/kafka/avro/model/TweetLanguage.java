@@ -0,0 +1,14 @@
+/**
+ * Autogenerated by Avro
+ *
+ * DO NOT EDIT DIRECTLY
+ */
+package com.ouz.microservices.kafka.avro.model;
+/** tweet language of twitter, UND when it is missing or not in the list */
+@org.apache.avro.specific.AvroGenerated
+public enum TweetLanguage implements org.apache.avro.generic.GenericEnumSymbol<TweetLanguage> {
+  UND, EN, ES, PT, JA, AR, FR, DE, TR, IT, KO, RU, NL, HI, IN, TH  ;
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"enum\",\"name\":\"TweetLanguage\",\"namespace\":\"com.ouz.microservices.kafka.avro.model\",\"doc\":\"tweet language of twitter, UND when it is missing or not in the list\",\"symbols\":[\"UND\",\"EN\",\"ES\",\"PT\",\"JA\",\"AR\",\"FR\",\"DE\",\"TR\",\"IT\",\"KO\",\"RU\",\"NL\",\"HI\",\"IN\",\"TH\"],\"default\":\"UND\"}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+}
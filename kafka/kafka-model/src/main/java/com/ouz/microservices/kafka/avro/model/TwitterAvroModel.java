@@ -12,15 +12,19 @@ import org.apache.avro.message.BinaryMessageEncoder;
 import org.apache.avro.message.BinaryMessageDecoder;
 import org.apache.avro.message.SchemaStore;
 
+/** v2, v1 is kept in schema-history/twitter-v1.avsc. Every field added after v1 has a default. */
 @org.apache.avro.specific.AvroGenerated
 public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  private static final long serialVersionUID = -1737860278505504929L;
+  private static final long serialVersionUID = -8511734812301816839L;
 
 
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"TwitterAvroModel\",\"namespace\":\"com.ouz.microservices.kafka.avro.model\",\"fields\":[{\"name\":\"userId\",\"type\":\"long\"},{\"name\":\"id\",\"type\":\"long\"},{\"name\":\"text\",\"type\":[\"null\",{\"type\":\"string\",\"avro.java.string\":\"String\"}]},{\"name\":\"createdAt\",\"type\":[\"null\",\"long\"],\"logicalType\":[\"null\",\"date\"]}]}");
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"TwitterAvroModel\",\"namespace\":\"com.ouz.microservices.kafka.avro.model\",\"doc\":\"v2, v1 is kept in schema-history/twitter-v1.avsc. Every field added after v1 has a default.\",\"fields\":[{\"name\":\"userId\",\"type\":\"long\"},{\"name\":\"id\",\"type\":\"long\"},{\"name\":\"text\",\"type\":[\"null\",{\"type\":\"string\",\"avro.java.string\":\"String\"}]},{\"name\":\"createdAt\",\"type\":[\"null\",{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}],\"default\":null},{\"name\":\"keywordIds\",\"type\":{\"type\":\"array\",\"items\":\"int\"},\"doc\":\"ids of the matched keywords, stable across keyword reloads and never reused\",\"default\":[]},{\"name\":\"lang\",\"type\":{\"type\":\"enum\",\"name\":\"TweetLanguage\",\"doc\":\"tweet language of twitter, UND when it is missing or not in the list\",\"symbols\":[\"UND\",\"EN\",\"ES\",\"PT\",\"JA\",\"AR\",\"FR\",\"DE\",\"TR\",\"IT\",\"KO\",\"RU\",\"NL\",\"HI\",\"IN\",\"TH\"],\"default\":\"UND\"},\"default\":\"UND\"}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
 
   private static final SpecificData MODEL$ = new SpecificData();
+  static {
+    MODEL$.addLogicalTypeConversion(new org.apache.avro.data.TimeConversions.TimestampMillisConversion());
+  }
 
   private static final BinaryMessageEncoder<TwitterAvroModel> ENCODER =
       new BinaryMessageEncoder<TwitterAvroModel>(MODEL$, SCHEMA$);
@@ -76,7 +80,10 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
   private long userId;
   private long id;
   private java.lang.String text;
-  private java.lang.Long createdAt;
+  private java.time.Instant createdAt;
+  /** ids of the matched keywords, stable across keyword reloads and never reused */
+  private java.util.List<java.lang.Integer> keywordIds;
+  private com.ouz.microservices.kafka.avro.model.TweetLanguage lang;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -91,12 +98,16 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
    * @param id The new value for id
    * @param text The new value for text
    * @param createdAt The new value for createdAt
+   * @param keywordIds ids of the matched keywords, stable across keyword reloads and never reused
+   * @param lang The new value for lang
    */
-  public TwitterAvroModel(java.lang.Long userId, java.lang.Long id, java.lang.String text, java.lang.Long createdAt) {
+  public TwitterAvroModel(java.lang.Long userId, java.lang.Long id, java.lang.String text, java.time.Instant createdAt, java.util.List<java.lang.Integer> keywordIds, com.ouz.microservices.kafka.avro.model.TweetLanguage lang) {
     this.userId = userId;
     this.id = id;
     this.text = text;
     this.createdAt = createdAt;
+    this.keywordIds = keywordIds;
+    this.lang = lang;
   }
 
   public org.apache.avro.specific.SpecificData getSpecificData() { return MODEL$; }
@@ -108,6 +119,8 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
     case 1: return id;
     case 2: return text;
     case 3: return createdAt;
+    case 4: return keywordIds;
+    case 5: return lang;
     default: throw new IndexOutOfBoundsException("Invalid index: " + field$);
     }
   }
@@ -119,7 +132,9 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
     case 0: userId = (java.lang.Long)value$; break;
     case 1: id = (java.lang.Long)value$; break;
     case 2: text = value$ != null ? value$.toString() : null; break;
-    case 3: createdAt = (java.lang.Long)value$; break;
+    case 3: createdAt = (java.time.Instant)value$; break;
+    case 4: keywordIds = (java.util.List<java.lang.Integer>)value$; break;
+    case 5: lang = (com.ouz.microservices.kafka.avro.model.TweetLanguage)value$; break;
     default: throw new IndexOutOfBoundsException("Invalid index: " + field$);
     }
   }
@@ -179,7 +194,7 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
    * Gets the value of the 'createdAt' field.
    * @return The value of the 'createdAt' field.
    */
-  public java.lang.Long getCreatedAt() {
+  public java.time.Instant getCreatedAt() {
     return createdAt;
   }
 
@@ -188,10 +203,45 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
    * Sets the value of the 'createdAt' field.
    * @param value the value to set.
    */
-  public void setCreatedAt(java.lang.Long value) {
+  public void setCreatedAt(java.time.Instant value) {
     this.createdAt = value;
   }
 
+  /**
+   * Gets the value of the 'keywordIds' field.
+   * @return ids of the matched keywords, stable across keyword reloads and never reused
+   */
+  public java.util.List<java.lang.Integer> getKeywordIds() {
+    return keywordIds;
+  }
+
+
+  /**
+   * Sets the value of the 'keywordIds' field.
+   * ids of the matched keywords, stable across keyword reloads and never reused
+   * @param value the value to set.
+   */
+  public void setKeywordIds(java.util.List<java.lang.Integer> value) {
+    this.keywordIds = value;
+  }
+
+  /**
+   * Gets the value of the 'lang' field.
+   * @return The value of the 'lang' field.
+   */
+  public com.ouz.microservices.kafka.avro.model.TweetLanguage getLang() {
+    return lang;
+  }
+
+
+  /**
+   * Sets the value of the 'lang' field.
+   * @param value the value to set.
+   */
+  public void setLang(com.ouz.microservices.kafka.avro.model.TweetLanguage value) {
+    this.lang = value;
+  }
+
   /**
    * Creates a new TwitterAvroModel RecordBuilder.
    * @return A new TwitterAvroModel RecordBuilder
@@ -236,7 +286,10 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
     private long userId;
     private long id;
     private java.lang.String text;
-    private java.lang.Long createdAt;
+    private java.time.Instant createdAt;
+    /** ids of the matched keywords, stable across keyword reloads and never reused */
+    private java.util.List<java.lang.Integer> keywordIds;
+    private com.ouz.microservices.kafka.avro.model.TweetLanguage lang;
 
     /** Creates a new Builder */
     private Builder() {
@@ -265,6 +318,14 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
         this.createdAt = data().deepCopy(fields()[3].schema(), other.createdAt);
         fieldSetFlags()[3] = other.fieldSetFlags()[3];
       }
+      if (isValidValue(fields()[4], other.keywordIds)) {
+        this.keywordIds = data().deepCopy(fields()[4].schema(), other.keywordIds);
+        fieldSetFlags()[4] = other.fieldSetFlags()[4];
+      }
+      if (isValidValue(fields()[5], other.lang)) {
+        this.lang = data().deepCopy(fields()[5].schema(), other.lang);
+        fieldSetFlags()[5] = other.fieldSetFlags()[5];
+      }
     }
 
     /**
@@ -289,6 +350,14 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
         this.createdAt = data().deepCopy(fields()[3].schema(), other.createdAt);
         fieldSetFlags()[3] = true;
       }
+      if (isValidValue(fields()[4], other.keywordIds)) {
+        this.keywordIds = data().deepCopy(fields()[4].schema(), other.keywordIds);
+        fieldSetFlags()[4] = true;
+      }
+      if (isValidValue(fields()[5], other.lang)) {
+        this.lang = data().deepCopy(fields()[5].schema(), other.lang);
+        fieldSetFlags()[5] = true;
+      }
     }
 
     /**
@@ -413,7 +482,7 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
       * Gets the value of the 'createdAt' field.
       * @return The value.
       */
-    public java.lang.Long getCreatedAt() {
+    public java.time.Instant getCreatedAt() {
       return createdAt;
     }
 
@@ -423,7 +492,7 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
       * @param value The value of 'createdAt'.
       * @return This builder.
       */
-    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder setCreatedAt(java.lang.Long value) {
+    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder setCreatedAt(java.time.Instant value) {
       validate(fields()[3], value);
       this.createdAt = value;
       fieldSetFlags()[3] = true;
@@ -449,6 +518,90 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
       return this;
     }
 
+    /**
+      * Gets the value of the 'keywordIds' field.
+      * ids of the matched keywords, stable across keyword reloads and never reused
+      * @return The value.
+      */
+    public java.util.List<java.lang.Integer> getKeywordIds() {
+      return keywordIds;
+    }
+
+
+    /**
+      * Sets the value of the 'keywordIds' field.
+      * ids of the matched keywords, stable across keyword reloads and never reused
+      * @param value The value of 'keywordIds'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder setKeywordIds(java.util.List<java.lang.Integer> value) {
+      validate(fields()[4], value);
+      this.keywordIds = value;
+      fieldSetFlags()[4] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'keywordIds' field has been set.
+      * ids of the matched keywords, stable across keyword reloads and never reused
+      * @return True if the 'keywordIds' field has been set, false otherwise.
+      */
+    public boolean hasKeywordIds() {
+      return fieldSetFlags()[4];
+    }
+
+
+    /**
+      * Clears the value of the 'keywordIds' field.
+      * ids of the matched keywords, stable across keyword reloads and never reused
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder clearKeywordIds() {
+      keywordIds = null;
+      fieldSetFlags()[4] = false;
+      return this;
+    }
+
+    /**
+      * Gets the value of the 'lang' field.
+      * @return The value.
+      */
+    public com.ouz.microservices.kafka.avro.model.TweetLanguage getLang() {
+      return lang;
+    }
+
+
+    /**
+      * Sets the value of the 'lang' field.
+      * @param value The value of 'lang'.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder setLang(com.ouz.microservices.kafka.avro.model.TweetLanguage value) {
+      validate(fields()[5], value);
+      this.lang = value;
+      fieldSetFlags()[5] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'lang' field has been set.
+      * @return True if the 'lang' field has been set, false otherwise.
+      */
+    public boolean hasLang() {
+      return fieldSetFlags()[5];
+    }
+
+
+    /**
+      * Clears the value of the 'lang' field.
+      * @return This builder.
+      */
+    public com.ouz.microservices.kafka.avro.model.TwitterAvroModel.Builder clearLang() {
+      lang = null;
+      fieldSetFlags()[5] = false;
+      return this;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public TwitterAvroModel build() {
@@ -457,7 +610,9 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
         record.userId = fieldSetFlags()[0] ? this.userId : (java.lang.Long) defaultValue(fields()[0]);
         record.id = fieldSetFlags()[1] ? this.id : (java.lang.Long) defaultValue(fields()[1]);
         record.text = fieldSetFlags()[2] ? this.text : (java.lang.String) defaultValue(fields()[2]);
-        record.createdAt = fieldSetFlags()[3] ? this.createdAt : (java.lang.Long) defaultValue(fields()[3]);
+        record.createdAt = fieldSetFlags()[3] ? this.createdAt : (java.time.Instant) defaultValue(fields()[3]);
+        record.keywordIds = fieldSetFlags()[4] ? this.keywordIds : (java.util.List<java.lang.Integer>) defaultValue(fields()[4]);
+        record.lang = fieldSetFlags()[5] ? this.lang : (com.ouz.microservices.kafka.avro.model.TweetLanguage) defaultValue(fields()[5]);
         return record;
       } catch (org.apache.avro.AvroMissingFieldException e) {
         throw e;
@@ -485,91 +640,6 @@ public class TwitterAvroModel extends org.apache.avro.specific.SpecificRecordBas
     READER$.read(this, SpecificData.getDecoder(in));
   }
 
-  @Override protected boolean hasCustomCoders() { return true; }
-
-  @Override public void customEncode(org.apache.avro.io.Encoder out)
-    throws java.io.IOException
-  {
-    out.writeLong(this.userId);
-
-    out.writeLong(this.id);
-
-    if (this.text == null) {
-      out.writeIndex(0);
-      out.writeNull();
-    } else {
-      out.writeIndex(1);
-      out.writeString(this.text);
-    }
-
-    if (this.createdAt == null) {
-      out.writeIndex(0);
-      out.writeNull();
-    } else {
-      out.writeIndex(1);
-      out.writeLong(this.createdAt);
-    }
-
-  }
-
-  @Override public void customDecode(org.apache.avro.io.ResolvingDecoder in)
-    throws java.io.IOException
-  {
-    org.apache.avro.Schema.Field[] fieldOrder = in.readFieldOrderIfDiff();
-    if (fieldOrder == null) {
-      this.userId = in.readLong();
-
-      this.id = in.readLong();
-
-      if (in.readIndex() != 1) {
-        in.readNull();
-        this.text = null;
-      } else {
-        this.text = in.readString();
-      }
-
-      if (in.readIndex() != 1) {
-        in.readNull();
-        this.createdAt = null;
-      } else {
-        this.createdAt = in.readLong();
-      }
-
-    } else {
-      for (int i = 0; i < 4; i++) {
-        switch (fieldOrder[i].pos()) {
-        case 0:
-          this.userId = in.readLong();
-          break;
-
-        case 1:
-          this.id = in.readLong();
-          break;
-
-        case 2:
-          if (in.readIndex() != 1) {
-            in.readNull();
-            this.text = null;
-          } else {
-            this.text = in.readString();
-          }
-          break;
-
-        case 3:
-          if (in.readIndex() != 1) {
-            in.readNull();
-            this.createdAt = null;
-          } else {
-            this.createdAt = in.readLong();
-          }
-          break;
-
-        default:
-          throw new java.io.IOException("Corrupt ResolvingDecoder.");
-        }
-      }
-    }
-  }
 }
 
 
@@ -0,0 +1,91 @@
+package com.ouz.microservices.kafka.avro.model;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TwitterAvroModelCompatibilityTest {
+
+    private final Schema v1 = v1Schema();
+    private final Schema v2 = TwitterAvroModel.getClassSchema();
+
+    @Test
+    public void v2IsFullyCompatibleWithV1() {
+        assertEquals(SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE,
+                SchemaCompatibility.checkReaderWriterCompatibility(v2, v1).getType(), "v2 reads v1");
+        assertEquals(SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE,
+                SchemaCompatibility.checkReaderWriterCompatibility(v1, v2).getType(), "v1 reads v2");
+    }
+
+    @Test
+    public void v2ReaderFillsDefaultsForV1Records() throws IOException {
+        GenericRecord v1Record = new GenericData.Record(v1);
+        v1Record.put("userId", 1L);
+        v1Record.put("id", 2L);
+        v1Record.put("text", "text");
+        v1Record.put("createdAt", 1646648130000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(v1).write(v1Record, encoder);
+        encoder.flush();
+
+        TwitterAvroModel model = new SpecificDatumReader<TwitterAvroModel>(v1, v2)
+                .read(null, DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+
+        assertEquals(2L, model.getId());
+        assertEquals(Instant.ofEpochMilli(1646648130000L), model.getCreatedAt());
+        assertEquals(List.of(), model.getKeywordIds());
+        assertEquals(TweetLanguage.UND, model.getLang());
+    }
+
+    @Test
+    public void v1ReaderSkipsNewFieldsOfV2Records() throws IOException {
+        TwitterAvroModel model = TwitterAvroModel.newBuilder()
+                .setUserId(1L)
+                .setId(2L)
+                .setText(null)
+                .setCreatedAt(Instant.ofEpochMilli(1646648130000L))
+                .setKeywordIds(List.of(3, 4))
+                .setLang(TweetLanguage.TR)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new SpecificDatumWriter<TwitterAvroModel>(v2).write(model, encoder);
+        encoder.flush();
+
+        GenericRecord v1Record = new GenericDatumReader<GenericRecord>(v2, v1)
+                .read(null, DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+
+        assertEquals(2L, v1Record.get("id"));
+        assertNull(v1Record.get("text"));
+        assertEquals(1646648130000L, v1Record.get("createdAt"));
+        assertEquals(4, v1Record.getSchema().getFields().size());
+    }
+
+    private static Schema v1Schema() {
+        try (InputStream schema = TwitterAvroModelCompatibilityTest.class
+                .getResourceAsStream("/schema-history/twitter-v1.avsc")) {
+            return new Schema.Parser().parse(schema);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
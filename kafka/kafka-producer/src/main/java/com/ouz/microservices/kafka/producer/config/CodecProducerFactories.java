@@ -0,0 +1,52 @@
+package com.ouz.microservices.kafka.producer.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * producer factories of the topics whose compression.type differs from the default one, one per codec, copied
+ * from the default producer factory. The copies are not beans and RoutingKafkaTemplate does not close them,
+ * so they are destroyed here. Destroying a factory closes its producer, which sends the records still in its
+ * accumulator first. Spring destroys this bean after the kafka template that routes to the factories.
+ */
+public class CodecProducerFactories<K, V> implements DisposableBean {
+
+    private final Map<String, ProducerFactory<K, V>> codecFactories = new HashMap<>();
+    private final Map<String, ProducerFactory<K, V>> topicFactories = new LinkedHashMap<>();
+
+    public CodecProducerFactories(ProducerFactory<K, V> defaultFactory, Map<String, String> topicCompressionTypes,
+                                  String defaultCompressionType) {
+        topicCompressionTypes.forEach((topic, compressionType) -> {
+            if (!compressionType.equals(defaultCompressionType)) {
+                topicFactories.put(topic, codecFactories.computeIfAbsent(compressionType, codec ->
+                        defaultFactory.copyWithConfigurationOverride(
+                                Map.of(ProducerConfig.COMPRESSION_TYPE_CONFIG, codec))));
+            }
+        });
+    }
+
+    /**
+     * topic name to the producer factory of its codec, only topics that do not use the default codec.
+     */
+    public Map<String, ProducerFactory<K, V>> getTopicFactories() {
+        return topicFactories;
+    }
+
+    public boolean isEmpty() {
+        return codecFactories.isEmpty();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (ProducerFactory<K, V> codecFactory : codecFactories.values()) {
+            if (codecFactory instanceof DisposableBean) {
+                ((DisposableBean) codecFactory).destroy();
+            }
+        }
+    }
+}
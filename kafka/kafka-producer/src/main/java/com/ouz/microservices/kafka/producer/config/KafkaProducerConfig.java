@@ -0,0 +1,210 @@
+package com.ouz.microservices.kafka.producer.config;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.kafka.producer.partitioner.TwitterPartitioner;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.kafka.producer.transaction.TransactionBatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.RoutingKafkaTemplate;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@Configuration
+public class KafkaProducerConfig<K extends Serializable, V extends SpecificRecordBase> {
+
+    private final KafkaConfigData kafkaConfigData;
+    private final KafkaProducerConfigData kafkaProducerConfigData;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaProducerConfig(KafkaConfigData kafkaConfigData, KafkaProducerConfigData kafkaProducerConfigData,
+                               MeterRegistry meterRegistry) {
+        this.kafkaConfigData = kafkaConfigData;
+        this.kafkaProducerConfigData = kafkaProducerConfigData;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * batch.size, linger.ms and compression decide how many records travel in a single request.
+     * Bigger batches with a small linger give us throughput, acks and max.in.flight decide
+     * the delivery guarantee. max.block.ms bounds the time send() may wait for metadata or
+     * buffer space, so the caller thread never hangs on a broker round trip.
+     * Partition strategies per topic are handed to TwitterPartitioner through the same map, and so is
+     * the schema registry client to AvroSerializer.
+     * An idempotent producer keeps the order within a partition with up to 5 requests in flight, the broker
+     * rejects a batch whose sequence number is out of order, so we don't need max.in.flight=1 for ordering.
+     */
+    @Bean
+    public Map<String, Object> producerConfig() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers());
+        props.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, kafkaProducerConfigData.getKeySerializerClass());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, kafkaProducerConfigData.getValueSerializerClass());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, kafkaProducerConfigData.getBatchSize() *
+                kafkaProducerConfigData.getBatchSizeBoostFactor());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, kafkaProducerConfigData.getLingerMs());
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, kafkaProducerConfigData.getCompressionType());
+        props.put(ProducerConfig.ACKS_CONFIG, kafkaProducerConfigData.getAcks());
+        props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, kafkaProducerConfigData.getRequestTimeoutMs());
+        props.put(ProducerConfig.RETRIES_CONFIG, kafkaProducerConfigData.getRetryCount());
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+                kafkaProducerConfigData.getMaxInFlightRequestsPerConnection());
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, kafkaProducerConfigData.getBufferMemory());
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, kafkaProducerConfigData.getMaxBlockMs());
+        if (kafkaProducerConfigData.getEnableIdempotence() != null) {
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, kafkaProducerConfigData.getEnableIdempotence());
+        }
+        boolean transactional = isTransactional();
+        if (Boolean.TRUE.equals(kafkaProducerConfigData.getEnableIdempotence()) || transactional) {
+            checkIdempotenceSettings();
+        }
+        if (Boolean.TRUE.equals(kafkaProducerConfigData.getSchemaRegistryWireFormat())) {
+            props.put(AvroSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, schemaRegistryClient());
+        }
+        props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, TwitterPartitioner.class);
+        if (kafkaProducerConfigData.getDefaultPartitionStrategy() != null) {
+            props.put(TwitterPartitioner.DEFAULT_STRATEGY_CONFIG, kafkaProducerConfigData.getDefaultPartitionStrategy());
+        }
+        kafkaProducerConfigData.getTopicPartitionStrategies().forEach((topic, strategy) ->
+                props.put(TwitterPartitioner.STRATEGY_CONFIG_PREFIX + topic, strategy));
+        return props;
+    }
+
+    // the producer would only fail on its first send, producers are created lazily
+    private void checkIdempotenceSettings() {
+        String acks = kafkaProducerConfigData.getAcks();
+        if (!"all".equals(acks) && !"-1".equals(acks)) {
+            throw new ConfigException(ProducerConfig.ACKS_CONFIG, acks, "must be all for an idempotent producer");
+        }
+        if (kafkaProducerConfigData.getRetryCount() < 1) {
+            throw new ConfigException(ProducerConfig.RETRIES_CONFIG, kafkaProducerConfigData.getRetryCount(),
+                    "must be greater than 0 for an idempotent producer");
+        }
+        Integer maxInFlight = kafkaProducerConfigData.getMaxInFlightRequestsPerConnection();
+        if (maxInFlight < 1 || maxInFlight > 5) {
+            throw new ConfigException(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlight,
+                    "must be between 1 and 5 for an idempotent producer");
+        }
+    }
+
+    // transactionBatcher is created whenever the property is there, a blank prefix is refused instead of ignored
+    private boolean isTransactional() {
+        String transactionIdPrefix = kafkaProducerConfigData.getTransactionIdPrefix();
+        if (transactionIdPrefix != null && transactionIdPrefix.isBlank()) {
+            throw new ConfigException("kafka-producer-config.transaction-id-prefix", transactionIdPrefix,
+                    "must not be blank, remove it for a producer without transactions");
+        }
+        return transactionIdPrefix != null;
+    }
+
+    @Bean
+    public SchemaRegistryClient schemaRegistryClient() {
+        return new SchemaRegistryClient(kafkaConfigData.getSchemaRegistryUrl(),
+                kafkaConfigData.getSchemaRegistryCacheCapacity(),
+                Duration.ofMillis(kafkaConfigData.getSchemaRegistryRequestTimeoutMs()));
+    }
+
+    /**
+     * MicrometerProducerListener binds the kafka client metrics of every created producer
+     * (batch-size-avg, record-size-avg, buffer-available-bytes, record-retry-total, record-error-total ...).
+     */
+    @Bean
+    public ProducerFactory<K, V> producerFactory() {
+        DefaultKafkaProducerFactory<K, V> producerFactory = new DefaultKafkaProducerFactory<>(producerConfig());
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    /**
+     * compression.type is a producer setting, so topics in KafkaConfigData.topicCompressionTypes whose codec
+     * differs from the default are sent through a producer of their own, one per codec.
+     */
+    @Bean
+    public CodecProducerFactories<K, V> codecProducerFactories() {
+        return new CodecProducerFactories<>(producerFactory(), kafkaConfigData.getTopicCompressionTypes(),
+                kafkaProducerConfigData.getCompressionType());
+    }
+
+    /**
+     * RoutingKafkaTemplate picks the producer factory by topic name, every other topic goes to the default
+     * producer. The template does not close any of them, the default factory and codecProducerFactories are
+     * beans and are destroyed by Spring after the template.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public KafkaTemplate<K, V> kafkaTemplate() {
+        ProducerFactory<K, V> defaultFactory = producerFactory();
+        CodecProducerFactories<K, V> codecProducerFactories = codecProducerFactories();
+        if (codecProducerFactories.isEmpty()) {
+            return new KafkaTemplate<>(defaultFactory);
+        }
+        Map<Pattern, ProducerFactory<Object, Object>> topicFactories = new LinkedHashMap<>();
+        codecProducerFactories.getTopicFactories().forEach((topic, codecFactory) ->
+                topicFactories.put(Pattern.compile(Pattern.quote(topic)),
+                        (ProducerFactory<Object, Object>) (ProducerFactory<?, ?>) codecFactory));
+        topicFactories.put(Pattern.compile(".*"), (ProducerFactory<Object, Object>) (ProducerFactory<?, ?>) defaultFactory);
+        return (KafkaTemplate<K, V>) (KafkaTemplate<?, ?>) new RoutingKafkaTemplate(topicFactories);
+    }
+
+    /**
+     * transactions run on a producer factory of their own, the kafka template stays non transactional for
+     * keyword counts and other records that are not part of a tweet batch. The transactional producer only
+     * sends to the twitter topic, so it takes the codec of that topic.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka-producer-config", name = "transaction-id-prefix")
+    public TransactionBatcher<K, V> transactionBatcher() {
+        Map<String, Object> props = new HashMap<>(producerConfig());
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, kafkaConfigData.getTopicCompressionTypes()
+                .getOrDefault(kafkaConfigData.getTopicName(), kafkaProducerConfigData.getCompressionType()));
+        DefaultKafkaProducerFactory<K, V> transactionalFactory = new DefaultKafkaProducerFactory<>(props);
+        transactionalFactory.setTransactionIdPrefix(kafkaProducerConfigData.getTransactionIdPrefix());
+        transactionalFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new TransactionBatcher<>(transactionalFactory, kafkaProducerConfigData.getTransactionMaxRecords(),
+                kafkaProducerConfigData.getTransactionMaxMs(), meterRegistry);
+    }
+
+    /**
+     * for records serialized before send(), by AvroSerializer as well so the bytes are the same. Keys are
+     * always longs here. Like the transactional producer it only sends to the twitter topic and takes its codec.
+     * Only the tweet arena sends serialized records, the factory is a bean so Spring closes its producer after
+     * the template and SerializedTwitterKafkaProducer are gone.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "tweet-arena-config.enabled", havingValue = "true")
+    public ProducerFactory<Long, ByteBuffer> serializedProducerFactory() {
+        Map<String, Object> props = new HashMap<>(producerConfig());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteBufferSerializer.class);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, kafkaConfigData.getTopicCompressionTypes()
+                .getOrDefault(kafkaConfigData.getTopicName(), kafkaProducerConfigData.getCompressionType()));
+        DefaultKafkaProducerFactory<Long, ByteBuffer> serializedFactory = new DefaultKafkaProducerFactory<>(props);
+        serializedFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return serializedFactory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "tweet-arena-config.enabled", havingValue = "true")
+    public KafkaTemplate<Long, ByteBuffer> serializedKafkaTemplate() {
+        return new KafkaTemplate<>(serializedProducerFactory());
+    }
+}
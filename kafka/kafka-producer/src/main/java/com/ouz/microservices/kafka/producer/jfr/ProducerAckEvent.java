@@ -0,0 +1,86 @@
+package com.ouz.microservices.kafka.producer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * one tweet from send() until the broker acknowledged it or the send failed, the flight recorder view of
+ * kafka.producer.send.latency. It begins on the sending thread and is committed in the send callback, so the
+ * event thread is the producer network thread (or the transaction committer), the sender is kept in a field.
+ * Recorded above 20 ms by default, an ack waits for linger.ms and the broker round trip.
+ *
+ * The event outlives send(), so unlike the other stage events it can not be scalar replaced by the jit.
+ * start() only creates it while a recording has it enabled, sends allocate nothing for it otherwise.
+ */
+@Name(ProducerAckEvent.NAME)
+@Label("Producer Ack")
+@Category({"Twitter to Kafka", "Kafka Producer"})
+@Description("Tweet sent until the broker acknowledged it")
+@Threshold("20 ms")
+@StackTrace(false)
+public class ProducerAckEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.kafka.ProducerAck";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    @Label("Topic")
+    private final String topic;
+
+    @Label("Send Thread")
+    private final Thread sendThread;
+
+    @Label("Partition")
+    private int partition = -1;
+
+    @Label("Offset")
+    private long offset = -1;
+
+    @Label("Error")
+    @Description("Failure of the send, null when the tweet was acknowledged")
+    private String error;
+
+    private ProducerAckEvent(long tweetId, String topic) {
+        this.tweetId = tweetId;
+        this.topic = topic;
+        this.sendThread = Thread.currentThread();
+    }
+
+    /**
+     * @return the begun event, null when no running recording has it enabled
+     */
+    public static ProducerAckEvent start(long tweetId, String topic) {
+        if (!Type.EVENT_TYPE.isEnabled()) {
+            return null;
+        }
+        ProducerAckEvent event = new ProducerAckEvent(tweetId, topic);
+        event.begin();
+        return event;
+    }
+
+    public void acknowledged(int partition, long offset) {
+        if (shouldCommit()) {
+            this.partition = partition;
+            this.offset = offset;
+            commit();
+        }
+    }
+
+    public void failed(Throwable throwable) {
+        if (shouldCommit()) {
+            this.error = throwable.toString();
+            commit();
+        }
+    }
+
+    private static final class Type {
+        private static final EventType EVENT_TYPE = EventType.getEventType(ProducerAckEvent.class);
+    }
+}
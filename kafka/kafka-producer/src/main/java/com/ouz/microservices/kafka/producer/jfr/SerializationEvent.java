@@ -0,0 +1,46 @@
+package com.ouz.microservices.kafka.producer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * avro encoding of one record by AvroSerializer, on the producer thread or, in arena mode, the stream thread.
+ * Recorded above 1 ms by default like the tweet stage events of the service.
+ */
+@Name(SerializationEvent.NAME)
+@Label("Avro Serialization")
+@Category({"Twitter to Kafka", "Kafka Producer"})
+@Description("Record encoded by the avro serializer")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.kafka.Serialization";
+
+    @Label("Tweet Id")
+    @Description("Id of the tweet, 0 for records that are not tweets")
+    private long tweetId;
+
+    @Label("Record Type")
+    private String recordType;
+
+    @Label("Topic")
+    private String topic;
+
+    @Label("Size")
+    @DataAmount
+    private int size;
+
+    public void set(long tweetId, String recordType, String topic, int size) {
+        this.tweetId = tweetId;
+        this.recordType = recordType;
+        this.topic = topic;
+        this.size = size;
+    }
+}
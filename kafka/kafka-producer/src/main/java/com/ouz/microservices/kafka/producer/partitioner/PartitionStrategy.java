@@ -0,0 +1,13 @@
+package com.ouz.microservices.kafka.producer.partitioner;
+
+/**
+ * how TwitterPartitioner spreads records of a topic over its partitions.
+ */
+public enum PartitionStrategy {
+    /** hash of the record key (userId), keeps every tweet of a user in order on one partition */
+    USER_ID,
+    /** hash of the first matched keyword id, tweets of one keyword land together for aggregations */
+    KEYWORD,
+    /** stay on one partition until its batch is full, then move to the next one, max throughput */
+    STICKY_ROUND_ROBIN
+}
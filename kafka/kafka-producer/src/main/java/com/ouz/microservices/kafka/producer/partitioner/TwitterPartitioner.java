@@ -0,0 +1,141 @@
+package com.ouz.microservices.kafka.producer.partitioner;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * producer Partitioner with a strategy per topic, see PartitionStrategy.
+ *
+ * Strategies are passed in the producer config, STRATEGY_CONFIG_PREFIX + topic name, topics without
+ * an entry use DEFAULT_STRATEGY_CONFIG. USER_ID and KEYWORD fall back to the sticky partition when the
+ * record has no key or no matched keyword, so those records do not pile up on one partition.
+ *
+ * Hashes are computed from the long/int values and spread with the murmur3 finalizer, instead of
+ * murmur2 over the serialized bytes; sequential user ids and small keyword ids still map evenly.
+ */
+public class TwitterPartitioner implements Partitioner {
+
+    public static final String STRATEGY_CONFIG_PREFIX = "twitter.partitioner.strategy.";
+    public static final String DEFAULT_STRATEGY_CONFIG = "twitter.partitioner.strategy.default";
+
+    private final Map<String, PartitionStrategy> topicStrategies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> stickyPartitions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> roundRobinCounters = new ConcurrentHashMap<>();
+    private PartitionStrategy defaultStrategy = PartitionStrategy.USER_ID;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        configs.forEach((key, value) -> {
+            if (value == null || !key.startsWith(STRATEGY_CONFIG_PREFIX)) {
+                return;
+            }
+            PartitionStrategy strategy = PartitionStrategy.valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+            if (key.equals(DEFAULT_STRATEGY_CONFIG)) {
+                defaultStrategy = strategy;
+            } else {
+                topicStrategies.put(key.substring(STRATEGY_CONFIG_PREFIX.length()), strategy);
+            }
+        });
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes,
+                         Cluster cluster) {
+        int numPartitions = cluster.partitionCountForTopic(topic);
+        switch (strategyFor(topic)) {
+            case USER_ID:
+                if (key instanceof Long) {
+                    return partitionForHash(hash((Long) key), numPartitions);
+                }
+                if (keyBytes != null) {
+                    return partitionForHash(Utils.murmur2(keyBytes), numPartitions);
+                }
+                break;
+            case KEYWORD:
+                if (value instanceof TwitterAvroModel) {
+                    List<Integer> keywordIds = ((TwitterAvroModel) value).getKeywordIds();
+                    if (keywordIds != null && !keywordIds.isEmpty()) {
+                        return partitionForHash(hash(keywordIds.get(0)), numPartitions);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return stickyPartition(topic, cluster);
+    }
+
+    /**
+     * called by the producer when the batch of the previous partition is full or was sent,
+     * the sticky partition moves on only if nobody moved it already.
+     */
+    @Override
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+        Integer current = stickyPartitions.get(topic);
+        if (current == null || current == prevPartition) {
+            int next = nextPartition(topic, cluster);
+            if (current == null) {
+                stickyPartitions.putIfAbsent(topic, next);
+            } else {
+                stickyPartitions.replace(topic, current, next);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stickyPartitions.clear();
+        roundRobinCounters.clear();
+    }
+
+    public PartitionStrategy strategyFor(String topic) {
+        return topicStrategies.getOrDefault(topic, defaultStrategy);
+    }
+
+    private int stickyPartition(String topic, Cluster cluster) {
+        Integer partition = stickyPartitions.get(topic);
+        if (partition == null) {
+            Integer previous = stickyPartitions.putIfAbsent(topic, partition = nextPartition(topic, cluster));
+            if (previous != null) {
+                partition = previous;
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * round robin over available partitions, over all partitions when none is available.
+     */
+    private int nextPartition(String topic, Cluster cluster) {
+        int counter = Utils.toPositive(roundRobinCounters.computeIfAbsent(topic, t -> new AtomicInteger())
+                .getAndIncrement());
+        List<PartitionInfo> availablePartitions = cluster.availablePartitionsForTopic(topic);
+        if (!availablePartitions.isEmpty()) {
+            return availablePartitions.get(counter % availablePartitions.size()).partition();
+        }
+        return counter % cluster.partitionCountForTopic(topic);
+    }
+
+    private static int partitionForHash(int hash, int numPartitions) {
+        return Utils.toPositive(hash) % numPartitions;
+    }
+
+    private static int hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
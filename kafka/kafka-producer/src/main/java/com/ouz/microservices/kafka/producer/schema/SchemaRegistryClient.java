@@ -0,0 +1,241 @@
+package com.ouz.microservices.kafka.producer.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * minimal client for the confluent schema registry rest api, only what the producer needs:
+ * look up the id of a schema under a subject (registering it when it is not there yet) and fetch a
+ * schema by id.
+ *
+ * Both directions are cached in maps bounded by cacheCapacity, an arbitrary entry is evicted when a map
+ * is full. Schemas are registered once at startup, afterwards getOrRegisterId is a map lookup and the
+ * serializer never waits for an http call. Thread-safe.
+ *
+ * Failures are SchemaRegistryException (retriable) while the registry is not reachable or answers with a
+ * server error, 408 or 429, and SchemaRegistryRejectedException for any other client error.
+ */
+public class SchemaRegistryClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaRegistryClient.class);
+
+    private static final String CONTENT_TYPE = "application/vnd.schemaregistry.v1+json";
+    // confluent error code for "schema not found" under an existing or missing subject
+    private static final int SUBJECT_NOT_FOUND = 40401;
+    private static final int SCHEMA_NOT_FOUND = 40403;
+    // client errors worth sending again, request timeout and too many requests
+    private static final int REQUEST_TIMEOUT = 408;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final String baseUrl;
+    private final int cacheCapacity;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<SubjectSchema, Integer> idsBySubjectSchema = new ConcurrentHashMap<>();
+    private final Map<Integer, Schema> schemasById = new ConcurrentHashMap<>();
+
+    public SchemaRegistryClient(String baseUrl, int cacheCapacity, Duration requestTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.cacheCapacity = cacheCapacity;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+    }
+
+    /**
+     * cached id, or a blocking registry round trip on a cache miss.
+     */
+    public int getOrRegisterId(String subject, Schema schema) {
+        Integer id = idsBySubjectSchema.get(new SubjectSchema(subject, schema));
+        if (id != null) {
+            return id;
+        }
+        try {
+            return getOrRegisterIdAsync(subject, schema).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchemaRegistryException("Interrupted while registering schema for subject " + subject, e);
+        } catch (ExecutionException e) {
+            throw asRegistryException(e.getCause(), "Could not register schema for subject " + subject);
+        }
+    }
+
+    /**
+     * looks the schema up under subject and registers it when the registry does not know it.
+     */
+    public CompletableFuture<Integer> getOrRegisterIdAsync(String subject, Schema schema) {
+        SubjectSchema key = new SubjectSchema(subject, schema);
+        Integer cached = idsBySubjectSchema.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String body = schemaRequestBody(schema);
+        return send(post("/subjects/" + encode(subject), body))
+                .thenCompose(response -> {
+                    if (response.statusCode() == 404 &&
+                            isError(response, SUBJECT_NOT_FOUND, SCHEMA_NOT_FOUND)) {
+                        LOG.info("Registering schema {} under subject {}", schema.getFullName(), subject);
+                        return send(post("/subjects/" + encode(subject) + "/versions", body));
+                    }
+                    return CompletableFuture.completedFuture(response);
+                })
+                .thenApply(response -> {
+                    int id = readField(response, "id").asInt();
+                    put(idsBySubjectSchema, key, id);
+                    put(schemasById, id, schema);
+                    return id;
+                });
+    }
+
+    public Schema getSchemaById(int id) {
+        Schema schema = schemasById.get(id);
+        if (schema != null) {
+            return schema;
+        }
+        try {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/schemas/ids/" + id))
+                    .timeout(requestTimeout)
+                    .header("Accept", CONTENT_TYPE)
+                    .GET()
+                    .build()).get();
+            schema = new Schema.Parser().parse(readField(response, "schema").asText());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchemaRegistryException("Interrupted while reading schema " + id, e);
+        } catch (ExecutionException e) {
+            throw asRegistryException(e.getCause(), "Could not read schema " + id);
+        }
+        put(schemasById, id, schema);
+        return schema;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", CONTENT_TYPE)
+                .header("Accept", CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private String schemaRequestBody(Schema schema) {
+        return objectMapper.createObjectNode().put("schema", schema.toString()).toString();
+    }
+
+    private JsonNode readField(HttpResponse<String> response, String field) {
+        int statusCode = response.statusCode();
+        if (statusCode / 100 != 2) {
+            String message = "Schema registry answered " + statusCode + " for " + response.request().uri() + ": " +
+                    response.body();
+            if (statusCode / 100 == 4 && statusCode != REQUEST_TIMEOUT && statusCode != TOO_MANY_REQUESTS) {
+                throw new SchemaRegistryRejectedException(message, statusCode);
+            }
+            throw new SchemaRegistryException(message);
+        }
+        try {
+            JsonNode value = objectMapper.readTree(response.body()).get(field);
+            if (value == null) {
+                throw new SchemaRegistryException("Schema registry answer has no " + field + ": " + response.body());
+            }
+            return value;
+        } catch (IOException e) {
+            throw new SchemaRegistryException("Could not parse schema registry answer " + response.body(), e);
+        }
+    }
+
+    private boolean isError(HttpResponse<String> response, int... errorCodes) {
+        try {
+            JsonNode errorCode = objectMapper.readTree(response.body()).get("error_code");
+            if (errorCode == null) {
+                return false;
+            }
+            for (int code : errorCodes) {
+                if (errorCode.asInt() == code) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * bound is kept loosely, concurrent puts may overshoot it by the number of writer threads.
+     */
+    private <K, V> void put(Map<K, V> cache, K key, V value) {
+        if (cache.size() >= cacheCapacity && !cache.containsKey(key)) {
+            Iterator<K> keys = cache.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(key, value);
+    }
+
+    private static KafkaException asRegistryException(Throwable throwable, String message) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
+        if (cause instanceof SchemaRegistryException || cause instanceof SchemaRegistryRejectedException) {
+            return (KafkaException) cause;
+        }
+        return new SchemaRegistryException(message, cause);
+    }
+
+    private static String encode(String subject) {
+        return URLEncoder.encode(subject, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static final class SubjectSchema {
+        private final String subject;
+        private final Schema schema;
+
+        private SubjectSchema(String subject, Schema schema) {
+            this.subject = subject;
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SubjectSchema)) {
+                return false;
+            }
+            SubjectSchema other = (SubjectSchema) o;
+            return subject.equals(other.subject) && schema.equals(other.schema);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, schema);
+        }
+    }
+}
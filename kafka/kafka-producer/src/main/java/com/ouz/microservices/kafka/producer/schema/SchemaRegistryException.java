@@ -0,0 +1,18 @@
+package com.ouz.microservices.kafka.producer.schema;
+
+import org.apache.kafka.common.errors.RetriableException;
+
+/**
+ * schema registry could not be reached or did not answer as expected. Retriable on purpose: when the
+ * serializer throws it, the producer fails the record like a broker timeout and the caller may spool it.
+ */
+public class SchemaRegistryException extends RetriableException {
+
+    public SchemaRegistryException(String message) {
+        super(message);
+    }
+
+    public SchemaRegistryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
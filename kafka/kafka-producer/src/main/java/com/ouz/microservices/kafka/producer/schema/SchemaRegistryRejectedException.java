@@ -0,0 +1,21 @@
+package com.ouz.microservices.kafka.producer.schema;
+
+import org.apache.kafka.common.KafkaException;
+
+/**
+ * schema registry answered and refused the request, an incompatible (409) or invalid (422) schema, an unknown
+ * schema id. Not retriable: the same request gets the same answer, a spooled tweet would fail again on replay.
+ */
+public class SchemaRegistryRejectedException extends KafkaException {
+
+    private final int statusCode;
+
+    public SchemaRegistryRejectedException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ouz.microservices.kafka.producer.serializer;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.jfr.SerializationEvent;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * kafka value serializer for avro generated records, writes plain avro binary encoding.
+ * Datum writers are created once per schema and cached. Each producer thread keeps its own BinaryEncoder and
+ * a growable byte buffer, both are reset and reused for every record, so the only allocation per record is
+ * the exact sized array handed to the producer. Buffers that grew above MAX_RETAINED_BUFFER_SIZE for a
+ * large record are dropped after use instead of being kept by the thread.
+ *
+ * When a SchemaRegistryClient is passed in the producer config (SCHEMA_REGISTRY_CLIENT_CONFIG) every record
+ * starts with the confluent wire header: magic byte 0 and the 4 byte big endian schema id of the
+ * topic name strategy subject. The id of the last topic/schema pair is kept in a field, other pairs come
+ * from the client cache, so no registry call is made once the schema was registered at startup.
+ *
+ * Every encoding is a flight recorder SerializationEvent, written only while a recording has it enabled.
+ */
+public class AvroSerializer<T extends SpecificRecordBase> implements Serializer<T> {
+
+    public static final String SCHEMA_REGISTRY_CLIENT_CONFIG = "twitter.schema.registry.client";
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<Schema, SpecificDatumWriter<T>> datumWriters = new ConcurrentHashMap<>();
+    private final ThreadLocal<EncodingBuffer> encodingBuffers = ThreadLocal.withInitial(EncodingBuffer::new);
+
+    private SchemaRegistryClient schemaRegistryClient;
+    private boolean isKey;
+    private volatile SchemaId lastSchemaId;
+
+    public AvroSerializer() {
+    }
+
+    public AvroSerializer(SchemaRegistryClient schemaRegistryClient) {
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        this.isKey = isKey;
+        Object client = configs.get(SCHEMA_REGISTRY_CLIENT_CONFIG);
+        if (client instanceof SchemaRegistryClient) {
+            this.schemaRegistryClient = (SchemaRegistryClient) client;
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        return encode(topic, data).toByteArray();
+    }
+
+    /**
+     * same bytes as serialize, as a read only view of the encoding buffer of the calling thread. The view is
+     * valid until the next call on that thread, for callers that copy the record right away (no array per record).
+     */
+    public ByteBuffer serializeToBuffer(String topic, T data) {
+        EncodingBuffer buffer = encode(topic, data);
+        return ByteBuffer.wrap(buffer.bytes, 0, buffer.count).asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() {
+        encodingBuffers.remove();
+    }
+
+    public static String subjectName(String topic, boolean isKey) {
+        return topic + (isKey ? "-key" : "-value");
+    }
+
+    private EncodingBuffer encode(String topic, T data) {
+        SerializationEvent serializationEvent = new SerializationEvent();
+        serializationEvent.begin();
+        EncodingBuffer buffer = encodingBuffers.get();
+        try {
+            Schema schema = data.getSchema();
+            buffer.reset();
+            if (schemaRegistryClient != null) {
+                writeHeader(buffer, schemaId(topic, schema));
+            }
+            BinaryEncoder encoder = buffer.encoder();
+            datumWriters.computeIfAbsent(schema, SpecificDatumWriter::new).write(data, encoder);
+            encoder.flush();
+            if (serializationEvent.shouldCommit()) {
+                serializationEvent.set(data instanceof TwitterAvroModel ? ((TwitterAvroModel) data).getId() : 0L,
+                        schema.getName(), topic, buffer.count);
+                serializationEvent.commit();
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new SerializationException("Error while serializing avro record for topic " + topic, e);
+        } finally {
+            // the returned buffer stays usable, the thread only stops keeping it
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                encodingBuffers.remove();
+            }
+        }
+    }
+
+    private int schemaId(String topic, Schema schema) {
+        SchemaId last = lastSchemaId;
+        if (last != null && last.schema == schema && last.topic.equals(topic)) {
+            return last.id;
+        }
+        int id = schemaRegistryClient.getOrRegisterId(subjectName(topic, isKey), schema);
+        lastSchemaId = new SchemaId(topic, schema, id);
+        return id;
+    }
+
+    private static void writeHeader(OutputStream outputStream, int schemaId) throws IOException {
+        outputStream.write(MAGIC_BYTE);
+        outputStream.write(schemaId >>> 24);
+        outputStream.write(schemaId >>> 16);
+        outputStream.write(schemaId >>> 8);
+        outputStream.write(schemaId);
+    }
+
+    /**
+     * reusable output of one thread, ByteArrayOutputStream without synchronization and with the encoder
+     * bound to it.
+     */
+    private static final class EncodingBuffer extends OutputStream {
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int count;
+        private BinaryEncoder encoder;
+
+        private BinaryEncoder encoder() {
+            encoder = EncoderFactory.get().binaryEncoder(this, encoder);
+            return encoder;
+        }
+
+        private void reset() {
+            count = 0;
+        }
+
+        private int capacity() {
+            return bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, count);
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensureCapacity(count + length);
+            System.arraycopy(source, offset, bytes, count, length);
+            count += length;
+        }
+
+        private void ensureCapacity(int minCapacity) {
+            if (minCapacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, minCapacity));
+            }
+        }
+    }
+
+    private static final class SchemaId {
+        private final String topic;
+        private final Schema schema;
+        private final int id;
+
+        private SchemaId(String topic, Schema schema, int id) {
+            this.topic = topic;
+            this.schema = schema;
+            this.id = id;
+        }
+    }
+}
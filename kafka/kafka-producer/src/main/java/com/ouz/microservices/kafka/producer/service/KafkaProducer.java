@@ -0,0 +1,19 @@
+package com.ouz.microservices.kafka.producer.service;
+
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.io.Serializable;
+
+/**
+ * generic producer abstraction, value type is always an avro generated record.
+ * send method is asynchronous, it returns as soon as the record is appended to producer buffer.
+ */
+public interface KafkaProducer<K extends Serializable, V extends SpecificRecordBase> {
+
+    void send(String topicName, K key, V message);
+
+    /**
+     * same as send, the callback gets the outcome instead of it only being logged.
+     */
+    void send(String topicName, K key, V message, KafkaSendCallback<K, V> callback);
+}
@@ -0,0 +1,13 @@
+package com.ouz.microservices.kafka.producer.service;
+
+/**
+ * outcome of an asynchronous send. Called on the kafka producer network thread, or on the caller thread
+ * when send() itself fails (buffer full or no metadata within max.block.ms), so implementations must be quick.
+ */
+public interface KafkaSendCallback<K, V> {
+
+    default void onSuccess(String topicName, K key, V message) {
+    }
+
+    void onFailure(String topicName, K key, V message, Throwable throwable);
+}
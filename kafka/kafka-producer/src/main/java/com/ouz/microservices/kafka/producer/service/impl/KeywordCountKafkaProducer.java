@@ -0,0 +1,66 @@
+package com.ouz.microservices.kafka.producer.service.impl;
+
+import com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * producer of the keyword window counts. Shares the kafka template, and so the producer of each codec, with
+ * TwitterKafkaProducer. The producer factories are beans, Spring closes them after both producers.
+ */
+@Service
+public class KeywordCountKafkaProducer implements KafkaProducer<Long, KeywordCountAvroModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeywordCountKafkaProducer.class);
+
+    private final KafkaTemplate<Long, KeywordCountAvroModel> kafkaTemplate;
+
+    public KeywordCountKafkaProducer(KafkaTemplate<Long, KeywordCountAvroModel> template) {
+        this.kafkaTemplate = template;
+    }
+
+    @Override
+    public void send(String topicName, Long key, KeywordCountAvroModel message) {
+        send(topicName, key, message, null);
+    }
+
+    @Override
+    public void send(String topicName, Long key, KeywordCountAvroModel message,
+                     KafkaSendCallback<Long, KeywordCountAvroModel> callback) {
+        ListenableFuture<SendResult<Long, KeywordCountAvroModel>> kafkaResultFuture;
+        try {
+            kafkaResultFuture = kafkaTemplate.send(topicName, key, message);
+        } catch (RuntimeException e) {
+            if (callback == null) {
+                throw e;
+            }
+            callback.onFailure(topicName, key, message, e);
+            return;
+        }
+        kafkaResultFuture.addCallback(new ListenableFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                if (callback != null) {
+                    callback.onFailure(topicName, key, message, throwable);
+                    return;
+                }
+                LOG.error("Error while sending count of keyword {} to topic {}", message.getKeyword(), topicName,
+                        throwable);
+            }
+
+            @Override
+            public void onSuccess(SendResult<Long, KeywordCountAvroModel> result) {
+                if (callback != null) {
+                    callback.onSuccess(topicName, key, message);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.ouz.microservices.kafka.producer.service.impl;
+
+import com.ouz.microservices.kafka.producer.jfr.ProducerAckEvent;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sends tweets that are already serialized, the value buffer is read once by the serializer inside send()
+ * (kafka serializers return a byte array, that copy is the only one). The buffer must stay unchanged until
+ * the callback runs, the caller reads a failed record back from it.
+ * Meters are the ones of TwitterKafkaProducer, both producers count in the same send latency and errors.
+ * Only created in tweet arena mode. The producer factory is a bean of its own and is closed by Spring.
+ */
+@Service
+@ConditionalOnProperty(value = "tweet-arena-config.enabled", havingValue = "true")
+public class SerializedTwitterKafkaProducer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerializedTwitterKafkaProducer.class);
+
+    private final KafkaTemplate<Long, ByteBuffer> kafkaTemplate;
+
+    private final Timer sendLatency;
+    private final DistributionSummary recordSize;
+    private final Counter sendErrors;
+
+    public SerializedTwitterKafkaProducer(KafkaTemplate<Long, ByteBuffer> serializedKafkaTemplate,
+                                          MeterRegistry meterRegistry) {
+        this.kafkaTemplate = serializedKafkaTemplate;
+        this.sendLatency = Timer.builder("kafka.producer.send.latency")
+                .description("Time from send() until the broker acknowledged the record")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.recordSize = DistributionSummary.builder("kafka.producer.record.size")
+                .description("Serialized size of acknowledged records")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.sendErrors = Counter.builder("kafka.producer.send.errors")
+                .description("Records the producer failed to deliver")
+                .register(meterRegistry);
+    }
+
+    /**
+     * a failing send() call is handed to the callback, like in TwitterKafkaProducer.
+     * tweetId is only for the flight recorder ack event, the value is not decoded for it.
+     */
+    public void send(String topicName, Long key, long tweetId, ByteBuffer value,
+                     KafkaSendCallback<Long, ByteBuffer> callback) {
+        long sendStartNanos = System.nanoTime();
+        ProducerAckEvent ackEvent = ProducerAckEvent.start(tweetId, topicName);
+        ListenableFuture<SendResult<Long, ByteBuffer>> kafkaResultFuture;
+        try {
+            kafkaResultFuture = kafkaTemplate.send(topicName, key, value);
+        } catch (RuntimeException e) {
+            if (ackEvent != null) {
+                ackEvent.failed(e);
+            }
+            sendErrors.increment();
+            callback.onFailure(topicName, key, value, e);
+            return;
+        }
+        kafkaResultFuture.addCallback(new ListenableFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                sendErrors.increment();
+                if (ackEvent != null) {
+                    ackEvent.failed(throwable);
+                }
+                callback.onFailure(topicName, key, value, throwable);
+            }
+
+            @Override
+            public void onSuccess(SendResult<Long, ByteBuffer> result) {
+                sendLatency.record(System.nanoTime() - sendStartNanos, TimeUnit.NANOSECONDS);
+                RecordMetadata metadata = result.getRecordMetadata();
+                if (ackEvent != null) {
+                    ackEvent.acknowledged(metadata.partition(), metadata.offset());
+                }
+                recordSize.record(Math.max(0, metadata.serializedKeySize()) +
+                        Math.max(0, metadata.serializedValueSize()));
+                callback.onSuccess(topicName, key, value);
+            }
+        });
+    }
+
+    /**
+     * sends the records waiting in the producer and waits for their callbacks, failures included.
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    @PreDestroy
+    public void close() {
+        LOG.info("Closing serialized tweet producer!");
+        flush();
+    }
+}
@@ -0,0 +1,155 @@
+package com.ouz.microservices.kafka.producer.service.impl;
+
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.jfr.ProducerAckEvent;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.kafka.producer.transaction.TransactionBatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class TwitterKafkaProducer implements KafkaProducer<Long, TwitterAvroModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwitterKafkaProducer.class);
+
+    private final KafkaTemplate<Long, TwitterAvroModel> kafkaTemplate;
+    // present when kafka-producer-config.transaction-id-prefix is set, tweets are then sent in transactions
+    private final TransactionBatcher<Long, TwitterAvroModel> transactionBatcher;
+
+    private final Timer sendLatency;
+    private final DistributionSummary recordSize;
+    private final Counter sendErrors;
+
+    public TwitterKafkaProducer(KafkaTemplate<Long, TwitterAvroModel> template,
+                                Optional<TransactionBatcher<Long, TwitterAvroModel>> transactionBatcher,
+                                MeterRegistry meterRegistry) {
+        this.kafkaTemplate = template;
+        this.transactionBatcher = transactionBatcher.orElse(null);
+        this.sendLatency = Timer.builder("kafka.producer.send.latency")
+                .description("Time from send() until the broker acknowledged the record")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.recordSize = DistributionSummary.builder("kafka.producer.record.size")
+                .description("Serialized size of acknowledged records")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.sendErrors = Counter.builder("kafka.producer.send.errors")
+                .description("Records the producer failed to deliver")
+                .register(meterRegistry);
+    }
+
+    /**
+     * we never call get() on the returned future. Result is handled on the kafka producer
+     * network thread through the callback, so the caller (twitter4j thread) goes on with the next tweet.
+     */
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message) {
+        send(topicName, key, message, null);
+    }
+
+    /**
+     * a failing send() call is handed to the callback as well, so the caller sees every failure in one place.
+     * In transactional mode the callback runs once the transaction of the record is committed or aborted.
+     */
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message,
+                     KafkaSendCallback<Long, TwitterAvroModel> callback) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Sending message with id {} to topic {}", message.getId(), topicName);
+        }
+        long sendStartNanos = System.nanoTime();
+        ProducerAckEvent ackEvent = ProducerAckEvent.start(message.getId(), topicName);
+        ListenableFuture<SendResult<Long, TwitterAvroModel>> kafkaResultFuture;
+        try {
+            if (transactionBatcher != null) {
+                transactionBatcher.send(new ProducerRecord<>(topicName, key, message), (metadata, exception) -> {
+                    if (exception != null) {
+                        onFailure(topicName, key, message, exception, ackEvent, callback);
+                    } else {
+                        onSuccess(topicName, key, message, metadata, sendStartNanos, ackEvent, callback);
+                    }
+                });
+                return;
+            }
+            kafkaResultFuture = kafkaTemplate.send(topicName, key, message);
+        } catch (RuntimeException e) {
+            if (ackEvent != null) {
+                ackEvent.failed(e);
+            }
+            if (callback == null) {
+                throw e;
+            }
+            sendErrors.increment();
+            callback.onFailure(topicName, key, message, e);
+            return;
+        }
+        addCallback(topicName, key, message, kafkaResultFuture, sendStartNanos, ackEvent, callback);
+    }
+
+    private void addCallback(String topicName, Long key, TwitterAvroModel message,
+                             ListenableFuture<SendResult<Long, TwitterAvroModel>> kafkaResultFuture,
+                             long sendStartNanos, ProducerAckEvent ackEvent,
+                             KafkaSendCallback<Long, TwitterAvroModel> callback) {
+        kafkaResultFuture.addCallback(new ListenableFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                TwitterKafkaProducer.this.onFailure(topicName, key, message, throwable, ackEvent, callback);
+            }
+
+            @Override
+            public void onSuccess(SendResult<Long, TwitterAvroModel> result) {
+                TwitterKafkaProducer.this.onSuccess(topicName, key, message, result.getRecordMetadata(),
+                        sendStartNanos, ackEvent, callback);
+            }
+        });
+    }
+
+    private void onFailure(String topicName, Long key, TwitterAvroModel message, Throwable throwable,
+                           ProducerAckEvent ackEvent, KafkaSendCallback<Long, TwitterAvroModel> callback) {
+        sendErrors.increment();
+        if (ackEvent != null) {
+            ackEvent.failed(throwable);
+        }
+        if (callback != null) {
+            callback.onFailure(topicName, key, message, throwable);
+            return;
+        }
+        LOG.error("Error while sending message with id {} to topic {}", message.getId(), topicName, throwable);
+    }
+
+    private void onSuccess(String topicName, Long key, TwitterAvroModel message, RecordMetadata metadata,
+                           long sendStartNanos, ProducerAckEvent ackEvent,
+                           KafkaSendCallback<Long, TwitterAvroModel> callback) {
+        sendLatency.record(System.nanoTime() - sendStartNanos, TimeUnit.NANOSECONDS);
+        if (ackEvent != null) {
+            ackEvent.acknowledged(metadata.partition(), metadata.offset());
+        }
+        recordSize.record(Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize()));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Received new metadata. Topic: {}; Partition {}; Offset {}; Timestamp {}, at time {}",
+                    metadata.topic(),
+                    metadata.partition(),
+                    metadata.offset(),
+                    metadata.timestamp(),
+                    System.nanoTime());
+        }
+        if (callback != null) {
+            callback.onSuccess(topicName, key, message);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.ouz.microservices.kafka.producer.transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * sends records in kafka transactions of up to maxRecords records, a transaction still open maxMs after its
+ * first record is committed by the committer thread. A transaction per record would cost a round trip to the
+ * transaction coordinator and a commit marker in every partition for each tweet.
+ *
+ * The callback of a record runs after its transaction is committed or aborted, so a record is reported as
+ * delivered only once read_committed consumers can see it. An abort fails every record of the batch and the
+ * producer is replaced, a producer whose commit failed can not be used for another transaction.
+ * send() and commit share one lock, senders wait while a batch is committed.
+ */
+public class TransactionBatcher<K, V> implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionBatcher.class);
+
+    private final DefaultKafkaProducerFactory<K, V> producerFactory;
+    private final int maxRecords;
+    private final long maxMs;
+    private final ScheduledExecutorService committer;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Timer commitLatency;
+    private final DistributionSummary transactionRecords;
+    private final Counter aborts;
+
+    private Producer<K, V> producer;
+    private List<PendingRecord> batch = new ArrayList<>();
+    private boolean inTransaction;
+    private long transactionCount;
+    private boolean closed;
+
+    public TransactionBatcher(DefaultKafkaProducerFactory<K, V> producerFactory, int maxRecords, long maxMs,
+                              MeterRegistry meterRegistry) {
+        if (producerFactory.getTransactionIdPrefix() == null) {
+            throw new IllegalArgumentException("producer factory has no transaction id prefix");
+        }
+        this.producerFactory = producerFactory;
+        this.maxRecords = Math.max(1, maxRecords);
+        this.maxMs = Math.max(1, maxMs);
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-transaction-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.commitLatency = Timer.builder("kafka.producer.transaction.commit.latency")
+                .description("Time commitTransaction() took, flushing the batch included")
+                .register(meterRegistry);
+        this.transactionRecords = DistributionSummary.builder("kafka.producer.transaction.records")
+                .description("Records per committed or aborted transaction")
+                .register(meterRegistry);
+        this.aborts = Counter.builder("kafka.producer.transaction.aborts")
+                .description("Transactions aborted, all their records failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * appends the record to the open transaction, beginning one if there is none. The record that fills
+     * the batch commits it on the caller thread.
+     */
+    public void send(ProducerRecord<K, V> record, Callback callback) {
+        CompletedBatch completed = null;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Transaction batcher is closed");
+            }
+            if (!inTransaction) {
+                beginTransaction();
+            }
+            PendingRecord pendingRecord = new PendingRecord(callback);
+            producer.send(record, pendingRecord);
+            batch.add(pendingRecord);
+            if (batch.size() >= maxRecords) {
+                completed = commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (completed != null) {
+            completed.complete();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        CompletedBatch completed = null;
+        lock.lock();
+        try {
+            closed = true;
+            if (inTransaction) {
+                completed = commit();
+            }
+            closeProducer();
+        } finally {
+            lock.unlock();
+        }
+        if (completed != null) {
+            completed.complete();
+        }
+        committer.shutdownNow();
+        producerFactory.destroy();
+    }
+
+    private void beginTransaction() {
+        if (producer == null) {
+            producer = producerFactory.createProducer();
+        }
+        try {
+            producer.beginTransaction();
+        } catch (RuntimeException e) {
+            closeProducer();
+            throw e;
+        }
+        inTransaction = true;
+        long transaction = ++transactionCount;
+        committer.schedule(() -> commitIfOpen(transaction), maxMs, TimeUnit.MILLISECONDS);
+    }
+
+    // time bound, the transaction may already be committed by the record that filled it
+    private void commitIfOpen(long transaction) {
+        CompletedBatch completed = null;
+        lock.lock();
+        try {
+            if (inTransaction && transactionCount == transaction) {
+                completed = commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (completed != null) {
+            completed.complete();
+        }
+    }
+
+    private CompletedBatch commit() {
+        List<PendingRecord> records = batch;
+        batch = new ArrayList<>(Math.min(maxRecords, 1024));
+        inTransaction = false;
+        transactionRecords.record(records.size());
+        long commitStartNanos = System.nanoTime();
+        try {
+            producer.commitTransaction();
+            commitLatency.record(System.nanoTime() - commitStartNanos, TimeUnit.NANOSECONDS);
+            return new CompletedBatch(records, null);
+        } catch (RuntimeException e) {
+            LOG.warn("Commit of a transaction with {} records failed, aborting it", records.size(), e);
+            aborts.increment();
+            try {
+                producer.abortTransaction();
+            } catch (RuntimeException abortException) {
+                LOG.debug("Abort failed as well", abortException);
+            }
+            closeProducer();
+            return new CompletedBatch(records, e);
+        }
+    }
+
+    private void closeProducer() {
+        if (producer != null) {
+            try {
+                producer.close();
+            } catch (RuntimeException e) {
+                LOG.warn("Error while closing transactional producer", e);
+            }
+            producer = null;
+        }
+    }
+
+    private static final class PendingRecord implements Callback {
+        private final Callback callback;
+        private volatile RecordMetadata metadata;
+        private volatile Exception exception;
+
+        PendingRecord(Callback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            this.metadata = metadata;
+            this.exception = exception;
+        }
+    }
+
+    private static final class CompletedBatch {
+        private final List<PendingRecord> records;
+        private final Exception failure;
+
+        CompletedBatch(List<PendingRecord> records, Exception failure) {
+            this.records = records;
+            this.failure = failure;
+        }
+
+        // outside the lock, a slow callback must not hold up the senders
+        void complete() {
+            for (PendingRecord record : records) {
+                Exception exception = failure != null ? failure : record.exception;
+                try {
+                    record.callback.onCompletion(exception == null ? record.metadata : null, exception);
+                } catch (RuntimeException e) {
+                    LOG.error("Error in record callback", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.ouz.microservices.kafka.producer.config;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.ConfigException;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.RoutingKafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KafkaProducerConfigTest {
+
+    @Test
+    public void plainTemplateWhenNoTopicOverridesTheCodec() {
+        KafkaTemplate<?, ?> kafkaTemplate = producerConfig(Map.of("twitter-topic", "snappy")).kafkaTemplate();
+
+        assertFalse(kafkaTemplate instanceof RoutingKafkaTemplate);
+    }
+
+    @Test
+    public void topicsAreRoutedToProducerOfTheirCodec() {
+        RoutingKafkaTemplate kafkaTemplate = (RoutingKafkaTemplate) (KafkaTemplate<?, ?>) producerConfig(Map.of(
+                "twitter-topic", "zstd",
+                "twitter-keyword-count-topic", "zstd",
+                "twitter-audit-topic", "lz4")).kafkaTemplate();
+
+        assertEquals("zstd", compressionType(kafkaTemplate, "twitter-topic"));
+        assertEquals("lz4", compressionType(kafkaTemplate, "twitter-audit-topic"));
+        assertEquals("snappy", compressionType(kafkaTemplate, "other-topic"));
+        // topics of one codec share the producer
+        assertSame(kafkaTemplate.getProducerFactory("twitter-topic"),
+                kafkaTemplate.getProducerFactory("twitter-keyword-count-topic"));
+        // topic names are matched literally, not as patterns
+        assertEquals("snappy", compressionType(kafkaTemplate, "twitter-topicX"));
+    }
+
+    @Test
+    public void codecProducersAreClosedWithTheirFactories() throws Exception {
+        CodecProducerFactories<Long, TwitterAvroModel> codecProducerFactories = producerConfig(Map.of(
+                "twitter-topic", "zstd",
+                "twitter-keyword-count-topic", "lz4")).codecProducerFactories();
+        List<String> removed = new ArrayList<>();
+        for (ProducerFactory<Long, TwitterAvroModel> codecFactory :
+                codecProducerFactories.getTopicFactories().values()) {
+            codecFactory.addListener(new ProducerFactory.Listener<>() {
+                @Override
+                public void producerRemoved(String id, Producer<Long, TwitterAvroModel> producer) {
+                    removed.add(id);
+                }
+            });
+            codecFactory.createProducer();
+        }
+
+        codecProducerFactories.destroy();
+
+        assertEquals(2, removed.size());
+    }
+
+    @Test
+    public void serializedProducerFactoryIsOnlyCreatedInArenaMode() {
+        contextRunner().run(context -> {
+            assertFalse(context.containsBean("serializedProducerFactory"));
+            assertFalse(context.containsBean("serializedKafkaTemplate"));
+        });
+    }
+
+    @Test
+    public void serializedProducerIsClosedWithTheContext() {
+        List<String> removed = new ArrayList<>();
+        contextRunner().withPropertyValues("tweet-arena-config.enabled=true").run(context -> {
+            @SuppressWarnings("unchecked")
+            ProducerFactory<Long, ByteBuffer> serializedFactory = context.getBean("serializedProducerFactory",
+                    ProducerFactory.class);
+            serializedFactory.addListener(new ProducerFactory.Listener<>() {
+                @Override
+                public void producerRemoved(String id, Producer<Long, ByteBuffer> producer) {
+                    removed.add(id);
+                }
+            });
+            serializedFactory.createProducer();
+            assertSame(serializedFactory, ((KafkaTemplate<?, ?>) context.getBean("serializedKafkaTemplate"))
+                    .getProducerFactory());
+        });
+
+        assertEquals(1, removed.size());
+    }
+
+    @Test
+    public void idempotentProducerKeepsFiveRequestsInFlight() {
+        KafkaProducerConfig<Long, TwitterAvroModel> producerConfig = producerConfig(Map.of());
+        producerConfigData(producerConfig).setEnableIdempotence(true);
+
+        Map<String, Object> props = producerConfig.producerConfig();
+
+        assertEquals(true, props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals(5, props.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION));
+    }
+
+    @Test
+    public void idempotenceIsCheckedBeforeTheFirstSend() {
+        KafkaProducerConfig<Long, TwitterAvroModel> producerConfig = producerConfig(Map.of());
+        producerConfigData(producerConfig).setEnableIdempotence(true);
+        producerConfigData(producerConfig).setMaxInFlightRequestsPerConnection(6);
+        assertThrows(ConfigException.class, producerConfig::producerConfig);
+
+        producerConfigData(producerConfig).setMaxInFlightRequestsPerConnection(5);
+        producerConfigData(producerConfig).setAcks("1");
+        assertThrows(ConfigException.class, producerConfig::producerConfig);
+
+        // transactions need an idempotent producer, whatever enable-idempotence says
+        producerConfigData(producerConfig).setEnableIdempotence(null);
+        producerConfigData(producerConfig).setTransactionIdPrefix("twitter-tx-");
+        assertThrows(ConfigException.class, producerConfig::producerConfig);
+    }
+
+    @Test
+    public void blankTransactionIdPrefixFailsTheStartup() {
+        // the property is there, so transactionBatcher would be created with a prefix the producer ignores
+        contextRunner(" ").withPropertyValues("kafka-producer-config.transaction-id-prefix= ").run(context -> {
+            assertNotNull(context.getStartupFailure());
+            assertInstanceOf(ConfigException.class, NestedExceptionUtils.getRootCause(context.getStartupFailure()));
+        });
+    }
+
+    private static Object compressionType(RoutingKafkaTemplate kafkaTemplate, String topic) {
+        Map<String, Object> configuration = kafkaTemplate.getProducerFactory(topic).getConfigurationProperties();
+        assertTrue(configuration.containsKey(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        return configuration.get(ProducerConfig.COMPRESSION_TYPE_CONFIG);
+    }
+
+    private static KafkaProducerConfigData producerConfigData(KafkaProducerConfig<?, ?> producerConfig) {
+        return (KafkaProducerConfigData) ReflectionTestUtils.getField(producerConfig, "kafkaProducerConfigData");
+    }
+
+    private static ApplicationContextRunner contextRunner() {
+        return contextRunner(null);
+    }
+
+    private static ApplicationContextRunner contextRunner(String transactionIdPrefix) {
+        KafkaProducerConfig<Long, TwitterAvroModel> producerConfig = producerConfig(Map.of());
+        producerConfigData(producerConfig).setTransactionIdPrefix(transactionIdPrefix);
+        KafkaConfigData kafkaConfigData = (KafkaConfigData) ReflectionTestUtils.getField(producerConfig,
+                "kafkaConfigData");
+        kafkaConfigData.setSchemaRegistryCacheCapacity(1000);
+        kafkaConfigData.setSchemaRegistryRequestTimeoutMs(5000L);
+        return new ApplicationContextRunner()
+                .withBean(KafkaConfigData.class, () -> kafkaConfigData)
+                .withBean(KafkaProducerConfigData.class, () -> producerConfigData(producerConfig))
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withUserConfiguration(KafkaProducerConfig.class);
+    }
+
+    private static KafkaProducerConfig<Long, TwitterAvroModel> producerConfig(Map<String, String> topicCodecs) {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setBootstrapServers("localhost:9092");
+        kafkaConfigData.setSchemaRegistryUrlKey("schema.registry.url");
+        kafkaConfigData.setSchemaRegistryUrl("http://localhost:8081");
+        kafkaConfigData.getTopicCompressionTypes().putAll(topicCodecs);
+        KafkaProducerConfigData kafkaProducerConfigData = new KafkaProducerConfigData();
+        kafkaProducerConfigData.setKeySerializerClass("org.apache.kafka.common.serialization.LongSerializer");
+        kafkaProducerConfigData.setValueSerializerClass(
+                "com.ouz.microservices.kafka.producer.serializer.AvroSerializer");
+        kafkaProducerConfigData.setCompressionType("snappy");
+        kafkaProducerConfigData.setAcks("all");
+        kafkaProducerConfigData.setBatchSize(16384);
+        kafkaProducerConfigData.setBatchSizeBoostFactor(1);
+        kafkaProducerConfigData.setLingerMs(5);
+        kafkaProducerConfigData.setRequestTimeoutMs(60000);
+        kafkaProducerConfigData.setRetryCount(5);
+        kafkaProducerConfigData.setMaxInFlightRequestsPerConnection(5);
+        kafkaProducerConfigData.setBufferMemory(33554432L);
+        kafkaProducerConfigData.setMaxBlockMs(5000L);
+        return new KafkaProducerConfig<>(kafkaConfigData, kafkaProducerConfigData, new SimpleMeterRegistry());
+    }
+}
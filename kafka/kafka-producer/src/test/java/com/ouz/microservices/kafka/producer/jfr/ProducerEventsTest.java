@@ -0,0 +1,122 @@
+package com.ouz.microservices.kafka.producer.jfr;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.kafka.producer.service.impl.TwitterKafkaProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProducerEventsTest {
+
+    private static final String TOPIC = "twitter-topic";
+
+    @TempDir
+    Path recordingDir;
+
+    @Test
+    public void serializationIsRecordedWithTheTweetId() throws Exception {
+        AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+        TwitterAvroModel model = model(7L);
+        int[] size = new int[1];
+
+        List<RecordedEvent> events = record(SerializationEvent.NAME,
+                () -> size[0] = avroSerializer.serialize(TOPIC, model).length);
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals(7L, event.getLong("tweetId"));
+        assertEquals("TwitterAvroModel", event.getString("recordType"));
+        assertEquals(TOPIC, event.getString("topic"));
+        assertEquals(size[0], event.getInt("size"));
+    }
+
+    @Test
+    public void ackIsRecordedWithTheSendingThread() throws Exception {
+        MockProducer<Long, TwitterAvroModel> mockProducer =
+                new MockProducer<>(false, new LongSerializer(), new AvroSerializer<>());
+        TwitterKafkaProducer producer = producer(mockProducer);
+
+        List<RecordedEvent> events = record(ProducerAckEvent.NAME, () -> {
+            producer.send(TOPIC, 1L, model(1L), callback());
+            producer.send(TOPIC, 2L, model(2L), callback());
+            mockProducer.completeNext();
+            mockProducer.errorNext(new TimeoutException("broker is gone"));
+        });
+
+        assertEquals(List.of(1L, 2L),
+                events.stream().map(event -> event.getLong("tweetId")).collect(Collectors.toList()));
+        RecordedEvent acknowledged = events.get(0);
+        assertEquals(TOPIC, acknowledged.getString("topic"));
+        assertEquals(0L, acknowledged.getLong("offset"));
+        assertNull(acknowledged.getString("error"));
+        assertEquals(Thread.currentThread().getId(),
+                acknowledged.getThread("sendThread").getJavaThreadId());
+        assertTrue(events.get(1).getString("error").contains("broker is gone"));
+    }
+
+    @Test
+    public void noAckEventIsCreatedWithoutRecording() {
+        assertNull(ProducerAckEvent.start(1L, TOPIC));
+    }
+
+    private List<RecordedEvent> record(String eventName, Runnable action) throws Exception {
+        Path file = recordingDir.resolve("producer.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private static TwitterKafkaProducer producer(MockProducer<Long, TwitterAvroModel> mockProducer) {
+        DefaultKafkaProducerFactory<Long, TwitterAvroModel> producerFactory =
+                new DefaultKafkaProducerFactory<>(Map.of()) {
+                    @Override
+                    protected Producer<Long, TwitterAvroModel> createRawProducer(Map<String, Object> configs) {
+                        return mockProducer;
+                    }
+                };
+        return new TwitterKafkaProducer(new KafkaTemplate<>(producerFactory), Optional.empty(),
+                new SimpleMeterRegistry());
+    }
+
+    private static KafkaSendCallback<Long, TwitterAvroModel> callback() {
+        return (topicName, key, message, throwable) -> {
+            // the failure is asserted on the event
+        };
+    }
+
+    private static TwitterAvroModel model(long id) {
+        return new TwitterAvroModel(id * 10, id, "tweet " + id, Instant.ofEpochMilli(1643673600000L),
+                List.of(), TweetLanguage.EN);
+    }
+}
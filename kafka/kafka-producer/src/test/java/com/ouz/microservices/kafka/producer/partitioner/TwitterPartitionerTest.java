@@ -0,0 +1,88 @@
+package com.ouz.microservices.kafka.producer.partitioner;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwitterPartitionerTest {
+
+    private static final int NUM_PARTITIONS = 3;
+    private static final Node NODE = new Node(0, "localhost", 9092);
+
+    private final TwitterPartitioner partitioner = new TwitterPartitioner();
+    private Cluster cluster;
+
+    @BeforeEach
+    public void setUp() {
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (String topic : List.of("users", "keywords", "sticky")) {
+            for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+                partitions.add(new PartitionInfo(topic, partition, NODE, new Node[]{NODE}, new Node[]{NODE}));
+            }
+        }
+        cluster = new Cluster("test", List.of(NODE), partitions, Collections.emptySet(), Collections.emptySet());
+        partitioner.configure(Map.of(
+                TwitterPartitioner.DEFAULT_STRATEGY_CONFIG, "sticky_round_robin",
+                TwitterPartitioner.STRATEGY_CONFIG_PREFIX + "users", "USER_ID",
+                TwitterPartitioner.STRATEGY_CONFIG_PREFIX + "keywords", "KEYWORD"));
+    }
+
+    @Test
+    public void userIdStrategySpreadsSequentialUsersEvenly() {
+        int[] counts = new int[NUM_PARTITIONS];
+        for (long userId = 0; userId < 30_000; userId++) {
+            int partition = partitioner.partition("users", userId, null, null, null, cluster);
+            assertEquals(partition, partitioner.partition("users", userId, null, null, null, cluster));
+            counts[partition]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "uneven partition load " + count);
+        }
+    }
+
+    @Test
+    public void keywordStrategyUsesFirstMatchedKeyword() {
+        TwitterAvroModel first = tweet(1L, List.of(4, 1));
+        TwitterAvroModel second = tweet(2L, List.of(4));
+
+        assertEquals(partitioner.partition("keywords", 1L, null, first, null, cluster),
+                partitioner.partition("keywords", 2L, null, second, null, cluster));
+    }
+
+    @Test
+    public void stickyPartitionMovesOnlyOnNewBatch() {
+        int partition = partitioner.partition("sticky", 1L, null, null, null, cluster);
+        assertEquals(partition, partitioner.partition("sticky", 2L, null, null, null, cluster));
+
+        partitioner.onNewBatch("sticky", cluster, partition);
+        int next = partitioner.partition("sticky", 3L, null, null, null, cluster);
+        assertNotEquals(partition, next);
+
+        partitioner.onNewBatch("sticky", cluster, partition);
+        assertEquals(next, partitioner.partition("sticky", 4L, null, null, null, cluster));
+    }
+
+    @Test
+    public void keywordStrategyFallsBackToStickyWithoutMatch() {
+        int sticky = partitioner.partition("keywords", 1L, null, tweet(1L, List.of()), null, cluster);
+
+        assertEquals(sticky, partitioner.partition("keywords", 2L, null, tweet(2L, List.of()), null, cluster));
+    }
+
+    private static TwitterAvroModel tweet(long userId, List<Integer> keywordIds) {
+        return new TwitterAvroModel(userId, userId, "text", null, keywordIds, TweetLanguage.UND);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ouz.microservices.kafka.producer.schema;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SchemaRegistryClientTest {
+
+    private static final String SUBJECT = "twitter-topic-value";
+
+    private StubSchemaRegistry stubSchemaRegistry;
+    private SchemaRegistryClient schemaRegistryClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        stubSchemaRegistry = new StubSchemaRegistry();
+        schemaRegistryClient = new SchemaRegistryClient(stubSchemaRegistry.getUrl(), 2, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubSchemaRegistry.close();
+    }
+
+    @Test
+    public void registersOnceAndServesIdsFromCache() throws Exception {
+        int id = schemaRegistryClient.getOrRegisterIdAsync(SUBJECT, TwitterAvroModel.getClassSchema()).get();
+        int requests = stubSchemaRegistry.getRequestCount();
+
+        assertEquals(id, schemaRegistryClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema()));
+        assertEquals(TwitterAvroModel.getClassSchema(), schemaRegistryClient.getSchemaById(id));
+        assertEquals(requests, stubSchemaRegistry.getRequestCount());
+    }
+
+    @Test
+    public void looksUpSchemaRegisteredByAnotherClient() {
+        int id = schemaRegistryClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema());
+        SchemaRegistryClient otherClient = new SchemaRegistryClient(stubSchemaRegistry.getUrl(), 2, Duration.ofSeconds(5));
+
+        assertEquals(id, otherClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema()));
+        assertEquals(TwitterAvroModel.getClassSchema(), otherClient.getSchemaById(id));
+    }
+
+    @Test
+    public void cacheStaysWithinCapacity() {
+        for (int i = 0; i < 5; i++) {
+            schemaRegistryClient.getOrRegisterId(SUBJECT, recordSchema(i));
+        }
+        int requests = stubSchemaRegistry.getRequestCount();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, schemaRegistryClient.getOrRegisterId(SUBJECT, recordSchema(i)));
+        }
+
+        assertTrue(stubSchemaRegistry.getRequestCount() - requests >= 3, "at most two ids stay cached");
+    }
+
+    @Test
+    public void unreachableRegistryIsRetriable() {
+        stubSchemaRegistry.close();
+
+        assertThrows(SchemaRegistryException.class,
+                () -> schemaRegistryClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema()));
+    }
+
+    @Test
+    public void incompatibleSchemaIsNotRetriable() {
+        stubSchemaRegistry.rejectRegistrations();
+
+        SchemaRegistryRejectedException e = assertThrows(SchemaRegistryRejectedException.class,
+                () -> schemaRegistryClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema()));
+
+        assertEquals(409, e.getStatusCode());
+    }
+
+    private static Schema recordSchema(int i) {
+        return SchemaBuilder.record("Record" + i).fields().requiredLong("id").endRecord();
+    }
+
+    @Test
+    public void serializerWritesConfluentWireHeader() {
+        int id = schemaRegistryClient.getOrRegisterId(SUBJECT, TwitterAvroModel.getClassSchema());
+        AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+        avroSerializer.configure(Map.of(AvroSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, schemaRegistryClient), false);
+        int requests = stubSchemaRegistry.getRequestCount();
+
+        byte[] bytes = avroSerializer.serialize("twitter-topic",
+                new TwitterAvroModel(1L, 2L, "text", Instant.ofEpochMilli(3L), List.of(0), TweetLanguage.EN));
+        byte[] plain = new AvroSerializer<TwitterAvroModel>().serialize("twitter-topic",
+                new TwitterAvroModel(1L, 2L, "text", Instant.ofEpochMilli(3L), List.of(0), TweetLanguage.EN));
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        assertEquals(0, buffer.get());
+        assertEquals(id, buffer.getInt());
+        assertEquals(plain.length + 5, bytes.length);
+        assertEquals(requests, stubSchemaRegistry.getRequestCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.ouz.microservices.kafka.producer.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * in-process schema registry answering the three calls SchemaRegistryClient makes, schemas are compared
+ * as strings and ids handed out from 1. After rejectRegistrations every new schema is refused as incompatible.
+ */
+public class StubSchemaRegistry implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer httpServer;
+    private final Map<String, Integer> idsBySchema = new HashMap<>();
+    private final Map<Integer, String> schemasById = new HashMap<>();
+    private final Map<String, Map<String, Integer>> subjects = new HashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile boolean rejectRegistrations;
+
+    public StubSchemaRegistry() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + httpServer.getAddress().getPort();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void rejectRegistrations() {
+        rejectRegistrations = true;
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String[] path = exchange.getRequestURI().getRawPath().substring(1).split("/");
+        if ("schemas".equals(path[0]) && path.length == 3) {
+            String schema = schemasById.get(Integer.parseInt(path[2]));
+            if (schema == null) {
+                respond(exchange, 404, error(40403));
+            } else {
+                respond(exchange, 200, objectMapper.createObjectNode().put("schema", schema));
+            }
+            return;
+        }
+        String subject = URLDecoder.decode(path[1], StandardCharsets.UTF_8);
+        String schema = objectMapper.readTree(exchange.getRequestBody()).get("schema").asText();
+        Map<String, Integer> versions = subjects.computeIfAbsent(subject, s -> new HashMap<>());
+        if (path.length == 2) {
+            Integer id = versions.get(schema);
+            respond(exchange, id == null ? 404 : 200, id == null ? error(40401) :
+                    objectMapper.createObjectNode().put("subject", subject).put("id", id).put("schema", schema));
+            return;
+        }
+        if (rejectRegistrations) {
+            respond(exchange, 409, error(409, "Schema being registered is incompatible with an earlier schema"));
+            return;
+        }
+        int id = idsBySchema.computeIfAbsent(schema, s -> idsBySchema.size() + 1);
+        schemasById.put(id, schema);
+        versions.put(schema, id);
+        respond(exchange, 200, objectMapper.createObjectNode().put("id", id));
+    }
+
+    private ObjectNode error(int errorCode) {
+        return error(errorCode, "not found");
+    }
+
+    private ObjectNode error(int errorCode, String message) {
+        return objectMapper.createObjectNode().put("error_code", errorCode).put("message", message);
+    }
+
+    private void respond(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.schemaregistry.v1+json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ouz.microservices.kafka.producer.serializer;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AvroSerializerTest {
+
+    private static final String TOPIC = "twitter-topic";
+
+    private final AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+
+    @Test
+    public void reusedBufferReturnsExactRecordBytes() throws IOException {
+        TwitterAvroModel large = model(1L, "x".repeat(100_000));
+        TwitterAvroModel small = model(2L, "small");
+
+        assertEquals(large, deserialize(avroSerializer.serialize(TOPIC, large)));
+        assertEquals(small, deserialize(avroSerializer.serialize(TOPIC, small)));
+        assertEquals(small, deserialize(avroSerializer.serialize(TOPIC, small)));
+    }
+
+    @Test
+    public void bufferViewHasTheSerializedBytes() {
+        TwitterAvroModel model = model(3L, "tweet");
+        byte[] serialized = avroSerializer.serialize(TOPIC, model);
+
+        ByteBuffer view = avroSerializer.serializeToBuffer(TOPIC, model);
+
+        assertTrue(view.isReadOnly());
+        assertEquals(ByteBuffer.wrap(serialized), view);
+    }
+
+    @Test
+    public void threadsDoNotShareBuffers() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long userId = t;
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        TwitterAvroModel model = model(userId, "tweet " + userId + " " + "y".repeat(i % 50));
+                        assertEquals(model, deserialize(avroSerializer.serialize(TOPIC, model)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static TwitterAvroModel model(long userId, String text) {
+        return new TwitterAvroModel(userId, userId * 10, text, Instant.ofEpochMilli(1643673600000L), List.of(1, 2),
+                TweetLanguage.EN);
+    }
+
+    private static TwitterAvroModel deserialize(byte[] bytes) throws IOException {
+        return new SpecificDatumReader<>(TwitterAvroModel.class)
+                .read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+    }
+}
@@ -0,0 +1,127 @@
+package com.ouz.microservices.kafka.producer.transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionBatcherTest {
+
+    // outcome of a record delivered without an exception
+    private static final Exception OK = new Exception("ok");
+
+    private final MockProducerFactory producerFactory = new MockProducerFactory();
+    private final List<Exception> outcomes = new CopyOnWriteArrayList<>();
+    private TransactionBatcher<String, String> transactionBatcher;
+
+    @AfterEach
+    public void close() {
+        transactionBatcher.destroy();
+    }
+
+    @Test
+    public void batchIsCommittedByTheRecordThatFillsIt() {
+        transactionBatcher = new TransactionBatcher<>(producerFactory, 3, 60000, new SimpleMeterRegistry());
+
+        send("1");
+        send("2");
+        assertTrue(outcomes.isEmpty(), "no callback before the commit");
+        send("3");
+
+        MockProducer<String, String> producer = producerFactory.producers.get(0);
+        assertTrue(producer.transactionCommitted());
+        assertEquals(3, producer.history().size());
+        assertEquals(3, outcomes.size());
+        outcomes.forEach(exception -> assertSame(OK, exception));
+    }
+
+    @Test
+    public void openTransactionIsCommittedAfterMaxMs() throws InterruptedException {
+        transactionBatcher = new TransactionBatcher<>(producerFactory, 100, 20, new SimpleMeterRegistry());
+        CountDownLatch committed = new CountDownLatch(1);
+
+        transactionBatcher.send(new ProducerRecord<>("topic", "1"), (metadata, exception) -> committed.countDown());
+
+        assertTrue(committed.await(5, TimeUnit.SECONDS));
+        assertTrue(producerFactory.producers.get(0).transactionCommitted());
+    }
+
+    @Test
+    public void failedCommitFailsTheBatchAndReplacesTheProducer() {
+        transactionBatcher = new TransactionBatcher<>(producerFactory, 2, 60000, new SimpleMeterRegistry());
+        send("1");
+        producerFactory.producers.get(0).commitTransactionException = new KafkaException("commit failed");
+        send("2");
+
+        assertEquals(2, outcomes.size());
+        outcomes.forEach(exception -> assertTrue(exception instanceof KafkaException));
+        assertTrue(producerFactory.producers.get(0).closed());
+
+        outcomes.clear();
+        send("3");
+        send("4");
+        assertEquals(2, producerFactory.producers.size());
+        assertNotSame(producerFactory.producers.get(0), producerFactory.producers.get(1));
+        outcomes.forEach(exception -> assertSame(OK, exception));
+    }
+
+    @Test
+    public void openTransactionIsCommittedOnDestroy() {
+        transactionBatcher = new TransactionBatcher<>(producerFactory, 100, 60000, new SimpleMeterRegistry());
+        send("1");
+
+        transactionBatcher.destroy();
+
+        assertEquals(1, outcomes.size());
+        assertSame(OK, outcomes.get(0));
+        assertTrue(producerFactory.producers.get(0).transactionCommitted());
+        assertFalse(producerFactory.producers.get(0).transactionInFlight());
+    }
+
+    private void send(String value) {
+        Callback callback = (RecordMetadata metadata, Exception exception) -> {
+            if (exception == null) {
+                assertNotNull(metadata);
+            }
+            outcomes.add(exception == null ? OK : exception);
+        };
+        transactionBatcher.send(new ProducerRecord<>("topic", value), callback);
+    }
+
+    private static final class MockProducerFactory extends DefaultKafkaProducerFactory<String, String> {
+        private final List<MockProducer<String, String>> producers = new CopyOnWriteArrayList<>();
+
+        MockProducerFactory() {
+            super(Map.of());
+            setTransactionIdPrefix("tx-");
+        }
+
+        @Override
+        protected Producer<String, String> createRawProducer(Map<String, Object> configs) {
+            MockProducer<String, String> producer =
+                    new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+            producers.add(producer);
+            return producer;
+        }
+    }
+}
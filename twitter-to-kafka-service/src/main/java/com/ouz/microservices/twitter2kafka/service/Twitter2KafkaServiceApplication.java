@@ -1,6 +1,7 @@
 package com.ouz.microservices.twitter2kafka.service;
 
 import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.twitter2kafka.service.readiness.StartupReadiness;
 import com.ouz.microservices.twitter2kafka.service.runner.TwitterStreamKafkaRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,9 +44,13 @@ public class Twitter2KafkaServiceApplication implements CommandLineRunner {
 
     private final TwitterStreamKafkaRunner streamKafkaRunner;
 
-    public Twitter2KafkaServiceApplication(Twitter2KafkaServiceConfigData configData, TwitterStreamKafkaRunner streamKafkaRunner) {
+    private final StartupReadiness startupReadiness;
+
+    public Twitter2KafkaServiceApplication(Twitter2KafkaServiceConfigData configData, TwitterStreamKafkaRunner streamKafkaRunner,
+                                           StartupReadiness startupReadiness) {
         this.twitter2KafkaServiceConfigData = configData;
         this.streamKafkaRunner = streamKafkaRunner;
+        this.startupReadiness = startupReadiness;
     }
 
     public static void main(String[] args) {
@@ -92,7 +97,8 @@ public class Twitter2KafkaServiceApplication implements CommandLineRunner {
         LOG.info(twitter2KafkaServiceConfigData.getWelcomeMessage());
         LOG.info(twitter2KafkaServiceConfigData.getWelcomeMessage());
 
-
+        // schema registry, brokers and topics are checked in parallel before any tweet is produced
+        startupReadiness.awaitReady();
 
         streamKafkaRunner.start();
     }
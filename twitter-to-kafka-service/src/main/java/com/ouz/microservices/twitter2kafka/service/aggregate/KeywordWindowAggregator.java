@@ -0,0 +1,252 @@
+package com.ouz.microservices.twitter2kafka.service.aggregate;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KeywordAggregationConfigData;
+import com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * tweets per keyword in tumbling processing time windows, published as one KeywordCountAvroModel per keyword
+ * with a non zero count to the aggregate topic, keyed by keyword id.
+ *
+ * Every thread calling record() counts into its own int array indexed by keyword id, there is no shared
+ * counter on the hot path. The arrays come in two slots picked by window parity: a thread writes window w
+ * into slot w & 1 while the close thread merges window w - 1 from the other slot of every thread, a slot is
+ * only cleared when its thread reaches window w + 2. Counts of a thread that stalls longer than the close
+ * grace across a window boundary end up in no window.
+ * Keyword ids only grow on a keyword reload, a thread that matches an id beyond its arrays starts new larger
+ * counters, the old ones are still merged until their windows are closed.
+ * The open window is not published on shutdown, a partial count would read as a drop on a dashboard.
+ */
+@Component
+public class KeywordWindowAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeywordWindowAggregator.class);
+
+    private final KeywordAggregationConfigData keywordAggregationConfigData;
+    private final KafkaConfigData kafkaConfigData;
+    private final KafkaProducer<Long, KeywordCountAvroModel> kafkaProducer;
+    private final TwitterExecutors twitterExecutors;
+    private final LongSupplier clock;
+    private final KeywordRegistry keywordRegistry;
+    private final boolean enabled;
+    private final long windowMs;
+
+    private final List<WindowCounters> threadCounters = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<WindowCounters> counters = ThreadLocal.withInitial(this::newWindowCounters);
+
+    private final KafkaSendCallback<Long, KeywordCountAvroModel> publishCallback = new KafkaSendCallback<>() {
+        @Override
+        public void onFailure(String topicName, Long key, KeywordCountAvroModel message, Throwable throwable) {
+            LOG.warn("Could not publish count of keyword {} for window starting at {}: {}", message.getKeyword(),
+                    message.getWindowStart(), throwable.getMessage());
+        }
+    };
+
+    private ExecutorService closePool;
+    private volatile boolean running;
+
+    @Autowired
+    public KeywordWindowAggregator(KeywordAggregationConfigData aggregationConfigData,
+                                   KeywordRegistry keywordRegistry,
+                                   KafkaConfigData kafkaConfigData,
+                                   KafkaProducer<Long, KeywordCountAvroModel> producer,
+                                   TwitterExecutors twitterExecutors) {
+        this(aggregationConfigData, keywordRegistry, kafkaConfigData, producer, twitterExecutors,
+                System::currentTimeMillis);
+    }
+
+    KeywordWindowAggregator(KeywordAggregationConfigData aggregationConfigData,
+                            KeywordRegistry keywordRegistry,
+                            KafkaConfigData kafkaConfigData,
+                            KafkaProducer<Long, KeywordCountAvroModel> producer,
+                            TwitterExecutors twitterExecutors,
+                            LongSupplier clock) {
+        this.keywordAggregationConfigData = aggregationConfigData;
+        this.kafkaConfigData = kafkaConfigData;
+        this.kafkaProducer = producer;
+        this.twitterExecutors = twitterExecutors;
+        this.clock = clock;
+        this.keywordRegistry = keywordRegistry;
+        this.enabled = Boolean.TRUE.equals(aggregationConfigData.getEnabled());
+        this.windowMs = enabled ? aggregationConfigData.getWindowMs() : Long.MAX_VALUE;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!kafkaConfigData.getTopicNameToCreate().contains(keywordAggregationConfigData.getTopicName())) {
+            LOG.warn("Keyword count topic {} is not in kafka-config.topic-name-to-create, it will not be created",
+                    keywordAggregationConfigData.getTopicName());
+        }
+        running = true;
+        closePool = twitterExecutors.newPool("keyword-window-close", 1);
+        closePool.execute(this::closeWindows);
+        LOG.info("Counting {} keyword(s) in {} ms windows to topic {}",
+                keywordRegistry.getKeywordSet().getActiveKeywords().size(), windowMs,
+                keywordAggregationConfigData.getTopicName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (closePool != null) {
+            closePool.shutdownNow();
+            twitterExecutors.shutdown(closePool);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param keywordIds KeywordMatcher result of one tweet
+     */
+    public void record(int[] keywordIds) {
+        if (!enabled || keywordIds.length == 0) {
+            return;
+        }
+        WindowCounters windowCounters = counters.get();
+        if (!windowCounters.fits(keywordIds)) {
+            windowCounters.replaced = true;
+            windowCounters = newWindowCounters();
+            counters.set(windowCounters);
+        }
+        windowCounters.add(clock.getAsLong() / windowMs, keywordIds);
+    }
+
+    /**
+     * counts of window windowIndex summed over all threads, indexed by keyword id.
+     */
+    long[] mergeWindow(long windowIndex) {
+        long[] counts = new long[keywordRegistry.getKeywordSet().size()];
+        for (WindowCounters windowCounters : threadCounters) {
+            windowCounters.addTo(windowIndex, counts);
+        }
+        return counts;
+    }
+
+    void publishWindow(long windowIndex) {
+        long[] counts = mergeWindow(windowIndex);
+        KeywordSet keywordSet = keywordRegistry.getKeywordSet();
+        long windowStart = windowIndex * windowMs;
+        for (int keywordId = 0; keywordId < counts.length; keywordId++) {
+            if (counts[keywordId] == 0) {
+                continue;
+            }
+            kafkaProducer.send(keywordAggregationConfigData.getTopicName(), (long) keywordId,
+                    new KeywordCountAvroModel(keywordId, keywordSet.getKeyword(keywordId), windowStart, windowStart + windowMs,
+                            counts[keywordId]), publishCallback);
+        }
+        // stream threads are replaced on reconnect and counters on growth, they go once they hold no open window
+        threadCounters.removeIf(windowCounters -> windowCounters.isRetired(windowIndex));
+    }
+
+    private void closeWindows() {
+        long graceMs = keywordAggregationConfigData.getCloseGraceMs();
+        long nextWindow = clock.getAsLong() / windowMs + 1;
+        while (running) {
+            long sleepMs = nextWindow * windowMs + graceMs - clock.getAsLong();
+            try {
+                if (sleepMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(sleepMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                publishWindow(nextWindow - 1);
+            } catch (RuntimeException e) {
+                LOG.error("Error while publishing keyword counts of window {}", nextWindow - 1, e);
+            }
+            // a window whose slot was already reused can not be merged any more
+            nextWindow = Math.max(nextWindow + 1, clock.getAsLong() / windowMs);
+        }
+    }
+
+    private WindowCounters newWindowCounters() {
+        WindowCounters windowCounters = new WindowCounters(keywordRegistry.getKeywordSet().size());
+        threadCounters.add(windowCounters);
+        return windowCounters;
+    }
+
+    /**
+     * counters of one thread. Only the owner writes, with release stores, so the close thread reading with
+     * acquire loads sees complete counts without the owner ever taking a lock.
+     */
+    private static final class WindowCounters {
+        private final AtomicLongArray slotWindows = new AtomicLongArray(new long[]{-1, -1});
+        private final AtomicIntegerArray[] slots;
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private volatile boolean replaced;
+
+        private WindowCounters(int keywordCount) {
+            slots = new AtomicIntegerArray[]{new AtomicIntegerArray(keywordCount), new AtomicIntegerArray(keywordCount)};
+        }
+
+        private void add(long windowIndex, int[] keywordIds) {
+            int slot = (int) (windowIndex & 1);
+            AtomicIntegerArray counts = slots[slot];
+            if (slotWindows.getPlain(slot) != windowIndex) {
+                for (int i = 0; i < counts.length(); i++) {
+                    counts.setPlain(i, 0);
+                }
+                slotWindows.setRelease(slot, windowIndex);
+            }
+            for (int keywordId : keywordIds) {
+                counts.setRelease(keywordId, counts.getPlain(keywordId) + 1);
+            }
+        }
+
+        private boolean fits(int[] keywordIds) {
+            int keywordCount = slots[0].length();
+            for (int keywordId : keywordIds) {
+                if (keywordId >= keywordCount) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addTo(long windowIndex, long[] target) {
+            int slot = (int) (windowIndex & 1);
+            if (slotWindows.getAcquire(slot) != windowIndex) {
+                return;
+            }
+            AtomicIntegerArray counts = slots[slot];
+            int keywordCount = Math.min(target.length, counts.length());
+            for (int i = 0; i < keywordCount; i++) {
+                target[i] += counts.getAcquire(i);
+            }
+        }
+
+        private boolean isRetired(long closedWindowIndex) {
+            Thread thread = owner.get();
+            return (replaced || thread == null || !thread.isAlive()) &&
+                    slotWindows.getAcquire(0) <= closedWindowIndex && slotWindows.getAcquire(1) <= closedWindowIndex;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ouz.microservices.twitter2kafka.service.arena;
+
+import java.nio.ByteBuffer;
+
+/**
+ * one block of a TweetArena slab holding a serialized tweet, with the record key and the tweet id kept on the
+ * heap next to it. Blocks are created when their slab is carved and reused until the slab is reclaimed for
+ * another size class, a block is owned by one thread at a time (listener, dispatcher, then the producer callback).
+ */
+public final class ArenaBlock {
+
+    private final int id;
+    private final int sizeClass;
+    private final ByteBuffer buffer;
+
+    // id of the next block in the free list of the size class, only used while the block is free
+    volatile int nextFree;
+    boolean allocated;
+    // length asked for at allocation, counted in the arena payload bytes
+    int reserved;
+
+    private long key;
+    private long tweetId;
+
+    ArenaBlock(int id, int sizeClass, ByteBuffer buffer) {
+        this.id = id;
+        this.sizeClass = sizeClass;
+        this.buffer = buffer;
+    }
+
+    /**
+     * copies the serialized tweet into the block, source must fit into capacity().
+     */
+    public void write(long key, long tweetId, ByteBuffer source) {
+        this.key = key;
+        this.tweetId = tweetId;
+        buffer.clear();
+        buffer.put(source.duplicate());
+        buffer.flip();
+    }
+
+    /**
+     * the serialized tweet, position 0 and limit at its end. The buffer is the slab memory itself, not a copy.
+     */
+    public ByteBuffer payload() {
+        buffer.rewind();
+        return buffer;
+    }
+
+    public int length() {
+        return buffer.limit();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getTweetId() {
+        return tweetId;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+}
@@ -0,0 +1,286 @@
+package com.ouz.microservices.twitter2kafka.service.arena;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.TweetArenaConfigData;
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.partitioner.PartitionStrategy;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.util.ByteBufferInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * tweet queue of the arena mode, used instead of the TweetRingBuffer of TwitterAvroModel objects.
+ * The listener serializes a tweet into a TweetArena block (same bytes AvroSerializer would send), only the
+ * preallocated ArenaBlock travels through the ring buffer to the dispatcher, and the producer sends the block
+ * and frees it in the send callback. Tweets waiting for the dispatcher or for the broker ack so take no heap,
+ * however long the burst.
+ *
+ * The overflow policy applies when no block is free: BLOCK waits for one while the arena is at least
+ * block-min-occupancy-percent full (below it no block fits on fragmentation, waiting would stall the stream
+ * thread, the tweet is dropped), DROP_OLDEST frees the oldest queued tweet, DROP_NEWEST drops the tweet and SAMPLE drops all but every n-th tweet above the high water mark of
+ * the arena occupancy. The ring buffer has a slot for every block, so it never overflows itself.
+ *
+ * With the schema registry wire format, serializing looks the schema id up on the calling thread. A tweet whose
+ * serialization fails with a retriable error (registry not reachable) goes to the TweetSpooler like a failed send
+ * of the heap mode, it is only lost when the spool can not take it either.
+ *
+ * The producer sends the serialized bytes, TwitterPartitioner sees no TwitterAvroModel and can not read the
+ * keyword ids, so the KEYWORD partition strategy is refused for the twitter topic.
+ */
+@Component
+@ConditionalOnProperty(value = "tweet-arena-config.enabled", havingValue = "true")
+public class ArenaTweetQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArenaTweetQueue.class);
+
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+    private static final int WIRE_HEADER_LENGTH = 5;
+
+    private final TweetArena tweetArena;
+    private final TweetRingBuffer<ArenaBlock> queuedBlocks;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final double sampleHighWaterMark;
+    private final double blockMinOccupancy;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final String topicName;
+    private final AvroSerializer<TwitterAvroModel> avroSerializer;
+    private final TweetSpooler tweetSpooler;
+    private final int headerLength;
+    private final SpecificDatumReader<TwitterAvroModel> datumReader =
+            new SpecificDatumReader<>(TwitterAvroModel.getClassSchema());
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+    private final LongAdder serializationFailures = new LongAdder();
+
+    public ArenaTweetQueue(TweetArenaConfigData arenaConfigData,
+                           TweetQueueConfigData queueConfigData,
+                           KafkaConfigData kafkaConfigData,
+                           KafkaProducerConfigData producerConfigData,
+                           SchemaRegistryClient schemaRegistryClient,
+                           TweetSpooler tweetSpooler,
+                           MeterRegistry meterRegistry) {
+        if (producerConfigData.getTransactionIdPrefix() != null) {
+            throw new TwitterToKafkaServiceException(
+                    "Tweet arena sends are not transactional, unset transaction-id-prefix or disable the arena");
+        }
+        if (partitionStrategy(producerConfigData, kafkaConfigData.getTopicName()) == PartitionStrategy.KEYWORD) {
+            throw new TwitterToKafkaServiceException("Tweet arena sends serialized tweets, the KEYWORD partition " +
+                    "strategy can not read them, choose another strategy for topic " +
+                    kafkaConfigData.getTopicName() + " or disable the arena");
+        }
+        this.tweetArena = new TweetArena(arenaConfigData.getSlabCount(), arenaConfigData.getSlabSizeBytes(),
+                arenaConfigData.getMinBlockSizeBytes());
+        int maxBlocks = Math.toIntExact(
+                tweetArena.getCapacityBytes() / arenaConfigData.getMinBlockSizeBytes());
+        this.queuedBlocks = new TweetRingBuffer<>(maxBlocks, OverflowPolicy.DROP_NEWEST, 1, 100);
+        this.overflowPolicy = OverflowPolicy.valueOf(queueConfigData.getOverflowPolicy().trim().toUpperCase());
+        this.sampleRate = Math.max(1, queueConfigData.getSampleRate());
+        this.sampleHighWaterMark = queueConfigData.getSampleHighWaterMarkPercent() / 100.0;
+        this.blockMinOccupancy = arenaConfigData.getBlockMinOccupancyPercent() / 100.0;
+        this.topicName = kafkaConfigData.getTopicName();
+        boolean wireFormat = Boolean.TRUE.equals(producerConfigData.getSchemaRegistryWireFormat());
+        this.avroSerializer = wireFormat ? new AvroSerializer<>(schemaRegistryClient) : new AvroSerializer<>();
+        this.headerLength = wireFormat ? WIRE_HEADER_LENGTH : 0;
+        this.tweetSpooler = tweetSpooler;
+        registerMeters(meterRegistry);
+    }
+
+    /**
+     * serializes the tweet into a free block and queues it, applying the overflow policy when the arena is full.
+     * @return false if the tweet was dropped, true when it was queued or spooled
+     */
+    public boolean publish(TwitterAvroModel twitterAvroModel) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE && tweetArena.getOccupancy() >= sampleHighWaterMark &&
+                sampleCounter.getAndIncrement() % sampleRate != 0) {
+            sampledOutCount.increment();
+            return false;
+        }
+        ByteBuffer serialized;
+        try {
+            serialized = avroSerializer.serializeToBuffer(topicName, twitterAvroModel);
+        } catch (RuntimeException e) {
+            return spoolUnserializable(twitterAvroModel, e);
+        }
+        ArenaBlock block = allocate(serialized.remaining());
+        if (block == null) {
+            droppedCount.increment();
+            return false;
+        }
+        block.write(twitterAvroModel.getUserId(), twitterAvroModel.getId(), serialized);
+        queuedBlocks.offer(block);
+        return true;
+    }
+
+    public ArenaBlock poll() {
+        return queuedBlocks.poll();
+    }
+
+    /**
+     * decodes the tweet of a block, for the spool which keeps TwitterAvroModel records.
+     */
+    public TwitterAvroModel read(ArenaBlock block) {
+        ByteBuffer payload = block.payload().duplicate();
+        payload.position(headerLength);
+        try {
+            return datumReader.read(null, DecoderFactory.get().binaryDecoder(
+                    new ByteBufferInputStream(List.of(payload)), null));
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Error while reading tweet " + block.getTweetId() +
+                    " from the arena", e);
+        }
+    }
+
+    public void release(ArenaBlock block) {
+        tweetArena.free(block);
+    }
+
+    // tweets waiting for the dispatcher
+    public int size() {
+        return queuedBlocks.size();
+    }
+
+    // tweets the arena holds at most, a block of the smallest size each
+    public int capacity() {
+        return queuedBlocks.capacity();
+    }
+
+    // share of the arena held by tweets waiting for the dispatcher or for the broker
+    public double getOccupancy() {
+        return tweetArena.getOccupancy();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOutCount.sum();
+    }
+
+    public long getSerializationFailures() {
+        return serializationFailures.sum();
+    }
+
+    public TweetArena getTweetArena() {
+        return tweetArena;
+    }
+
+    private boolean spoolUnserializable(TwitterAvroModel twitterAvroModel, RuntimeException e) {
+        serializationFailures.increment();
+        if (TweetSpooler.isSpoolable(e) && tweetSpooler.spool(twitterAvroModel)) {
+            return true;
+        }
+        droppedCount.increment();
+        // counted in twitter.arena.serialization.failures, a registry outage would log every tweet
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Could not serialize tweet with id {}, dropped", twitterAvroModel.getId(), e);
+        }
+        return false;
+    }
+
+    /**
+     * strategy TwitterPartitioner takes for the topic, USER_ID when none is configured.
+     */
+    private static PartitionStrategy partitionStrategy(KafkaProducerConfigData producerConfigData, String topic) {
+        String strategy = producerConfigData.getTopicPartitionStrategies().getOrDefault(topic,
+                producerConfigData.getDefaultPartitionStrategy());
+        return strategy == null ? PartitionStrategy.USER_ID :
+                PartitionStrategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private ArenaBlock allocate(int length) {
+        if (length > tweetArena.getMaxBlockSize()) {
+            return null;
+        }
+        ArenaBlock block = tweetArena.allocate(length);
+        while (block == null) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                if (Thread.currentThread().isInterrupted() || tweetArena.getOccupancy() < blockMinOccupancy) {
+                    return null;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                ArenaBlock oldest = queuedBlocks.poll();
+                if (oldest == null) {
+                    // every block waits for a broker ack, nothing to evict
+                    return null;
+                }
+                tweetArena.free(oldest);
+                droppedCount.increment();
+            } else {
+                return null;
+            }
+            block = tweetArena.allocate(length);
+        }
+        return block;
+    }
+
+    private void registerMeters(MeterRegistry meterRegistry) {
+        Gauge.builder("twitter.arena.capacity", tweetArena, TweetArena::getCapacityBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("twitter.arena.used", tweetArena, TweetArena::getUsedBytes)
+                .description("Bytes of allocated arena blocks, queued tweets and tweets waiting for an ack")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("twitter.arena.payload", tweetArena, TweetArena::getPayloadBytes)
+                .description("Serialized tweet bytes in allocated blocks, the rest of used is block rounding")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("twitter.arena.occupancy", tweetArena, TweetArena::getOccupancy)
+                .register(meterRegistry);
+        Gauge.builder("twitter.arena.slabs.assigned", tweetArena, TweetArena::getAssignedSlabs)
+                .description("Slabs carved into blocks of a size class, of " + tweetArena.getSlabCount())
+                .register(meterRegistry);
+        for (int sizeClass = 0; sizeClass < tweetArena.getSizeClassCount(); sizeClass++) {
+            int blockSizeClass = sizeClass;
+            Gauge.builder("twitter.arena.blocks.used", tweetArena, arena -> arena.getUsedBlocks(blockSizeClass))
+                    .tag("block.size", String.valueOf(tweetArena.getBlockSize(sizeClass)))
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("twitter.arena.allocation.failures", tweetArena, TweetArena::getAllocationFailures)
+                .description("Allocations that found no free block")
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.arena.slabs.reclaimed", tweetArena, TweetArena::getReclaimedSlabs)
+                .description("Free slabs carved again for another block size")
+                .register(meterRegistry);
+        Gauge.builder("twitter.arena.queue.depth", queuedBlocks, TweetRingBuffer::size)
+                .description("Tweets in the arena waiting for the dispatcher")
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.arena.dropped", this, ArenaTweetQueue::getDroppedCount)
+                .description("Tweets dropped by the overflow policy, or not serialized and not spooled")
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.arena.serialization.failures", this,
+                        ArenaTweetQueue::getSerializationFailures)
+                .description("Tweets that could not be serialized into the arena, spooled when the error is retriable")
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.arena.sampled.out", this, ArenaTweetQueue::getSampledOutCount)
+                .description("Tweets skipped by the SAMPLE overflow policy")
+                .register(meterRegistry);
+    }
+}
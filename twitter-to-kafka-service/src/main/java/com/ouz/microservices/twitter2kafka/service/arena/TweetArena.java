@@ -0,0 +1,315 @@
+package com.ouz.microservices.twitter2kafka.service.arena;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * fixed size off-heap memory for serialized tweets: slabCount direct ByteBuffer slabs allocated up front.
+ *
+ * Block sizes are powers of two from minBlockSize to slabSize (size classes). A slab is handed to a size class
+ * the first time the class runs out of free blocks and is carved into blocks of that size. Free blocks of a class
+ * form a lock-free stack (Treiber) linked by block id, the head carries a stamp against ABA.
+ * When a class runs out of free blocks and every slab is assigned, a slab of another class with all its blocks
+ * free is reclaimed and carved again for the class, so short tweets that once took every slab do not keep
+ * longer ones out of an empty arena. allocate() falls back to a larger class when no slab can be had for the
+ * requested one, and returns null when the arena has no block that fits.
+ *
+ * Each slab counts its allocated blocks. A block popped from a free list only counts as allocated once its
+ * slab count was incremented while the slab is not being reclaimed and the block is still the one of its id;
+ * a block of a reclaimed slab is dropped. Nothing is allocated on the heap after a slab is carved, the heap cost
+ * is one ArenaBlock per block, created again when a slab is reclaimed.
+ */
+public class TweetArena {
+
+    private static final int NO_BLOCK = -1;
+    private static final int NO_CLASS = -1;
+    // slab block count of a slab being reclaimed, stays negative while allocators increment it
+    private static final int RECLAIMING = Integer.MIN_VALUE / 2;
+
+    private final ByteBuffer[] slabs;
+    private final int slabSize;
+    // block ids of slab s are s * slabBlockIds up to the block count of its size class
+    private final int slabBlockIds;
+    private final int[] blockSizes;
+    private final AtomicLong[] freeLists;
+    private final ArenaBlock[] blocks;
+
+    private final LongAdder usedBytes = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final AtomicLongArray usedBlocks;
+    private final LongAdder allocationFailures = new LongAdder();
+    private final LongAdder reclaimedSlabs = new LongAdder();
+    // allocated blocks per slab
+    private final AtomicIntegerArray slabUsedBlocks;
+
+    private final Object carveLock = new Object();
+    // size class of each slab, guarded by carveLock
+    private final int[] slabClasses;
+    private volatile int assignedSlabs;
+
+    public TweetArena(int slabCount, int slabSize, int minBlockSize) {
+        if (slabCount < 1) {
+            throw new IllegalArgumentException("Arena needs at least one slab");
+        }
+        if (Integer.bitCount(minBlockSize) != 1 || minBlockSize > slabSize || slabSize % minBlockSize != 0) {
+            throw new IllegalArgumentException("Min block size must be a power of two dividing the slab size");
+        }
+        this.slabSize = slabSize;
+        this.slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            slabs[i] = ByteBuffer.allocateDirect(slabSize);
+        }
+        int classes = 0;
+        for (int blockSize = minBlockSize; blockSize <= slabSize && blockSize > 0; blockSize <<= 1) {
+            classes++;
+        }
+        this.blockSizes = new int[classes];
+        this.freeLists = new AtomicLong[classes];
+        for (int sizeClass = 0; sizeClass < classes; sizeClass++) {
+            blockSizes[sizeClass] = minBlockSize << sizeClass;
+            freeLists[sizeClass] = new AtomicLong(head(0, NO_BLOCK));
+        }
+        this.usedBlocks = new AtomicLongArray(classes);
+        this.slabBlockIds = slabSize / minBlockSize;
+        this.blocks = new ArenaBlock[Math.toIntExact((long) slabCount * slabBlockIds)];
+        this.slabUsedBlocks = new AtomicIntegerArray(slabCount);
+        this.slabClasses = new int[slabCount];
+        Arrays.fill(slabClasses, NO_CLASS);
+    }
+
+    /**
+     * @return a block of at least length bytes, null when the arena has no free block that fits
+     */
+    public ArenaBlock allocate(int length) {
+        int sizeClass = sizeClass(length);
+        if (sizeClass >= 0) {
+            for (int candidate = sizeClass; candidate < blockSizes.length; candidate++) {
+                ArenaBlock block = take(candidate);
+                if (block == null && candidate == sizeClass && carve(candidate)) {
+                    block = take(candidate);
+                }
+                if (block != null) {
+                    block.allocated = true;
+                    block.reserved = length;
+                    usedBytes.add(blockSizes[candidate]);
+                    payloadBytes.add(length);
+                    usedBlocks.incrementAndGet(candidate);
+                    return block;
+                }
+            }
+        }
+        allocationFailures.increment();
+        return null;
+    }
+
+    /**
+     * gives the block back to the free list of its size class, the block must not be used afterwards.
+     */
+    public void free(ArenaBlock block) {
+        if (!block.allocated) {
+            throw new IllegalStateException("Arena block " + block.getId() + " is already free");
+        }
+        block.allocated = false;
+        int sizeClass = block.getSizeClass();
+        usedBytes.add(-blockSizes[sizeClass]);
+        payloadBytes.add(-block.reserved);
+        usedBlocks.decrementAndGet(sizeClass);
+        // pushed before the slab count drops, a slab with no allocated block has all its blocks in the free list
+        push(block);
+        slabUsedBlocks.decrementAndGet(slabOf(block));
+    }
+
+    public long getCapacityBytes() {
+        return (long) slabs.length * slabSize;
+    }
+
+    // bytes of allocated blocks, whole blocks
+    public long getUsedBytes() {
+        return usedBytes.sum();
+    }
+
+    // bytes of the tweets in allocated blocks, used minus payload is lost to block rounding
+    public long getPayloadBytes() {
+        return payloadBytes.sum();
+    }
+
+    public double getOccupancy() {
+        return (double) getUsedBytes() / getCapacityBytes();
+    }
+
+    public int getSlabCount() {
+        return slabs.length;
+    }
+
+    public int getAssignedSlabs() {
+        return assignedSlabs;
+    }
+
+    public int getSizeClassCount() {
+        return blockSizes.length;
+    }
+
+    public int getBlockSize(int sizeClass) {
+        return blockSizes[sizeClass];
+    }
+
+    public long getUsedBlocks(int sizeClass) {
+        return usedBlocks.get(sizeClass);
+    }
+
+    public long getAllocationFailures() {
+        return allocationFailures.sum();
+    }
+
+    // slabs carved again for another size class after all their blocks were freed
+    public long getReclaimedSlabs() {
+        return reclaimedSlabs.sum();
+    }
+
+    public int getMaxBlockSize() {
+        return blockSizes[blockSizes.length - 1];
+    }
+
+    private int sizeClass(int length) {
+        for (int sizeClass = 0; sizeClass < blockSizes.length; sizeClass++) {
+            if (length <= blockSizes[sizeClass]) {
+                return sizeClass;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * pops free blocks until one of a slab that is not reclaimed meanwhile is counted as allocated.
+     */
+    private ArenaBlock take(int sizeClass) {
+        for (;;) {
+            ArenaBlock block = pop(sizeClass);
+            if (block == null) {
+                return null;
+            }
+            int slab = slabOf(block);
+            if (slabUsedBlocks.getAndIncrement(slab) >= 0 && blocks[block.getId()] == block) {
+                return block;
+            }
+            // the slab is reclaimed, its memory belongs to other blocks now
+            slabUsedBlocks.decrementAndGet(slab);
+        }
+    }
+
+    private ArenaBlock pop(int sizeClass) {
+        AtomicLong freeList = freeLists[sizeClass];
+        for (;;) {
+            long head = freeList.get();
+            int id = (int) head;
+            if (id == NO_BLOCK) {
+                return null;
+            }
+            ArenaBlock block = blocks[id];
+            // null when the slab of a stale head was reclaimed, the stamp has moved on then
+            if (block != null && freeList.compareAndSet(head, head(stamp(head) + 1, block.nextFree))) {
+                return block;
+            }
+        }
+    }
+
+    private void push(ArenaBlock block) {
+        AtomicLong freeList = freeLists[block.getSizeClass()];
+        for (;;) {
+            long head = freeList.get();
+            block.nextFree = (int) head;
+            if (freeList.compareAndSet(head, head(stamp(head) + 1, block.getId()))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * hands the next unassigned slab to the size class, or reclaims a slab of another class without an allocated
+     * block when every slab is assigned.
+     * @return false when no slab can be had
+     */
+    private boolean carve(int sizeClass) {
+        synchronized (carveLock) {
+            if ((int) freeLists[sizeClass].get() != NO_BLOCK) {
+                // another thread carved a slab for this class meanwhile
+                return true;
+            }
+            if (assignedSlabs < slabs.length) {
+                carveSlab(assignedSlabs, sizeClass);
+                assignedSlabs++;
+                return true;
+            }
+            for (int slab = 0; slab < slabs.length; slab++) {
+                if (slabClasses[slab] != sizeClass && slabUsedBlocks.compareAndSet(slab, 0, RECLAIMING)) {
+                    removeFreeBlocks(slab);
+                    carveSlab(slab, sizeClass);
+                    reclaimedSlabs.increment();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * takes the blocks of the slab out of the free list of its class, the other free blocks are pushed back.
+     */
+    private void removeFreeBlocks(int slab) {
+        int sizeClass = slabClasses[slab];
+        List<ArenaBlock> otherSlabBlocks = new ArrayList<>();
+        ArenaBlock block;
+        while ((block = pop(sizeClass)) != null) {
+            if (slabOf(block) != slab) {
+                otherSlabBlocks.add(block);
+            }
+        }
+        for (int i = otherSlabBlocks.size() - 1; i >= 0; i--) {
+            push(otherSlabBlocks.get(i));
+        }
+        int firstId = slab * slabBlockIds;
+        for (int i = 0; i < slabSize / blockSizes[sizeClass]; i++) {
+            blocks[firstId + i] = null;
+        }
+    }
+
+    private void carveSlab(int slab, int sizeClass) {
+        ByteBuffer slabBuffer = slabs[slab];
+        int blockSize = blockSizes[sizeClass];
+        int firstId = slab * slabBlockIds;
+        int slabBlocks = slabSize / blockSize;
+        for (int i = 0; i < slabBlocks; i++) {
+            ByteBuffer slice = slabBuffer.duplicate();
+            slice.position(i * blockSize).limit((i + 1) * blockSize);
+            blocks[firstId + i] = new ArenaBlock(firstId + i, sizeClass, slice.slice());
+        }
+        slabClasses[slab] = sizeClass;
+        if (slabUsedBlocks.get(slab) < 0) {
+            // ends the reclaim after the blocks are replaced, an allocator that sees the count sees the new blocks.
+            // Allocators that dropped a block of the old class meanwhile take back their own increment.
+            slabUsedBlocks.addAndGet(slab, -RECLAIMING);
+        }
+        // pushed in reverse, blocks are handed out in address order
+        for (int i = slabBlocks - 1; i >= 0; i--) {
+            push(blocks[firstId + i]);
+        }
+    }
+
+    private int slabOf(ArenaBlock block) {
+        return block.getId() / slabBlockIds;
+    }
+
+    private static long head(long stamp, int id) {
+        return stamp << 32 | (id & 0xFFFFFFFFL);
+    }
+
+    private static long stamp(long head) {
+        return head >>> 32;
+    }
+}
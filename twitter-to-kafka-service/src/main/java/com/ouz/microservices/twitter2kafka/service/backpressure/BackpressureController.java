@@ -0,0 +1,246 @@
+package com.ouz.microservices.twitter2kafka.service.backpressure;
+
+import com.ouz.microservices.config.BackpressureConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * slows the tweet sources down while the send path can not keep up, so unsent records do not pile up on
+ * the heap. Every sample-interval-ms it looks at
+ * - kafka.producer.buffer.available.bytes against buffer-memory, the producer's record accumulator
+ * - ring buffer fill
+ * - tweets waiting in the spool
+ * - arena allocation failures since the last sample, in arena mode
+ * - mean kafka.producer.send.latency since the last sample
+ * and adjusts a rate factor like a congestion window: multiplied by decrease-factor while any signal is
+ * over its threshold, increase-step back up otherwise. Rate driven sources (mock generator) scale their rate
+ * by it. At min-rate-factor under pressure the controller pauses, ThrottleListeners (twitter stream) stop
+ * until the factor has climbed back to resume-rate-factor. A pause lasts at least pause-hold-ms and the next
+ * pause comes at least pause-hold-ms after a resume, so a signal that keeps crossing its threshold does not
+ * turn into a reconnect storm on the twitter stream.
+ */
+@Component
+public class BackpressureController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackpressureController.class);
+
+    private static final String BUFFER_AVAILABLE_METER = "kafka.producer.buffer.available.bytes";
+    private static final String SEND_LATENCY_METER = "kafka.producer.send.latency";
+
+    private final BackpressureConfigData backpressureConfigData;
+    private final KafkaProducerConfigData kafkaProducerConfigData;
+    private final TweetRingBuffer<TwitterAvroModel> tweetRingBuffer;
+    private final ArenaTweetQueue arenaTweetQueue;
+    private final TweetSpooler tweetSpooler;
+    private final MeterRegistry meterRegistry;
+    private final TwitterExecutors twitterExecutors;
+    private final LongSupplier nanoClock;
+    private final long pauseHoldNanos;
+
+    private final List<ThrottleListener> throttleListeners = new CopyOnWriteArrayList<>();
+    private volatile double rateFactor = 1.0;
+    private volatile boolean paused;
+    private long lastPauseChangeNanos;
+
+    private long lastAllocationFailures;
+    private double lastLatencyTotalMs;
+    private long lastLatencyCount;
+    private ExecutorService controllerPool;
+    private volatile boolean running;
+
+    @Autowired
+    public BackpressureController(BackpressureConfigData backpressureConfigData,
+                                  KafkaProducerConfigData producerConfigData,
+                                  TweetRingBuffer<TwitterAvroModel> ringBuffer,
+                                  Optional<ArenaTweetQueue> arenaTweetQueue,
+                                  TweetSpooler spooler,
+                                  MeterRegistry meterRegistry,
+                                  TwitterExecutors twitterExecutors) {
+        this(backpressureConfigData, producerConfigData, ringBuffer, arenaTweetQueue, spooler, meterRegistry,
+                twitterExecutors, System::nanoTime);
+    }
+
+    BackpressureController(BackpressureConfigData backpressureConfigData,
+                           KafkaProducerConfigData producerConfigData,
+                           TweetRingBuffer<TwitterAvroModel> ringBuffer,
+                           Optional<ArenaTweetQueue> arenaTweetQueue,
+                           TweetSpooler spooler,
+                           MeterRegistry meterRegistry,
+                           TwitterExecutors twitterExecutors,
+                           LongSupplier nanoClock) {
+        this.backpressureConfigData = backpressureConfigData;
+        this.kafkaProducerConfigData = producerConfigData;
+        this.tweetRingBuffer = ringBuffer;
+        this.arenaTweetQueue = arenaTweetQueue.orElse(null);
+        this.tweetSpooler = spooler;
+        this.meterRegistry = meterRegistry;
+        this.twitterExecutors = twitterExecutors;
+        this.nanoClock = nanoClock;
+        this.pauseHoldNanos = TimeUnit.MILLISECONDS.toNanos(backpressureConfigData.getPauseHoldMs());
+        this.lastPauseChangeNanos = nanoClock.getAsLong() - pauseHoldNanos;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!Boolean.TRUE.equals(backpressureConfigData.getEnabled())) {
+            return;
+        }
+        Gauge.builder("twitter.backpressure.rate.factor", this, BackpressureController::getRateFactor)
+                .description("Share of the configured rate the sources may produce at")
+                .register(meterRegistry);
+        Gauge.builder("twitter.backpressure.paused", this, controller -> controller.isPaused() ? 1 : 0)
+                .register(meterRegistry);
+        running = true;
+        controllerPool = twitterExecutors.newPool("backpressure-controller", 1);
+        controllerPool.execute(this::control);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (controllerPool != null) {
+            controllerPool.shutdownNow();
+            twitterExecutors.shutdown(controllerPool);
+        }
+    }
+
+    public double getRateFactor() {
+        return rateFactor;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void addThrottleListener(ThrottleListener throttleListener) {
+        throttleListeners.add(throttleListener);
+    }
+
+    /**
+     * reads the signals once and moves the rate factor, runs on the controller thread.
+     */
+    void sample() {
+        List<String> pressure = pressureSignals();
+        double previousRateFactor = rateFactor;
+        if (pressure.isEmpty()) {
+            rateFactor = Math.min(1.0, rateFactor + backpressureConfigData.getIncreaseStep());
+        } else {
+            rateFactor = Math.max(backpressureConfigData.getMinRateFactor(),
+                    rateFactor * backpressureConfigData.getDecreaseFactor());
+        }
+        long now = nanoClock.getAsLong();
+        boolean holding = now - lastPauseChangeNanos < pauseHoldNanos;
+        if (!paused && !pressure.isEmpty() && previousRateFactor <= backpressureConfigData.getMinRateFactor() &&
+                !holding) {
+            paused = true;
+            lastPauseChangeNanos = now;
+            LOG.warn("Pausing tweet sources, send path under pressure: {}", pressure);
+            throttleListeners.forEach(ThrottleListener::onPause);
+        } else if (paused && rateFactor >= backpressureConfigData.getResumeRateFactor() && !holding) {
+            paused = false;
+            lastPauseChangeNanos = now;
+            LOG.info("Resuming tweet sources at {}% of the configured rate", Math.round(rateFactor * 100));
+            throttleListeners.forEach(ThrottleListener::onResume);
+        } else if (!pressure.isEmpty() && previousRateFactor == 1.0) {
+            LOG.info("Throttling tweet sources, send path under pressure: {}", pressure);
+        }
+    }
+
+    private List<String> pressureSignals() {
+        List<String> pressure = new ArrayList<>(5);
+        double bufferAvailableRatio = bufferAvailableRatio();
+        if (bufferAvailableRatio < backpressureConfigData.getMinBufferAvailableRatio()) {
+            pressure.add(String.format("producer buffer %.0f%% available", bufferAvailableRatio * 100));
+        }
+        // in arena mode tweets waiting for an ack hold arena blocks as well
+        double queueFillRatio = arenaTweetQueue != null ? arenaTweetQueue.getOccupancy() :
+                (double) tweetRingBuffer.size() / tweetRingBuffer.capacity();
+        if (queueFillRatio > backpressureConfigData.getMaxQueueFillRatio()) {
+            pressure.add(String.format("queue %.0f%% full", queueFillRatio * 100));
+        }
+        // a failed allocation waited or dropped a tweet, occupancy alone misses a fragmented arena
+        long allocationFailures = allocationFailuresSinceLastSample();
+        if (allocationFailures > 0) {
+            pressure.add(allocationFailures + " arena allocation failure(s)");
+        }
+        long spoolRecords = tweetSpooler.getPendingRecordCount();
+        if (spoolRecords > backpressureConfigData.getMaxSpoolRecords()) {
+            pressure.add(spoolRecords + " tweet(s) spooled");
+        }
+        double sendLatencyMs = sendLatencyMsSinceLastSample();
+        if (sendLatencyMs > backpressureConfigData.getMaxSendLatencyMs()) {
+            pressure.add(String.format("send latency %.0f ms", sendLatencyMs));
+        }
+        return pressure;
+    }
+
+    // lowest over all producer instances, 1 before the first producer was created
+    private double bufferAvailableRatio() {
+        double available = meterRegistry.find(BUFFER_AVAILABLE_METER).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .filter(value -> !Double.isNaN(value))
+                .min()
+                .orElse(kafkaProducerConfigData.getBufferMemory());
+        return available / kafkaProducerConfigData.getBufferMemory();
+    }
+
+    private long allocationFailuresSinceLastSample() {
+        if (arenaTweetQueue == null) {
+            return 0;
+        }
+        long allocationFailures = arenaTweetQueue.getTweetArena().getAllocationFailures();
+        long sinceLastSample = allocationFailures - lastAllocationFailures;
+        lastAllocationFailures = allocationFailures;
+        return sinceLastSample;
+    }
+
+    private double sendLatencyMsSinceLastSample() {
+        Timer timer = meterRegistry.find(SEND_LATENCY_METER).timer();
+        if (timer == null) {
+            return 0;
+        }
+        double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+        long count = timer.count();
+        double meanMs = count > lastLatencyCount ? (totalMs - lastLatencyTotalMs) / (count - lastLatencyCount) : 0;
+        lastLatencyTotalMs = totalMs;
+        lastLatencyCount = count;
+        return meanMs;
+    }
+
+    private void control() {
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(backpressureConfigData.getSampleIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                LOG.error("Error while sampling backpressure signals", e);
+            }
+        }
+    }
+}
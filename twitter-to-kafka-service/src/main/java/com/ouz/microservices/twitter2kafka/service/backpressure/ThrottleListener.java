@@ -0,0 +1,12 @@
+package com.ouz.microservices.twitter2kafka.service.backpressure;
+
+/**
+ * sources that can not be slowed down gradually, like the twitter stream, stop and start on these.
+ * Called on the controller thread.
+ */
+public interface ThrottleListener {
+
+    void onPause();
+
+    void onResume();
+}
@@ -0,0 +1,27 @@
+package com.ouz.microservices.twitter2kafka.service.config;
+
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TweetQueueConfig {
+
+    private final TweetQueueConfigData tweetQueueConfigData;
+
+    public TweetQueueConfig(TweetQueueConfigData configData) {
+        this.tweetQueueConfigData = configData;
+    }
+
+    @Bean
+    public TweetRingBuffer<TwitterAvroModel> tweetRingBuffer() {
+        return new TweetRingBuffer<>(
+                tweetQueueConfigData.getCapacity(),
+                OverflowPolicy.valueOf(tweetQueueConfigData.getOverflowPolicy().trim().toUpperCase()),
+                tweetQueueConfigData.getSampleRate(),
+                tweetQueueConfigData.getSampleHighWaterMarkPercent());
+    }
+}
@@ -0,0 +1,117 @@
+package com.ouz.microservices.twitter2kafka.service.corpus;
+
+import com.ouz.microservices.twitter2kafka.service.status.LightweightStatus;
+import com.ouz.microservices.twitter2kafka.service.status.LightweightUser;
+import twitter4j.Status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * binary layout of a tweet corpus file.
+ *
+ * header : int magic, int version
+ * record : int payloadLength, long id, long userId, long createdAt, int textLength, byte[textLength] utf-8 text,
+ *          byte langLength, byte[langLength] utf-8 lang
+ *
+ * textLength and langLength are -1 for a null text or lang, createdAt is Long.MIN_VALUE for a missing date.
+ * All numbers big endian. Version 1 records end after the text, their tweets are read without a lang.
+ */
+public final class TweetCorpusFormat {
+
+    public static final int MAGIC = 0x54574354; // "TWCT"
+    public static final int VERSION_1 = 1;
+    public static final int VERSION = 2;
+    public static final int HEADER_LENGTH = Integer.BYTES * 2;
+    public static final int LENGTH_PREFIX = Integer.BYTES;
+
+    private static final int FIXED_PAYLOAD_LENGTH = Long.BYTES * 3 + Integer.BYTES + Byte.BYTES;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private TweetCorpusFormat() {
+    }
+
+    public static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    /**
+     * @return version of the file, VERSION_1 or VERSION
+     */
+    public static int checkHeader(ByteBuffer buffer) {
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        if (magic != MAGIC || version < VERSION_1 || version > VERSION) {
+            throw new IllegalStateException("Not a tweet corpus file, magic " + Integer.toHexString(magic) +
+                    " version " + version);
+        }
+        return version;
+    }
+
+    public static int recordLength(byte[] text, byte[] lang) {
+        return LENGTH_PREFIX + FIXED_PAYLOAD_LENGTH + length(text) + length(lang);
+    }
+
+    public static byte[] encodeText(Status status) {
+        return status.getText() == null ? null : status.getText().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return null as well for a lang too long for the length byte, twitter language codes are a few letters
+     */
+    public static byte[] encodeLang(Status status) {
+        if (status.getLang() == null) {
+            return null;
+        }
+        byte[] lang = status.getLang().getBytes(StandardCharsets.UTF_8);
+        return lang.length > Byte.MAX_VALUE ? null : lang;
+    }
+
+    public static void writeRecord(ByteBuffer buffer, Status status, byte[] text, byte[] lang) {
+        Date createdAt = status.getCreatedAt();
+        buffer.putInt(FIXED_PAYLOAD_LENGTH + length(text) + length(lang))
+                .putLong(status.getId())
+                .putLong(status.getUser() == null ? 0L : status.getUser().getId())
+                .putLong(createdAt == null ? NO_DATE : createdAt.getTime())
+                .putInt(text == null ? -1 : text.length);
+        if (text != null) {
+            buffer.put(text);
+        }
+        buffer.put(lang == null ? -1 : (byte) lang.length);
+        if (lang != null) {
+            buffer.put(lang);
+        }
+    }
+
+    /**
+     * reads the record payload that follows the length prefix, in the layout of the file version.
+     */
+    public static Status readRecord(ByteBuffer buffer, int version) {
+        long id = buffer.getLong();
+        long userId = buffer.getLong();
+        long createdAt = buffer.getLong();
+        int textLength = buffer.getInt();
+        String text = null;
+        if (textLength >= 0) {
+            byte[] textBytes = new byte[textLength];
+            buffer.get(textBytes);
+            text = new String(textBytes, StandardCharsets.UTF_8);
+        }
+        String lang = null;
+        if (version > VERSION_1) {
+            int langLength = buffer.get();
+            if (langLength >= 0) {
+                byte[] langBytes = new byte[langLength];
+                buffer.get(langBytes);
+                lang = new String(langBytes, StandardCharsets.UTF_8);
+            }
+        }
+        return new LightweightStatus(id, text, createdAt == NO_DATE ? null : new Date(createdAt),
+                new LightweightUser(userId), lang);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ouz.microservices.twitter2kafka.service.corpus;
+
+import twitter4j.Status;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * reads a corpus file through a read-only MappedByteBuffer. Files bigger than one mapping window are
+ * remapped window by window, a window always starts at a record boundary. Files of every corpus format version
+ * are read, see TweetCorpusFormat.
+ */
+public class TweetCorpusReader implements Closeable {
+
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final int version;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public TweetCorpusReader(Path corpusFile) throws IOException {
+        this.fileChannel = FileChannel.open(corpusFile, StandardOpenOption.READ);
+        this.fileSize = fileChannel.size();
+        map(0);
+        this.version = TweetCorpusFormat.checkHeader(window);
+    }
+
+    /**
+     * @return next status or null at end of file
+     */
+    public Status next() throws IOException {
+        long position = windowStart + window.position();
+        if (fileSize - position < TweetCorpusFormat.LENGTH_PREFIX) {
+            return null;
+        }
+        if (window.remaining() < TweetCorpusFormat.LENGTH_PREFIX) {
+            map(position);
+        }
+        int payloadLength = window.getInt(window.position());
+        if (fileSize - position < TweetCorpusFormat.LENGTH_PREFIX + payloadLength) {
+            // truncated last record, the recorder was not closed cleanly
+            return null;
+        }
+        if (window.remaining() < TweetCorpusFormat.LENGTH_PREFIX + payloadLength) {
+            map(position);
+        }
+        window.position(window.position() + TweetCorpusFormat.LENGTH_PREFIX);
+        return TweetCorpusFormat.readRecord(window, version);
+    }
+
+    public void rewind() throws IOException {
+        map(0);
+        window.position(TweetCorpusFormat.HEADER_LENGTH);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        fileChannel.close();
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_WINDOW_SIZE, fileSize - position));
+    }
+}
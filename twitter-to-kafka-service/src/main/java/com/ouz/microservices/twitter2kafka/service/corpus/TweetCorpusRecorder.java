@@ -0,0 +1,122 @@
+package com.ouz.microservices.twitter2kafka.service.corpus;
+
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import twitter4j.Status;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * captures every status reaching TwitterKafkaStatusListener into a corpus file, whichever runner produced it.
+ * Records are collected in a direct buffer and written to the channel when it is full.
+ */
+@Component
+public class TweetCorpusRecorder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TweetCorpusRecorder.class);
+
+    private final TweetCorpusConfigData tweetCorpusConfigData;
+
+    private FileChannel fileChannel;
+    private ByteBuffer buffer;
+    private volatile boolean enabled;
+    private long recordCount;
+
+    public TweetCorpusRecorder(TweetCorpusConfigData configData) {
+        this.tweetCorpusConfigData = configData;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(tweetCorpusConfigData.getRecordEnabled())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(tweetCorpusConfigData.getReplayEnabled())) {
+            LOG.warn("Tweet corpus recording is ignored while replay is enabled");
+            return;
+        }
+        Path recordFile = Paths.get(tweetCorpusConfigData.getRecordFile());
+        try {
+            if (recordFile.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(recordFile.toAbsolutePath().getParent());
+            }
+            fileChannel = FileChannel.open(recordFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Could not open tweet corpus file " + recordFile, e);
+        }
+        buffer = ByteBuffer.allocateDirect(tweetCorpusConfigData.getRecordBufferSize());
+        TweetCorpusFormat.writeHeader(buffer);
+        enabled = true;
+        LOG.info("Recording tweet corpus to {}", recordFile.toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void record(Status status) {
+        if (!enabled) {
+            return;
+        }
+        byte[] text = TweetCorpusFormat.encodeText(status);
+        byte[] lang = TweetCorpusFormat.encodeLang(status);
+        int recordLength = TweetCorpusFormat.recordLength(text, lang);
+        try {
+            if (buffer.remaining() < recordLength) {
+                flush();
+            }
+            if (buffer.remaining() < recordLength) {
+                ByteBuffer oversized = ByteBuffer.allocate(recordLength);
+                TweetCorpusFormat.writeRecord(oversized, status, text, lang);
+                oversized.flip();
+                writeFully(oversized);
+            } else {
+                TweetCorpusFormat.writeRecord(buffer, status, text, lang);
+            }
+            recordCount++;
+        } catch (IOException e) {
+            enabled = false;
+            LOG.error("Error while recording tweet corpus, recording is stopped", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (fileChannel == null) {
+            return;
+        }
+        enabled = false;
+        try {
+            flush();
+            fileChannel.force(true);
+            fileChannel.close();
+            LOG.info("Tweet corpus closed with {} record(s)", recordCount);
+        } catch (IOException e) {
+            LOG.error("Error while closing tweet corpus file", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            fileChannel.write(source);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ouz.microservices.twitter2kafka.service.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * time-rotating Bloom filter over long ids, two generations of the same size.
+ *
+ * Ids are added to the current generation and looked up in both, every windowNanos the previous
+ * generation is dropped and the current one becomes previous. An id is therefore remembered for at
+ * least one and at most two windows, and memory stays at two bit arrays no matter the traffic.
+ *
+ * Bits are set with CAS on an AtomicLongArray, so any number of threads can call putIfAbsent. Two threads
+ * adding the same id at the same moment may both see it as new, that is fine for deduplication.
+ * A lookup checks both generations, so each one is sized for half of falsePositiveRate: a new id is dropped
+ * with at most about falsePositiveRate as long as a window sees no more than expectedInsertions ids.
+ */
+public class RotatingBloomFilter {
+
+    private final long bitCount;
+    private final int hashCount;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long windowNanos) {
+        this(expectedInsertions, falsePositiveRate, windowNanos, System::nanoTime);
+    }
+
+    RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long windowNanos, LongSupplier nanoClock) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || windowNanos <= 0) {
+            throw new IllegalArgumentException("Invalid bloom filter settings, insertions: " + expectedInsertions +
+                    ", false positive rate: " + falsePositiveRate + ", window nanos: " + windowNanos);
+        }
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2, rounded up to whole longs. p is per generation, a lookup
+        // that misses both has 1 - (1 - p)^2 < 2p false positives
+        double generationFalsePositiveRate = falsePositiveRate / 2;
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(generationFalsePositiveRate) /
+                (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        this.current = new Generation(words, now);
+        this.previous = new Generation(words, now - windowNanos);
+    }
+
+    /**
+     * @return true when id was not seen in the last window(s) and has been added, false for a (possible) duplicate.
+     */
+    public boolean putIfAbsent(long id) {
+        Generation generation = currentGeneration();
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        if (contains(generation, hash1, hash2) || contains(previous, hash1, hash2)) {
+            return false;
+        }
+        for (int i = 0; i < hashCount; i++) {
+            generation.setBit(index(hash1 + i * hash2));
+        }
+        return true;
+    }
+
+    /**
+     * lookup without adding the id.
+     */
+    boolean mightContain(long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        return contains(currentGeneration(), hash1, hash2) || contains(previous, hash1, hash2);
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * rotation happens on the calling thread once per window, only one thread does it. After an idle gap of two
+     * windows or more both generations are out of date and start empty.
+     */
+    private Generation currentGeneration() {
+        Generation generation = current;
+        long now = nanoClock.getAsLong();
+        if (now - generation.startNanos < windowNanos) {
+            return generation;
+        }
+        synchronized (this) {
+            generation = current;
+            long elapsed = now - generation.startNanos;
+            if (elapsed >= windowNanos) {
+                int words = generation.bits.length();
+                previous = elapsed >= 2 * windowNanos ? new Generation(words, now - windowNanos) : generation;
+                generation = new Generation(words, now);
+                current = generation;
+            }
+            return generation;
+        }
+    }
+
+    private boolean contains(Generation generation, long hash1, long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            if (!generation.getBit(index(hash1 + i * hash2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash) {
+        return (hash & Long.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * murmur3 64 bit finalizer, tweet ids are snowflake ids with a lot of shared high bits.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray bits;
+        private final long startNanos;
+
+        private Generation(int words, long startNanos) {
+            this.bits = new AtomicLongArray(words);
+            this.startNanos = startNanos;
+        }
+
+        private boolean getBit(long index) {
+            return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+        }
+
+        private void setBit(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long value;
+            while (((value = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, value, value | mask)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ouz.microservices.twitter2kafka.service.dedup;
+
+import com.ouz.microservices.config.TweetDedupConfigData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * drops status ids seen in the last window before they are transformed and sent to kafka.
+ * Reconnects and corpus replays deliver the same ids again, each one would cost a kafka write.
+ */
+@Component
+public class TweetDeduplicator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TweetDeduplicator.class);
+
+    private final RotatingBloomFilter bloomFilter;
+
+    public TweetDeduplicator(TweetDedupConfigData tweetDedupConfigData) {
+        if (Boolean.TRUE.equals(tweetDedupConfigData.getEnabled())) {
+            this.bloomFilter = new RotatingBloomFilter(tweetDedupConfigData.getExpectedTweetsPerWindow(),
+                    tweetDedupConfigData.getFalsePositiveRate(),
+                    TimeUnit.MILLISECONDS.toNanos(tweetDedupConfigData.getWindowMs()));
+            LOG.info("Tweet deduplication enabled, window {} ms, {} KiB per generation, {} hash functions",
+                    tweetDedupConfigData.getWindowMs(), bloomFilter.bitCount() / 8 / 1024, bloomFilter.hashCount());
+        } else {
+            this.bloomFilter = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return bloomFilter != null;
+    }
+
+    public boolean isDuplicate(long tweetId) {
+        return bloomFilter != null && !bloomFilter.putIfAbsent(tweetId);
+    }
+}
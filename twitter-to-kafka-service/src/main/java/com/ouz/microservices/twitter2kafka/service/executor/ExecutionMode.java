@@ -0,0 +1,5 @@
+package com.ouz.microservices.twitter2kafka.service.executor;
+
+public enum ExecutionMode {
+    PLATFORM, VIRTUAL
+}
@@ -0,0 +1,144 @@
+package com.ouz.microservices.twitter2kafka.service.executor;
+
+import com.ouz.microservices.config.ExecutorConfigData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * owns every thread the service starts for runners, the dispatcher and the spool drain.
+ *
+ * PLATFORM mode gives each caller a fixed pool of named daemon threads with a bounded task queue, a task
+ * submitted to a full queue runs on the submitting thread. VIRTUAL mode starts one virtual thread per task
+ * under the same names, it is looked up reflectively because the build targets java 11 and falls back to
+ * PLATFORM on a jdk without virtual threads. Pools are monitored as executor.* meters tagged with their name.
+ *
+ * Components stop their own loops in @PreDestroy and hand their pool back through shutdown(), pools still
+ * open when the context closes are shut down here, newest first so sources stop before their sinks.
+ */
+@Component
+public class TwitterExecutors {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwitterExecutors.class);
+
+    private final ExecutorConfigData executorConfigData;
+    private final MeterRegistry meterRegistry;
+    private final ExecutionMode executionMode;
+
+    private final List<ExecutorService> executors = Collections.synchronizedList(new ArrayList<>());
+
+    public TwitterExecutors(ExecutorConfigData configData, MeterRegistry meterRegistry) {
+        this.executorConfigData = configData;
+        this.meterRegistry = meterRegistry;
+        this.executionMode = resolveExecutionMode(configData.getMode());
+        LOG.info("Executors run in {} mode", executionMode);
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @param threads pool size in PLATFORM mode, VIRTUAL mode starts a thread for every task.
+     * Threads are named name-0, name-1, ...
+     */
+    public ExecutorService newPool(String name, int threads) {
+        ExecutorService executor = executionMode == ExecutionMode.VIRTUAL
+                ? newVirtualThreadPerTaskExecutor(name)
+                : new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(executorConfigData.getQueueCapacity()), namedThreadFactory(name),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+        executors.add(monitored);
+        return monitored;
+    }
+
+    public boolean shutdown(ExecutorService executor) {
+        return shutdown(executor, executorConfigData.getShutdownTimeoutMs());
+    }
+
+    /**
+     * lets running tasks finish within timeoutMs, interrupts them after that.
+     * @return true when every task has finished.
+     */
+    public boolean shutdown(ExecutorService executor, long timeoutMs) {
+        executors.remove(executor);
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            executor.shutdownNow();
+            return executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdownAll() {
+        List<ExecutorService> open;
+        synchronized (executors) {
+            open = new ArrayList<>(executors);
+        }
+        Collections.reverse(open);
+        for (ExecutorService executor : open) {
+            if (!shutdown(executor)) {
+                LOG.warn("Executor did not terminate within {} ms", executorConfigData.getShutdownTimeoutMs());
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutionMode resolveExecutionMode(String mode) {
+        ExecutionMode requested = mode == null ? ExecutionMode.PLATFORM : ExecutionMode.valueOf(mode);
+        if (requested == ExecutionMode.VIRTUAL) {
+            try {
+                newVirtualThreadPerTaskExecutor("virtual-thread-probe").shutdown();
+            } catch (UnsupportedOperationException e) {
+                LOG.warn("Virtual threads are not available on java {}, using platform threads",
+                        Runtime.version().feature());
+                return ExecutionMode.PLATFORM;
+            }
+        }
+        return requested;
+    }
+
+    // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+}
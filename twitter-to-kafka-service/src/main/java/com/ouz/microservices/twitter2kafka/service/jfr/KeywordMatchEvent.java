@@ -0,0 +1,37 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * KeywordMatcher run over the text of one tweet.
+ */
+@Name(KeywordMatchEvent.NAME)
+@Label("Keyword Match")
+@Category({"Twitter to Kafka", "Tweet Pipeline"})
+@Description("Tweet text matched against the active keywords")
+@Threshold("1 ms")
+@StackTrace(false)
+public class KeywordMatchEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.twitter.KeywordMatch";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    @Label("Matched Keywords")
+    private int matchedKeywords;
+
+    public KeywordMatchEvent(long tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public void setMatchedKeywords(int matchedKeywords) {
+        this.matchedKeywords = matchedKeywords;
+    }
+}
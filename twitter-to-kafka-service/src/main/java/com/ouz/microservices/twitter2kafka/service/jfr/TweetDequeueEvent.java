@@ -0,0 +1,39 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * one tweet taken off the tweet queue by a dispatcher thread, until it is handed to the producer or the spool.
+ * A long one is usually the producer blocking in send(), on metadata or a full record accumulator.
+ */
+@Name(TweetDequeueEvent.NAME)
+@Label("Tweet Dequeue")
+@Category({"Twitter to Kafka", "Tweet Pipeline"})
+@Description("Tweet taken off the queue and handed to the producer")
+@Threshold("1 ms")
+@StackTrace(false)
+public class TweetDequeueEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.twitter.TweetDequeue";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    @Label("Spooled")
+    @Description("Tweet went to the spool instead of the producer")
+    private boolean spooled;
+
+    public TweetDequeueEvent(long tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public void setSpooled(boolean spooled) {
+        this.spooled = spooled;
+    }
+}
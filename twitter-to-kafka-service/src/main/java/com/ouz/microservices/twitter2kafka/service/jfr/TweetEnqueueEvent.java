@@ -0,0 +1,44 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * publish of one tweet to the tweet queue, a long one is the BLOCK overflow policy waiting for room.
+ * In arena mode it includes serializing the tweet into its arena block.
+ */
+@Name(TweetEnqueueEvent.NAME)
+@Label("Tweet Enqueue")
+@Category({"Twitter to Kafka", "Tweet Pipeline"})
+@Description("Tweet published to the ring buffer or the arena")
+@Threshold("1 ms")
+@StackTrace(false)
+public class TweetEnqueueEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.twitter.TweetEnqueue";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    @Label("Queue")
+    @Description("ring-buffer or arena")
+    private final String queue;
+
+    @Label("Queued")
+    @Description("False when the overflow policy dropped the tweet")
+    private boolean queued;
+
+    public TweetEnqueueEvent(long tweetId, String queue) {
+        this.tweetId = tweetId;
+        this.queue = queue;
+    }
+
+    public void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * one onStatus call, from the status arriving at the listener until it is queued, dropped or found duplicate.
+ * The transform, keyword match and enqueue events of the tweet are nested in it on the same thread.
+ *
+ * Tweet stage events only record stages slower than their threshold (1 ms by default, like the jdk events a
+ * continuous recording keeps), so a recording costs next to nothing at normal latency and still has every
+ * slow tweet. Set the threshold to 0 ms in the recording settings to see all tweets.
+ */
+@Name(TweetReceivedEvent.NAME)
+@Label("Tweet Received")
+@Category({"Twitter to Kafka", "Tweet Pipeline"})
+@Description("Status handled by the stream listener")
+@Threshold("1 ms")
+@StackTrace(false)
+public class TweetReceivedEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.twitter.TweetReceived";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    @Label("Outcome")
+    @Description("queued, dropped or duplicate")
+    private String outcome;
+
+    public TweetReceivedEvent(long tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Status to TwitterAvroModel mapping of one tweet.
+ */
+@Name(TweetTransformEvent.NAME)
+@Label("Tweet Transform")
+@Category({"Twitter to Kafka", "Tweet Pipeline"})
+@Description("Status mapped to a TwitterAvroModel")
+@Threshold("1 ms")
+@StackTrace(false)
+public class TweetTransformEvent extends Event {
+
+    public static final String NAME = "com.ouz.microservices.twitter.TweetTransform";
+
+    @Label("Tweet Id")
+    private final long tweetId;
+
+    public TweetTransformEvent(long tweetId) {
+        this.tweetId = tweetId;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+/**
+ * told about a new KeywordSet after it was swapped in, on the thread that reloaded the keywords.
+ */
+public interface KeywordChangeListener {
+
+    void onKeywordsChanged(KeywordSet keywordSet);
+}
@@ -0,0 +1,52 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/keywords, GET shows the tracked keywords by id, POST {"keywords": "Java,Kafka,..."} replaces them
+ * without a restart. Actuator binds body values as strings, so the list is comma separated.
+ * Only exposed when listed in management.endpoints.web.exposure.include, which application.yml does not do:
+ * the endpoint has no authentication, expose it on a management.server.port that is not reachable from outside.
+ * Every keyword posted keeps its id until a restart (see KeywordSet), so the list grows with each new keyword.
+ */
+@Component
+@Endpoint(id = "keywords")
+public class KeywordEndpoint {
+
+    private final KeywordRegistry keywordRegistry;
+
+    public KeywordEndpoint(KeywordRegistry keywordRegistry) {
+        this.keywordRegistry = keywordRegistry;
+    }
+
+    @ReadOperation
+    public Map<Integer, String> keywords() {
+        KeywordSet keywordSet = keywordRegistry.getKeywordSet();
+        Map<Integer, String> keywords = new LinkedHashMap<>();
+        for (int keywordId = 0; keywordId < keywordSet.size(); keywordId++) {
+            if (keywordSet.isActive(keywordId)) {
+                keywords.put(keywordId, keywordSet.getKeyword(keywordId));
+            }
+        }
+        return keywords;
+    }
+
+    @WriteOperation
+    public Map<Integer, String> updateKeywords(String keywords) {
+        try {
+            keywordRegistry.update(Arrays.asList(keywords.split(",")));
+        } catch (TwitterToKafkaServiceException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return keywords();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * read-only List<Integer> view over the int[] returned by KeywordMatcher. The avro record field is a
+ * List<Integer>; this view avoids copying the ids into a boxed list, the avro writer boxes on get()
+ * and small ids come from the Integer cache.
+ */
+public final class KeywordIdList extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] keywordIds;
+
+    private KeywordIdList(int[] keywordIds) {
+        this.keywordIds = keywordIds;
+    }
+
+    public static List<Integer> of(int[] keywordIds) {
+        return keywordIds.length == 0 ? Collections.emptyList() : new KeywordIdList(keywordIds);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return keywordIds[index];
+    }
+
+    public int getInt(int index) {
+        return keywordIds[index];
+    }
+
+    @Override
+    public int size() {
+        return keywordIds.length;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the configured keywords, case-insensitive, substring semantics.
+ *
+ * Goto and failure functions are folded into one DFA table, so matching is a single pass over the text
+ * with one array lookup per char no matter how many keywords there are. Chars are first mapped to a
+ * small alphabet of the chars that appear in keywords (every other char is class 0), which keeps the
+ * transition table at states * (alphabet + 1) ints.
+ *
+ * Case folding is done per char with Character.toLowerCase(char), both for keywords and text, so it does
+ * not depend on the default locale (String.toLowerCase would turn "I" into dotless "ı" on a Turkish jvm).
+ *
+ * Immutable after construction and safe to share between threads. Keyword id is the index in the list.
+ */
+public class KeywordMatcher {
+
+    public static final int[] NO_MATCH = new int[0];
+
+    private static final int ROOT = 0;
+    private static final int INITIAL_MATCH_CAPACITY = 4;
+
+    private final List<String> keywords;
+    private final int[] charClasses;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final int[] outputStart;
+    private final int[] outputIds;
+
+    public KeywordMatcher(List<String> keywords) {
+        this.keywords = List.copyOf(keywords);
+        this.charClasses = new int[Character.MAX_VALUE + 1];
+        this.alphabetSize = buildAlphabet();
+
+        // trie, children in a growable int table first, states are numbered in insertion order
+        int maxStates = 1;
+        for (String keyword : this.keywords) {
+            maxStates += keyword.length();
+        }
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> outputs = new ArrayList<>();
+        outputs.add(new ArrayList<>());
+        int stateCount = 1;
+        for (int keywordId = 0; keywordId < this.keywords.size(); keywordId++) {
+            String keyword = this.keywords.get(keywordId);
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                int charClass = charClasses[Character.toLowerCase(keyword.charAt(i))];
+                int next = trie[state * alphabetSize + charClass];
+                if (next == -1) {
+                    next = stateCount++;
+                    trie[state * alphabetSize + charClass] = next;
+                    outputs.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            outputs.get(state).add(keywordId);
+        }
+
+        // breadth first: failure links, missing transitions point where the failure state goes
+        this.transitions = new int[stateCount * alphabetSize];
+        int[] failure = new int[stateCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int charClass = 0; charClass < alphabetSize; charClass++) {
+            int child = trie[charClass];
+            if (child == -1) {
+                transitions[charClass] = ROOT;
+            } else {
+                transitions[charClass] = child;
+                failure[child] = ROOT;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs.get(state).addAll(outputs.get(failure[state]));
+            for (int charClass = 0; charClass < alphabetSize; charClass++) {
+                int child = trie[state * alphabetSize + charClass];
+                int fallback = transitions[failure[state] * alphabetSize + charClass];
+                if (child == -1) {
+                    transitions[state * alphabetSize + charClass] = fallback;
+                } else {
+                    transitions[state * alphabetSize + charClass] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+
+        // outputs flattened into one id array, outputStart[s]..outputStart[s+1] belong to state s
+        this.outputStart = new int[stateCount + 1];
+        int outputCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            outputStart[state] = outputCount;
+            outputCount += outputs.get(state).size();
+        }
+        outputStart[stateCount] = outputCount;
+        this.outputIds = new int[outputCount];
+        for (int state = 0; state < stateCount; state++) {
+            List<Integer> stateOutputs = outputs.get(state);
+            for (int i = 0; i < stateOutputs.size(); i++) {
+                outputIds[outputStart[state] + i] = stateOutputs.get(i);
+            }
+        }
+    }
+
+    /**
+     * @return ids of the keywords found in text, each id once, in order of first occurrence.
+     * NO_MATCH when nothing matched, so tweets without a keyword allocate nothing.
+     */
+    public int[] match(CharSequence text) {
+        if (text == null || outputIds.length == 0) {
+            return NO_MATCH;
+        }
+        int[] matches = null;
+        int matchCount = 0;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + charClasses[Character.toLowerCase(text.charAt(i))]];
+            for (int output = outputStart[state]; output < outputStart[state + 1]; output++) {
+                int keywordId = outputIds[output];
+                if (matches == null) {
+                    matches = new int[Math.min(INITIAL_MATCH_CAPACITY, keywords.size())];
+                } else if (contains(matches, matchCount, keywordId)) {
+                    continue;
+                }
+                if (matchCount == matches.length) {
+                    matches = Arrays.copyOf(matches, Math.min(matches.length * 2, keywords.size()));
+                }
+                matches[matchCount++] = keywordId;
+            }
+        }
+        if (matches == null) {
+            return NO_MATCH;
+        }
+        return matchCount == matches.length ? matches : Arrays.copyOf(matches, matchCount);
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public String getKeyword(int keywordId) {
+        return keywords.get(keywordId);
+    }
+
+    public int stateCount() {
+        return outputStart.length - 1;
+    }
+
+    private int buildAlphabet() {
+        int nextClass = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                if (charClasses[c] == 0) {
+                    charClasses[c] = nextClass++;
+                }
+            }
+        }
+        return nextClass;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * current KeywordSet of the service, starts with twitter-to-kafka-service.twitter-keywords.
+ *
+ * Copy on write: update() compiles the new automaton on the caller thread and then swaps the volatile
+ * reference, the status listener reads the reference once per tweet and never waits for a reload. A tweet
+ * is matched completely against either the old or the new set. Updates are serialized, KeywordChangeListeners
+ * (stream filter, window aggregator) run after the swap.
+ */
+@Component
+public class KeywordRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeywordRegistry.class);
+
+    private final List<KeywordChangeListener> keywordChangeListeners = new CopyOnWriteArrayList<>();
+    private volatile KeywordSet keywordSet;
+
+    public KeywordRegistry(Twitter2KafkaServiceConfigData configData) {
+        this.keywordSet = KeywordSet.of(configData.getTwitterKeywords());
+    }
+
+    public KeywordSet getKeywordSet() {
+        return keywordSet;
+    }
+
+    public void addKeywordChangeListener(KeywordChangeListener keywordChangeListener) {
+        keywordChangeListeners.add(keywordChangeListener);
+    }
+
+    /**
+     * @return true when the active keywords changed
+     */
+    public synchronized boolean update(List<String> keywords) {
+        List<String> trimmed = keywords.stream()
+                .map(String::trim)
+                .filter(keyword -> !keyword.isEmpty())
+                .collect(Collectors.toList());
+        if (trimmed.isEmpty()) {
+            throw new TwitterToKafkaServiceException("Keyword list can not be empty");
+        }
+        KeywordSet current = keywordSet;
+        KeywordSet updated = current.update(trimmed);
+        if (updated == current) {
+            return false;
+        }
+        keywordSet = updated;
+        LOG.info("Twitter keywords changed to {}", updated.getActiveKeywords());
+        for (KeywordChangeListener keywordChangeListener : keywordChangeListeners) {
+            try {
+                keywordChangeListener.onKeywordsChanged(updated);
+            } catch (RuntimeException e) {
+                LOG.error("Error while applying new twitter keywords", e);
+            }
+        }
+        return true;
+    }
+}
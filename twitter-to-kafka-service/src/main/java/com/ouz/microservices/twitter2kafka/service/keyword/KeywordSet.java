@@ -0,0 +1,96 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * immutable keyword list with its compiled KeywordMatcher, replaced as a whole when the keywords change.
+ *
+ * A keyword keeps its id for the lifetime of the service: removed keywords stay in the list as inactive and
+ * the matcher gets an empty string in their place (never matched), new keywords are appended, a removed
+ * keyword that comes back gets its old id again. keywordIds in tweets, keyword count records and the KEYWORD
+ * partition of a keyword so mean the same thing before and after a reload.
+ * Ids are never freed: every distinct keyword added by a reload stays in the list and the matcher until restart.
+ */
+public final class KeywordSet {
+
+    private final List<String> keywords;
+    private final boolean[] active;
+    private final List<String> activeKeywords;
+    private final KeywordMatcher keywordMatcher;
+
+    private KeywordSet(List<String> keywords, boolean[] active) {
+        this.keywords = Collections.unmodifiableList(keywords);
+        this.active = active;
+        List<String> matcherKeywords = new ArrayList<>(keywords.size());
+        List<String> activeList = new ArrayList<>(keywords.size());
+        for (int keywordId = 0; keywordId < keywords.size(); keywordId++) {
+            matcherKeywords.add(active[keywordId] ? keywords.get(keywordId) : "");
+            if (active[keywordId]) {
+                activeList.add(keywords.get(keywordId));
+            }
+        }
+        this.activeKeywords = Collections.unmodifiableList(activeList);
+        this.keywordMatcher = new KeywordMatcher(matcherKeywords);
+    }
+
+    public static KeywordSet of(List<String> keywords) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keywords));
+        boolean[] active = new boolean[distinct.size()];
+        Arrays.fill(active, true);
+        return new KeywordSet(distinct, active);
+    }
+
+    /**
+     * @return a new set with exactly these keywords active, this set when nothing changes
+     */
+    public KeywordSet update(List<String> newKeywords) {
+        Set<String> wanted = new LinkedHashSet<>(newKeywords);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int keywordId = 0; keywordId < keywords.size(); keywordId++) {
+            ids.put(keywords.get(keywordId), keywordId);
+        }
+        List<String> updatedKeywords = new ArrayList<>(keywords);
+        for (String keyword : wanted) {
+            if (!ids.containsKey(keyword)) {
+                updatedKeywords.add(keyword);
+            }
+        }
+        boolean[] updatedActive = new boolean[updatedKeywords.size()];
+        boolean changed = updatedKeywords.size() != keywords.size();
+        for (int keywordId = 0; keywordId < updatedKeywords.size(); keywordId++) {
+            updatedActive[keywordId] = wanted.contains(updatedKeywords.get(keywordId));
+            changed |= keywordId < active.length && updatedActive[keywordId] != active[keywordId];
+        }
+        return changed ? new KeywordSet(updatedKeywords, updatedActive) : this;
+    }
+
+    public KeywordMatcher getKeywordMatcher() {
+        return keywordMatcher;
+    }
+
+    // keywords to track, in id order
+    public List<String> getActiveKeywords() {
+        return activeKeywords;
+    }
+
+    public boolean isActive(int keywordId) {
+        return active[keywordId];
+    }
+
+    // the keyword of an id, removed keywords included
+    public String getKeyword(int keywordId) {
+        return keywords.get(keywordId);
+    }
+
+    // ids in use, active or not, every keyword id is below it
+    public int size() {
+        return keywords.size();
+    }
+}
@@ -1,11 +1,27 @@
 package com.ouz.microservices.twitter2kafka.service.listener;
 
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.aggregate.KeywordWindowAggregator;
+import com.ouz.microservices.twitter2kafka.service.corpus.TweetCorpusRecorder;
+import com.ouz.microservices.twitter2kafka.service.dedup.TweetDeduplicator;
+import com.ouz.microservices.twitter2kafka.service.jfr.KeywordMatchEvent;
+import com.ouz.microservices.twitter2kafka.service.jfr.TweetEnqueueEvent;
+import com.ouz.microservices.twitter2kafka.service.jfr.TweetReceivedEvent;
+import com.ouz.microservices.twitter2kafka.service.jfr.TweetTransformEvent;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordIdList;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
+import com.ouz.microservices.twitter2kafka.service.metrics.TwitterPipelineMetrics;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import twitter4j.Status;
 import twitter4j.StatusAdapter;
 
+import java.util.Optional;
+
 /**
  * @Component, @Service, @Controller, @Repository, @Configuration
  * Yukarıdaki annotationlar Spring Bean tarafından runtime de otomatik olarak
@@ -16,9 +32,106 @@ public class TwitterKafkaStatusListener extends StatusAdapter {
 
     private static final Logger LOG = LoggerFactory.getLogger(TwitterKafkaStatusListener.class);
 
+    private final TwitterStatusToAvroTransformer twitterStatusToAvroTransformer;
+    private final TweetRingBuffer<TwitterAvroModel> tweetRingBuffer;
+    private final TweetCorpusRecorder tweetCorpusRecorder;
+    private final TwitterPipelineMetrics twitterPipelineMetrics;
+    private final KeywordRegistry keywordRegistry;
+    private final TweetDeduplicator tweetDeduplicator;
+    private final KeywordWindowAggregator keywordWindowAggregator;
+    // present in arena mode, tweets are then queued serialized off-heap instead of in the ring buffer
+    private final ArenaTweetQueue arenaTweetQueue;
+
+    public TwitterKafkaStatusListener(TwitterStatusToAvroTransformer transformer,
+                                      TweetRingBuffer<TwitterAvroModel> ringBuffer,
+                                      TweetCorpusRecorder corpusRecorder,
+                                      TwitterPipelineMetrics pipelineMetrics,
+                                      KeywordRegistry keywordRegistry,
+                                      TweetDeduplicator deduplicator,
+                                      KeywordWindowAggregator windowAggregator,
+                                      Optional<ArenaTweetQueue> arenaTweetQueue) {
+        this.twitterStatusToAvroTransformer = transformer;
+        this.tweetRingBuffer = ringBuffer;
+        this.tweetCorpusRecorder = corpusRecorder;
+        this.twitterPipelineMetrics = pipelineMetrics;
+        this.keywordRegistry = keywordRegistry;
+        this.tweetDeduplicator = deduplicator;
+        this.keywordWindowAggregator = windowAggregator;
+        this.arenaTweetQueue = arenaTweetQueue.orElse(null);
+    }
+
+    /**
+     * onStatus only transforms and publishes to the ring buffer, TweetDispatcher threads do the kafka send.
+     * When the buffer is full the configured overflow policy decides between waiting and dropping.
+     * Status.toString() renders the whole object graph, so we only log ids and only on debug level.
+     * Duplicate ids are dropped before the transform, the corpus still records them as they arrived.
+     * Matched keyword ids of a queued tweet are counted for the keyword window aggregate as well, a dropped tweet
+     * is not. The matcher is read from the KeywordRegistry for every tweet, a keyword reload takes effect with
+     * the next status.
+     * In arena mode the tweet is serialized here, on the stream thread, instead of in the producer.
+     * Every stage is a flight recorder event as well, they are only written while a recording is running.
+     */
     @Override
     public void onStatus(Status status) {
-        super.onStatus(status);
-        LOG.info("Twitter status => {}",status);
+        TweetReceivedEvent receivedEvent = new TweetReceivedEvent(status.getId());
+        receivedEvent.begin();
+        String outcome = "failed";
+        try {
+            outcome = handle(status);
+        } finally {
+            receivedEvent.setOutcome(outcome);
+            receivedEvent.commit();
+        }
+    }
+
+    /**
+     * @return outcome of the tweet for the TweetReceivedEvent, queued, dropped or duplicate. failed when this
+     * throws.
+     */
+    private String handle(Status status) {
+        twitterPipelineMetrics.tweetReceived();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Received status id {} from user {}", status.getId(), status.getUser().getId());
+        }
+        if (tweetCorpusRecorder.isEnabled()) {
+            tweetCorpusRecorder.record(status);
+        }
+        if (tweetDeduplicator.isDuplicate(status.getId())) {
+            twitterPipelineMetrics.tweetDeduplicated();
+            return "duplicate";
+        }
+        TweetTransformEvent transformEvent = new TweetTransformEvent(status.getId());
+        transformEvent.begin();
+        long transformStartNanos = System.nanoTime();
+        TwitterAvroModel twitterAvroModel = twitterStatusToAvroTransformer.getTwitterAvroModelFromStatus(status);
+        twitterPipelineMetrics.recordTransformTime(System.nanoTime() - transformStartNanos);
+        transformEvent.commit();
+
+        KeywordMatchEvent keywordMatchEvent = new KeywordMatchEvent(status.getId());
+        keywordMatchEvent.begin();
+        int[] keywordIds = keywordRegistry.getKeywordSet().getKeywordMatcher().match(twitterAvroModel.getText());
+        keywordMatchEvent.setMatchedKeywords(keywordIds.length);
+        keywordMatchEvent.commit();
+        twitterAvroModel.setKeywordIds(KeywordIdList.of(keywordIds));
+
+        TweetEnqueueEvent enqueueEvent = new TweetEnqueueEvent(status.getId(),
+                arenaTweetQueue != null ? "arena" : "ring-buffer");
+        enqueueEvent.begin();
+        boolean published = false;
+        try {
+            published = arenaTweetQueue != null ?
+                    arenaTweetQueue.publish(twitterAvroModel) : tweetRingBuffer.publish(twitterAvroModel);
+        } finally {
+            enqueueEvent.setQueued(published);
+            enqueueEvent.commit();
+        }
+        if (!published) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Tweet queue is full, dropped status id {}", status.getId());
+            }
+            return "dropped";
+        }
+        keywordWindowAggregator.record(keywordIds);
+        return "queued";
     }
 }
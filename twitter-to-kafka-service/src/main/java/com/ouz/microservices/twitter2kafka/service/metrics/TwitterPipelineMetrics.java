@@ -0,0 +1,105 @@
+package com.ouz.microservices.twitter2kafka.service.metrics;
+
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * meters of the twitter -> kafka pipeline. Counters and timers are created once here, the hot path only
+ * calls increment/record on them. Queue meters read the ring buffer counters when they are scraped, the
+ * counters of the ArenaTweetQueue in arena mode, where the listener does not use the ring buffer.
+ *
+ * producer side meters (send latency, record size, kafka client metrics) are registered in kafka-producer,
+ * admin retries in kafka-admin.
+ */
+@Component
+public class TwitterPipelineMetrics {
+
+    private final Counter tweetsReceived;
+    private final Timer transformTime;
+    private final Counter dispatchErrors;
+    private final Counter tweetsDeduplicated;
+
+    public TwitterPipelineMetrics(MeterRegistry meterRegistry,
+                                  Twitter2KafkaServiceConfigData serviceConfigData,
+                                  TweetCorpusConfigData corpusConfigData,
+                                  TweetRingBuffer<TwitterAvroModel> tweetRingBuffer,
+                                  Optional<ArenaTweetQueue> arenaTweetQueue) {
+        this.tweetsReceived = Counter.builder("twitter.tweets.received")
+                .description("Statuses delivered to the listener")
+                .tag("runner", runnerName(serviceConfigData, corpusConfigData))
+                .register(meterRegistry);
+        this.transformTime = Timer.builder("twitter.transform.time")
+                .description("Status to TwitterAvroModel mapping time")
+                .register(meterRegistry);
+        this.dispatchErrors = Counter.builder("twitter.dispatch.errors")
+                .description("Records the dispatcher could not hand to the kafka producer")
+                .register(meterRegistry);
+        this.tweetsDeduplicated = Counter.builder("twitter.tweets.deduplicated")
+                .description("Statuses dropped as already seen, each one a kafka write saved")
+                .register(meterRegistry);
+
+        if (arenaTweetQueue.isPresent()) {
+            registerQueueMeters(meterRegistry, arenaTweetQueue.get(), ArenaTweetQueue::size,
+                    ArenaTweetQueue::capacity, ArenaTweetQueue::getDroppedCount, ArenaTweetQueue::getSampledOutCount);
+        } else {
+            registerQueueMeters(meterRegistry, tweetRingBuffer, TweetRingBuffer::size,
+                    TweetRingBuffer::capacity, TweetRingBuffer::getDroppedCount, TweetRingBuffer::getSampledOutCount);
+        }
+    }
+
+    public void tweetReceived() {
+        tweetsReceived.increment();
+    }
+
+    public void recordTransformTime(long nanos) {
+        transformTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void dispatchError() {
+        dispatchErrors.increment();
+    }
+
+    public void tweetDeduplicated() {
+        tweetsDeduplicated.increment();
+    }
+
+    private static <T> void registerQueueMeters(MeterRegistry meterRegistry, T queue, ToDoubleFunction<T> size,
+                                                ToDoubleFunction<T> capacity, ToDoubleFunction<T> dropped,
+                                                ToDoubleFunction<T> sampledOut) {
+        Gauge.builder("twitter.queue.depth", queue, size)
+                .description("Tweets waiting for the dispatcher")
+                .register(meterRegistry);
+        Gauge.builder("twitter.queue.capacity", queue, capacity)
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.queue.dropped", queue, dropped)
+                .description("Tweets dropped by the overflow policy")
+                .register(meterRegistry);
+        FunctionCounter.builder("twitter.queue.sampled.out", queue, sampledOut)
+                .description("Tweets skipped by the SAMPLE overflow policy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * runner in use is decided by the same properties the runner conditions look at.
+     */
+    private static String runnerName(Twitter2KafkaServiceConfigData serviceConfigData,
+                                     TweetCorpusConfigData corpusConfigData) {
+        if (Boolean.TRUE.equals(corpusConfigData.getReplayEnabled())) {
+            return "replay";
+        }
+        return Boolean.TRUE.equals(serviceConfigData.getEnableMockTweets()) ? "mock" : "twitter";
+    }
+}
@@ -0,0 +1,15 @@
+package com.ouz.microservices.twitter2kafka.service.queue;
+
+/**
+ * what TweetRingBuffer does with a new element when there is no free slot.
+ */
+public enum OverflowPolicy {
+    /** caller waits until a consumer frees a slot, nothing is lost */
+    BLOCK,
+    /** incoming element is rejected */
+    DROP_NEWEST,
+    /** oldest waiting element is evicted to make room for the incoming one */
+    DROP_OLDEST,
+    /** above the high water mark only every n-th element is accepted, the rest is dropped */
+    SAMPLE
+}
@@ -0,0 +1,219 @@
+package com.ouz.microservices.twitter2kafka.service.queue;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.kafka.producer.service.impl.SerializedTwitterKafkaProducer;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaBlock;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.jfr.TweetDequeueEvent;
+import com.ouz.microservices.twitter2kafka.service.metrics.TwitterPipelineMetrics;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * sink side of the ring buffer. Consumer threads drain TweetRingBuffer and hand the records to the
+ * kafka producer, so the stream thread only transforms and publishes.
+ * Records kafka can not take right now go to the TweetSpooler, and so do all records after them
+ * until the spool is drained.
+ * In arena mode the records come from ArenaTweetQueue already serialized, they are sent from their arena block
+ * and the block is freed in the send callback.
+ */
+@Component
+public class TweetDispatcher implements KafkaSendCallback<Long, TwitterAvroModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TweetDispatcher.class);
+
+    private static final int SPIN_TRIES = 100;
+
+    private final TweetRingBuffer<TwitterAvroModel> tweetRingBuffer;
+    private final KafkaProducer<Long, TwitterAvroModel> kafkaProducer;
+    private final KafkaConfigData kafkaConfigData;
+    private final TweetQueueConfigData tweetQueueConfigData;
+    private final TwitterPipelineMetrics twitterPipelineMetrics;
+    private final TweetSpooler tweetSpooler;
+    private final TwitterExecutors twitterExecutors;
+    private final ArenaTweetQueue arenaTweetQueue;
+    private final SerializedTwitterKafkaProducer serializedKafkaProducer;
+
+    private ExecutorService consumerPool;
+    private volatile boolean running;
+
+    public TweetDispatcher(TweetRingBuffer<TwitterAvroModel> ringBuffer,
+                           KafkaProducer<Long, TwitterAvroModel> producer,
+                           KafkaConfigData kafkaConfigData,
+                           TweetQueueConfigData queueConfigData,
+                           TwitterPipelineMetrics pipelineMetrics,
+                           TweetSpooler spooler,
+                           TwitterExecutors twitterExecutors,
+                           Optional<ArenaTweetQueue> arenaTweetQueue,
+                           Optional<SerializedTwitterKafkaProducer> serializedKafkaProducer) {
+        this.tweetRingBuffer = ringBuffer;
+        this.kafkaProducer = producer;
+        this.kafkaConfigData = kafkaConfigData;
+        this.tweetQueueConfigData = queueConfigData;
+        this.twitterPipelineMetrics = pipelineMetrics;
+        this.tweetSpooler = spooler;
+        this.twitterExecutors = twitterExecutors;
+        this.arenaTweetQueue = arenaTweetQueue.orElse(null);
+        this.serializedKafkaProducer = serializedKafkaProducer.orElse(null);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        int consumerThreads = tweetQueueConfigData.getConsumerThreads();
+        consumerPool = twitterExecutors.newPool("tweet-dispatcher", consumerThreads);
+        for (int i = 0; i < consumerThreads; i++) {
+            consumerPool.execute(this::consume);
+        }
+        if (arenaTweetQueue != null) {
+            LOG.info("Started {} tweet dispatcher thread(s), queue in a {} byte off-heap arena, overflow policy {}",
+                    consumerThreads, arenaTweetQueue.getTweetArena().getCapacityBytes(),
+                    tweetQueueConfigData.getOverflowPolicy());
+        } else {
+            LOG.info("Started {} tweet dispatcher thread(s), queue capacity {}, overflow policy {}",
+                    consumerThreads, tweetRingBuffer.capacity(), tweetRingBuffer.getOverflowPolicy());
+        }
+    }
+
+    /**
+     * stops the consumers after the tweets already in the buffer are handed to the producer.
+     * Arena tweets waiting for an ack are flushed while the spooler is still running, a failed one is spooled.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        twitterExecutors.shutdown(consumerPool, tweetQueueConfigData.getShutdownTimeoutMs());
+        if (arenaTweetQueue != null) {
+            try {
+                serializedKafkaProducer.flush();
+            } catch (RuntimeException e) {
+                LOG.error("Error while flushing arena tweets", e);
+            }
+            LOG.info("Tweet dispatcher stopped, {} tweet(s) left in arena, {} dropped, {} sampled out",
+                    arenaTweetQueue.size(), arenaTweetQueue.getDroppedCount(), arenaTweetQueue.getSampledOutCount());
+        } else {
+            LOG.info("Tweet dispatcher stopped, {} tweet(s) left in queue, {} dropped, {} sampled out",
+                    tweetRingBuffer.size(), tweetRingBuffer.getDroppedCount(), tweetRingBuffer.getSampledOutCount());
+        }
+    }
+
+    private void consume() {
+        String topicName = kafkaConfigData.getTopicName();
+        long idleParkNanos = tweetQueueConfigData.getConsumerIdleParkNanos();
+        int idleCount = 0;
+        while (running || queueSize() > 0) {
+            boolean dispatched = arenaTweetQueue != null ? dispatchArenaBlock(topicName) : dispatchTweet(topicName);
+            if (!dispatched) {
+                if (++idleCount < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(idleParkNanos);
+                }
+                continue;
+            }
+            idleCount = 0;
+        }
+    }
+
+    private int queueSize() {
+        return arenaTweetQueue != null ? arenaTweetQueue.size() : tweetRingBuffer.size();
+    }
+
+    private boolean dispatchTweet(String topicName) {
+        TwitterAvroModel twitterAvroModel = tweetRingBuffer.poll();
+        if (twitterAvroModel == null) {
+            return false;
+        }
+        TweetDequeueEvent dequeueEvent = new TweetDequeueEvent(twitterAvroModel.getId());
+        dequeueEvent.begin();
+        if (tweetSpooler.isActive() && tweetSpooler.spool(twitterAvroModel)) {
+            dequeueEvent.setSpooled(true);
+            dequeueEvent.commit();
+            return true;
+        }
+        try {
+            kafkaProducer.send(topicName, twitterAvroModel.getUserId(), twitterAvroModel, this);
+        } catch (Exception e) {
+            twitterPipelineMetrics.dispatchError();
+            LOG.error("Error while dispatching tweet with id {}", twitterAvroModel.getId(), e);
+        }
+        dequeueEvent.commit();
+        return true;
+    }
+
+    // the spool keeps TwitterAvroModel records, a block is decoded only on its way to the spool
+    private boolean dispatchArenaBlock(String topicName) {
+        ArenaBlock block = arenaTweetQueue.poll();
+        if (block == null) {
+            return false;
+        }
+        TweetDequeueEvent dequeueEvent = new TweetDequeueEvent(block.getTweetId());
+        dequeueEvent.begin();
+        if (tweetSpooler.isActive() && spool(block)) {
+            arenaTweetQueue.release(block);
+            dequeueEvent.setSpooled(true);
+            dequeueEvent.commit();
+            return true;
+        }
+        // the callback frees the block, send() failures are handed to it as well
+        serializedKafkaProducer.send(topicName, block.getKey(), block.getTweetId(), block.payload(),
+                new ArenaSendCallback(block));
+        dequeueEvent.commit();
+        return true;
+    }
+
+    private boolean spool(ArenaBlock block) {
+        try {
+            return tweetSpooler.spool(arenaTweetQueue.read(block));
+        } catch (RuntimeException e) {
+            LOG.error("Error while spooling tweet with id {}", block.getTweetId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void onFailure(String topicName, Long key, TwitterAvroModel message, Throwable throwable) {
+        if (TweetSpooler.isSpoolable(throwable) && tweetSpooler.spool(message)) {
+            return;
+        }
+        twitterPipelineMetrics.dispatchError();
+        LOG.error("Error while sending tweet with id {} to topic {}", message.getId(), topicName, throwable);
+    }
+
+    private final class ArenaSendCallback implements KafkaSendCallback<Long, ByteBuffer> {
+        private final ArenaBlock block;
+
+        private ArenaSendCallback(ArenaBlock block) {
+            this.block = block;
+        }
+
+        @Override
+        public void onSuccess(String topicName, Long key, ByteBuffer message) {
+            arenaTweetQueue.release(block);
+        }
+
+        @Override
+        public void onFailure(String topicName, Long key, ByteBuffer message, Throwable throwable) {
+            boolean spooled = TweetSpooler.isSpoolable(throwable) && spool(block);
+            arenaTweetQueue.release(block);
+            if (!spooled) {
+                twitterPipelineMetrics.dispatchError();
+                LOG.error("Error while sending tweet with id {} to topic {}", block.getTweetId(), topicName, throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.ouz.microservices.twitter2kafka.service.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated, bounded, lock-free ring buffer between the stream source and the kafka send path.
+ *
+ * Every slot carries a sequence number (Vyukov bounded queue). A producer owns slot i when its sequence
+ * equals the tail position, a consumer owns it when the sequence equals head + 1. Positions are claimed
+ * with a single CAS, so several consumer threads can drain it, and a second source thread stays correct
+ * at the price of one uncontended CAS for the usual single source case.
+ * No locks and no allocation after construction.
+ */
+public class TweetRingBuffer<E> {
+
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+
+    // head and tail live in one array, 128 bytes apart, so they never share a cache line
+    private static final int HEAD = 15;
+    private static final int TAIL = 31;
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray cursors = new AtomicLongArray(47);
+    private final int capacity;
+    private final int mask;
+
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleHighWaterMark;
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+
+    public TweetRingBuffer(int requestedCapacity, OverflowPolicy overflowPolicy,
+                           int sampleRate, int sampleHighWaterMarkPercent) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+        }
+        this.capacity = nextPowerOfTwo(requestedCapacity);
+        this.mask = capacity - 1;
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.sampleHighWaterMark = (int) ((long) capacity * sampleHighWaterMarkPercent / 100);
+    }
+
+    /**
+     * hands an element over to the consumers, applying the overflow policy when the buffer is full.
+     * @return false if the element was dropped
+     */
+    public boolean publish(E element) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                return publishBlocking(element);
+            case DROP_OLDEST:
+                return publishDroppingOldest(element);
+            case SAMPLE:
+                return publishSampled(element);
+            case DROP_NEWEST:
+            default:
+                return publishDroppingNewest(element);
+        }
+    }
+
+    public boolean offer(E element) {
+        long position = cursors.get(TAIL);
+        for (;;) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (cursors.compareAndSet(TAIL, position, position + 1)) {
+                    buffer[index] = element;
+                    // release store, consumers reading the sequence see the element
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = cursors.get(TAIL);
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = cursors.get(TAIL);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = cursors.get(HEAD);
+        for (;;) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (cursors.compareAndSet(HEAD, position, position + 1)) {
+                    E element = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, position + capacity);
+                    return element;
+                }
+                position = cursors.get(HEAD);
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = cursors.get(HEAD);
+            }
+        }
+    }
+
+    public int size() {
+        long size = cursors.get(TAIL) - cursors.get(HEAD);
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOutCount.sum();
+    }
+
+    private boolean publishBlocking(E element) {
+        while (!offer(element)) {
+            if (Thread.currentThread().isInterrupted()) {
+                droppedCount.increment();
+                return false;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private boolean publishDroppingNewest(E element) {
+        if (offer(element)) {
+            return true;
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    private boolean publishDroppingOldest(E element) {
+        while (!offer(element)) {
+            if (poll() != null) {
+                droppedCount.increment();
+            }
+        }
+        return true;
+    }
+
+    private boolean publishSampled(E element) {
+        if (size() >= sampleHighWaterMark && sampleCounter.getAndIncrement() % sampleRate != 0) {
+            sampledOutCount.increment();
+            return false;
+        }
+        return publishDroppingNewest(element);
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ouz.microservices.twitter2kafka.service.ratelimit;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * single-thread token bucket. Tokens are refilled from System.nanoTime on every acquire, so pacing
+ * follows the target rate regardless of how long producing one tweet takes. The caller only parks
+ * when the bucket is empty, and then only for the time until the next token.
+ * Not thread-safe on purpose, every thread owns its bucket: each mock generator thread and the spool drain.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final LongSupplier nanoClock;
+    private double tokensPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double tokensPerSecond, double burstCapacity) {
+        this(tokensPerSecond, burstCapacity, System::nanoTime);
+    }
+
+    TokenBucket(double tokensPerSecond, double burstCapacity, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.tokensPerNano = toTokensPerNano(tokensPerSecond);
+        this.capacity = Math.max(1, burstCapacity);
+        this.tokens = 0;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * blocks until one token is available.
+     */
+    public void acquire() {
+        refill();
+        while (tokens < 1) {
+            long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            refill();
+        }
+        tokens -= 1;
+    }
+
+    public boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * changes the rate from the owning thread, tokens already in the bucket are kept.
+     */
+    public void setRate(double tokensPerSecond) {
+        refill();
+        tokensPerNano = toTokensPerNano(tokensPerSecond);
+    }
+
+    private static double toTokensPerNano(double tokensPerSecond) {
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket rate must be positive");
+        }
+        return tokensPerSecond / NANOS_PER_SECOND;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,197 @@
+package com.ouz.microservices.twitter2kafka.service.readiness;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.RetryConfigData;
+import com.ouz.microservices.config.StartupReadinessConfigData;
+import com.ouz.microservices.kafka.admin.client.KafkaAdminClient;
+import com.ouz.microservices.kafka.admin.jfr.AdminRetryEvent;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * checks the schema registry, the kafka brokers and the topics before we start streaming.
+ *
+ * The three checks are Monos subscribed together, each one retries on its own with the retry-config back off
+ * (initial-interval-ms doubling up to max-interval-ms) and nothing sleeps on a thread. Startup waits for
+ * all of them under one timeout, so cold start takes as long as the slowest check instead of their sum.
+ * Checks that are not done at the timeout keep running, StartupReadinessHealthIndicator reports UP once
+ * every check passed.
+ *
+ * Only transient failures are retried, a broker timeout, an unreachable registry. A failure retrying can not fix,
+ * an incompatible schema or a topic the cluster refuses, fails its check at once: awaitReady throws, or after
+ * the timeout the check is reported failed and the service stays out of service.
+ *
+ * With the schema registry wire format on, the registry check also registers (or looks up) the
+ * TwitterAvroModel schema, so the serializer finds the id in the client cache for the first tweet.
+ */
+@Component
+public class StartupReadiness {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupReadiness.class);
+
+    private final KafkaAdminClient kafkaAdminClient;
+    private final StartupReadinessConfigData startupReadinessConfigData;
+    private final RetryConfigData retryConfigData;
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final KafkaConfigData kafkaConfigData;
+    private final KafkaProducerConfigData kafkaProducerConfigData;
+
+    private final Map<String, String> checkStates = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean ready;
+    private volatile CompletableFuture<Void> readiness;
+
+    public StartupReadiness(KafkaAdminClient adminClient,
+                            StartupReadinessConfigData readinessConfigData,
+                            RetryConfigData retryConfigData,
+                            SchemaRegistryClient registryClient,
+                            KafkaConfigData kafkaConfigData,
+                            KafkaProducerConfigData producerConfigData) {
+        this.kafkaAdminClient = adminClient;
+        this.startupReadinessConfigData = readinessConfigData;
+        this.retryConfigData = retryConfigData;
+        this.schemaRegistryClient = registryClient;
+        this.kafkaConfigData = kafkaConfigData;
+        this.kafkaProducerConfigData = producerConfigData;
+    }
+
+    /**
+     * blocks the caller until all checks passed or timeout-ms is over.
+     */
+    public void awaitReady() {
+        if (!Boolean.TRUE.equals(startupReadinessConfigData.getEnabled())) {
+            ready = true;
+            return;
+        }
+        long startNanos = System.nanoTime();
+        readiness = Mono.when(
+                        check("schema-registry", schemaRegistryCheck()),
+                        check("brokers", kafkaAdminClient.probeBrokers().then()),
+                        check("topics", Mono.defer(() -> Mono.fromFuture(kafkaAdminClient.provisionTopics()))))
+                .doOnSuccess(ignored -> {
+                    ready = true;
+                    LOG.info("Startup readiness checks passed in {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                })
+                .toFuture();
+        try {
+            readiness.get(startupReadinessConfigData.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TwitterToKafkaServiceException("Interrupted while waiting for startup readiness checks", e);
+        } catch (ExecutionException e) {
+            throw new TwitterToKafkaServiceException("Startup readiness check failed", e.getCause());
+        } catch (TimeoutException e) {
+            if (Boolean.TRUE.equals(startupReadinessConfigData.getFailOnTimeout())) {
+                readiness.cancel(true);
+                throw new TwitterToKafkaServiceException("Startup readiness checks did not pass within " +
+                        startupReadinessConfigData.getTimeoutMs() + " ms: " + getCheckStates());
+            }
+            LOG.warn("Startup readiness checks did not pass within {} ms, starting anyway. Checks: {}",
+                    startupReadinessConfigData.getTimeoutMs(), getCheckStates());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, String> getCheckStates() {
+        synchronized (checkStates) {
+            return new LinkedHashMap<>(checkStates);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        CompletableFuture<Void> pending = readiness;
+        if (pending != null && !pending.isDone()) {
+            pending.cancel(true);
+        }
+    }
+
+    private Mono<Void> schemaRegistryCheck() {
+        if (!Boolean.TRUE.equals(kafkaProducerConfigData.getSchemaRegistryWireFormat())) {
+            return kafkaAdminClient.probeSchemaRegistry();
+        }
+        String subject = AvroSerializer.subjectName(kafkaConfigData.getTopicName(), false);
+        return kafkaAdminClient.probeSchemaRegistry()
+                .then(Mono.defer(() -> Mono.fromFuture(
+                        schemaRegistryClient.getOrRegisterIdAsync(subject, TwitterAvroModel.getClassSchema()))))
+                .doOnNext(schemaId -> LOG.info("Schema of subject {} has id {}", subject, schemaId))
+                .then();
+    }
+
+    private Mono<Void> check(String name, Mono<Void> probe) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicReference<AdminRetryEvent> retryEvent = new AtomicReference<>();
+            checkStates.put(name, "pending");
+            return probe
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(retryConfigData.getInitialIntervalMs()))
+                            .maxBackoff(Duration.ofMillis(retryConfigData.getMaxIntervalMs()))
+                            .filter(StartupReadiness::isTransient)
+                            .doBeforeRetry(signal -> {
+                                checkStates.put(name, "retry " + (signal.totalRetries() + 1) + ": " + signal.failure());
+                                LOG.debug("Startup check {} failed, retrying: {}", name, signal.failure().toString());
+                                AdminRetryEvent event = new AdminRetryEvent(name, null, signal.totalRetries() + 1,
+                                        signal.failure());
+                                event.begin();
+                                retryEvent.set(event);
+                            })
+                            .doAfterRetry(signal -> retryEvent.get().commit()))
+                    .doOnSuccess(ignored -> {
+                        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                        checkStates.put(name, "passed in " + elapsedMs + " ms");
+                        LOG.info("Startup check {} passed in {} ms", name, elapsedMs);
+                    })
+                    .doOnError(throwable -> {
+                        checkStates.put(name, "failed: " + throwable);
+                        LOG.error("Startup check {} failed, not retrying: {}", name, throwable.toString());
+                    });
+        });
+    }
+
+    /**
+     * a retriable kafka or schema registry error anywhere in the causes is transient, a non-retriable one or a
+     * 4xx answer other than 408 and 429 is not. Anything else (connection refused, no broker yet) is.
+     */
+    static boolean isTransient(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KafkaException) {
+                return false;
+            }
+            if (cause instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) cause).getRawStatusCode();
+                return status / 100 != 4 || status == 408 || status == 429;
+            }
+        }
+        return true;
+    }
+}
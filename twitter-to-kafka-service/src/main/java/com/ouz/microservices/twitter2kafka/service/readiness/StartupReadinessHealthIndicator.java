@@ -0,0 +1,25 @@
+package com.ouz.microservices.twitter2kafka.service.readiness;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * contributes "startupReadiness" to /actuator/health and the readiness group, OUT_OF_SERVICE until
+ * the schema registry, broker and topic checks of StartupReadiness passed.
+ */
+@Component
+public class StartupReadinessHealthIndicator implements HealthIndicator {
+
+    private final StartupReadiness startupReadiness;
+
+    public StartupReadinessHealthIndicator(StartupReadiness readiness) {
+        this.startupReadiness = readiness;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = startupReadiness.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(startupReadiness.getCheckStates()).build();
+    }
+}
@@ -1,9 +1,12 @@
 package com.ouz.microservices.twitter2kafka.service.runner.impl;
 
 import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
-import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.backpressure.BackpressureController;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
 import com.ouz.microservices.twitter2kafka.service.listener.TwitterKafkaStatusListener;
+import com.ouz.microservices.twitter2kafka.service.ratelimit.TokenBucket;
 import com.ouz.microservices.twitter2kafka.service.runner.TwitterStreamKafkaRunner;
+import com.ouz.microservices.twitter2kafka.service.runner.mock.MockTweetFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -11,13 +14,17 @@ import org.springframework.stereotype.Component;
 import twitter4j.Status;
 import twitter4j.TwitterObjectFactory;
 
+import javax.annotation.PreDestroy;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Random;
-import java.util.concurrent.Executors;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 
 @Component
@@ -28,32 +35,11 @@ public class MockKafkaStreamRunner implements TwitterStreamKafkaRunner {
 
     private final Twitter2KafkaServiceConfigData twitter2KafkaServiceConfigData;
     private final TwitterKafkaStatusListener twitterKafkaStatusListener;
+    private final TwitterExecutors twitterExecutors;
+    private final BackpressureController backpressureController;
 
     private static final Random RANDOM = new Random();
 
-    private static final String[] MOCK_WORDS = new String[]{
-            "Lorem",
-            "ipsum",
-            "dolor",
-            "sit",
-            "dolor",
-            "amet",
-            "consectetur",
-            "adipiscing",
-            "elit",
-            "Maecenas",
-            "id",
-            "sapien",
-            "sit",
-            "amet",
-            "lacus",
-            "elementum",
-            "pretium",
-            "eu",
-            "at",
-            "eros"
-    };
-
     private static final String tweetStringJsonRaw="{" +
             "\"created_at\":\"{0}\","+
             "\"id\":\"{1}\","+
@@ -63,9 +49,21 @@ public class MockKafkaStreamRunner implements TwitterStreamKafkaRunner {
 
     private static final String TWITTER_DATE_FORMAT = "EEE MMM dd HH:mm:ss zzz yyyy";
 
-    public MockKafkaStreamRunner(Twitter2KafkaServiceConfigData twitter2KafkaServiceConfigData, TwitterKafkaStatusListener twitterKafkaStatusListener) {
+    private static final long LOAD_REPORT_INTERVAL_NANOS = 10_000_000_000L;
+    private static final long PAUSED_PARK_NANOS = 10_000_000L;
+
+    private final LongAdder generatedTweets = new LongAdder();
+    private volatile boolean loadGeneratorRunning;
+    private ExecutorService generatorPool;
+
+    public MockKafkaStreamRunner(Twitter2KafkaServiceConfigData twitter2KafkaServiceConfigData,
+                                 TwitterKafkaStatusListener twitterKafkaStatusListener,
+                                 TwitterExecutors twitterExecutors,
+                                 BackpressureController backpressureController) {
         this.twitter2KafkaServiceConfigData = twitter2KafkaServiceConfigData;
         this.twitterKafkaStatusListener = twitterKafkaStatusListener;
+        this.twitterExecutors = twitterExecutors;
+        this.backpressureController = backpressureController;
     }
 
     @Override
@@ -73,37 +71,110 @@ public class MockKafkaStreamRunner implements TwitterStreamKafkaRunner {
         String[] keywords = twitter2KafkaServiceConfigData.getTwitterKeywords().toArray(new String[0]);
         int minTweetLength=twitter2KafkaServiceConfigData.getMockMinTweetLength();
         int maxTweetLength=twitter2KafkaServiceConfigData.getMockMaxTweetLength();
-        long sleepMs = twitter2KafkaServiceConfigData.getMockSleepMs();
-        LOG.info("Starting mock streaming tweets with keywords => ", Arrays.toString(keywords));
+        Long targetTweetsPerSecond = twitter2KafkaServiceConfigData.getMockTargetTweetsPerSecond();
+        LOG.info("Starting mock streaming tweets with keywords => {}", Arrays.toString(keywords));
+
+        if (targetTweetsPerSecond != null && targetTweetsPerSecond > 0) {
+            startLoadGenerator(keywords, minTweetLength, maxTweetLength, targetTweetsPerSecond,
+                    twitter2KafkaServiceConfigData.getMockThreadCount());
+        } else {
+            simulateTweet(keywords, minTweetLength, maxTweetLength, twitter2KafkaServiceConfigData.getMockSleepMs());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadGeneratorRunning = false;
+        if (generatorPool != null) {
+            generatorPool.shutdownNow();
+            twitterExecutors.shutdown(generatorPool);
+        }
+    }
+
+    /**
+     * load mode: every thread owns a SplittableRandom, a MockTweetFactory and a token bucket paced at
+     * its share of the target rate, so generator threads never contend with each other.
+     * Status objects are built directly, there is no json formatting or parsing per tweet.
+     */
+    private void startLoadGenerator(String[] keywords, int minTweetLength, int maxTweetLength,
+                                    long targetTweetsPerSecond, int threadCount) {
+        LOG.info("Starting mock load generator, target {} tweets/sec on {} thread(s)", targetTweetsPerSecond, threadCount);
+        loadGeneratorRunning = true;
+        generatorPool = twitterExecutors.newPool("mock-tweet-generator", threadCount);
+        SplittableRandom rootRandom = new SplittableRandom();
+        double tweetsPerSecondPerThread = (double) targetTweetsPerSecond / threadCount;
+        for (int i = 0; i < threadCount; i++) {
+            MockTweetFactory mockTweetFactory = new MockTweetFactory(keywords, minTweetLength, maxTweetLength,
+                    rootRandom.split());
+            // allow ~10ms worth of tweets as burst so a short stall is caught up immediately
+            TokenBucket tokenBucket = new TokenBucket(tweetsPerSecondPerThread, Math.max(1, tweetsPerSecondPerThread / 100));
+            boolean reporter = i == 0;
+            generatorPool.execute(() -> generateLoad(mockTweetFactory, tokenBucket, tweetsPerSecondPerThread, reporter));
+        }
+    }
 
-        simulateTweet(keywords, minTweetLength, maxTweetLength, sleepMs);
+    /**
+     * the bucket rate follows the backpressure rate factor, a paused controller parks the generator.
+     */
+    private void generateLoad(MockTweetFactory mockTweetFactory, TokenBucket tokenBucket,
+                              double tweetsPerSecond, boolean reporter) {
+        long lastReportNanos = System.nanoTime();
+        long lastReportCount = 0;
+        double rateFactor = 1.0;
+        while (loadGeneratorRunning && !Thread.currentThread().isInterrupted()) {
+            if (backpressureController.isPaused()) {
+                LockSupport.parkNanos(PAUSED_PARK_NANOS);
+                continue;
+            }
+            if (rateFactor != backpressureController.getRateFactor()) {
+                rateFactor = backpressureController.getRateFactor();
+                tokenBucket.setRate(tweetsPerSecond * rateFactor);
+            }
+            tokenBucket.acquire();
+            try {
+                twitterKafkaStatusListener.onStatus(mockTweetFactory.createStatus());
+                generatedTweets.increment();
+            } catch (RuntimeException e) {
+                LOG.error("Error while generating mock tweet", e);
+            }
+            if (reporter) {
+                long now = System.nanoTime();
+                if (now - lastReportNanos >= LOAD_REPORT_INTERVAL_NANOS) {
+                    long count = generatedTweets.sum();
+                    LOG.info("Mock load generator produced {} tweets/sec",
+                            (count - lastReportCount) * 1_000_000_000L / (now - lastReportNanos));
+                    lastReportNanos = now;
+                    lastReportCount = count;
+                }
+            }
+        }
     }
 
     private void simulateTweet(String[] keywords, int minTweetLength, int maxTweetLength, long sleepMs) {
-        // we don't want to interrupt the main thread so we run tweet on a single thread with help executor
-        try {
-            Executors.newSingleThreadExecutor().submit(()->{
-                while(true){
+        // we don't want to interrupt the main thread so tweets are simulated on a pool thread
+        loadGeneratorRunning = true;
+        generatorPool = twitterExecutors.newPool("mock-tweet-simulator", 1);
+        generatorPool.execute(() -> {
+            while (loadGeneratorRunning) {
+                try {
                     String formattedTextAsJson = getFormattedTextAsJson(keywords, minTweetLength, maxTweetLength);
                     Status status = TwitterObjectFactory.createStatus(formattedTextAsJson);
                     twitterKafkaStatusListener.onStatus(status);
-                    sleep(sleepMs);
+                    do {
+                        Thread.sleep((long) (sleepMs / backpressureController.getRateFactor()));
+                    } while (backpressureController.isPaused());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    LOG.error("Error pop up while tweet streaming , " + e.getLocalizedMessage());
                 }
-            });
-        } catch (Exception e) {
-            LOG.error("Error pop up while tweet streaming , "+e.getLocalizedMessage());
-        }
-    }
-
-    private void sleep(long millis){
-        try{
-            Thread.sleep(millis);
-        }catch(RuntimeException | InterruptedException ex){
-            throw new TwitterToKafkaServiceException("error encountered while running tweet mocking ,"+ex.getLocalizedMessage());
-        }
+            }
+        });
     }
 
-    private String getFormattedTextAsJson(String[] keywords, int minTweetLength, int maxTweetLength) {
+    // public for the benchmarks module
+    public String getFormattedTextAsJson(String[] keywords, int minTweetLength, int maxTweetLength) {
 
         String[] params=new String[]{
                 ZonedDateTime.now().format(DateTimeFormatter.ofPattern(TWITTER_DATE_FORMAT, Locale.ENGLISH)),
@@ -136,7 +207,7 @@ public class MockKafkaStreamRunner implements TwitterStreamKafkaRunner {
         StringBuilder tweetBuilder = new StringBuilder();
 
         for(int i = 0; i< tweetLength; i++){
-            tweetBuilder.append(MOCK_WORDS[RANDOM.nextInt(MOCK_WORDS.length)]).append(" ");
+            tweetBuilder.append(MockTweetFactory.MOCK_WORDS[RANDOM.nextInt(MockTweetFactory.MOCK_WORDS.length)]).append(" ");
 
             if(i == tweetLength /2){
                 tweetBuilder.append(keywords[RANDOM.nextInt(keywords.length)]).append(" ");
@@ -0,0 +1,113 @@
+package com.ouz.microservices.twitter2kafka.service.runner.impl;
+
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.twitter2kafka.service.corpus.TweetCorpusReader;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.listener.TwitterKafkaStatusListener;
+import com.ouz.microservices.twitter2kafka.service.runner.TwitterStreamKafkaRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import twitter4j.Status;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * replays a recorded tweet corpus, no twitter connection is needed.
+ * Primary so that it is the runner in use whenever replay is enabled, whatever enable-mock-tweets says.
+ *
+ * replay-speed 1.0 keeps the original gaps between createdAt values, 2.0 halves them,
+ * 0 (or below) sends as fast as the pipeline accepts.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(value = "tweet-corpus-config.replay-enabled", havingValue = "true")
+public class ReplayKafkaStreamRunner implements TwitterStreamKafkaRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayKafkaStreamRunner.class);
+
+    private final TweetCorpusConfigData tweetCorpusConfigData;
+    private final TwitterKafkaStatusListener twitterKafkaStatusListener;
+    private final TwitterExecutors twitterExecutors;
+
+    private volatile boolean running;
+    private ExecutorService replayPool;
+
+    public ReplayKafkaStreamRunner(TweetCorpusConfigData configData, TwitterKafkaStatusListener statusListener,
+                                   TwitterExecutors twitterExecutors) {
+        this.tweetCorpusConfigData = configData;
+        this.twitterKafkaStatusListener = statusListener;
+        this.twitterExecutors = twitterExecutors;
+    }
+
+    @Override
+    public void start() {
+        TweetCorpusReader reader;
+        try {
+            reader = new TweetCorpusReader(Paths.get(tweetCorpusConfigData.getReplayFile()));
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Could not open tweet corpus " +
+                    tweetCorpusConfigData.getReplayFile(), e);
+        }
+        double speed = tweetCorpusConfigData.getReplaySpeed() == null ? 1.0 : tweetCorpusConfigData.getReplaySpeed();
+        boolean loop = Boolean.TRUE.equals(tweetCorpusConfigData.getReplayLoop());
+        LOG.info("Replaying tweet corpus {} at speed {}, loop {}", tweetCorpusConfigData.getReplayFile(),
+                speed <= 0 ? "max" : speed, loop);
+
+        running = true;
+        replayPool = twitterExecutors.newPool("tweet-corpus-replay", 1);
+        replayPool.execute(() -> replay(reader, speed, loop));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (replayPool != null) {
+            replayPool.shutdownNow();
+            twitterExecutors.shutdown(replayPool);
+        }
+    }
+
+    private void replay(TweetCorpusReader reader, double speed, boolean loop) {
+        long replayed = 0;
+        try (reader) {
+            do {
+                replayed += replayOnce(reader, speed);
+                reader.rewind();
+            } while (loop && running);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Error while replaying tweet corpus", e);
+        }
+        LOG.info("Tweet corpus replay finished, {} tweet(s) replayed", replayed);
+    }
+
+    private long replayOnce(TweetCorpusReader reader, double speed) throws IOException {
+        long count = 0;
+        long startNanos = System.nanoTime();
+        long firstCreatedAt = Long.MIN_VALUE;
+        Status status;
+        while (running && (status = reader.next()) != null) {
+            if (speed > 0 && status.getCreatedAt() != null) {
+                long createdAt = status.getCreatedAt().getTime();
+                if (firstCreatedAt == Long.MIN_VALUE) {
+                    firstCreatedAt = createdAt;
+                }
+                long dueNanos = startNanos + (long) ((createdAt - firstCreatedAt) * 1_000_000L / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+            }
+            twitterKafkaStatusListener.onStatus(status);
+            count++;
+        }
+        return count;
+    }
+}
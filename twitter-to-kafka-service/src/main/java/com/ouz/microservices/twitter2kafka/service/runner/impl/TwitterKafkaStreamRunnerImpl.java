@@ -1,19 +1,26 @@
 package com.ouz.microservices.twitter2kafka.service.runner.impl;
 
-import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.config.TwitterStreamConfigData;
+import com.ouz.microservices.twitter2kafka.service.backpressure.BackpressureController;
+import com.ouz.microservices.twitter2kafka.service.backpressure.ThrottleListener;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
 import com.ouz.microservices.twitter2kafka.service.listener.TwitterKafkaStatusListener;
 import com.ouz.microservices.twitter2kafka.service.runner.TwitterStreamKafkaRunner;
+import com.ouz.microservices.twitter2kafka.service.stream.ShardedTwitterStream;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
-import twitter4j.FilterQuery;
 import twitter4j.TwitterException;
-import twitter4j.TwitterStream;
 import twitter4j.TwitterStreamFactory;
+import twitter4j.conf.ConfigurationBuilder;
 
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Spring bean'ler default olarak Singleton scope da oluşturulurlar.
@@ -26,35 +33,98 @@ import javax.annotation.PreDestroy;
 
 @Service
 @ConditionalOnProperty(value="twitter-to-kafka-service.enable-mock-tweets",havingValue = "false",matchIfMissing = true)
-@Scope(value="Prototype")
 public class TwitterKafkaStreamRunnerImpl implements TwitterStreamKafkaRunner {
 
     private final Logger LOG = LoggerFactory.getLogger(TwitterKafkaStreamRunnerImpl.class);
 
-    private final Twitter2KafkaServiceConfigData twitter2KafkaServiceConfigData;
+    private final KeywordRegistry keywordRegistry;
+    private final TwitterStreamConfigData twitterStreamConfigData;
     private final TwitterKafkaStatusListener twitterKafkaStatusListener;
+    private final TwitterExecutors twitterExecutors;
+    private final MeterRegistry meterRegistry;
+    private final BackpressureController backpressureController;
 
-    private TwitterStream twitterStream;
+    private volatile ShardedTwitterStream shardedTwitterStream;
 
-    public TwitterKafkaStreamRunnerImpl(Twitter2KafkaServiceConfigData configData,
-                                        TwitterKafkaStatusListener statusListener) {
-        this.twitter2KafkaServiceConfigData = configData;
+    public TwitterKafkaStreamRunnerImpl(KeywordRegistry keywordRegistry,
+                                        TwitterStreamConfigData streamConfigData,
+                                        TwitterKafkaStatusListener statusListener,
+                                        TwitterExecutors twitterExecutors,
+                                        MeterRegistry meterRegistry,
+                                        BackpressureController backpressureController) {
+        this.keywordRegistry = keywordRegistry;
+        this.twitterStreamConfigData = streamConfigData;
         this.twitterKafkaStatusListener = statusListener;
+        this.twitterExecutors = twitterExecutors;
+        this.meterRegistry = meterRegistry;
+        this.backpressureController = backpressureController;
     }
 
+    /**
+     * every shard opens its own TwitterStream, getInstance() of the shard's TwitterStreamFactory creates a new
+     * connection on each call. Twitter allows one filter connection per account, so a single shard uses the
+     * twitter4j.properties credentials and more shards need shard-credentials, one account each.
+     * The stream can not be slowed down, under backpressure the shards are paused and resumed instead.
+     * A keyword reload refilters the running shards, there is no new connection and no restart.
+     */
     @Override
     public void start() throws TwitterException {
-        twitterStream = new TwitterStreamFactory().getInstance();
-        twitterStream.addListener(twitterKafkaStatusListener);
-        addFilter();
-    }
+        List<String> keywords = keywordRegistry.getKeywordSet().getActiveKeywords();
+        List<TwitterStreamFactory> twitterStreamFactories = shardStreamFactories(twitterStreamConfigData);
+        shardedTwitterStream = new ShardedTwitterStream(twitterStreamConfigData, keywords,
+                index -> twitterStreamFactories.get(index).getInstance(), twitterKafkaStatusListener,
+                twitterExecutors);
+        shardedTwitterStream.registerMeters(meterRegistry);
+        ShardedTwitterStream stream = shardedTwitterStream;
+        backpressureController.addThrottleListener(new ThrottleListener() {
+            @Override
+            public void onPause() {
+                stream.pause();
+            }
 
-    private void addFilter() {
-        String[] keywords = twitter2KafkaServiceConfigData.getTwitterKeywords().toArray(new String[0]);
-        FilterQuery filterQuery = new FilterQuery(keywords);
-        twitterStream.filter(filterQuery);
-        twitterStream.filter(filterQuery.language("TR","tr"));
+            @Override
+            public void onResume() {
+                stream.resume();
+            }
+        });
+        keywordRegistry.addKeywordChangeListener(keywordSet -> stream.updateKeywords(keywordSet.getActiveKeywords()));
         LOG.info("Starting streaming for Twitter keywords " + keywords);
+        shardedTwitterStream.start();
+    }
+
+    /**
+     * one factory per shard. A second connection with the same account makes twitter close the first one, the
+     * shards would keep disconnecting each other and the stall detector would reconnect them in a loop.
+     */
+    static List<TwitterStreamFactory> shardStreamFactories(TwitterStreamConfigData streamConfigData) {
+        int shardCount = Math.max(1, streamConfigData.getShardCount());
+        List<TwitterStreamConfigData.ShardCredentials> shardCredentials = streamConfigData.getShardCredentials();
+        if (shardCredentials.isEmpty()) {
+            if (shardCount > 1) {
+                throw new TwitterToKafkaServiceException("twitter-stream-config.shard-count " + shardCount +
+                        " needs shard-credentials for every shard, twitter allows one filter connection per account");
+            }
+            return List.of(new TwitterStreamFactory());
+        }
+        if (shardCredentials.size() < shardCount) {
+            throw new TwitterToKafkaServiceException("twitter-stream-config.shard-count " + shardCount +
+                    " needs shard-credentials for every shard, only " + shardCredentials.size() + " configured");
+        }
+        List<TwitterStreamFactory> factories = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            TwitterStreamConfigData.ShardCredentials credentials = shardCredentials.get(i);
+            factories.add(new TwitterStreamFactory(new ConfigurationBuilder()
+                    .setOAuthConsumerKey(credentials.getConsumerKey())
+                    .setOAuthConsumerSecret(credentials.getConsumerSecret())
+                    .setOAuthAccessToken(credentials.getAccessToken())
+                    .setOAuthAccessTokenSecret(credentials.getAccessTokenSecret())
+                    .build()));
+        }
+        return factories;
+    }
+
+    public ShardedTwitterStream getShardedTwitterStream() {
+        return shardedTwitterStream;
     }
 
     /**
@@ -64,9 +134,9 @@ public class TwitterKafkaStreamRunnerImpl implements TwitterStreamKafkaRunner {
      */
     @PreDestroy
     public void shutdown(){
-        if(twitterStream != null){
+        if(shardedTwitterStream != null){
             LOG.info("Closing twitter streaming !");
-            twitterStream.shutdown();
+            shardedTwitterStream.shutdown();
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.ouz.microservices.twitter2kafka.service.runner.mock;
+
+import com.ouz.microservices.twitter2kafka.service.status.LightweightStatus;
+import com.ouz.microservices.twitter2kafka.service.status.LightweightUser;
+import twitter4j.Status;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+
+/**
+ * builds random tweets straight into Status objects, without the json round trip of
+ * TwitterObjectFactory. One instance per generator thread: the random source and the text
+ * builder are reused and never shared.
+ */
+public class MockTweetFactory {
+
+    public static final String[] MOCK_WORDS = new String[]{
+            "Lorem",
+            "ipsum",
+            "dolor",
+            "sit",
+            "dolor",
+            "amet",
+            "consectetur",
+            "adipiscing",
+            "elit",
+            "Maecenas",
+            "id",
+            "sapien",
+            "sit",
+            "amet",
+            "lacus",
+            "elementum",
+            "pretium",
+            "eu",
+            "at",
+            "eros"
+    };
+
+    private final String[] keywords;
+    private final int minTweetLength;
+    private final int maxTweetLength;
+    private final SplittableRandom random;
+    private final StringBuilder tweetBuilder = new StringBuilder(256);
+
+    public MockTweetFactory(String[] keywords, int minTweetLength, int maxTweetLength, SplittableRandom random) {
+        this.keywords = keywords;
+        this.minTweetLength = minTweetLength;
+        this.maxTweetLength = maxTweetLength;
+        this.random = random;
+    }
+
+    public Status createStatus() {
+        return new LightweightStatus(
+                random.nextLong(Long.MAX_VALUE),
+                createText(),
+                new Date(System.currentTimeMillis()),
+                new LightweightUser(random.nextLong(Long.MAX_VALUE)),
+                null);
+    }
+
+    private String createText() {
+        int tweetLength = random.nextInt(minTweetLength, maxTweetLength + 1);
+        tweetBuilder.setLength(0);
+        for (int i = 0; i < tweetLength; i++) {
+            tweetBuilder.append(MOCK_WORDS[random.nextInt(MOCK_WORDS.length)]).append(' ');
+            if (i == tweetLength / 2) {
+                tweetBuilder.append(keywords[random.nextInt(keywords.length)]).append(' ');
+            }
+        }
+        if (tweetBuilder.length() > 0) {
+            tweetBuilder.setLength(tweetBuilder.length() - 1);
+        }
+        return tweetBuilder.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * append-only on-disk queue of keyed records in memory-mapped segment files, see TweetSpoolSegment.
+ *
+ * Writers append to the newest segment, a new one is created when it is full. The reader takes records
+ * from the oldest segment with peek and moves on with commit after kafka acknowledged them, so a failed
+ * drain simply peeks the same records again. A segment is deleted once all its records are committed
+ * and it is no longer written to. Only the segments in use are mapped, heap only holds the records
+ * being drained.
+ *
+ * Methods lock the spool, appends come from several dispatcher threads and producer callbacks.
+ * isEmpty and getRecordCount only read a volatile count.
+ */
+public class TweetSpool {
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long schemaFingerprint;
+    private final Deque<TweetSpoolSegment> segments = new ArrayDeque<>();
+
+    // written under the lock, read without it by isEmpty on the dispatch path
+    private volatile long recordCount;
+    private long nextSequence;
+
+    /**
+     * new segments are written with schemaFingerprint, segments recovered from the directory keep their own.
+     */
+    public TweetSpool(Path directory, int segmentSize, int maxSegments, long schemaFingerprint) throws IOException {
+        if (segmentSize <= TweetSpoolSegment.HEADER_LENGTH + TweetSpoolSegment.RECORD_OVERHEAD || maxSegments < 1) {
+            throw new IllegalArgumentException("Invalid spool settings, segment size: " + segmentSize +
+                    ", max segments: " + maxSegments);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.schemaFingerprint = schemaFingerprint;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * @return false when the record does not fit into the spool, either too large for a segment
+     * or all max-segments are in use.
+     */
+    public synchronized boolean append(long key, byte[] payload) throws IOException {
+        if (payload.length == 0 || !TweetSpoolSegment.fitsEmptySegment(payload.length, segmentSize)) {
+            return false;
+        }
+        TweetSpoolSegment segment = segments.peekLast();
+        if (segment == null || !segment.hasRoom(payload.length)) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            if (segment != null) {
+                segment.seal();
+            }
+            segment = TweetSpoolSegment.create(segmentPath(nextSequence), nextSequence++, segmentSize,
+                    schemaFingerprint);
+            segments.addLast(segment);
+        }
+        segment.append(key, payload);
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * up to maxRecords records after the last commit, in append order, from the oldest segment only.
+     */
+    public synchronized List<TweetSpoolRecord> peek(int maxRecords) throws IOException {
+        deleteReadSegments();
+        TweetSpoolSegment segment = segments.peekFirst();
+        if (segment == null) {
+            return List.of();
+        }
+        List<TweetSpoolRecord> records = new ArrayList<>(Math.min(maxRecords, 1024));
+        int writeOffset = segment.getWriteOffset();
+        int offset = segment.getReadOffset();
+        TweetSpoolRecord record;
+        while (records.size() < maxRecords && (record = segment.read(offset)) != null) {
+            records.add(record);
+            offset = record.getNextOffset();
+        }
+        if (segment.getWriteOffset() != writeOffset) {
+            // a corrupted record ended the segment, the records after it are gone
+            recountRecords();
+            if (records.isEmpty()) {
+                return peek(maxRecords);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * marks every peeked record up to and including this one as delivered.
+     */
+    public synchronized void commit(TweetSpoolRecord lastDelivered, int deliveredCount) throws IOException {
+        TweetSpoolSegment segment = segments.peekFirst();
+        if (segment == null || segment.getSequence() != lastDelivered.getSegmentSequence()) {
+            return;
+        }
+        segment.commit(lastDelivered.getNextOffset());
+        recordCount = Math.max(0, recordCount - deliveredCount);
+        deleteReadSegments();
+    }
+
+    public boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        long size = 0;
+        for (TweetSpoolSegment segment : segments) {
+            size += segment.getWriteOffset() - segment.getReadOffset();
+        }
+        return size;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized void close() throws IOException {
+        for (TweetSpoolSegment segment : segments) {
+            segment.flush();
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    /**
+     * fully read segments are deleted, except the newest one while it is still appended to.
+     */
+    private void deleteReadSegments() throws IOException {
+        while (!segments.isEmpty()) {
+            TweetSpoolSegment segment = segments.peekFirst();
+            if (!segment.isFullyRead() || (segments.size() == 1 && segment.hasRoom(1))) {
+                return;
+            }
+            segments.pollFirst().delete();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            String fileName = path.getFileName().toString();
+            long sequence = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+            TweetSpoolSegment segment = TweetSpoolSegment.open(path, sequence);
+            segments.addLast(segment);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            recordCount += segment.countUnreadRecords();
+        }
+        deleteReadSegments();
+    }
+
+    private void recountRecords() {
+        long count = 0;
+        for (TweetSpoolSegment segment : segments) {
+            count += segment.countUnreadRecords();
+        }
+        recordCount = count;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,44 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+/**
+ * record read from the spool, nextOffset is what TweetSpool.commit needs once kafka acknowledged it.
+ */
+public final class TweetSpoolRecord {
+
+    private final long segmentSequence;
+    private final int nextOffset;
+    private final long key;
+    private final long schemaFingerprint;
+    private final byte[] payload;
+
+    TweetSpoolRecord(long segmentSequence, int nextOffset, long key, long schemaFingerprint, byte[] payload) {
+        this.segmentSequence = segmentSequence;
+        this.nextOffset = nextOffset;
+        this.key = key;
+        this.schemaFingerprint = schemaFingerprint;
+        this.payload = payload;
+    }
+
+    long getSegmentSequence() {
+        return segmentSequence;
+    }
+
+    int getNextOffset() {
+        return nextOffset;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * parsing fingerprint of the schema the payload was written with, 0 for a segment of spool format 1.
+     */
+    public long getSchemaFingerprint() {
+        return schemaFingerprint;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
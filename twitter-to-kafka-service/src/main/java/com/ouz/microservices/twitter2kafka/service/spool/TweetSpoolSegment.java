@@ -0,0 +1,222 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * one memory-mapped spool file of fixed size.
+ *
+ * Layout: int magic, int version, long committed offset, long writer schema fingerprint, then records of
+ * int payload length, int crc32c(key + payload), long key, payload bytes. A zero length ends the records,
+ * the file is zero filled on creation. Committed offset is the position of the first record not yet
+ * acknowledged by kafka, it is updated in place so a restart continues where the drain stopped.
+ * The fingerprint is the one of the schema all payloads of the segment were written with. Version 1 segments
+ * have no fingerprint field (16 byte header), they are opened with FORMAT_1_SCHEMA_FINGERPRINT.
+ *
+ * Records are visible to other processes as soon as they are written to the mapping, they are on disk
+ * after the page cache is flushed (force() on seal and close). Not thread-safe, TweetSpool locks.
+ */
+class TweetSpoolSegment {
+
+    static final int MAGIC = 0x54535053;
+    static final int VERSION = 2;
+    static final int HEADER_LENGTH = 24;
+    static final int RECORD_OVERHEAD = 16;
+    static final int FORMAT_1_VERSION = 1;
+    static final int FORMAT_1_HEADER_LENGTH = 16;
+    // version 1 segments do not know their writer schema
+    static final long FORMAT_1_SCHEMA_FINGERPRINT = 0L;
+
+    private static final int COMMITTED_OFFSET_POSITION = 8;
+    private static final int SCHEMA_FINGERPRINT_POSITION = 16;
+
+    private final long sequence;
+    private final Path path;
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    private int headerLength;
+    private long schemaFingerprint;
+    private int writeOffset;
+    private int readOffset;
+    private boolean sealed;
+
+    private TweetSpoolSegment(long sequence, Path path, FileChannel fileChannel, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.fileChannel = fileChannel;
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    static TweetSpoolSegment create(Path path, long sequence, int size, long schemaFingerprint) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        TweetSpoolSegment segment = new TweetSpoolSegment(sequence, path, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putLong(COMMITTED_OFFSET_POSITION, HEADER_LENGTH);
+        segment.buffer.putLong(SCHEMA_FINGERPRINT_POSITION, schemaFingerprint);
+        segment.headerLength = HEADER_LENGTH;
+        segment.schemaFingerprint = schemaFingerprint;
+        segment.writeOffset = HEADER_LENGTH;
+        segment.readOffset = HEADER_LENGTH;
+        return segment;
+    }
+
+    /**
+     * maps an existing segment and finds its end. Scan stops at the first zero length or crc mismatch,
+     * a record torn by a crash and everything after it is not replayed. Reopened segments are sealed,
+     * new records go to a new segment.
+     */
+    static TweetSpoolSegment open(Path path, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        TweetSpoolSegment segment = new TweetSpoolSegment(sequence, path, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        int version = segment.buffer.capacity() < HEADER_LENGTH || segment.buffer.getInt(0) != MAGIC ? -1 :
+                segment.buffer.getInt(4);
+        if (version == VERSION) {
+            segment.headerLength = HEADER_LENGTH;
+            segment.schemaFingerprint = segment.buffer.getLong(SCHEMA_FINGERPRINT_POSITION);
+        } else if (version == FORMAT_1_VERSION) {
+            segment.headerLength = FORMAT_1_HEADER_LENGTH;
+            segment.schemaFingerprint = FORMAT_1_SCHEMA_FINGERPRINT;
+        } else {
+            segment.close();
+            throw new IOException("Not a tweet spool segment: " + path);
+        }
+        int offset = segment.headerLength;
+        while (segment.isValidRecord(offset)) {
+            offset += RECORD_OVERHEAD + segment.buffer.getInt(offset);
+        }
+        segment.writeOffset = offset;
+        segment.sealed = true;
+        long committed = segment.buffer.getLong(COMMITTED_OFFSET_POSITION);
+        segment.readOffset = (int) Math.max(segment.headerLength, Math.min(committed, offset));
+        return segment;
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return !sealed && (long) writeOffset + RECORD_OVERHEAD + payloadLength <= buffer.capacity();
+    }
+
+    static boolean fitsEmptySegment(int payloadLength, int segmentSize) {
+        return (long) HEADER_LENGTH + RECORD_OVERHEAD + payloadLength <= segmentSize;
+    }
+
+    void append(long key, byte[] payload) {
+        int offset = writeOffset;
+        buffer.putLong(offset + 8, key);
+        buffer.duplicate().position(offset + RECORD_OVERHEAD).put(payload);
+        buffer.putInt(offset + 4, checksum(offset, payload.length));
+        // length last, a reader of the mapping never sees a record without its payload
+        buffer.putInt(offset, payload.length);
+        writeOffset = offset + RECORD_OVERHEAD + payload.length;
+    }
+
+    /**
+     * record at offset, or null at the end of the written records. The crc is checked again on read,
+     * a corrupted record ends the segment like a torn one does on open.
+     */
+    TweetSpoolRecord read(int offset) {
+        if (offset >= writeOffset) {
+            return null;
+        }
+        if (!isValidRecord(offset)) {
+            writeOffset = offset;
+            sealed = true;
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        byte[] payload = new byte[length];
+        buffer.duplicate().position(offset + RECORD_OVERHEAD).get(payload);
+        return new TweetSpoolRecord(sequence, offset + RECORD_OVERHEAD + length, buffer.getLong(offset + 8),
+                schemaFingerprint, payload);
+    }
+
+    /**
+     * records from the read offset to the end, the scan may end the segment early like read does.
+     */
+    int countUnreadRecords() {
+        int count = 0;
+        int offset = readOffset;
+        TweetSpoolRecord record;
+        while ((record = read(offset)) != null) {
+            count++;
+            offset = record.getNextOffset();
+        }
+        return count;
+    }
+
+    void commit(int offset) {
+        readOffset = offset;
+        buffer.putLong(COMMITTED_OFFSET_POSITION, offset);
+    }
+
+    boolean isFullyRead() {
+        return readOffset >= writeOffset;
+    }
+
+    int getReadOffset() {
+        return readOffset;
+    }
+
+    int getWriteOffset() {
+        return writeOffset;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    void seal() {
+        sealed = true;
+        buffer.force();
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    /**
+     * the mapping itself is released when the buffer is garbage collected, java 11 has no public unmap.
+     * Deleting the file before that is fine on linux.
+     */
+    void close() throws IOException {
+        fileChannel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private boolean isValidRecord(int offset) {
+        if ((long) offset + RECORD_OVERHEAD > buffer.capacity()) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || (long) offset + RECORD_OVERHEAD + length > buffer.capacity()) {
+            return false;
+        }
+        return buffer.getInt(offset + 4) == checksum(offset, length);
+    }
+
+    private int checksum(int offset, int payloadLength) {
+        crc.reset();
+        crc.update(buffer.duplicate().position(offset + 8).limit(offset + RECORD_OVERHEAD + payloadLength));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,316 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.TweetSpoolConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import com.ouz.microservices.twitter2kafka.service.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * keeps tweets on disk while the kafka cluster can not take them and sends them again when it is back.
+ *
+ * TweetDispatcher spools a tweet when the producer fails it with a retriable error (buffer full or no
+ * metadata within max.block.ms, broker timeouts). While the spool is not empty every new tweet goes to the
+ * spool as well, so the drain keeps the arrival order. The drain thread sends spooled tweets in batches at
+ * drain-tweets-per-second and commits a batch only after all of it was acknowledged, a failed batch is sent
+ * again after a back off. Delivery from the spool is at least once.
+ * Every spool segment keeps the fingerprint of the schema its payloads were written with. The drain reads them
+ * with that writer schema and the current TwitterAvroModel schema as reader, so tweets spooled by a release with
+ * an older schema from schema-history are sent with the defaults of the new fields. Segments of spool format 1
+ * have no fingerprint, they were written by the release with tweet schema v1; a payload is tried with the
+ * history schemas and then the current one, and only a schema that reads it to its last byte is taken.
+ * A tweet no known schema decodes is dropped instead of failing its batch forever.
+ */
+@Component
+public class TweetSpooler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TweetSpooler.class);
+
+    // writer schemas of earlier releases, oldest first
+    private static final List<String> SCHEMA_HISTORY = List.of("/schema-history/twitter-v1.avsc");
+    private static final long SCHEMA_FINGERPRINT =
+            SchemaNormalization.parsingFingerprint64(TwitterAvroModel.getClassSchema());
+
+    private final TweetSpoolConfigData tweetSpoolConfigData;
+    private final KafkaConfigData kafkaConfigData;
+    private final KafkaProducer<Long, TwitterAvroModel> kafkaProducer;
+    private final MeterRegistry meterRegistry;
+    private final TwitterExecutors twitterExecutors;
+
+    private final AvroSerializer<TwitterAvroModel> avroSerializer = new AvroSerializer<>();
+    // writer schema fingerprint to a reader resolving it to the current schema
+    private final Map<Long, SpecificDatumReader<TwitterAvroModel>> datumReaders = new HashMap<>();
+    // tried in order for spool format 1 payloads
+    private final List<SpecificDatumReader<TwitterAvroModel>> format1DatumReaders = new ArrayList<>();
+
+    private TweetSpool tweetSpool;
+    private ExecutorService drainPool;
+    private volatile boolean running;
+
+    private Counter spooledCount;
+    private Counter drainedCount;
+    private Counter droppedCount;
+
+    public TweetSpooler(TweetSpoolConfigData spoolConfigData,
+                        KafkaConfigData kafkaConfigData,
+                        KafkaProducer<Long, TwitterAvroModel> producer,
+                        MeterRegistry meterRegistry,
+                        TwitterExecutors twitterExecutors) {
+        this.tweetSpoolConfigData = spoolConfigData;
+        this.kafkaConfigData = kafkaConfigData;
+        this.kafkaProducer = producer;
+        this.meterRegistry = meterRegistry;
+        this.twitterExecutors = twitterExecutors;
+        for (String historySchema : SCHEMA_HISTORY) {
+            Schema writerSchema = loadSchema(historySchema);
+            SpecificDatumReader<TwitterAvroModel> datumReader =
+                    new SpecificDatumReader<>(writerSchema, TwitterAvroModel.getClassSchema());
+            datumReaders.put(SchemaNormalization.parsingFingerprint64(writerSchema), datumReader);
+            format1DatumReaders.add(datumReader);
+        }
+        SpecificDatumReader<TwitterAvroModel> currentDatumReader = new SpecificDatumReader<>(TwitterAvroModel.class);
+        datumReaders.put(SCHEMA_FINGERPRINT, currentDatumReader);
+        format1DatumReaders.add(currentDatumReader);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(tweetSpoolConfigData.getEnabled())) {
+            return;
+        }
+        try {
+            tweetSpool = new TweetSpool(Paths.get(tweetSpoolConfigData.getDirectory()),
+                    tweetSpoolConfigData.getSegmentSize(), tweetSpoolConfigData.getMaxSegments(), SCHEMA_FINGERPRINT);
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Could not open tweet spool in " +
+                    tweetSpoolConfigData.getDirectory(), e);
+        }
+        registerMeters();
+        running = true;
+        drainPool = twitterExecutors.newPool("tweet-spool-drain", 1);
+        drainPool.execute(this::drain);
+        LOG.info("Tweet spool opened in {} with {} pending tweet(s)",
+                Paths.get(tweetSpoolConfigData.getDirectory()).toAbsolutePath(), tweetSpool.getRecordCount());
+    }
+
+    public boolean isEnabled() {
+        return tweetSpool != null;
+    }
+
+    /**
+     * true while spooled tweets wait for the drain, new tweets have to queue up behind them.
+     */
+    public boolean isActive() {
+        return tweetSpool != null && !tweetSpool.isEmpty();
+    }
+
+    public long getPendingRecordCount() {
+        return tweetSpool == null ? 0 : tweetSpool.getRecordCount();
+    }
+
+    /**
+     * only errors kafka itself would retry mean the cluster is unavailable, anything else (serialization,
+     * record too large) fails the same way again and is not spooled.
+     */
+    public static boolean isSpoolable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false when the spool is disabled or full, the tweet is lost then.
+     */
+    public boolean spool(TwitterAvroModel twitterAvroModel) {
+        if (tweetSpool == null) {
+            return false;
+        }
+        try {
+            if (tweetSpool.append(twitterAvroModel.getUserId(), avroSerializer.serialize(null, twitterAvroModel))) {
+                spooledCount.increment();
+                return true;
+            }
+        } catch (IOException e) {
+            LOG.error("Error while spooling tweet with id {}", twitterAvroModel.getId(), e);
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (tweetSpool == null) {
+            return;
+        }
+        running = false;
+        drainPool.shutdownNow();
+        twitterExecutors.shutdown(drainPool, tweetSpoolConfigData.getDrainAckTimeoutMs());
+        try {
+            tweetSpool.close();
+            LOG.info("Tweet spool closed with {} pending tweet(s)", tweetSpool.getRecordCount());
+        } catch (IOException e) {
+            LOG.error("Error while closing tweet spool", e);
+        }
+    }
+
+    private void drain() {
+        String topicName = kafkaConfigData.getTopicName();
+        int batchSize = tweetSpoolConfigData.getDrainBatchSize();
+        TokenBucket tokenBucket = new TokenBucket(tweetSpoolConfigData.getDrainTweetsPerSecond(), batchSize);
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                List<TweetSpoolRecord> records = tweetSpool.peek(batchSize);
+                if (records.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(tweetSpoolConfigData.getDrainRetryBackoffMs());
+                    continue;
+                }
+                List<TwitterAvroModel> tweets = decode(records);
+                int undecodable = records.size() - tweets.size();
+                if (sendAndAwaitAcks(topicName, tweets, tokenBucket)) {
+                    tweetSpool.commit(records.get(records.size() - 1), records.size());
+                    drainedCount.increment(tweets.size());
+                    if (undecodable > 0) {
+                        droppedCount.increment(undecodable);
+                        LOG.error("Dropped {} spooled tweet(s) that no known tweet schema decodes", undecodable);
+                    }
+                } else {
+                    LOG.warn("Could not drain {} spooled tweet(s), {} pending, retrying in {} ms", records.size(),
+                            tweetSpool.getRecordCount(), tweetSpoolConfigData.getDrainRetryBackoffMs());
+                    TimeUnit.MILLISECONDS.sleep(tweetSpoolConfigData.getDrainRetryBackoffMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOG.error("Error while draining tweet spool", e);
+            }
+        }
+    }
+
+    private boolean sendAndAwaitAcks(String topicName, List<TwitterAvroModel> tweets, TokenBucket tokenBucket)
+            throws InterruptedException {
+        CountDownLatch acks = new CountDownLatch(tweets.size());
+        AtomicBoolean failed = new AtomicBoolean();
+        KafkaSendCallback<Long, TwitterAvroModel> callback = new KafkaSendCallback<>() {
+            @Override
+            public void onSuccess(String topic, Long key, TwitterAvroModel message) {
+                acks.countDown();
+            }
+
+            @Override
+            public void onFailure(String topic, Long key, TwitterAvroModel message, Throwable throwable) {
+                failed.set(true);
+                acks.countDown();
+            }
+        };
+        for (TwitterAvroModel twitterAvroModel : tweets) {
+            if (failed.get()) {
+                return false;
+            }
+            tokenBucket.acquire();
+            kafkaProducer.send(topicName, twitterAvroModel.getUserId(), twitterAvroModel, callback);
+        }
+        return acks.await(tweetSpoolConfigData.getDrainAckTimeoutMs(), TimeUnit.MILLISECONDS) && !failed.get();
+    }
+
+    /**
+     * the tweets of the records in order, without the ones no known schema decodes.
+     */
+    List<TwitterAvroModel> decode(List<TweetSpoolRecord> records) {
+        List<TwitterAvroModel> tweets = new ArrayList<>(records.size());
+        BinaryDecoder decoder = null;
+        for (TweetSpoolRecord record : records) {
+            List<SpecificDatumReader<TwitterAvroModel>> candidates =
+                    record.getSchemaFingerprint() == TweetSpoolSegment.FORMAT_1_SCHEMA_FINGERPRINT ?
+                            format1DatumReaders : singletonOrEmpty(datumReaders.get(record.getSchemaFingerprint()));
+            TwitterAvroModel twitterAvroModel = null;
+            for (SpecificDatumReader<TwitterAvroModel> datumReader : candidates) {
+                decoder = DecoderFactory.get().binaryDecoder(record.getPayload(), decoder);
+                try {
+                    TwitterAvroModel decoded = datumReader.read(null, decoder);
+                    if (decoder.isEnd()) {
+                        twitterAvroModel = decoded;
+                        break;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // a payload of another schema fails with any runtime exception, try the next one
+                }
+            }
+            if (twitterAvroModel == null) {
+                LOG.warn("Spooled tweet of user {} does not decode with a known tweet schema, fingerprint {}",
+                        record.getKey(), Long.toHexString(record.getSchemaFingerprint()));
+                continue;
+            }
+            tweets.add(twitterAvroModel);
+        }
+        return tweets;
+    }
+
+    private static List<SpecificDatumReader<TwitterAvroModel>> singletonOrEmpty(
+            SpecificDatumReader<TwitterAvroModel> datumReader) {
+        return datumReader == null ? List.of() : List.of(datumReader);
+    }
+
+    private static Schema loadSchema(String resource) {
+        try (InputStream schema = TweetSpooler.class.getResourceAsStream(resource)) {
+            if (schema == null) {
+                throw new TwitterToKafkaServiceException("Tweet schema " + resource + " is not on the classpath");
+            }
+            return new Schema.Parser().parse(schema);
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Could not read tweet schema " + resource, e);
+        }
+    }
+
+    private void registerMeters() {
+        Gauge.builder("twitter.spool.records", tweetSpool, TweetSpool::getRecordCount)
+                .description("Tweets waiting in the spool")
+                .register(meterRegistry);
+        Gauge.builder("twitter.spool.size", tweetSpool, TweetSpool::getSizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("twitter.spool.segments", tweetSpool, TweetSpool::getSegmentCount)
+                .register(meterRegistry);
+        spooledCount = Counter.builder("twitter.spool.spooled")
+                .description("Tweets written to the spool while kafka was unavailable")
+                .register(meterRegistry);
+        drainedCount = Counter.builder("twitter.spool.drained")
+                .description("Spooled tweets acknowledged by kafka")
+                .register(meterRegistry);
+        droppedCount = Counter.builder("twitter.spool.dropped")
+                .description("Tweets lost because the spool was full or no known tweet schema decodes them")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,123 @@
+package com.ouz.microservices.twitter2kafka.service.status;
+
+import twitter4j.GeoLocation;
+import twitter4j.HashtagEntity;
+import twitter4j.MediaEntity;
+import twitter4j.Place;
+import twitter4j.RateLimitStatus;
+import twitter4j.Scopes;
+import twitter4j.Status;
+import twitter4j.SymbolEntity;
+import twitter4j.URLEntity;
+import twitter4j.User;
+import twitter4j.UserMentionEntity;
+
+import java.util.Date;
+
+/**
+ * twitter4j Status carrying only the fields the pipeline reads (id, text, createdAt, user, lang).
+ * Built directly by the mock generator and the replay runner, so no json is rendered or parsed per tweet.
+ */
+public class LightweightStatus implements Status {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final UserMentionEntity[] NO_USER_MENTIONS = new UserMentionEntity[0];
+    private static final URLEntity[] NO_URLS = new URLEntity[0];
+    private static final HashtagEntity[] NO_HASHTAGS = new HashtagEntity[0];
+    private static final MediaEntity[] NO_MEDIA = new MediaEntity[0];
+    private static final SymbolEntity[] NO_SYMBOLS = new SymbolEntity[0];
+    private static final long[] NO_CONTRIBUTORS = new long[0];
+    private static final String[] NO_COUNTRIES = new String[0];
+
+    private final long id;
+    private final String text;
+    private final Date createdAt;
+    private final User user;
+    private final String lang;
+
+    public LightweightStatus(long id, String text, Date createdAt, User user, String lang) {
+        this.id = id;
+        this.text = text;
+        this.createdAt = createdAt;
+        this.user = user;
+        this.lang = lang;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public String getLang() {
+        return lang;
+    }
+
+    @Override
+    public int compareTo(Status that) {
+        return Long.compare(id, that.getId());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Status && ((Status) o).getId() == id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "LightweightStatus{id=" + id + ", userId=" + (user == null ? null : user.getId()) + '}';
+    }
+
+    @Override public int getDisplayTextRangeStart() { return 0; }
+    @Override public int getDisplayTextRangeEnd() { return text == null ? 0 : text.length(); }
+    @Override public String getSource() { return null; }
+    @Override public boolean isTruncated() { return false; }
+    @Override public long getInReplyToStatusId() { return -1L; }
+    @Override public long getInReplyToUserId() { return -1L; }
+    @Override public String getInReplyToScreenName() { return null; }
+    @Override public GeoLocation getGeoLocation() { return null; }
+    @Override public Place getPlace() { return null; }
+    @Override public boolean isFavorited() { return false; }
+    @Override public boolean isRetweeted() { return false; }
+    @Override public int getFavoriteCount() { return 0; }
+    @Override public boolean isRetweet() { return false; }
+    @Override public Status getRetweetedStatus() { return null; }
+    @Override public long[] getContributors() { return NO_CONTRIBUTORS; }
+    @Override public int getRetweetCount() { return 0; }
+    @Override public boolean isRetweetedByMe() { return false; }
+    @Override public long getCurrentUserRetweetId() { return -1L; }
+    @Override public boolean isPossiblySensitive() { return false; }
+    @Override public Scopes getScopes() { return null; }
+    @Override public String[] getWithheldInCountries() { return NO_COUNTRIES; }
+    @Override public long getQuotedStatusId() { return -1L; }
+    @Override public Status getQuotedStatus() { return null; }
+    @Override public URLEntity getQuotedStatusPermalink() { return null; }
+    @Override public UserMentionEntity[] getUserMentionEntities() { return NO_USER_MENTIONS; }
+    @Override public URLEntity[] getURLEntities() { return NO_URLS; }
+    @Override public HashtagEntity[] getHashtagEntities() { return NO_HASHTAGS; }
+    @Override public MediaEntity[] getMediaEntities() { return NO_MEDIA; }
+    @Override public SymbolEntity[] getSymbolEntities() { return NO_SYMBOLS; }
+    @Override public RateLimitStatus getRateLimitStatus() { return null; }
+    @Override public int getAccessLevel() { return NONE; }
+}
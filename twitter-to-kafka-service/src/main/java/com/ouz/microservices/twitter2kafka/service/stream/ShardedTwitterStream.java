@@ -0,0 +1,243 @@
+package com.ouz.microservices.twitter2kafka.service.stream;
+
+import com.ouz.microservices.config.TwitterStreamConfigData;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import twitter4j.StatusListener;
+import twitter4j.TwitterStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * keywords split round robin over shard-count stream connections that all feed the same listener, so one
+ * throttled or stalled connection only holds back its own keywords. The factory gets the shard index, every
+ * shard has to connect with its own account, twitter disconnects the older filter connection of an account.
+ *
+ * A monitor thread checks the shards every health-check-interval-ms. A shard that has not delivered a status
+ * for stall-timeout-ms, connected or not, gets a new TwitterStream. Reconnects of a shard that stays silent
+ * back off from reconnect-backoff-ms up to max-reconnect-backoff-ms, the first status resets the back off.
+ * twitter4j keeps its own retry for dropped connections, the stall timeout only has to cover connections
+ * that look open but carry nothing.
+ * pause() closes every connection (twitter does not buffer for us, tweets matching meanwhile are missed),
+ * resume() opens them again. Connections of a shard stay at least its back off apart across pause and resume
+ * as well, twitter rate limits reconnects: a shard whose back off has not passed at resume is connected by the
+ * monitor once it has.
+ * updateKeywords() splits the new keywords over the same shards and refilters only the shards whose slice
+ * changed, one after the other, the listener and the tweets queued behind it are not touched.
+ */
+public class ShardedTwitterStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedTwitterStream.class);
+
+    private final TwitterStreamConfigData twitterStreamConfigData;
+    private final TwitterExecutors twitterExecutors;
+    private final List<TwitterStreamShard> shards = new ArrayList<>();
+
+    private final long stallTimeoutNanos;
+    private final long[] reconnectBackoffMs;
+    private final long[] nextReconnectNanos;
+
+    private ExecutorService monitorPool;
+    private volatile boolean running;
+    private volatile boolean paused;
+
+    public ShardedTwitterStream(TwitterStreamConfigData configData,
+                                List<String> keywords,
+                                IntFunction<TwitterStream> twitterStreamFactory,
+                                StatusListener statusListener,
+                                TwitterExecutors twitterExecutors) {
+        this.twitterStreamConfigData = configData;
+        this.twitterExecutors = twitterExecutors;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configData.getStallTimeoutMs());
+        List<String> languages = configData.getLanguages() == null ? List.of() : configData.getLanguages();
+        List<String[]> keywordShards = splitKeywords(keywords, configData.getShardCount());
+        for (int i = 0; i < keywordShards.size(); i++) {
+            shards.add(new TwitterStreamShard(i, keywordShards.get(i), languages, twitterStreamFactory,
+                    statusListener));
+        }
+        this.reconnectBackoffMs = new long[shards.size()];
+        this.nextReconnectNanos = new long[shards.size()];
+    }
+
+    /**
+     * shard i gets every keyword whose position modulo the shard count is i.
+     */
+    public static List<String[]> splitKeywords(List<String> keywords, int shardCount) {
+        int count = Math.max(1, Math.min(shardCount, keywords.size()));
+        List<List<String>> shardKeywords = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shardKeywords.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keywords.size(); i++) {
+            shardKeywords.get(i % count).add(keywords.get(i));
+        }
+        List<String[]> result = new ArrayList<>(count);
+        for (List<String> shard : shardKeywords) {
+            result.add(shard.toArray(new String[0]));
+        }
+        return result;
+    }
+
+    /**
+     * with fewer keywords than shards, shards share keywords instead of closing, TweetDeduplicator drops
+     * the statuses that arrive twice.
+     */
+    public synchronized void updateKeywords(List<String> keywords) {
+        if (keywords.isEmpty()) {
+            return;
+        }
+        List<String[]> keywordShards = splitKeywords(keywords, shards.size());
+        for (TwitterStreamShard shard : shards) {
+            shard.refilter(keywordShards.get(shard.getIndex() % keywordShards.size()));
+        }
+    }
+
+    public void start() {
+        running = true;
+        long now = System.nanoTime();
+        for (TwitterStreamShard shard : shards) {
+            int i = shard.getIndex();
+            reconnectBackoffMs[i] = twitterStreamConfigData.getReconnectBackoffMs();
+            nextReconnectNanos[i] = now + TimeUnit.MILLISECONDS.toNanos(reconnectBackoffMs[i]);
+            shard.connect();
+        }
+        monitorPool = twitterExecutors.newPool("twitter-stream-monitor", 1);
+        monitorPool.execute(this::monitor);
+        LOG.info("Started {} twitter stream shard(s)", shards.size());
+    }
+
+    public void shutdown() {
+        running = false;
+        if (monitorPool != null) {
+            monitorPool.shutdownNow();
+            twitterExecutors.shutdown(monitorPool);
+        }
+        shards.forEach(TwitterStreamShard::shutdown);
+    }
+
+    public synchronized void pause() {
+        if (!paused) {
+            paused = true;
+            shards.forEach(TwitterStreamShard::pause);
+            LOG.info("Paused {} twitter stream shard(s)", shards.size());
+        }
+    }
+
+    public synchronized void resume() {
+        if (paused) {
+            paused = false;
+            long now = System.nanoTime();
+            int resumed = 0;
+            for (TwitterStreamShard shard : shards) {
+                if (now - nextReconnectNanos[shard.getIndex()] >= 0) {
+                    resumeShard(shard, now);
+                    resumed++;
+                }
+            }
+            LOG.info("Resumed {} of {} twitter stream shard(s), the others connect after their back off", resumed,
+                    shards.size());
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public List<TwitterStreamShard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    public boolean isHealthy(TwitterStreamShard shard) {
+        return shard.getState() == TwitterStreamShard.State.CONNECTED &&
+                System.nanoTime() - shard.getLastActivityNanos() < stallTimeoutNanos;
+    }
+
+    public void registerMeters(MeterRegistry meterRegistry) {
+        for (TwitterStreamShard shard : shards) {
+            Tags tags = Tags.of("shard", String.valueOf(shard.getIndex()));
+            FunctionCounter.builder("twitter.stream.shard.received", shard, TwitterStreamShard::getReceivedCount)
+                    .description("Statuses delivered by the stream shard")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder("twitter.stream.shard.limited", shard, TwitterStreamShard::getLimitedCount)
+                    .description("Statuses twitter held back from the shard by track limitation notices")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder("twitter.stream.shard.reconnects", shard, TwitterStreamShard::getReconnectCount)
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("twitter.stream.shard.healthy", shard, s -> isHealthy(s) ? 1 : 0)
+                    .description("1 while the shard is connected and delivering statuses")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+    }
+
+    private void monitor() {
+        long intervalMs = twitterStreamConfigData.getHealthCheckIntervalMs();
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                checkShards(System.nanoTime());
+            } catch (RuntimeException e) {
+                LOG.error("Error while checking twitter stream shards", e);
+            }
+        }
+    }
+
+    private synchronized void checkShards(long nowNanos) {
+        if (paused) {
+            return;
+        }
+        for (TwitterStreamShard shard : shards) {
+            int i = shard.getIndex();
+            if (shard.getState() == TwitterStreamShard.State.PAUSED) {
+                if (nowNanos - nextReconnectNanos[i] >= 0) {
+                    resumeShard(shard, nowNanos);
+                }
+                continue;
+            }
+            if (shard.hasReceivedSinceConnect()) {
+                reconnectBackoffMs[i] = twitterStreamConfigData.getReconnectBackoffMs();
+            }
+            if (nowNanos - shard.getLastActivityNanos() < stallTimeoutNanos || nowNanos - nextReconnectNanos[i] < 0) {
+                continue;
+            }
+            LOG.warn("Stream shard {} {} without a status for {} ms, reconnecting", i, shard.getState(),
+                    TimeUnit.NANOSECONDS.toMillis(nowNanos - shard.getLastActivityNanos()));
+            nextReconnectNanos[i] = nowNanos + TimeUnit.MILLISECONDS.toNanos(reconnectBackoffMs[i]);
+            if (!shard.hasReceivedSinceConnect()) {
+                reconnectBackoffMs[i] = Math.min(reconnectBackoffMs[i] * 2,
+                        twitterStreamConfigData.getMaxReconnectBackoffMs());
+            }
+            shard.reconnect();
+        }
+    }
+
+    /**
+     * reconnect of a paused shard, it backs off like a stall reconnect when its last connection carried nothing.
+     */
+    private void resumeShard(TwitterStreamShard shard, long nowNanos) {
+        int i = shard.getIndex();
+        nextReconnectNanos[i] = nowNanos + TimeUnit.MILLISECONDS.toNanos(reconnectBackoffMs[i]);
+        if (!shard.hasReceivedSinceConnect()) {
+            reconnectBackoffMs[i] = Math.min(reconnectBackoffMs[i] * 2, twitterStreamConfigData.getMaxReconnectBackoffMs());
+        }
+        shard.connect();
+    }
+}
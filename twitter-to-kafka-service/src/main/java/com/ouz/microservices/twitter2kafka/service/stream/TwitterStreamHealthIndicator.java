@@ -0,0 +1,49 @@
+package com.ouz.microservices.twitter2kafka.service.stream;
+
+import com.ouz.microservices.twitter2kafka.service.runner.impl.TwitterKafkaStreamRunnerImpl;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * contributes "twitterStream" to /actuator/health with the state of every stream shard, DOWN only when
+ * no shard delivers statuses. Shards paused by backpressure are not a failure, the stream stays UP.
+ */
+@Component
+@ConditionalOnProperty(value = "twitter-to-kafka-service.enable-mock-tweets", havingValue = "false", matchIfMissing = true)
+public class TwitterStreamHealthIndicator implements HealthIndicator {
+
+    private final TwitterKafkaStreamRunnerImpl twitterKafkaStreamRunner;
+
+    public TwitterStreamHealthIndicator(TwitterKafkaStreamRunnerImpl streamRunner) {
+        this.twitterKafkaStreamRunner = streamRunner;
+    }
+
+    @Override
+    public Health health() {
+        ShardedTwitterStream shardedTwitterStream = twitterKafkaStreamRunner.getShardedTwitterStream();
+        if (shardedTwitterStream == null) {
+            return Health.unknown().build();
+        }
+        boolean anyHealthy = false;
+        Health.Builder builder = Health.up();
+        for (TwitterStreamShard shard : shardedTwitterStream.getShards()) {
+            boolean healthy = shardedTwitterStream.isHealthy(shard);
+            anyHealthy |= healthy;
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("keywords", Arrays.asList(shard.getKeywords()));
+            details.put("state", shard.getState());
+            details.put("healthy", healthy);
+            details.put("received", shard.getReceivedCount());
+            details.put("reconnects", shard.getReconnectCount());
+            builder.withDetail("shard-" + shard.getIndex(), details);
+        }
+        builder.withDetail("paused", shardedTwitterStream.isPaused());
+        return anyHealthy || shardedTwitterStream.isPaused() ? builder.build() : builder.down().build();
+    }
+}
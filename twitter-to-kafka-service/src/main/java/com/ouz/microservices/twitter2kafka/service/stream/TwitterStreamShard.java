@@ -0,0 +1,195 @@
+package com.ouz.microservices.twitter2kafka.service.stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import twitter4j.ConnectionLifeCycleListener;
+import twitter4j.FilterQuery;
+import twitter4j.StallWarning;
+import twitter4j.Status;
+import twitter4j.StatusAdapter;
+import twitter4j.StatusListener;
+import twitter4j.TwitterStream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * one stream connection filtering a slice of the keywords. Statuses go to the shared pipeline listener,
+ * the shard only notes when the last one arrived so ShardedTwitterStream can tell a stalled or dropped
+ * connection from a healthy one and reconnect it with a fresh TwitterStream.
+ * refilter() sends a new FilterQuery over the same TwitterStream, twitter4j replaces the http connection but
+ * keeps its dispatcher and listeners, so statuses already read from the old connection are still delivered.
+ */
+public class TwitterStreamShard extends StatusAdapter implements ConnectionLifeCycleListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwitterStreamShard.class);
+
+    public enum State {
+        CONNECTING, CONNECTED, DISCONNECTED, PAUSED, STOPPED
+    }
+
+    private final int index;
+    private volatile String[] keywords;
+    private final List<String> languages;
+    private final IntFunction<TwitterStream> twitterStreamFactory;
+    private final StatusListener statusListener;
+
+    private final LongAdder receivedCount = new LongAdder();
+    private final LongAdder limitedCount = new LongAdder();
+    private volatile long lastActivityNanos;
+    private volatile State state = State.DISCONNECTED;
+    private volatile int reconnectCount;
+    private volatile boolean receivedSinceConnect;
+    private TwitterStream twitterStream;
+
+    public TwitterStreamShard(int index, String[] keywords, List<String> languages,
+                              IntFunction<TwitterStream> twitterStreamFactory, StatusListener statusListener) {
+        this.index = index;
+        this.keywords = keywords;
+        this.languages = languages;
+        this.twitterStreamFactory = twitterStreamFactory;
+        this.statusListener = statusListener;
+    }
+
+    synchronized void connect() {
+        if (state == State.STOPPED) {
+            return;
+        }
+        closeStream();
+        state = State.CONNECTING;
+        receivedSinceConnect = false;
+        lastActivityNanos = System.nanoTime();
+        twitterStream = twitterStreamFactory.apply(index);
+        twitterStream.addConnectionLifeCycleListener(this);
+        twitterStream.addListener(this);
+        twitterStream.filter(filterQuery());
+        LOG.info("Stream shard {} filtering keywords {}", index, Arrays.toString(keywords));
+    }
+
+    /**
+     * a paused or stopped shard only keeps the keywords for its next connect.
+     */
+    synchronized void refilter(String[] newKeywords) {
+        if (Arrays.equals(keywords, newKeywords)) {
+            return;
+        }
+        keywords = newKeywords;
+        if (twitterStream == null || state == State.STOPPED || state == State.PAUSED) {
+            return;
+        }
+        receivedSinceConnect = false;
+        lastActivityNanos = System.nanoTime();
+        twitterStream.filter(filterQuery());
+        LOG.info("Stream shard {} filtering keywords {}", index, Arrays.toString(newKeywords));
+    }
+
+    private FilterQuery filterQuery() {
+        FilterQuery filterQuery = new FilterQuery(keywords);
+        if (!languages.isEmpty()) {
+            filterQuery.language(languages.toArray(new String[0]));
+        }
+        return filterQuery;
+    }
+
+    synchronized void reconnect() {
+        reconnectCount++;
+        connect();
+    }
+
+    synchronized void pause() {
+        if (state != State.STOPPED) {
+            state = State.PAUSED;
+            closeStream();
+        }
+    }
+
+    synchronized void shutdown() {
+        state = State.STOPPED;
+        closeStream();
+    }
+
+    private void closeStream() {
+        if (twitterStream != null) {
+            twitterStream.clearListeners();
+            twitterStream.shutdown();
+            twitterStream = null;
+        }
+    }
+
+    @Override
+    public void onStatus(Status status) {
+        lastActivityNanos = System.nanoTime();
+        receivedSinceConnect = true;
+        receivedCount.increment();
+        statusListener.onStatus(status);
+    }
+
+    @Override
+    public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+        limitedCount.add(numberOfLimitedStatuses);
+    }
+
+    @Override
+    public void onStallWarning(StallWarning warning) {
+        LOG.warn("Stream shard {} is falling behind, {}% of the queue is full", index, warning.getPercentFull());
+    }
+
+    @Override
+    public void onException(Exception ex) {
+        LOG.warn("Stream shard {} error: {}", index, ex.getMessage());
+    }
+
+    @Override
+    public void onConnect() {
+        if (state != State.STOPPED && state != State.PAUSED) {
+            state = State.CONNECTED;
+            lastActivityNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void onDisconnect() {
+        if (state != State.STOPPED && state != State.PAUSED) {
+            state = State.DISCONNECTED;
+        }
+    }
+
+    @Override
+    public void onCleanUp() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String[] getKeywords() {
+        return keywords.clone();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    // statuses twitter held back because the shard's filter matched more than its rate limit
+    public long getLimitedCount() {
+        return limitedCount.sum();
+    }
+
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    boolean hasReceivedSinceConnect() {
+        return receivedSinceConnect;
+    }
+}
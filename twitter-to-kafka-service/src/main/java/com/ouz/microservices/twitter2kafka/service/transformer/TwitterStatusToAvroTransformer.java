@@ -0,0 +1,50 @@
+package com.ouz.microservices.twitter2kafka.service.transformer;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import org.springframework.stereotype.Component;
+import twitter4j.Status;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Status -> TwitterAvroModel mapping, runs once for every tweet so it has to stay cheap.
+ *
+ * TwitterAvroModel.newBuilder() creates a builder, a field-set flag array and resolves default
+ * values for every record. Here the record is filled through the primitive setters instead,
+ * so a tweet costs the record itself and the createdAt Instant, nothing else.
+ * lang is looked up in a prebuilt map, TweetLanguage.valueOf would need an upper case copy of every code.
+ */
+@Component
+public class TwitterStatusToAvroTransformer {
+
+    private static final Map<String, TweetLanguage> LANGUAGES = new HashMap<>();
+
+    static {
+        for (TweetLanguage language : TweetLanguage.values()) {
+            LANGUAGES.put(language.name().toLowerCase(Locale.ROOT), language);
+        }
+    }
+
+    public TwitterAvroModel getTwitterAvroModelFromStatus(Status status) {
+        TwitterAvroModel twitterAvroModel = new TwitterAvroModel();
+        twitterAvroModel.setUserId(status.getUser().getId());
+        twitterAvroModel.setId(status.getId());
+        twitterAvroModel.setText(status.getText());
+        Date createdAt = status.getCreatedAt();
+        twitterAvroModel.setCreatedAt(createdAt == null ? null : Instant.ofEpochMilli(createdAt.getTime()));
+        twitterAvroModel.setLang(toLanguage(status.getLang()));
+        // filled in by the keyword matcher, avro does not accept a null array
+        twitterAvroModel.setKeywordIds(Collections.emptyList());
+        return twitterAvroModel;
+    }
+
+    static TweetLanguage toLanguage(String lang) {
+        return lang == null ? TweetLanguage.UND : LANGUAGES.getOrDefault(lang, TweetLanguage.UND);
+    }
+}
@@ -1,13 +0,0 @@
-package com.ouz.microservice.twitter2kafka.service;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@SpringBootTest
-public class Twitter2KafkaServiceApplicationTest {
-
-    @Test
-    public void contextLoad(){
-
-    }
-}
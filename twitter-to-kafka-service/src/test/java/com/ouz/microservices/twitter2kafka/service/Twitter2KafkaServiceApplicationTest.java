@@ -0,0 +1,63 @@
+package com.ouz.microservices.twitter2kafka.service;
+
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.backpressure.BackpressureController;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetDispatcher;
+import com.ouz.microservices.twitter2kafka.service.runner.TwitterStreamKafkaRunner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * wires the whole service without a broker or twitter: the runner is mocked, the startup checks and the spool
+ * are off, producers connect lazily.
+ */
+@SpringBootTest(properties = {
+        "startup-readiness-config.enabled=false",
+        "tweet-spool-config.enabled=false",
+        "backpressure-config.enabled=false"
+})
+public class Twitter2KafkaServiceApplicationTest {
+
+    @MockBean
+    private TwitterStreamKafkaRunner twitterStreamKafkaRunner;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    public void contextLoads() {
+        assertNotNull(applicationContext.getBean(BackpressureController.class));
+        assertNotNull(applicationContext.getBean(TweetDispatcher.class));
+        assertEquals(0, applicationContext.getBeansOfType(ArenaTweetQueue.class).size());
+    }
+
+    @Nested
+    @SpringBootTest(properties = {
+            "startup-readiness-config.enabled=false",
+            "tweet-spool-config.enabled=false",
+            "backpressure-config.enabled=false",
+            "tweet-arena-config.enabled=true"
+    })
+    public class ArenaMode {
+
+        @Autowired
+        private ApplicationContext arenaContext;
+
+        @Test
+        public void contextLoads() {
+            ArenaTweetQueue arenaTweetQueue = arenaContext.getBean(ArenaTweetQueue.class);
+            assertNotNull(arenaContext.getBean("serializedKafkaTemplate"));
+            // the queue meters follow the arena, the ring buffer is not used
+            assertEquals(arenaTweetQueue.capacity(),
+                    arenaContext.getBean(MeterRegistry.class).get("twitter.queue.capacity").gauge().value());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ouz.microservices.twitter2kafka.service.aggregate;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KeywordAggregationConfigData;
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.kafka.avro.model.KeywordCountAvroModel;
+import com.ouz.microservices.kafka.producer.service.KafkaProducer;
+import com.ouz.microservices.kafka.producer.service.KafkaSendCallback;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class KeywordWindowAggregatorTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(10 * WINDOW_MS);
+    private final List<KeywordCountAvroModel> published = new ArrayList<>();
+    private final KeywordRegistry keywordRegistry = keywordRegistry();
+    private final KeywordWindowAggregator aggregator = aggregator();
+
+    @Test
+    public void mergesCountsOfAllThreads() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    aggregator.record(new int[]{0});
+                    aggregator.record(new int[]{1, 2});
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertArrayEquals(new long[]{40_000, 40_000, 40_000}, aggregator.mergeWindow(10));
+    }
+
+    @Test
+    public void windowsDoNotLeakIntoEachOther() {
+        aggregator.record(new int[]{0});
+        clock.addAndGet(WINDOW_MS);
+        aggregator.record(new int[]{1});
+        aggregator.record(new int[]{1});
+
+        assertArrayEquals(new long[]{1, 0, 0}, aggregator.mergeWindow(10));
+        assertArrayEquals(new long[]{0, 2, 0}, aggregator.mergeWindow(11));
+
+        // window 12 reuses the slot of window 10
+        clock.addAndGet(WINDOW_MS);
+        aggregator.record(new int[]{2});
+        assertArrayEquals(new long[]{0, 0, 0}, aggregator.mergeWindow(10));
+        assertArrayEquals(new long[]{0, 0, 1}, aggregator.mergeWindow(12));
+    }
+
+    @Test
+    public void publishesNonZeroCountsKeyedByKeywordId() {
+        aggregator.record(new int[]{0, 2});
+        aggregator.record(new int[]{2});
+
+        aggregator.publishWindow(10);
+
+        assertEquals(2, published.size());
+        assertEquals(new KeywordCountAvroModel(0, "Java", 10 * WINDOW_MS, 11 * WINDOW_MS, 1L), published.get(0));
+        assertEquals(new KeywordCountAvroModel(2, "Kafka", 10 * WINDOW_MS, 11 * WINDOW_MS, 2L), published.get(1));
+    }
+
+    @Test
+    public void keywordsAddedByReloadAreCountedInTheOpenWindow() {
+        aggregator.record(new int[]{0});
+        keywordRegistry.update(List.of("Java", "Kafka", "Docker"));
+        aggregator.record(new int[]{0, 3});
+
+        assertArrayEquals(new long[]{2, 0, 0, 1}, aggregator.mergeWindow(10));
+        aggregator.publishWindow(10);
+        assertEquals(new KeywordCountAvroModel(3, "Docker", 10 * WINDOW_MS, 11 * WINDOW_MS, 1L), published.get(1));
+    }
+
+    private static KeywordRegistry keywordRegistry() {
+        Twitter2KafkaServiceConfigData serviceConfigData = new Twitter2KafkaServiceConfigData();
+        serviceConfigData.setTwitterKeywords(List.of("Java", "Spring", "Kafka"));
+        return new KeywordRegistry(serviceConfigData);
+    }
+
+    private KeywordWindowAggregator aggregator() {
+        KeywordAggregationConfigData aggregationConfigData = new KeywordAggregationConfigData();
+        aggregationConfigData.setEnabled(true);
+        aggregationConfigData.setTopicName("twitter-keyword-count-topic");
+        aggregationConfigData.setWindowMs(WINDOW_MS);
+        aggregationConfigData.setCloseGraceMs(1000L);
+        KafkaProducer<Long, KeywordCountAvroModel> producer = new KafkaProducer<>() {
+            @Override
+            public void send(String topicName, Long key, KeywordCountAvroModel message) {
+                send(topicName, key, message, null);
+            }
+
+            @Override
+            public void send(String topicName, Long key, KeywordCountAvroModel message,
+                             KafkaSendCallback<Long, KeywordCountAvroModel> callback) {
+                assertEquals((long) message.getKeywordId(), key);
+                published.add(message);
+            }
+        };
+        return new KeywordWindowAggregator(aggregationConfigData, keywordRegistry, new KafkaConfigData(), producer,
+                null, clock::get);
+    }
+}
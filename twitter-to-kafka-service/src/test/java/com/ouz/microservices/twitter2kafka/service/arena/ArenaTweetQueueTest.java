@@ -0,0 +1,194 @@
+package com.ouz.microservices.twitter2kafka.service.arena;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.TweetArenaConfigData;
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.config.TweetSpoolConfigData;
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.kafka.producer.serializer.AvroSerializer;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArenaTweetQueueTest {
+
+    private static final String TOPIC = "twitter-topic";
+
+    @Test
+    public void queuedTweetIsSentAsAvroSerializerBytes() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("BLOCK");
+        TwitterAvroModel model = model(1L);
+
+        assertTrue(arenaTweetQueue.publish(model));
+        ArenaBlock block = arenaTweetQueue.poll();
+
+        assertEquals(ByteBuffer.wrap(new AvroSerializer<TwitterAvroModel>().serialize(TOPIC, model)), block.payload());
+        assertEquals(model, arenaTweetQueue.read(block));
+        assertEquals(model.getUserId(), block.getKey());
+        arenaTweetQueue.release(block);
+        assertEquals(0, arenaTweetQueue.getTweetArena().getUsedBytes());
+    }
+
+    @Test
+    public void dropNewestWhenNoBlockIsFree() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("DROP_NEWEST");
+        // one 1 KiB slab of 128 byte blocks
+        for (long i = 0; i < 8; i++) {
+            assertTrue(arenaTweetQueue.publish(model(i)));
+        }
+
+        assertFalse(arenaTweetQueue.publish(model(8L)));
+
+        assertEquals(1, arenaTweetQueue.getDroppedCount());
+        assertEquals(0L, arenaTweetQueue.read(arenaTweetQueue.poll()).getUserId());
+    }
+
+    @Test
+    public void dropOldestFreesTheOldestQueuedTweet() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("DROP_OLDEST");
+        for (long i = 0; i < 8; i++) {
+            arenaTweetQueue.publish(model(i));
+        }
+        // taken by the dispatcher, waiting for the broker ack, not evictable
+        ArenaBlock sending = arenaTweetQueue.poll();
+
+        assertTrue(arenaTweetQueue.publish(model(8L)));
+
+        assertEquals(0L, sending.getKey());
+        assertEquals(1, arenaTweetQueue.getDroppedCount());
+        assertEquals(2L, arenaTweetQueue.read(arenaTweetQueue.poll()).getUserId());
+        for (int i = 0; i < 5; i++) {
+            arenaTweetQueue.poll();
+        }
+        assertEquals(8L, arenaTweetQueue.read(arenaTweetQueue.poll()).getUserId());
+        assertNull(arenaTweetQueue.poll());
+    }
+
+    @Test
+    public void blockDropsATweetNoBlockFitsInAnAlmostEmptyArena() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("BLOCK");
+        // the only slab goes to the 128 byte class and stays there while a tweet holds a block
+        assertTrue(arenaTweetQueue.publish(model(1L)));
+        TwitterAvroModel longTweet = model(2L);
+        longTweet.setText("x".repeat(300));
+
+        assertFalse(arenaTweetQueue.publish(longTweet));
+
+        assertEquals(1, arenaTweetQueue.getDroppedCount());
+        arenaTweetQueue.release(arenaTweetQueue.poll());
+        // the free slab is reclaimed for the longer tweet
+        assertTrue(arenaTweetQueue.publish(longTweet));
+    }
+
+    @Test
+    public void tweetIsSpooledWhenTheSchemaRegistryIsNotReachable() {
+        List<TwitterAvroModel> spooled = new ArrayList<>();
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("BLOCK",
+                new SchemaRegistryClient("http://localhost:1", 10, Duration.ofMillis(500)), recordingSpooler(spooled));
+        TwitterAvroModel model = model(1L);
+
+        assertTrue(arenaTweetQueue.publish(model));
+
+        assertEquals(List.of(model), spooled);
+        assertNull(arenaTweetQueue.poll());
+        assertEquals(1, arenaTweetQueue.getSerializationFailures());
+        assertEquals(0, arenaTweetQueue.getDroppedCount());
+        assertEquals(0, arenaTweetQueue.getTweetArena().getUsedBytes());
+    }
+
+    @Test
+    public void unserializedTweetIsDroppedWhenTheSpoolIsOff() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue("BLOCK",
+                new SchemaRegistryClient("http://localhost:1", 10, Duration.ofMillis(500)), disabledSpooler());
+
+        assertFalse(arenaTweetQueue.publish(model(1L)));
+
+        assertEquals(1, arenaTweetQueue.getSerializationFailures());
+        assertEquals(1, arenaTweetQueue.getDroppedCount());
+    }
+
+    @Test
+    public void keywordPartitionStrategyIsRefusedForTheTwitterTopic() {
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setDefaultPartitionStrategy("STICKY_ROUND_ROBIN");
+        producerConfigData.setTopicPartitionStrategies(Map.of(TOPIC, "keyword"));
+
+        assertThrows(TwitterToKafkaServiceException.class,
+                () -> arenaTweetQueue("BLOCK", null, disabledSpooler(), producerConfigData));
+
+        producerConfigData.setDefaultPartitionStrategy("KEYWORD");
+        producerConfigData.setTopicPartitionStrategies(Map.of("other-topic", "USER_ID"));
+
+        assertThrows(TwitterToKafkaServiceException.class,
+                () -> arenaTweetQueue("BLOCK", null, disabledSpooler(), producerConfigData));
+    }
+
+    private static ArenaTweetQueue arenaTweetQueue(String overflowPolicy) {
+        return arenaTweetQueue(overflowPolicy, null, disabledSpooler());
+    }
+
+    private static ArenaTweetQueue arenaTweetQueue(String overflowPolicy, SchemaRegistryClient schemaRegistryClient,
+                                                   TweetSpooler tweetSpooler) {
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setSchemaRegistryWireFormat(schemaRegistryClient != null);
+        return arenaTweetQueue(overflowPolicy, schemaRegistryClient, tweetSpooler, producerConfigData);
+    }
+
+    private static ArenaTweetQueue arenaTweetQueue(String overflowPolicy, SchemaRegistryClient schemaRegistryClient,
+                                                   TweetSpooler tweetSpooler,
+                                                   KafkaProducerConfigData producerConfigData) {
+        TweetArenaConfigData arenaConfigData = new TweetArenaConfigData();
+        arenaConfigData.setEnabled(true);
+        arenaConfigData.setSlabCount(1);
+        arenaConfigData.setSlabSizeBytes(1024);
+        arenaConfigData.setMinBlockSizeBytes(128);
+        arenaConfigData.setBlockMinOccupancyPercent(50);
+        TweetQueueConfigData queueConfigData = new TweetQueueConfigData();
+        queueConfigData.setOverflowPolicy(overflowPolicy);
+        queueConfigData.setSampleRate(10);
+        queueConfigData.setSampleHighWaterMarkPercent(80);
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicName(TOPIC);
+        return new ArenaTweetQueue(arenaConfigData, queueConfigData, kafkaConfigData, producerConfigData,
+                schemaRegistryClient, tweetSpooler, new SimpleMeterRegistry());
+    }
+
+    private static TweetSpooler disabledSpooler() {
+        TweetSpoolConfigData spoolConfigData = new TweetSpoolConfigData();
+        spoolConfigData.setEnabled(false);
+        return new TweetSpooler(spoolConfigData, null, null, new SimpleMeterRegistry(), null);
+    }
+
+    private static TweetSpooler recordingSpooler(List<TwitterAvroModel> spooled) {
+        TweetSpoolConfigData spoolConfigData = new TweetSpoolConfigData();
+        spoolConfigData.setEnabled(false);
+        return new TweetSpooler(spoolConfigData, null, null, new SimpleMeterRegistry(), null) {
+            @Override
+            public boolean spool(TwitterAvroModel twitterAvroModel) {
+                return spooled.add(twitterAvroModel);
+            }
+        };
+    }
+
+    private static TwitterAvroModel model(long userId) {
+        return new TwitterAvroModel(userId, userId * 10, "tweet " + userId, Instant.ofEpochMilli(1643673600000L),
+                List.of(1), TweetLanguage.EN);
+    }
+}
@@ -0,0 +1,201 @@
+package com.ouz.microservices.twitter2kafka.service.arena;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TweetArenaTest {
+
+    @Test
+    public void blocksAreRoundedUpToTheirSizeClass() {
+        TweetArena tweetArena = new TweetArena(2, 1024, 128);
+
+        ArenaBlock small = tweetArena.allocate(100);
+        ArenaBlock medium = tweetArena.allocate(129);
+
+        assertEquals(128, small.capacity());
+        assertEquals(256, medium.capacity());
+        assertEquals(2, tweetArena.getAssignedSlabs());
+        assertEquals(384, tweetArena.getUsedBytes());
+        assertEquals(229, tweetArena.getPayloadBytes());
+        assertTrue(small.payload().isDirect());
+    }
+
+    @Test
+    public void freedBlockIsReused() {
+        TweetArena tweetArena = new TweetArena(1, 1024, 128);
+        ArenaBlock block = tweetArena.allocate(100);
+
+        tweetArena.free(block);
+
+        assertSame(block, tweetArena.allocate(50));
+        assertEquals(1, tweetArena.getUsedBlocks(0));
+        tweetArena.free(block);
+        assertThrows(IllegalStateException.class, () -> tweetArena.free(block));
+    }
+
+    @Test
+    public void fullArenaFallsBackToLargerBlocksThenFails() {
+        TweetArena tweetArena = new TweetArena(2, 512, 128);
+        // the first slab goes to the 256 byte class
+        assertNotNull(tweetArena.allocate(200));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(128, tweetArena.allocate(100).capacity());
+        }
+        // no slab left for the 128 byte class, the free 256 byte block is taken
+        assertEquals(256, tweetArena.allocate(100).capacity());
+
+        assertNull(tweetArena.allocate(100));
+        assertNull(tweetArena.allocate(1024));
+        assertEquals(2, tweetArena.getAllocationFailures());
+        assertEquals(1.0, tweetArena.getOccupancy());
+    }
+
+    @Test
+    public void freeSlabOfShortTweetsIsReclaimedForLongerOnes() {
+        TweetArena tweetArena = new TweetArena(2, 1024, 128);
+        List<ArenaBlock> shortTweets = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            shortTweets.add(tweetArena.allocate(100));
+        }
+        assertNull(tweetArena.allocate(100));
+        shortTweets.forEach(tweetArena::free);
+
+        ArenaBlock longTweet = tweetArena.allocate(200);
+
+        assertNotNull(longTweet);
+        assertEquals(256, longTweet.capacity());
+        assertEquals(1, tweetArena.getReclaimedSlabs());
+        // the other slab still holds the 128 byte class
+        for (int i = 0; i < 8; i++) {
+            assertEquals(128, tweetArena.allocate(100).capacity());
+        }
+        assertEquals(1, tweetArena.getReclaimedSlabs());
+    }
+
+    @Test
+    public void slabWithAnAllocatedBlockIsNotReclaimed() {
+        TweetArena tweetArena = new TweetArena(2, 1024, 128);
+        List<ArenaBlock> shortTweets = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            shortTweets.add(tweetArena.allocate(100));
+        }
+        // one short tweet left in each slab
+        for (int i = 1; i < 15; i++) {
+            tweetArena.free(shortTweets.get(i));
+        }
+
+        assertNull(tweetArena.allocate(1024));
+        assertEquals(0, tweetArena.getReclaimedSlabs());
+        assertEquals(128, shortTweets.get(15).capacity());
+
+        tweetArena.free(shortTweets.get(15));
+        assertEquals(1024, tweetArena.allocate(1024).capacity());
+    }
+
+    @Test
+    public void payloadIsKeptInTheBlock() {
+        TweetArena tweetArena = new TweetArena(1, 1024, 128);
+        ArenaBlock block = tweetArena.allocate(5);
+
+        block.write(7L, 8L, ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}), block.payload());
+        assertEquals(5, block.length());
+        assertEquals(7L, block.getKey());
+        assertEquals(8L, block.getTweetId());
+    }
+
+    @Test
+    public void concurrentAllocationsNeverShareABlock() throws Exception {
+        TweetArena tweetArena = new TweetArena(4, 4096, 128);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long owner = t;
+                futures.add(executorService.submit(() -> {
+                    for (int round = 0; round < 10_000; round++) {
+                        List<ArenaBlock> blocks = new ArrayList<>();
+                        for (int i = 0; i < 8; i++) {
+                            ArenaBlock block = tweetArena.allocate(100);
+                            assertNotNull(block);
+                            block.write(owner, i, ByteBuffer.wrap(new byte[]{(byte) owner}));
+                            blocks.add(block);
+                        }
+                        for (ArenaBlock block : blocks) {
+                            assertEquals(owner, block.getKey());
+                            assertEquals(owner, block.payload().get(0));
+                        }
+                        assertEquals(blocks.size(), new HashSet<>(blocks).size());
+                        blocks.forEach(tweetArena::free);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(0, tweetArena.getUsedBytes());
+        assertEquals(0, tweetArena.getPayloadBytes());
+    }
+
+    @Test
+    public void concurrentMixedSizesReclaimSlabsWithoutSharingABlock() throws Exception {
+        TweetArena tweetArena = new TweetArena(4, 1024, 128);
+        int[] lengths = {100, 200, 400, 1000};
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long owner = t;
+                futures.add(executorService.submit(() -> {
+                    for (int round = 0; round < 10_000; round++) {
+                        List<ArenaBlock> blocks = new ArrayList<>();
+                        for (int i = 0; i < 2; i++) {
+                            // a slab of each class may be pinned by another thread, then nothing fits
+                            ArenaBlock block = tweetArena.allocate(lengths[(int) ((round + i + owner) % 4)]);
+                            if (block != null) {
+                                block.write(owner, i, ByteBuffer.wrap(new byte[]{(byte) owner, (byte) i}));
+                                blocks.add(block);
+                            }
+                        }
+                        for (ArenaBlock block : blocks) {
+                            assertEquals(owner, block.getKey());
+                            assertEquals(owner, block.payload().get(0));
+                        }
+                        blocks.forEach(tweetArena::free);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(0, tweetArena.getUsedBytes());
+        assertTrue(tweetArena.getReclaimedSlabs() > 0);
+        // every slab can still be had by the largest class
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(tweetArena.allocate(1024));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ouz.microservices.twitter2kafka.service.backpressure;
+
+import com.ouz.microservices.config.BackpressureConfigData;
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.TweetArenaConfigData;
+import com.ouz.microservices.config.TweetQueueConfigData;
+import com.ouz.microservices.config.TweetSpoolConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaBlock;
+import com.ouz.microservices.twitter2kafka.service.arena.ArenaTweetQueue;
+import com.ouz.microservices.twitter2kafka.service.arena.TweetArena;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.spool.TweetSpooler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BackpressureControllerTest {
+
+    private static final long BUFFER_MEMORY = 1000;
+    private static final long PAUSE_HOLD_NANOS = 1_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong bufferAvailableBytes = new AtomicLong(BUFFER_MEMORY);
+    private final TweetRingBuffer<TwitterAvroModel> ringBuffer = new TweetRingBuffer<>(8, OverflowPolicy.DROP_NEWEST, 1, 100);
+    private final List<String> events = new ArrayList<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final BackpressureController controller = controller(Optional.empty());
+
+    @Test
+    public void fullProducerBufferHalvesRateUntilPaused() {
+        bufferAvailableBytes.set(100);
+
+        controller.sample();
+        assertEquals(0.5, controller.getRateFactor(), 1e-9);
+        for (int i = 0; i < 3; i++) {
+            controller.sample();
+        }
+        assertEquals(0.1, controller.getRateFactor(), 1e-9);
+        assertFalse(controller.isPaused(), "pauses only once the minimum rate did not help");
+
+        controller.sample();
+        assertTrue(controller.isPaused());
+        assertEquals(List.of("pause"), events);
+    }
+
+    @Test
+    public void resumesOnceRateClimbedBack() {
+        bufferAvailableBytes.set(100);
+        for (int i = 0; i < 6; i++) {
+            controller.sample();
+        }
+        assertTrue(controller.isPaused());
+
+        bufferAvailableBytes.set(BUFFER_MEMORY);
+        clock.addAndGet(PAUSE_HOLD_NANOS);
+        int samples = 0;
+        while (controller.isPaused()) {
+            controller.sample();
+            samples++;
+        }
+        // 0.1 -> 0.3 in steps of 0.05
+        assertEquals(4, samples);
+        assertEquals(List.of("pause", "resume"), events);
+    }
+
+    @Test
+    public void pauseAndResumeHoldForThePauseHoldTime() {
+        bufferAvailableBytes.set(100);
+        for (int i = 0; i < 5; i++) {
+            controller.sample();
+        }
+        assertTrue(controller.isPaused());
+
+        // the rate recovers within the hold time, the sources stay paused
+        bufferAvailableBytes.set(BUFFER_MEMORY);
+        for (int i = 0; i < 10; i++) {
+            controller.sample();
+        }
+        assertTrue(controller.isPaused());
+        clock.addAndGet(PAUSE_HOLD_NANOS);
+        controller.sample();
+        assertFalse(controller.isPaused());
+
+        // pressure right after the resume only slows the sources down
+        bufferAvailableBytes.set(100);
+        for (int i = 0; i < 10; i++) {
+            controller.sample();
+        }
+        assertFalse(controller.isPaused());
+        assertEquals(0.1, controller.getRateFactor(), 1e-9);
+        clock.addAndGet(PAUSE_HOLD_NANOS);
+        controller.sample();
+        assertTrue(controller.isPaused());
+        assertEquals(List.of("pause", "resume", "pause"), events);
+    }
+
+    @Test
+    public void queueFillCountsAsPressure() {
+        for (int i = 0; i < 7; i++) {
+            ringBuffer.offer(new TwitterAvroModel());
+        }
+        controller.sample();
+        assertEquals(0.5, controller.getRateFactor(), 1e-9);
+
+        while (ringBuffer.poll() != null) {
+            // drain
+        }
+        controller.sample();
+        assertEquals(0.55, controller.getRateFactor(), 1e-9);
+    }
+
+    @Test
+    public void arenaAllocationFailuresCountAsPressure() {
+        ArenaTweetQueue arenaTweetQueue = arenaTweetQueue();
+        BackpressureController arenaController = controller(Optional.of(arenaTweetQueue));
+        TweetArena tweetArena = arenaTweetQueue.getTweetArena();
+        // the slab goes to the 128 byte class, nothing fits 1 KiB in the almost empty arena
+        ArenaBlock block = tweetArena.allocate(100);
+        assertNull(tweetArena.allocate(1024));
+
+        arenaController.sample();
+        assertEquals(0.5, arenaController.getRateFactor(), 1e-9);
+
+        // no new failure
+        arenaController.sample();
+        assertEquals(0.55, arenaController.getRateFactor(), 1e-9);
+        tweetArena.free(block);
+    }
+
+    private BackpressureController controller(Optional<ArenaTweetQueue> arenaTweetQueue) {
+        BackpressureConfigData configData = new BackpressureConfigData();
+        configData.setEnabled(true);
+        configData.setSampleIntervalMs(100L);
+        configData.setMinBufferAvailableRatio(0.25);
+        configData.setMaxQueueFillRatio(0.75);
+        configData.setMaxSpoolRecords(1000L);
+        configData.setMaxSendLatencyMs(2000L);
+        configData.setDecreaseFactor(0.5);
+        configData.setIncreaseStep(0.05);
+        configData.setMinRateFactor(0.1);
+        configData.setResumeRateFactor(0.3);
+        configData.setPauseHoldMs(PAUSE_HOLD_NANOS / 1_000_000);
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setBufferMemory(BUFFER_MEMORY);
+        TweetSpoolConfigData spoolConfigData = new TweetSpoolConfigData();
+        spoolConfigData.setEnabled(false);
+        Gauge.builder("kafka.producer.buffer.available.bytes", bufferAvailableBytes, AtomicLong::get)
+                .register(meterRegistry);
+        BackpressureController backpressureController = new BackpressureController(configData, producerConfigData,
+                ringBuffer, arenaTweetQueue, new TweetSpooler(spoolConfigData, null, null, meterRegistry, null),
+                meterRegistry, null, clock::get);
+        backpressureController.addThrottleListener(new ThrottleListener() {
+            @Override
+            public void onPause() {
+                events.add("pause");
+            }
+
+            @Override
+            public void onResume() {
+                events.add("resume");
+            }
+        });
+        return backpressureController;
+    }
+
+    private static ArenaTweetQueue arenaTweetQueue() {
+        TweetArenaConfigData arenaConfigData = new TweetArenaConfigData();
+        arenaConfigData.setEnabled(true);
+        arenaConfigData.setSlabCount(1);
+        arenaConfigData.setSlabSizeBytes(1024);
+        arenaConfigData.setMinBlockSizeBytes(128);
+        arenaConfigData.setBlockMinOccupancyPercent(50);
+        TweetQueueConfigData queueConfigData = new TweetQueueConfigData();
+        queueConfigData.setOverflowPolicy("BLOCK");
+        queueConfigData.setSampleRate(10);
+        queueConfigData.setSampleHighWaterMarkPercent(80);
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicName("twitter-topic");
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setSchemaRegistryWireFormat(false);
+        TweetSpoolConfigData spoolConfigData = new TweetSpoolConfigData();
+        spoolConfigData.setEnabled(false);
+        return new ArenaTweetQueue(arenaConfigData, queueConfigData, kafkaConfigData, producerConfigData, null,
+                new TweetSpooler(spoolConfigData, null, null, new SimpleMeterRegistry(), null),
+                new SimpleMeterRegistry());
+    }
+}
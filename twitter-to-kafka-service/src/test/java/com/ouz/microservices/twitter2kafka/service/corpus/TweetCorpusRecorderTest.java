@@ -0,0 +1,84 @@
+package com.ouz.microservices.twitter2kafka.service.corpus;
+
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.twitter2kafka.service.status.LightweightStatus;
+import com.ouz.microservices.twitter2kafka.service.status.LightweightUser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import twitter4j.Status;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TweetCorpusRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void recordedCorpusIsReplayedInOrder() throws IOException {
+        Path corpusFile = tempDir.resolve("tweets.corpus");
+        TweetCorpusConfigData configData = new TweetCorpusConfigData();
+        configData.setRecordEnabled(true);
+        configData.setRecordFile(corpusFile.toString());
+        // small buffer so the recorder has to flush and write an oversized record
+        configData.setRecordBufferSize(64);
+
+        TweetCorpusRecorder recorder = new TweetCorpusRecorder(configData);
+        recorder.init();
+        recorder.record(new LightweightStatus(1L, "Java ile mikroservis", new Date(1000L), new LightweightUser(10L), "tr"));
+        recorder.record(new LightweightStatus(2L, null, null, new LightweightUser(20L), null));
+        recorder.record(new LightweightStatus(3L, "Kafka ".repeat(30), new Date(3000L), new LightweightUser(30L), null));
+        recorder.close();
+
+        try (TweetCorpusReader reader = new TweetCorpusReader(corpusFile)) {
+            Status first = reader.next();
+            assertEquals(1L, first.getId());
+            assertEquals(10L, first.getUser().getId());
+            assertEquals("Java ile mikroservis", first.getText());
+            assertEquals(1000L, first.getCreatedAt().getTime());
+            assertEquals("tr", first.getLang());
+
+            Status second = reader.next();
+            assertEquals(2L, second.getId());
+            assertNull(second.getText());
+            assertNull(second.getCreatedAt());
+            assertNull(second.getLang());
+
+            assertEquals("Kafka ".repeat(30), reader.next().getText());
+            assertNull(reader.next());
+
+            reader.rewind();
+            assertEquals(1L, reader.next().getId());
+        }
+    }
+
+    @Test
+    public void version1CorpusIsReadWithoutLang() throws IOException {
+        Path corpusFile = tempDir.resolve("tweets-v1.corpus");
+        byte[] text = "Java ile mikroservis".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(TweetCorpusFormat.HEADER_LENGTH + 2 * (32 + text.length));
+        buffer.putInt(TweetCorpusFormat.MAGIC).putInt(TweetCorpusFormat.VERSION_1);
+        for (long id = 1; id <= 2; id++) {
+            buffer.putInt(28 + text.length).putLong(id).putLong(id * 10).putLong(id * 1000).putInt(text.length)
+                    .put(text);
+        }
+        Files.write(corpusFile, buffer.array());
+
+        try (TweetCorpusReader reader = new TweetCorpusReader(corpusFile)) {
+            Status first = reader.next();
+            assertEquals(1L, first.getId());
+            assertEquals("Java ile mikroservis", first.getText());
+            assertNull(first.getLang());
+            assertEquals(20L, reader.next().getUser().getId());
+            assertNull(reader.next());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ouz.microservices.twitter2kafka.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RotatingBloomFilterTest {
+
+    private static final long WINDOW_NANOS = 1_000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final RotatingBloomFilter bloomFilter = new RotatingBloomFilter(10_000, 0.001, WINDOW_NANOS, clock::get);
+
+    @Test
+    public void rejectsIdsSeenInTheWindow() {
+        assertTrue(bloomFilter.putIfAbsent(1_500_000_000_000_000_001L));
+        assertFalse(bloomFilter.putIfAbsent(1_500_000_000_000_000_001L));
+        assertTrue(bloomFilter.putIfAbsent(1_500_000_000_000_000_002L));
+    }
+
+    @Test
+    public void remembersIdsForOneMoreWindowAfterRotation() {
+        bloomFilter.putIfAbsent(42L);
+
+        clock.addAndGet(WINDOW_NANOS);
+        assertFalse(bloomFilter.putIfAbsent(42L));
+
+        clock.addAndGet(WINDOW_NANOS);
+        clock.addAndGet(WINDOW_NANOS);
+        assertTrue(bloomFilter.putIfAbsent(42L));
+    }
+
+    @Test
+    public void forgetsBothGenerationsAfterAnIdleGapOfTwoWindows() {
+        bloomFilter.putIfAbsent(42L);
+        clock.addAndGet(WINDOW_NANOS);
+        bloomFilter.putIfAbsent(43L);
+
+        // no lookup for two windows, 42 and 43 are both older than two windows
+        clock.addAndGet(2 * WINDOW_NANOS);
+        assertTrue(bloomFilter.putIfAbsent(43L));
+        assertTrue(bloomFilter.putIfAbsent(42L));
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearConfiguredRate() {
+        long base = 1_500_000_000_000_000_000L;
+        for (long i = 0; i < 10_000; i++) {
+            bloomFilter.putIfAbsent(base + i);
+        }
+        // every probe is added as well, keep the probes few so the filter stays near its expected insertions
+        int falsePositives = 0;
+        for (long i = 1; i <= 2_000; i++) {
+            if (!bloomFilter.putIfAbsent(base + i * 1_000_003L)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000 * 0.01, "false positives " + falsePositives);
+    }
+
+    @Test
+    public void falsePositiveRateOverBothGenerationsStaysUnderConfiguredRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100_000, 0.01, WINDOW_NANOS, clock::get);
+        long base = 1_500_000_000_000_000_000L;
+        for (long i = 0; i < 100_000; i++) {
+            filter.putIfAbsent(base + i);
+        }
+        clock.addAndGet(WINDOW_NANOS);
+        for (long i = 100_000; i < 200_000; i++) {
+            filter.putIfAbsent(base + i);
+        }
+        // both generations hold a full window, every lookup checks the two of them
+        int falsePositives = 0;
+        for (long i = 1; i <= 100_000; i++) {
+            if (filter.mightContain(base + 200_000 + i * 1_000_003L)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 100_000 * 0.011, "false positives " + falsePositives);
+    }
+}
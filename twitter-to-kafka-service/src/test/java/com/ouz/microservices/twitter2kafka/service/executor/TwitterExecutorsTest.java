@@ -0,0 +1,95 @@
+package com.ouz.microservices.twitter2kafka.service.executor;
+
+import com.ouz.microservices.config.ExecutorConfigData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwitterExecutorsTest {
+
+    @Test
+    public void platformPoolRunsOnNamedThreadsAndBacksUpToCaller() throws InterruptedException {
+        TwitterExecutors twitterExecutors = twitterExecutors("PLATFORM", 1);
+        ExecutorService pool = twitterExecutors.newPool("test-pool", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        pool.execute(() -> {
+            threadNames.add(Thread.currentThread().getName());
+            await(release);
+        });
+        pool.execute(() -> threadNames.add(Thread.currentThread().getName()));
+        // worker busy and queue full, runs on this thread
+        pool.execute(() -> threadNames.add(Thread.currentThread().getName()));
+        release.countDown();
+
+        assertTrue(twitterExecutors.shutdown(pool, 1000));
+        assertEquals(Set.of("test-pool-0", Thread.currentThread().getName()), threadNames);
+    }
+
+    @Test
+    public void shutdownInterruptsTasksAfterTimeout() {
+        TwitterExecutors twitterExecutors = twitterExecutors("PLATFORM", 1);
+        ExecutorService pool = twitterExecutors.newPool("test-pool", 1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        await(started);
+
+        assertFalse(pool.isShutdown());
+        assertTrue(twitterExecutors.shutdown(pool, 100));
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void virtualModeFallsBackWithoutVirtualThreads() throws InterruptedException {
+        TwitterExecutors twitterExecutors = twitterExecutors("VIRTUAL", 16);
+        ExecutionMode expected = Runtime.version().feature() >= 21 ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+        ExecutorService pool = twitterExecutors.newPool("test-pool", 2);
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.execute(() -> {
+                assertTrue(Thread.currentThread().getName().startsWith("test-pool-"));
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(expected, twitterExecutors.getExecutionMode());
+        twitterExecutors.shutdownAll();
+        assertTrue(pool.isTerminated());
+    }
+
+    private static TwitterExecutors twitterExecutors(String mode, int queueCapacity) {
+        ExecutorConfigData executorConfigData = new ExecutorConfigData();
+        executorConfigData.setMode(mode);
+        executorConfigData.setQueueCapacity(queueCapacity);
+        executorConfigData.setShutdownTimeoutMs(1000L);
+        return new TwitterExecutors(executorConfigData, new SimpleMeterRegistry());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
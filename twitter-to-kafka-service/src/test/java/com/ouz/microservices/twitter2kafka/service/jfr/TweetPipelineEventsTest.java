@@ -0,0 +1,196 @@
+package com.ouz.microservices.twitter2kafka.service.jfr;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KeywordAggregationConfigData;
+import com.ouz.microservices.config.TweetCorpusConfigData;
+import com.ouz.microservices.config.TweetDedupConfigData;
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import com.ouz.microservices.twitter2kafka.service.aggregate.KeywordWindowAggregator;
+import com.ouz.microservices.twitter2kafka.service.corpus.TweetCorpusRecorder;
+import com.ouz.microservices.twitter2kafka.service.dedup.TweetDeduplicator;
+import com.ouz.microservices.twitter2kafka.service.keyword.KeywordRegistry;
+import com.ouz.microservices.twitter2kafka.service.listener.TwitterKafkaStatusListener;
+import com.ouz.microservices.twitter2kafka.service.metrics.TwitterPipelineMetrics;
+import com.ouz.microservices.twitter2kafka.service.queue.OverflowPolicy;
+import com.ouz.microservices.twitter2kafka.service.queue.TweetRingBuffer;
+import com.ouz.microservices.twitter2kafka.service.transformer.TwitterStatusToAvroTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TweetPipelineEventsTest {
+
+    private static final List<String> STAGE_EVENTS = List.of(TweetReceivedEvent.NAME, TweetTransformEvent.NAME,
+            KeywordMatchEvent.NAME, TweetEnqueueEvent.NAME);
+
+    @TempDir
+    Path recordingDir;
+
+    private final TweetRingBuffer<TwitterAvroModel> ringBuffer =
+            new TweetRingBuffer<>(2, OverflowPolicy.DROP_NEWEST, 1, 100);
+    private final List<Integer> countedKeywords = new ArrayList<>();
+    private final TwitterKafkaStatusListener listener = listener(ringBuffer, countedKeywords);
+
+    @Test
+    public void everyStageOfATweetIsRecordedOnTheStreamThread() throws Exception {
+        List<RecordedEvent> events = record(() -> listener.onStatus(createStatus(42L)));
+
+        assertEquals(STAGE_EVENTS, events.stream()
+                .map(event -> event.getEventType().getName())
+                .sorted((a, b) -> STAGE_EVENTS.indexOf(a) - STAGE_EVENTS.indexOf(b))
+                .collect(Collectors.toList()));
+        for (RecordedEvent event : events) {
+            assertEquals(42L, event.getLong("tweetId"));
+            assertEquals(Thread.currentThread().getId(), event.getThread().getJavaThreadId());
+        }
+        RecordedEvent received = event(events, TweetReceivedEvent.NAME);
+        assertEquals("queued", received.getString("outcome"));
+        // the stages are nested in the receipt
+        for (RecordedEvent event : events) {
+            assertFalse(event.getStartTime().isBefore(received.getStartTime()));
+            assertFalse(event.getEndTime().isAfter(received.getEndTime()));
+        }
+        assertEquals(1, event(events, KeywordMatchEvent.NAME).getInt("matchedKeywords"));
+        assertEquals("ring-buffer", event(events, TweetEnqueueEvent.NAME).getString("queue"));
+    }
+
+    @Test
+    public void droppedAndDuplicateTweetsAreRecordedWithTheirOutcome() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            listener.onStatus(createStatus(1L));
+            listener.onStatus(createStatus(2L));
+            // ring buffer of two slots is full
+            listener.onStatus(createStatus(3L));
+            listener.onStatus(createStatus(1L));
+        });
+
+        List<String> outcomes = events.stream()
+                .filter(event -> event.getEventType().getName().equals(TweetReceivedEvent.NAME))
+                .map(event -> event.getLong("tweetId") + " " + event.getString("outcome"))
+                .collect(Collectors.toList());
+        assertTrue(outcomes.containsAll(List.of("1 queued", "2 queued", "3 dropped", "1 duplicate")), outcomes.toString());
+        RecordedEvent dropped = events.stream()
+                .filter(event -> event.getEventType().getName().equals(TweetEnqueueEvent.NAME))
+                .filter(event -> event.getLong("tweetId") == 3L)
+                .findFirst().orElseThrow();
+        assertFalse(dropped.getBoolean("queued"));
+    }
+
+    @Test
+    public void onlyQueuedTweetsAreCountedForTheKeywordAggregate() {
+        listener.onStatus(createStatus(1L));
+        listener.onStatus(createStatus(2L));
+        // dropped, the ring buffer of two slots is full
+        listener.onStatus(createStatus(3L));
+
+        assertEquals(List.of(0, 0), countedKeywords);
+    }
+
+    @Test
+    public void eventsAreCommittedWhenThePublishThrows() throws Exception {
+        TweetRingBuffer<TwitterAvroModel> failingBuffer = new TweetRingBuffer<>(2, OverflowPolicy.DROP_NEWEST, 1, 100) {
+            @Override
+            public boolean publish(TwitterAvroModel element) {
+                throw new IllegalStateException("queue is broken");
+            }
+        };
+        TwitterKafkaStatusListener failingListener = listener(failingBuffer, countedKeywords);
+
+        List<RecordedEvent> events = record(() ->
+                assertThrows(IllegalStateException.class, () -> failingListener.onStatus(createStatus(4L))));
+
+        assertEquals("failed", event(events, TweetReceivedEvent.NAME).getString("outcome"));
+        assertFalse(event(events, TweetEnqueueEvent.NAME).getBoolean("queued"));
+        assertEquals(List.of(), countedKeywords);
+    }
+
+    private List<RecordedEvent> record(StatusAction action) throws Exception {
+        Path file = recordingDir.resolve("tweets.jfr");
+        try (Recording recording = new Recording()) {
+            // the default thresholds keep only slow stages, a test tweet is fast
+            STAGE_EVENTS.forEach(name -> recording.enable(name).withThreshold(Duration.ZERO));
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return readEvents(file);
+    }
+
+    private static List<RecordedEvent> readEvents(Path file) throws IOException {
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> STAGE_EVENTS.contains(event.getEventType().getName()))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent event(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static TwitterKafkaStatusListener listener(TweetRingBuffer<TwitterAvroModel> ringBuffer,
+                                                       List<Integer> countedKeywords) {
+        Twitter2KafkaServiceConfigData serviceConfigData = new Twitter2KafkaServiceConfigData();
+        serviceConfigData.setTwitterKeywords(List.of("Java", "Kafka"));
+        TweetCorpusConfigData corpusConfigData = new TweetCorpusConfigData();
+        corpusConfigData.setRecordEnabled(false);
+        KeywordRegistry keywordRegistry = new KeywordRegistry(serviceConfigData);
+        TweetDedupConfigData dedupConfigData = new TweetDedupConfigData();
+        dedupConfigData.setEnabled(true);
+        dedupConfigData.setWindowMs(60000L);
+        dedupConfigData.setExpectedTweetsPerWindow(1000L);
+        dedupConfigData.setFalsePositiveRate(0.001);
+        return new TwitterKafkaStatusListener(new TwitterStatusToAvroTransformer(), ringBuffer,
+                new TweetCorpusRecorder(corpusConfigData),
+                new TwitterPipelineMetrics(new SimpleMeterRegistry(), serviceConfigData, corpusConfigData, ringBuffer,
+                        Optional.empty()),
+                keywordRegistry,
+                new TweetDeduplicator(dedupConfigData),
+                new KeywordWindowAggregator(new KeywordAggregationConfigData(), keywordRegistry,
+                        new KafkaConfigData(), null, null) {
+                    @Override
+                    public void record(int[] keywordIds) {
+                        Arrays.stream(keywordIds).forEach(countedKeywords::add);
+                    }
+                },
+                Optional.empty());
+    }
+
+    private static Status createStatus(long id) {
+        try {
+            return TwitterObjectFactory.createStatus("{" +
+                "\"created_at\":\"Mon Mar 07 10:15:30 +0000 2022\"," +
+                "\"id\":" + id + "," +
+                "\"text\":\"tweet number " + id + " about Java\"," +
+                "\"lang\":\"en\"," +
+                "\"user\":{\"id\":" + (id * 10) + "}" +
+                "}");
+        } catch (TwitterException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface StatusAction {
+        void run() throws Exception;
+    }
+}
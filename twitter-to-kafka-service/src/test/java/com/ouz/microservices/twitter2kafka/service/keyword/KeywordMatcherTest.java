@@ -0,0 +1,43 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class KeywordMatcherTest {
+
+    private final KeywordMatcher keywordMatcher =
+            new KeywordMatcher(List.of("Java", "Microservices", "Spring", "Kafka", "Elasticsearch"));
+
+    @Test
+    public void matchesIgnoringCase() {
+        assertArrayEquals(new int[]{3, 0}, keywordMatcher.match("KAFKA clients written in jAvA"));
+    }
+
+    @Test
+    public void reportsEachKeywordOnceInOrderOfFirstOccurrence() {
+        assertArrayEquals(new int[]{2, 0}, keywordMatcher.match("spring java spring java"));
+    }
+
+    @Test
+    public void matchesInsideWords() {
+        assertArrayEquals(new int[]{0}, keywordMatcher.match("#JavaScript"));
+    }
+
+    @Test
+    public void findsOverlappingKeywords() {
+        KeywordMatcher overlapping = new KeywordMatcher(List.of("he", "she", "his", "hers"));
+
+        assertArrayEquals(new int[]{1, 0, 3}, overlapping.match("ushers"));
+    }
+
+    @Test
+    public void returnsSharedEmptyArrayWhenNothingMatches() {
+        assertSame(KeywordMatcher.NO_MATCH, keywordMatcher.match("nothing interesting here"));
+        assertSame(KeywordMatcher.NO_MATCH, keywordMatcher.match(null));
+        assertSame(KeywordMatcher.NO_MATCH, new KeywordMatcher(List.of()).match("java"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.ouz.microservices.twitter2kafka.service.keyword;
+
+import com.ouz.microservices.config.Twitter2KafkaServiceConfigData;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeywordRegistryTest {
+
+    private final KeywordRegistry keywordRegistry = keywordRegistry("Java", "Spring", "Kafka");
+
+    @Test
+    public void keywordsKeepTheirIdsAcrossReloads() {
+        assertTrue(keywordRegistry.update(List.of("Kafka", "Docker", " Java ")));
+        KeywordSet keywordSet = keywordRegistry.getKeywordSet();
+
+        assertEquals(List.of("Java", "Kafka", "Docker"), keywordSet.getActiveKeywords());
+        assertArrayEquals(new int[]{2, 3, 0}, keywordSet.getKeywordMatcher().match("kafka docker java"));
+        // removed keywords are not matched but keep their name for counts of open windows
+        assertSame(KeywordMatcher.NO_MATCH, keywordSet.getKeywordMatcher().match("spring"));
+        assertFalse(keywordSet.isActive(1));
+        assertEquals("Spring", keywordSet.getKeyword(1));
+
+        keywordRegistry.update(List.of("Spring"));
+        assertArrayEquals(new int[]{1}, keywordRegistry.getKeywordSet().getKeywordMatcher().match("spring"));
+        assertEquals(4, keywordRegistry.getKeywordSet().size());
+    }
+
+    @Test
+    public void listenersSeeOnlyRealChanges() {
+        List<KeywordSet> changes = new ArrayList<>();
+        keywordRegistry.addKeywordChangeListener(changes::add);
+        KeywordSet initial = keywordRegistry.getKeywordSet();
+
+        assertFalse(keywordRegistry.update(List.of("Spring", "Kafka", "Java")));
+        assertSame(initial, keywordRegistry.getKeywordSet());
+        assertTrue(keywordRegistry.update(List.of("Java")));
+
+        assertEquals(1, changes.size());
+        assertSame(keywordRegistry.getKeywordSet(), changes.get(0));
+    }
+
+    @Test
+    public void emptyKeywordListIsRejected() {
+        KeywordSet initial = keywordRegistry.getKeywordSet();
+
+        assertThrows(TwitterToKafkaServiceException.class, () -> keywordRegistry.update(List.of(" ", "")));
+        assertSame(initial, keywordRegistry.getKeywordSet());
+    }
+
+    private static KeywordRegistry keywordRegistry(String... keywords) {
+        Twitter2KafkaServiceConfigData configData = new Twitter2KafkaServiceConfigData();
+        configData.setTwitterKeywords(List.of(keywords));
+        return new KeywordRegistry(configData);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ouz.microservices.twitter2kafka.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TweetRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new TweetRingBuffer<Long>(5, OverflowPolicy.DROP_NEWEST, 1, 100).capacity());
+    }
+
+    @Test
+    public void dropNewestRejectsWhenFull() {
+        TweetRingBuffer<Long> ringBuffer = new TweetRingBuffer<>(2, OverflowPolicy.DROP_NEWEST, 1, 100);
+
+        assertTrue(ringBuffer.publish(1L));
+        assertTrue(ringBuffer.publish(2L));
+        assertFalse(ringBuffer.publish(3L));
+
+        assertEquals(1, ringBuffer.getDroppedCount());
+        assertEquals(1L, ringBuffer.poll());
+        assertEquals(2L, ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    public void dropOldestEvictsHead() {
+        TweetRingBuffer<Long> ringBuffer = new TweetRingBuffer<>(2, OverflowPolicy.DROP_OLDEST, 1, 100);
+
+        ringBuffer.publish(1L);
+        ringBuffer.publish(2L);
+        assertTrue(ringBuffer.publish(3L));
+
+        assertEquals(1, ringBuffer.getDroppedCount());
+        assertEquals(2L, ringBuffer.poll());
+        assertEquals(3L, ringBuffer.poll());
+    }
+
+    @Test
+    public void sampleKeepsEveryNthAboveHighWaterMark() {
+        TweetRingBuffer<Long> ringBuffer = new TweetRingBuffer<>(16, OverflowPolicy.SAMPLE, 4, 50);
+        for (long i = 0; i < 8; i++) {
+            assertTrue(ringBuffer.publish(i));
+        }
+        int accepted = 0;
+        for (long i = 0; i < 8; i++) {
+            if (ringBuffer.publish(i)) {
+                accepted++;
+            }
+        }
+        assertEquals(2, accepted);
+        assertEquals(6, ringBuffer.getSampledOutCount());
+        assertEquals(10, ringBuffer.size());
+    }
+
+    @Test
+    public void blockingPublishDeliversEverythingToConcurrentConsumers() throws InterruptedException {
+        TweetRingBuffer<Long> ringBuffer = new TweetRingBuffer<>(64, OverflowPolicy.BLOCK, 1, 100);
+        long count = 200_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+
+        Thread[] consumers = new Thread[3];
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = new Thread(() -> {
+                while (received.get() < count) {
+                    Long value = ringBuffer.poll();
+                    if (value != null) {
+                        sum.addAndGet(value);
+                        received.incrementAndGet();
+                    }
+                }
+            });
+            consumers[i].start();
+        }
+        for (long i = 1; i <= count; i++) {
+            ringBuffer.publish(i);
+        }
+        for (Thread consumer : consumers) {
+            consumer.join(10_000);
+        }
+
+        assertEquals(count, received.get());
+        assertEquals(count * (count + 1) / 2, sum.get());
+        assertEquals(0, ringBuffer.getDroppedCount());
+    }
+}
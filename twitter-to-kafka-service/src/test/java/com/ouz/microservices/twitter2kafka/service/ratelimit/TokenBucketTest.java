@@ -0,0 +1,99 @@
+package com.ouz.microservices.twitter2kafka.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void startsEmptyAndRefillsAtTheRate() {
+        TokenBucket tokenBucket = new TokenBucket(1_000, 10, clock::get);
+        assertFalse(tokenBucket.tryAcquire());
+
+        clock.addAndGet(5 * MILLIS);
+        assertEquals(5, drain(tokenBucket));
+
+        clock.addAndGet(MILLIS / 2);
+        assertFalse(tokenBucket.tryAcquire());
+        clock.addAndGet(MILLIS / 2);
+        assertTrue(tokenBucket.tryAcquire());
+    }
+
+    @Test
+    public void idleTimeIsCappedAtTheBurstCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(1_000, 10, clock::get);
+
+        clock.addAndGet(1_000 * MILLIS);
+        assertEquals(10, drain(tokenBucket));
+    }
+
+    @Test
+    public void burstCapacityIsAtLeastOneToken() {
+        TokenBucket tokenBucket = new TokenBucket(1_000, 0.2, clock::get);
+
+        clock.addAndGet(1_000 * MILLIS);
+        assertEquals(1, drain(tokenBucket));
+    }
+
+    @Test
+    public void setRateKeepsTheTokensEarnedAtTheOldRate() {
+        TokenBucket tokenBucket = new TokenBucket(1_000, 100, clock::get);
+        clock.addAndGet(10 * MILLIS);
+
+        tokenBucket.setRate(100);
+        clock.addAndGet(10 * MILLIS);
+        // 10 tokens at 1000/s, then 1 token at 100/s
+        assertEquals(11, drain(tokenBucket));
+
+        tokenBucket.setRate(10_000);
+        clock.addAndGet(MILLIS);
+        assertEquals(10, drain(tokenBucket));
+    }
+
+    @Test
+    public void acquireTakesAnAvailableTokenWithoutWaiting() {
+        TokenBucket tokenBucket = new TokenBucket(1_000, 10, clock::get);
+        clock.addAndGet(2 * MILLIS);
+
+        tokenBucket.acquire();
+        tokenBucket.acquire();
+        assertFalse(tokenBucket.tryAcquire());
+    }
+
+    @Test
+    public void acquirePacesTheCallerAtTheRate() {
+        TokenBucket tokenBucket = new TokenBucket(200, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            tokenBucket.acquire();
+        }
+        long elapsedMs = (System.nanoTime() - start) / MILLIS;
+        // 20 tokens at 200/s take 100ms from an empty bucket
+        assertTrue(elapsedMs >= 90, "elapsed " + elapsedMs + "ms");
+    }
+
+    @Test
+    public void rejectsANonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10));
+        TokenBucket tokenBucket = new TokenBucket(1_000, 10, clock::get);
+        assertThrows(IllegalArgumentException.class, () -> tokenBucket.setRate(-1));
+    }
+
+    private static int drain(TokenBucket tokenBucket) {
+        int acquired = 0;
+        while (tokenBucket.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ouz.microservices.twitter2kafka.service.readiness;
+
+import com.ouz.microservices.config.KafkaConfigData;
+import com.ouz.microservices.config.KafkaProducerConfigData;
+import com.ouz.microservices.config.RetryConfigData;
+import com.ouz.microservices.config.StartupReadinessConfigData;
+import com.ouz.microservices.kafka.admin.client.KafkaAdminClient;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryClient;
+import com.ouz.microservices.kafka.producer.schema.SchemaRegistryRejectedException;
+import com.ouz.microservices.kafka.producer.schema.StubSchemaRegistry;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StartupReadinessTest {
+
+    private StubSchemaRegistry stubSchemaRegistry;
+    private final AtomicInteger topicAttempts = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        stubSchemaRegistry = new StubSchemaRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubSchemaRegistry.close();
+    }
+
+    @Test
+    public void transientTopicFailureIsRetried() {
+        StartupReadiness startupReadiness = startupReadiness(() -> topicAttempts.incrementAndGet() <= 2 ?
+                CompletableFuture.failedFuture(new TimeoutException("no controller yet")) :
+                CompletableFuture.completedFuture(null));
+
+        startupReadiness.awaitReady();
+
+        assertTrue(startupReadiness.isReady());
+        assertEquals(3, topicAttempts.get());
+        // schema lookup and registration
+        assertEquals(2, stubSchemaRegistry.getRequestCount());
+    }
+
+    @Test
+    public void incompatibleSchemaFailsWithoutRetrying() {
+        stubSchemaRegistry.rejectRegistrations();
+        StartupReadiness startupReadiness = startupReadiness(() -> CompletableFuture.completedFuture(null));
+
+        long startNanos = System.nanoTime();
+        TwitterToKafkaServiceException e = assertThrows(TwitterToKafkaServiceException.class,
+                startupReadiness::awaitReady);
+
+        assertInstanceOf(SchemaRegistryRejectedException.class, e.getCause());
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, stubSchemaRegistry.getRequestCount());
+        assertFalse(startupReadiness.isReady());
+        assertTrue(startupReadiness.getCheckStates().get("schema-registry").startsWith("failed"));
+    }
+
+    @Test
+    public void nonRetriableTopicFailureFailsWithoutRetrying() {
+        StartupReadiness startupReadiness = startupReadiness(() -> {
+            topicAttempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new InvalidReplicationFactorException("3 replicas, 1 broker"));
+        });
+
+        assertThrows(TwitterToKafkaServiceException.class, startupReadiness::awaitReady);
+
+        assertEquals(1, topicAttempts.get());
+        assertTrue(startupReadiness.getCheckStates().get("topics").startsWith("failed"));
+    }
+
+    @Test
+    public void onlyRetriableAndUnknownFailuresAreTransient() {
+        assertTrue(StartupReadiness.isTransient(new TimeoutException("request timed out")));
+        assertTrue(StartupReadiness.isTransient(new IOException("connection refused")));
+        assertFalse(StartupReadiness.isTransient(new SchemaRegistryRejectedException("incompatible", 409)));
+        assertFalse(StartupReadiness.isTransient(new IllegalStateException(
+                new InvalidReplicationFactorException("3 replicas, 1 broker"))));
+    }
+
+    /**
+     * brokers are up and the registry probe passes, topics answer from provisionTopics. With fail-on-timeout
+     * off, only a check failing for good makes awaitReady throw within the 10 s timeout.
+     */
+    private StartupReadiness startupReadiness(Supplier<CompletableFuture<Void>> provisionTopics) {
+        KafkaAdminClient kafkaAdminClient = new KafkaAdminClient(null, null, null, null, null) {
+            @Override
+            public Mono<Void> probeSchemaRegistry() {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Integer> probeBrokers() {
+                return Mono.just(1);
+            }
+
+            @Override
+            public CompletableFuture<Void> provisionTopics() {
+                return provisionTopics.get();
+            }
+        };
+        StartupReadinessConfigData readinessConfigData = new StartupReadinessConfigData();
+        readinessConfigData.setEnabled(true);
+        readinessConfigData.setTimeoutMs(10_000L);
+        readinessConfigData.setFailOnTimeout(false);
+        RetryConfigData retryConfigData = new RetryConfigData();
+        retryConfigData.setInitialIntervalMs(10L);
+        retryConfigData.setMaxIntervalMs(50L);
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicName("twitter-topic");
+        kafkaConfigData.setTopicNameToCreate(List.of("twitter-topic"));
+        KafkaProducerConfigData producerConfigData = new KafkaProducerConfigData();
+        producerConfigData.setSchemaRegistryWireFormat(true);
+        return new StartupReadiness(kafkaAdminClient, readinessConfigData, retryConfigData,
+                new SchemaRegistryClient(stubSchemaRegistry.getUrl(), 10, Duration.ofSeconds(2)),
+                kafkaConfigData, producerConfigData);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ouz.microservices.twitter2kafka.service.runner.impl;
+
+import com.ouz.microservices.config.TwitterStreamConfigData;
+import com.ouz.microservices.twitter2kafka.service.exception.TwitterToKafkaServiceException;
+import org.junit.jupiter.api.Test;
+import twitter4j.TwitterStreamFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TwitterKafkaStreamRunnerImplTest {
+
+    @Test
+    public void oneShardUsesTheDefaultAccount() {
+        assertEquals(1, TwitterKafkaStreamRunnerImpl.shardStreamFactories(configData(1)).size());
+    }
+
+    @Test
+    public void moreShardsNeedAnAccountEach() {
+        assertThrows(TwitterToKafkaServiceException.class,
+                () -> TwitterKafkaStreamRunnerImpl.shardStreamFactories(configData(2)));
+        assertThrows(TwitterToKafkaServiceException.class,
+                () -> TwitterKafkaStreamRunnerImpl.shardStreamFactories(configData(3, "first", "second")));
+    }
+
+    @Test
+    public void shardIConnectsWithCredentialsI() {
+        List<TwitterStreamFactory> factories =
+                TwitterKafkaStreamRunnerImpl.shardStreamFactories(configData(2, "first", "second"));
+
+        assertEquals(2, factories.size());
+        assertEquals("first-key", factories.get(0).getInstance().getConfiguration().getOAuthConsumerKey());
+        assertEquals("second-token", factories.get(1).getInstance().getConfiguration().getOAuthAccessToken());
+    }
+
+    private static TwitterStreamConfigData configData(int shardCount, String... accounts) {
+        TwitterStreamConfigData configData = new TwitterStreamConfigData();
+        configData.setShardCount(shardCount);
+        for (String account : accounts) {
+            TwitterStreamConfigData.ShardCredentials credentials = new TwitterStreamConfigData.ShardCredentials();
+            credentials.setConsumerKey(account + "-key");
+            credentials.setConsumerSecret(account + "-secret");
+            credentials.setAccessToken(account + "-token");
+            credentials.setAccessTokenSecret(account + "-token-secret");
+            configData.getShardCredentials().add(credentials);
+        }
+        return configData;
+    }
+}
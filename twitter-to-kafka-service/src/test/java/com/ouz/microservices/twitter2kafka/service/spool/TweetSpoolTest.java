@@ -0,0 +1,214 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TweetSpoolTest {
+
+    private static final int SEGMENT_SIZE = 256;
+    private static final long SCHEMA_FINGERPRINT = 0x5eed5eed5eed5eedL;
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    public void peeksInAppendOrderUntilCommitted() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        tweetSpool.append(1L, payload("first"));
+        tweetSpool.append(2L, payload("second"));
+
+        List<TweetSpoolRecord> records = tweetSpool.peek(10);
+        assertEquals(2, records.size());
+        assertEquals(1L, records.get(0).getKey());
+        assertArrayEquals(payload("second"), records.get(1).getPayload());
+        assertEquals(2, tweetSpool.peek(10).size());
+
+        tweetSpool.commit(records.get(0), 1);
+        assertEquals(2L, tweetSpool.peek(10).get(0).getKey());
+        tweetSpool.commit(tweetSpool.peek(10).get(0), 1);
+        assertTrue(tweetSpool.isEmpty());
+        tweetSpool.close();
+    }
+
+    @Test
+    public void rollsSegmentsAndDeletesThemAfterCommit() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        for (long key = 0; key < 10; key++) {
+            assertTrue(tweetSpool.append(key, new byte[40]));
+        }
+        assertEquals(3, tweetSpool.getSegmentCount());
+
+        long expectedKey = 0;
+        while (!tweetSpool.isEmpty()) {
+            List<TweetSpoolRecord> records = tweetSpool.peek(100);
+            for (TweetSpoolRecord record : records) {
+                assertEquals(expectedKey++, record.getKey());
+            }
+            tweetSpool.commit(records.get(records.size() - 1), records.size());
+        }
+        assertEquals(10, expectedKey);
+        // the last segment still has room and stays for the next append
+        assertEquals(1, segmentFiles());
+        tweetSpool.close();
+    }
+
+    @Test
+    public void rejectsAppendsWhenAllSegmentsAreInUse() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 1, SCHEMA_FINGERPRINT);
+        assertTrue(tweetSpool.append(1L, new byte[200]));
+        assertFalse(tweetSpool.append(2L, new byte[40]));
+        assertFalse(tweetSpool.append(3L, new byte[SEGMENT_SIZE]));
+        tweetSpool.close();
+    }
+
+    @Test
+    public void recoversCommittedPositionAndStopsAtCorruptedRecord() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        tweetSpool.append(1L, payload("one"));
+        tweetSpool.append(2L, payload("two"));
+        tweetSpool.append(3L, payload("three"));
+        tweetSpool.commit(tweetSpool.peek(1).get(0), 1);
+        tweetSpool.close();
+
+        // flip a payload byte of the third record
+        Path segment;
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        int thirdRecordPayload = TweetSpoolSegment.HEADER_LENGTH + 2 * TweetSpoolSegment.RECORD_OVERHEAD + 3 + 3 +
+                TweetSpoolSegment.RECORD_OVERHEAD;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), thirdRecordPayload);
+        }
+
+        TweetSpool recovered = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        assertEquals(1, recovered.getRecordCount());
+        List<TweetSpoolRecord> records = recovered.peek(10);
+        assertEquals(1, records.size());
+        assertEquals(2L, records.get(0).getKey());
+
+        recovered.append(4L, payload("four"));
+        recovered.commit(records.get(0), 1);
+        assertEquals(4L, recovered.peek(10).get(0).getKey());
+        recovered.close();
+    }
+
+    @Test
+    public void corruptedRecordFoundOnPeekDropsTheRecordsAfterItFromTheCount() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        tweetSpool.append(1L, payload("one"));
+        tweetSpool.append(2L, payload("two"));
+        tweetSpool.append(3L, payload("three"));
+        assertEquals(3, tweetSpool.getRecordCount());
+
+        // flip a payload byte of the second record while the spool has it mapped
+        int secondRecordPayload = TweetSpoolSegment.HEADER_LENGTH + TweetSpoolSegment.RECORD_OVERHEAD + 3 +
+                TweetSpoolSegment.RECORD_OVERHEAD;
+        corrupt(secondRecordPayload);
+
+        List<TweetSpoolRecord> records = tweetSpool.peek(10);
+        assertEquals(1, records.size());
+        assertEquals(1, tweetSpool.getRecordCount());
+        tweetSpool.commit(records.get(0), 1);
+        assertTrue(tweetSpool.isEmpty());
+
+        // the truncated segment is sealed, the next append starts a new one
+        assertTrue(tweetSpool.append(4L, payload("four")));
+        assertEquals(4L, tweetSpool.peek(10).get(0).getKey());
+        tweetSpool.close();
+    }
+
+    @Test
+    public void corruptedFirstUnreadRecordMovesOnToTheNextSegment() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        for (long key = 0; key < 6; key++) {
+            tweetSpool.append(key, new byte[40]);
+        }
+        assertEquals(2, tweetSpool.getSegmentCount());
+        corrupt(TweetSpoolSegment.HEADER_LENGTH + TweetSpoolSegment.RECORD_OVERHEAD);
+
+        List<TweetSpoolRecord> records = tweetSpool.peek(10);
+        // the four records of the first segment are gone, the second segment is read
+        assertEquals(2, tweetSpool.getRecordCount());
+        assertEquals(List.of(4L, 5L), List.of(records.get(0).getKey(), records.get(1).getKey()));
+        tweetSpool.commit(records.get(1), 2);
+        assertTrue(tweetSpool.isEmpty());
+        tweetSpool.close();
+    }
+
+    @Test
+    public void recordsCarryTheSchemaFingerprintOfTheirSegment() throws IOException {
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        tweetSpool.append(1L, payload("one"));
+        tweetSpool.close();
+
+        TweetSpool recovered = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, 7L);
+        recovered.append(2L, payload("two"));
+        TweetSpoolRecord first = recovered.peek(10).get(0);
+        assertEquals(SCHEMA_FINGERPRINT, first.getSchemaFingerprint());
+        recovered.commit(first, 1);
+        // the reopened segment is sealed, the new record is in a segment with the new fingerprint
+        assertEquals(7L, recovered.peek(10).get(0).getSchemaFingerprint());
+        recovered.close();
+    }
+
+    @Test
+    public void format1SegmentIsReadWithoutASchemaFingerprint() throws IOException {
+        Path segment = spoolDirectory.resolve(String.format("%020d.spool", 0));
+        ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_SIZE);
+        buffer.putInt(TweetSpoolSegment.MAGIC).putInt(TweetSpoolSegment.FORMAT_1_VERSION)
+                .putLong(TweetSpoolSegment.FORMAT_1_HEADER_LENGTH);
+        byte[] payload = payload("one");
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(8).putLong(0, 1L));
+        crc.update(payload);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).putLong(1L).put(payload);
+        Files.write(segment, buffer.array());
+
+        TweetSpool tweetSpool = new TweetSpool(spoolDirectory, SEGMENT_SIZE, 4, SCHEMA_FINGERPRINT);
+        assertEquals(1, tweetSpool.getRecordCount());
+        TweetSpoolRecord record = tweetSpool.peek(10).get(0);
+        assertEquals(1L, record.getKey());
+        assertArrayEquals(payload, record.getPayload());
+        assertEquals(TweetSpoolSegment.FORMAT_1_SCHEMA_FINGERPRINT, record.getSchemaFingerprint());
+        tweetSpool.commit(record, 1);
+        assertTrue(tweetSpool.isEmpty());
+        tweetSpool.close();
+    }
+
+    private void corrupt(int position) throws IOException {
+        Path segment;
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), position);
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ouz.microservices.twitter2kafka.service.spool;
+
+import com.ouz.microservices.config.TweetSpoolConfigData;
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TweetSpoolerTest {
+
+    private static final long V2_FINGERPRINT =
+            SchemaNormalization.parsingFingerprint64(TwitterAvroModel.getClassSchema());
+
+    private final Schema v1 = v1Schema();
+    private final long v1Fingerprint = SchemaNormalization.parsingFingerprint64(v1);
+    private final TweetSpooler tweetSpooler =
+            new TweetSpooler(new TweetSpoolConfigData(), null, null, new SimpleMeterRegistry(), null);
+
+    @Test
+    public void decodesEachRecordWithItsWriterSchema() throws IOException {
+        List<TwitterAvroModel> tweets = tweetSpooler.decode(List.of(
+                record(1L, V2_FINGERPRINT, v2Payload(1L)),
+                record(2L, v1Fingerprint, v1Payload(2L))));
+
+        assertEquals(List.of(1L, 2L), ids(tweets));
+        assertEquals(TweetLanguage.TR, tweets.get(0).getLang());
+        assertEquals(List.of(3, 4), tweets.get(0).getKeywordIds());
+        // defaults of the fields added after v1
+        assertEquals(TweetLanguage.UND, tweets.get(1).getLang());
+        assertEquals(List.of(), tweets.get(1).getKeywordIds());
+        assertEquals(Instant.ofEpochMilli(1646648130000L), tweets.get(1).getCreatedAt());
+    }
+
+    @Test
+    public void format1RecordsAreDecodedWithTheSchemaThatReadsThemToTheEnd() throws IOException {
+        List<TwitterAvroModel> tweets = tweetSpooler.decode(List.of(
+                record(1L, TweetSpoolSegment.FORMAT_1_SCHEMA_FINGERPRINT, v1Payload(1L)),
+                record(2L, TweetSpoolSegment.FORMAT_1_SCHEMA_FINGERPRINT, v2Payload(2L))));
+
+        assertEquals(List.of(1L, 2L), ids(tweets));
+        assertEquals(TweetLanguage.UND, tweets.get(0).getLang());
+        // the v1 reader stops before keywordIds and lang, the v2 reader is taken
+        assertEquals(TweetLanguage.TR, tweets.get(1).getLang());
+    }
+
+    @Test
+    public void recordsNoKnownSchemaDecodesAreLeftOut() throws IOException {
+        List<TwitterAvroModel> tweets = tweetSpooler.decode(List.of(
+                record(1L, 42L, v2Payload(1L)),
+                record(2L, V2_FINGERPRINT, new byte[]{1}),
+                record(3L, TweetSpoolSegment.FORMAT_1_SCHEMA_FINGERPRINT, new byte[]{2, 4, 6}),
+                record(4L, V2_FINGERPRINT, v2Payload(4L))));
+
+        assertEquals(List.of(4L), ids(tweets));
+    }
+
+    private static TweetSpoolRecord record(long id, long schemaFingerprint, byte[] payload) {
+        return new TweetSpoolRecord(0, 0, id * 10, schemaFingerprint, payload);
+    }
+
+    private static byte[] v2Payload(long id) throws IOException {
+        TwitterAvroModel model = new TwitterAvroModel(id * 10, id, "tweet " + id,
+                Instant.ofEpochMilli(1646648130000L), List.of(3, 4), TweetLanguage.TR);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new SpecificDatumWriter<TwitterAvroModel>(TwitterAvroModel.getClassSchema()).write(model, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    private byte[] v1Payload(long id) throws IOException {
+        GenericRecord v1Record = new GenericData.Record(v1);
+        v1Record.put("userId", id * 10);
+        v1Record.put("id", id);
+        v1Record.put("text", "tweet " + id);
+        v1Record.put("createdAt", 1646648130000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(v1).write(v1Record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    private static List<Long> ids(List<TwitterAvroModel> tweets) {
+        return tweets.stream().map(TwitterAvroModel::getId).collect(Collectors.toList());
+    }
+
+    private static Schema v1Schema() {
+        try (InputStream schema = TweetSpoolerTest.class.getResourceAsStream("/schema-history/twitter-v1.avsc")) {
+            return new Schema.Parser().parse(schema);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ouz.microservices.twitter2kafka.service.stream;
+
+import com.ouz.microservices.twitter2kafka.service.runner.mock.MockTweetFactory;
+import twitter4j.ConnectionLifeCycleListener;
+import twitter4j.StatusListener;
+import twitter4j.TwitterStream;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * stand-in for a twitter4j TwitterStream connection. filter() connects and starts emitting mock statuses
+ * at tweetsPerSecond on its own thread, 0 connects and then stays silent like a stalled connection.
+ * filter() on a connected stream reconnects and keeps the listeners, as twitter4j does.
+ * Only the methods ShardedTwitterStream calls are implemented.
+ */
+public class FakeTwitterStream {
+
+    private final double tweetsPerSecond;
+    private final MockTweetFactory mockTweetFactory;
+    private final List<StatusListener> statusListeners = new CopyOnWriteArrayList<>();
+    private final List<ConnectionLifeCycleListener> lifeCycleListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread emitter;
+
+    private FakeTwitterStream(double tweetsPerSecond, String[] keywords) {
+        this.tweetsPerSecond = tweetsPerSecond;
+        this.mockTweetFactory = new MockTweetFactory(keywords, 5, 15, new SplittableRandom(42));
+    }
+
+    public static TwitterStream create(double tweetsPerSecond, String... keywords) {
+        FakeTwitterStream fake = new FakeTwitterStream(tweetsPerSecond, keywords);
+        return (TwitterStream) Proxy.newProxyInstance(TwitterStream.class.getClassLoader(),
+                new Class<?>[]{TwitterStream.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "addListener":
+                            fake.statusListeners.add((StatusListener) args[0]);
+                            return proxy;
+                        case "addConnectionLifeCycleListener":
+                            fake.lifeCycleListeners.add((ConnectionLifeCycleListener) args[0]);
+                            return proxy;
+                        case "clearListeners":
+                            fake.statusListeners.clear();
+                            fake.lifeCycleListeners.clear();
+                            return proxy;
+                        case "filter":
+                            fake.disconnect();
+                            fake.connect();
+                            return proxy;
+                        case "shutdown":
+                        case "cleanUp":
+                            fake.disconnect();
+                            return proxy;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeTwitterStream@" + fake.tweetsPerSecond;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private synchronized void connect() {
+        running = true;
+        lifeCycleListeners.forEach(ConnectionLifeCycleListener::onConnect);
+        if (tweetsPerSecond > 0) {
+            emitter = new Thread(this::emit, "fake-twitter-stream");
+            emitter.setDaemon(true);
+            emitter.start();
+        }
+    }
+
+    private synchronized void disconnect() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (emitter != null) {
+            emitter.interrupt();
+        }
+        lifeCycleListeners.forEach(ConnectionLifeCycleListener::onDisconnect);
+    }
+
+    private void emit() {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / tweetsPerSecond);
+        long nextNanos = System.nanoTime();
+        while (running) {
+            statusListeners.forEach(listener -> listener.onStatus(mockTweetFactory.createStatus()));
+            nextNanos += intervalNanos;
+            LockSupport.parkNanos(nextNanos - System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ouz.microservices.twitter2kafka.service.stream;
+
+import com.ouz.microservices.config.ExecutorConfigData;
+import com.ouz.microservices.config.TwitterStreamConfigData;
+import com.ouz.microservices.twitter2kafka.service.executor.TwitterExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import twitter4j.Status;
+import twitter4j.StatusAdapter;
+import twitter4j.TwitterStream;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedTwitterStreamTest {
+
+    private static final List<String> KEYWORDS = List.of("Java", "Microservices", "Spring", "Kafka", "Elasticsearch");
+
+    private final LongAdder received = new LongAdder();
+    private final StatusAdapter listener = new StatusAdapter() {
+        @Override
+        public void onStatus(Status status) {
+            received.increment();
+        }
+    };
+    private ShardedTwitterStream shardedTwitterStream;
+
+    @AfterEach
+    public void tearDown() {
+        if (shardedTwitterStream != null) {
+            shardedTwitterStream.shutdown();
+        }
+    }
+
+    @Test
+    public void splitsKeywordsRoundRobin() {
+        List<String[]> shards = ShardedTwitterStream.splitKeywords(KEYWORDS, 2);
+
+        assertEquals(2, shards.size());
+        assertArrayEquals(new String[]{"Java", "Spring", "Elasticsearch"}, shards.get(0));
+        assertArrayEquals(new String[]{"Microservices", "Kafka"}, shards.get(1));
+        assertEquals(5, ShardedTwitterStream.splitKeywords(KEYWORDS, 8).size());
+        assertEquals(1, ShardedTwitterStream.splitKeywords(KEYWORDS, 0).size());
+    }
+
+    @Test
+    public void everyShardFeedsTheSharedListener() throws InterruptedException {
+        shardedTwitterStream = shardedTwitterStream(3, () -> FakeTwitterStream.create(500, "Java"));
+        shardedTwitterStream.start();
+        Thread.sleep(300);
+
+        for (TwitterStreamShard shard : shardedTwitterStream.getShards()) {
+            assertTrue(shard.getReceivedCount() > 0, "shard " + shard.getIndex() + " received statuses");
+            assertTrue(shardedTwitterStream.isHealthy(shard));
+        }
+        long shardTotal = shardedTwitterStream.getShards().stream().mapToLong(TwitterStreamShard::getReceivedCount).sum();
+        assertEquals(received.sum(), shardTotal);
+    }
+
+    @Test
+    public void stalledShardIsReconnectedWhileOthersKeepStreaming() throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        // first connection of shard 0 stalls, every later connection emits
+        shardedTwitterStream = shardedTwitterStream(2,
+                () -> FakeTwitterStream.create(connections.getAndIncrement() == 0 ? 0 : 500, "Java"));
+        shardedTwitterStream.start();
+        TwitterStreamShard stalled = shardedTwitterStream.getShards().get(0);
+        TwitterStreamShard healthy = shardedTwitterStream.getShards().get(1);
+
+        Thread.sleep(100);
+        assertEquals(0, stalled.getReceivedCount());
+        assertTrue(healthy.getReceivedCount() > 0);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stalled.getReceivedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, stalled.getReconnectCount());
+        assertTrue(stalled.getReceivedCount() > 0);
+        assertEquals(0, healthy.getReconnectCount());
+    }
+
+    @Test
+    public void newKeywordsAreFilteredOnTheOpenConnections() throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        shardedTwitterStream = shardedTwitterStream(2, () -> {
+            connections.incrementAndGet();
+            return FakeTwitterStream.create(500, "Java");
+        });
+        shardedTwitterStream.start();
+        Thread.sleep(100);
+
+        shardedTwitterStream.updateKeywords(List.of("Java", "Kafka", "Docker"));
+        long receivedAtUpdate = received.sum();
+        Thread.sleep(100);
+
+        TwitterStreamShard first = shardedTwitterStream.getShards().get(0);
+        TwitterStreamShard second = shardedTwitterStream.getShards().get(1);
+        assertArrayEquals(new String[]{"Java", "Docker"}, first.getKeywords());
+        assertArrayEquals(new String[]{"Kafka"}, second.getKeywords());
+        assertEquals(2, connections.get());
+        assertEquals(0, first.getReconnectCount() + second.getReconnectCount());
+        assertTrue(received.sum() > receivedAtUpdate);
+
+        // fewer keywords than shards, the shards share them
+        shardedTwitterStream.updateKeywords(List.of("Spring"));
+        assertArrayEquals(new String[]{"Spring"}, first.getKeywords());
+        assertArrayEquals(new String[]{"Spring"}, second.getKeywords());
+    }
+
+    @Test
+    public void resumeKeepsTheReconnectBackoff() throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        shardedTwitterStream = shardedTwitterStream(2, () -> {
+            connections.incrementAndGet();
+            return FakeTwitterStream.create(0, "Java");
+        }, 500L);
+        shardedTwitterStream.start();
+        assertEquals(2, connections.get());
+
+        // within the back off of the first connections, resume leaves the shards to the monitor
+        shardedTwitterStream.pause();
+        shardedTwitterStream.resume();
+        assertEquals(2, connections.get());
+        for (TwitterStreamShard shard : shardedTwitterStream.getShards()) {
+            assertEquals(TwitterStreamShard.State.PAUSED, shard.getState());
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (connections.get() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(4, connections.get());
+
+        // the silent connections doubled the back off, another pause and resume does not reconnect
+        shardedTwitterStream.pause();
+        shardedTwitterStream.resume();
+        Thread.sleep(300);
+        assertEquals(4, connections.get());
+    }
+
+    private ShardedTwitterStream shardedTwitterStream(int shardCount, Supplier<TwitterStream> factory) {
+        return shardedTwitterStream(shardCount, factory, 50L);
+    }
+
+    private ShardedTwitterStream shardedTwitterStream(int shardCount, Supplier<TwitterStream> factory,
+                                                      long reconnectBackoffMs) {
+        TwitterStreamConfigData configData = new TwitterStreamConfigData();
+        configData.setShardCount(shardCount);
+        configData.setStallTimeoutMs(200L);
+        configData.setHealthCheckIntervalMs(20L);
+        configData.setReconnectBackoffMs(reconnectBackoffMs);
+        configData.setMaxReconnectBackoffMs(reconnectBackoffMs * 8);
+        ExecutorConfigData executorConfigData = new ExecutorConfigData();
+        executorConfigData.setMode("PLATFORM");
+        executorConfigData.setQueueCapacity(16);
+        executorConfigData.setShutdownTimeoutMs(1000L);
+        ShardedTwitterStream stream = new ShardedTwitterStream(configData, KEYWORDS, index -> factory.get(), listener,
+                new TwitterExecutors(executorConfigData, new SimpleMeterRegistry()));
+        stream.registerMeters(new SimpleMeterRegistry());
+        return stream;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ouz.microservices.twitter2kafka.service.transformer;
+
+import com.ouz.microservices.kafka.avro.model.TweetLanguage;
+import com.ouz.microservices.kafka.avro.model.TwitterAvroModel;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwitterStatusToAvroTransformerTest {
+
+    /**
+     * record header + two longs + four references, plus the createdAt Instant. 128 bytes leaves room
+     * for alignment differences between jvms but fails as soon as anything is rendered per tweet.
+     */
+    private static final long ALLOCATION_BUDGET_PER_TWEET = 128;
+
+    private static final int STATUS_COUNT = 1_000;
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    private final TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+
+    @Test
+    public void mapsStatusFields() throws TwitterException {
+        Status status = createStatus(42L);
+
+        TwitterAvroModel model = transformer.getTwitterAvroModelFromStatus(status);
+
+        assertEquals(420L, model.getUserId());
+        assertEquals(42L, model.getId());
+        assertEquals("tweet number 42 about Java", model.getText());
+        assertEquals(status.getCreatedAt().toInstant(), model.getCreatedAt());
+        assertEquals(TweetLanguage.TR, model.getLang());
+    }
+
+    @Test
+    public void unknownOrMissingLanguageIsUnd() {
+        assertEquals(TweetLanguage.UND, TwitterStatusToAvroTransformer.toLanguage(null));
+        assertEquals(TweetLanguage.UND, TwitterStatusToAvroTransformer.toLanguage("und"));
+        assertEquals(TweetLanguage.UND, TwitterStatusToAvroTransformer.toLanguage("xx"));
+        assertEquals(TweetLanguage.EN, TwitterStatusToAvroTransformer.toLanguage("en"));
+    }
+
+    @Test
+    public void steadyStateAllocationStaysWithinBudget() throws TwitterException {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assumptions.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        Status[] statuses = new Status[STATUS_COUNT];
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            statuses[i] = createStatus(i);
+        }
+        // results are kept in a preallocated array so the jit can not remove the mapping
+        TwitterAvroModel[] sink = new TwitterAvroModel[STATUS_COUNT];
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink[i % STATUS_COUNT] = transformer.getTwitterAvroModelFromStatus(statuses[i % STATUS_COUNT]);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink[i % STATUS_COUNT] = transformer.getTwitterAvroModelFromStatus(statuses[i % STATUS_COUNT]);
+        }
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+        long bytesPerTweet = (after - before) / MEASURED_ITERATIONS;
+        assertTrue(bytesPerTweet <= ALLOCATION_BUDGET_PER_TWEET,
+                "Allocated " + bytesPerTweet + " bytes per tweet, budget is " + ALLOCATION_BUDGET_PER_TWEET);
+    }
+
+    private Status createStatus(long id) throws TwitterException {
+        return TwitterObjectFactory.createStatus("{" +
+                "\"created_at\":\"Mon Mar 07 10:15:30 +0000 2022\"," +
+                "\"id\":" + id + "," +
+                "\"text\":\"tweet number " + id + " about Java\"," +
+                "\"lang\":\"tr\"," +
+                "\"user\":{\"id\":" + (id * 10) + "}" +
+                "}");
+    }
+}